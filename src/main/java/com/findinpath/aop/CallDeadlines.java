@@ -0,0 +1,115 @@
+package com.findinpath.aop;
+
+import com.findinpath.concurrent.HashedTimerWheel;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.util.Assert;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+/**
+ * Settings of the deadlines of the asynchronous repository method calls, enforced by the
+ * {@link RepositoryTimerAspect}.
+ *
+ * A hung query would otherwise never get timed until it fails, while its callers stack up. The
+ * future returned to the caller of a method having a deadline gets completed exceptionally with
+ * a {@link DeadlineExceededException} once the deadline has elapsed, without blocking any thread,
+ * and the call gets timed with the {@link Outcome#TIMEOUT} outcome. The deadline of a method is,
+ * from the most specific to the least specific setting:
+ *
+ * <ol>
+ *   <li>the deadline for the <code>Class.method</code> key</li>
+ *   <li>the deadline for the <code>Class</code> key</li>
+ *   <li>the deadline of the {@link Deadline} annotation of the method</li>
+ *   <li>the deadline of the {@link Deadline} annotation of the repository class</li>
+ * </ol>
+ *
+ * The class names are the repository class names as used for the &quot;class&quot; metric tag.
+ * Only the methods returning a {@link org.springframework.util.concurrent.ListenableFuture} get
+ * deadlines.
+ *
+ * The deadlines of all the calls are tracked by a single {@link HashedTimerWheel}, so that a call
+ * pays only for the allocation of its timeout instead of a scheduler task. The calls completing
+ * after their deadline are counted, tagged with the repository class and method names and with
+ * the outcome of the late completion, on the {@link #LATE_COMPLETIONS_METRIC_NAME} counter.
+ */
+public class CallDeadlines {
+
+  public static final String LATE_COMPLETIONS_METRIC_NAME = "repository.late";
+
+  private final MeterRegistry meterRegistry;
+  private final Map<String, Duration> deadlines;
+  private final HashedTimerWheel timerWheel;
+
+  /**
+   * @param meterRegistry the registry where the late completions are counted
+   * @param deadlines the deadlines keyed by the repository class name or by the repository class
+   * and method names joined by a dot, besides the ones specified through the {@link Deadline}
+   * annotation
+   * @param tickDuration the precision of the deadlines
+   * @param ticksPerWheel the number of buckets of the timer wheel
+   */
+  public CallDeadlines(MeterRegistry meterRegistry, Map<String, Duration> deadlines,
+      Duration tickDuration, int ticksPerWheel) {
+    deadlines.values().forEach(deadline -> Assert.isTrue(
+        !deadline.isNegative() && !deadline.isZero(), "The deadlines must be positive"));
+    this.meterRegistry = meterRegistry;
+    this.deadlines = Map.copyOf(deadlines);
+    this.timerWheel = new HashedTimerWheel("repository-deadlines", tickDuration, ticksPerWheel);
+  }
+
+  /**
+   * @param className the repository class name (as used for the &quot;class&quot; metric tag)
+   * @param method the repository method
+   * @return the deadline of the calls of the method or <code>null</code> in case that the calls
+   * of the method have no deadline
+   */
+  public Duration resolve(String className, Method method) {
+    if (MethodTimers.ReturnKind.of(method.getReturnType())
+        != MethodTimers.ReturnKind.LISTENABLE_FUTURE
+        || !method.getReturnType().isAssignableFrom(SettableListenableFuture.class)) {
+      return null;
+    }
+    var deadline = deadlines.get(className + "." + method.getName());
+    if (deadline == null) {
+      deadline = deadlines.get(className);
+    }
+    if (deadline == null) {
+      var annotation = AnnotatedElementUtils.findMergedAnnotation(method, Deadline.class);
+      if (annotation == null) {
+        annotation = AnnotatedElementUtils
+            .findMergedAnnotation(method.getDeclaringClass(), Deadline.class);
+      }
+      if (annotation != null) {
+        deadline = DurationStyle.detectAndParse(annotation.value());
+        Assert.isTrue(!deadline.isNegative() && !deadline.isZero(), "The deadline of "
+            + className + "." + method.getName() + " must be positive: " + annotation.value());
+      }
+    }
+    return deadline;
+  }
+
+  /**
+   * Stops the timer thread.
+   */
+  public void shutdown() {
+    timerWheel.shutdown();
+  }
+
+  /**
+   * @param className the repository class name (as used for the &quot;class&quot; metric tag)
+   * @param method the repository method
+   * @return the deadline of the method calls or <code>null</code> in case that the calls of the
+   * method have no deadline
+   */
+  MethodDeadline getDeadline(String className, Method method) {
+    var deadline = resolve(className, method);
+    if (deadline == null) {
+      return null;
+    }
+    return new MethodDeadline(meterRegistry, className, method.getName(), deadline, timerWheel);
+  }
+}
@@ -0,0 +1,46 @@
+package com.findinpath.aop;
+
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.Host;
+import com.datastax.driver.core.LatencyTracker;
+import com.datastax.driver.core.Statement;
+
+/**
+ * Splits the duration of the timed repository method calls into the time spent by the Cassandra
+ * driver, the time spent mapping the rows to entities and, for the asynchronous calls, the delay
+ * until the completion callbacks get run, so that e.g. : a regression in the entity mapping can
+ * be told apart from a slow cluster.
+ *
+ * The phases get published by the {@link RepositoryTimerAspect} on the
+ * {@link RepositoryTimerAspect#REPOSITORY_PHASE_METRIC_NAME} timers, tagged with the repository
+ * class and method which caused them, when this tracker is:
+ *
+ * <ul>
+ *   <li>registered on the Cassandra {@link Cluster} (see {@link Cluster#register(LatencyTracker)})
+ *   for getting the driver latencies of the statements</li>
+ *   <li>passed to the {@link RepositoryTimerAspect}</li>
+ * </ul>
+ *
+ * and when the Cassandra templates used by the repositories get created with a session wrapped
+ * through {@link StatementCapture#capturing(com.datastax.driver.core.Session)} (linking the
+ * executed statements to the repository calls) and with a
+ * {@link TimedMappingCassandraConverter}.
+ */
+public class CallPhaseTracker implements LatencyTracker {
+
+  @Override
+  public void update(Host host, Statement statement, Exception exception, long newLatencyNanos) {
+    var phases = CallPhases.of(statement);
+    if (phases != null) {
+      phases.addDriverNanos(newLatencyNanos);
+    }
+  }
+
+  @Override
+  public void onRegister(Cluster cluster) {
+  }
+
+  @Override
+  public void onUnregister(Cluster cluster) {
+  }
+}
@@ -0,0 +1,205 @@
+package com.findinpath.aop;
+
+import io.micrometer.core.instrument.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accumulates the durations of the phases of a timed repository method call (see
+ * {@link CallPhaseTracker}):
+ *
+ * <ul>
+ *   <li>the time spent by the Cassandra driver executing the statements of the call</li>
+ *   <li>the time spent mapping the rows to entities</li>
+ *   <li>for the asynchronous calls, the delay between the moment when the results are ready and
+ *   the moment when the completion callbacks of the call get run</li>
+ * </ul>
+ *
+ * The call is linked to the thread executing it and to the statements which it executes, so
+ * that the driver latencies (reported on the driver threads, along with the statement) and the
+ * mappings (done on the thread completing the driver future for the asynchronous calls) can be
+ * attributed to it.
+ *
+ * Once completed, the call doesn't get linked anymore to further statements, so that the
+ * statements executed late on behalf of a call completed from another thread (e.g. : on the
+ * expiry of its deadline or on its cancellation) don't get tracked forever.
+ */
+final class CallPhases {
+
+  private static final ThreadLocal<CallPhases> CURRENT = new ThreadLocal<>();
+
+  /**
+   * The calls in progress, by the (identity of the) statements which they have executed. The
+   * driver statements don't override {@link Object#equals(Object)}.
+   */
+  private static final ConcurrentMap<Object, CallPhases> STATEMENTS = new ConcurrentHashMap<>();
+
+  private final Clock clock;
+  private final AtomicLong driverNanos = new AtomicLong();
+  private final AtomicLong mappingNanos = new AtomicLong();
+  private final List<Object> statements = new ArrayList<>(1);
+  private volatile long resultReadyNanos;
+  /**
+   * Guarded by <code>statements</code>.
+   */
+  private boolean completed;
+
+  CallPhases(Clock clock) {
+    this.clock = clock;
+    this.resultReadyNanos = clock.monotonicTime();
+  }
+
+  /**
+   * @return the call being executed on the current thread or <code>null</code>
+   */
+  static CallPhases current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Links the specified call to the current thread.
+   *
+   * @param phases the call
+   * @return the call previously linked to the current thread, to be restored through
+   * {@link #exit(CallPhases)}
+   */
+  static CallPhases enter(CallPhases phases) {
+    var previous = CURRENT.get();
+    CURRENT.set(phases);
+    return previous;
+  }
+
+  static void exit(CallPhases previous) {
+    if (previous == null) {
+      CURRENT.remove();
+    } else {
+      CURRENT.set(previous);
+    }
+  }
+
+  /**
+   * @param statement a statement executed by the driver
+   * @return the call which executed the statement or <code>null</code>
+   */
+  static CallPhases of(Object statement) {
+    return STATEMENTS.get(statement);
+  }
+
+  /**
+   * Links the specified statement to this call, unless the call has already completed.
+   */
+  void link(Object statement) {
+    synchronized (statements) {
+      if (completed) {
+        return;
+      }
+      statements.add(statement);
+      STATEMENTS.put(statement, this);
+    }
+  }
+
+  boolean isCompleted() {
+    synchronized (statements) {
+      return completed;
+    }
+  }
+
+  /**
+   * Marks the driver results of the call as ready, unless the call has already completed.
+   */
+  void driverCompleted() {
+    if (!isCompleted()) {
+      resultReadyNanos = clock.monotonicTime();
+    }
+  }
+
+  /**
+   * Wraps a listener of the driver future of a statement executed by this call, so that the
+   * listener, which maps the driver results (see {@link TimedMappingCassandraConverter}), runs
+   * with the call linked to its thread. The call gets unlinked from the thread as soon as the
+   * listener is done.
+   *
+   * @param listener the listener
+   * @return the wrapped listener
+   */
+  Runnable wrapDriverListener(Runnable listener) {
+    return () -> {
+      if (isCompleted()) {
+        listener.run();
+        return;
+      }
+      driverCompleted();
+      var previous = enter(this);
+      try {
+        listener.run();
+      } finally {
+        exit(previous);
+      }
+    };
+  }
+
+  void addDriverNanos(long nanos) {
+    driverNanos.addAndGet(nanos);
+  }
+
+  long startMapping() {
+    return clock.monotonicTime();
+  }
+
+  void stopMapping(long startNanos) {
+    var now = clock.monotonicTime();
+    mappingNanos.addAndGet(now - startNanos);
+    resultReadyNanos = now;
+  }
+
+  long getDriverNanos() {
+    return driverNanos.get();
+  }
+
+  long getMappingNanos() {
+    return mappingNanos.get();
+  }
+
+  /**
+   * @return the delay since the results of the call are ready (driver results mapped)
+   */
+  long getCallbackDelayNanos() {
+    return clock.monotonicTime() - resultReadyNanos;
+  }
+
+  /**
+   * Unlinks the completed call from its statements and from the current thread.
+   */
+  void complete() {
+    synchronized (statements) {
+      completed = true;
+      statements.forEach(STATEMENTS::remove);
+      statements.clear();
+    }
+    if (CURRENT.get() == this) {
+      CURRENT.remove();
+    }
+  }
+
+  /**
+   * The phases of a repository method call, as published on the &quot;phase&quot; metric tag.
+   */
+  enum Phase {
+    DRIVER("driver"),
+    MAPPING("mapping"),
+    CALLBACK("callback");
+
+    private final String tagValue;
+
+    Phase(String tagValue) {
+      this.tagValue = tagValue;
+    }
+
+    String getTagValue() {
+      return tagValue;
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package com.findinpath.aop;
+
+import org.springframework.dao.TransientDataAccessResourceException;
+
+/**
+ * Signals that an asynchronous repository method call has been rejected because the number of
+ * calls in flight on the repository has reached its limit (see {@link ConcurrencyLimits}).
+ *
+ * Retrying the call later on may succeed, reason why this is a transient data access exception.
+ */
+public class ConcurrencyLimitExceededException extends TransientDataAccessResourceException {
+
+  public ConcurrencyLimitExceededException(String msg) {
+    super(msg);
+  }
+}
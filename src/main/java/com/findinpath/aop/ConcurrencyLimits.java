@@ -0,0 +1,107 @@
+package com.findinpath.aop;
+
+import com.findinpath.concurrent.AimdConcurrencyLimiter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Settings and holder of the adaptive limits of the asynchronous repository method calls in
+ * flight, applied by the {@link RepositoryTimerAspect}.
+ *
+ * The asynchronous methods (returning {@link org.springframework.util.concurrent.ListenableFuture}
+ * or {@link java.util.concurrent.CompletionStage}) let the callers fire an unbounded number of
+ * concurrent requests, which, during spikes, overloads the connection pool of the Cassandra
+ * driver. Each of the repositories gets therefor its own {@link AimdConcurrencyLimiter}, shared
+ * by all its asynchronous methods, whose limit adapts to the latency of the calls. The calls over
+ * the limit fail right away with a {@link ConcurrencyLimitExceededException}: waiting for a call
+ * in flight to complete would block the calling thread, which the asynchronous methods are meant
+ * to leave free.
+ *
+ * The limiters get created only for the repositories having asynchronous methods, on the first
+ * call (or warm up) of one of them. The state of the limiters gets published, tagged with the
+ * repository class name, on the {@link #IN_FLIGHT_METRIC_NAME}, {@link #LIMIT_METRIC_NAME} gauges
+ * and on the {@link #REJECTIONS_METRIC_NAME} counter.
+ */
+public class ConcurrencyLimits {
+
+  public static final String IN_FLIGHT_METRIC_NAME = "repository.concurrency.in.flight";
+
+  public static final String LIMIT_METRIC_NAME = "repository.concurrency.limit";
+
+  public static final String REJECTIONS_METRIC_NAME = "repository.concurrency.rejections";
+
+  private final MeterRegistry meterRegistry;
+  private final int initialLimit;
+  private final int minLimit;
+  private final int maxLimit;
+  private final Duration latencyThreshold;
+  private final double backoffRatio;
+  private final ConcurrentMap<String, AimdConcurrencyLimiter> limiters =
+      new ConcurrentHashMap<>();
+
+  /**
+   * @param meterRegistry the registry where the state of the limiters is published
+   * @param initialLimit the initial limit of the calls in flight of each repository
+   * @param minLimit the minimum limit
+   * @param maxLimit the maximum limit
+   * @param latencyThreshold the latency of the calls above which the limit gets decreased
+   * @param backoffRatio the ratio by which the limit gets multiplied when decreased
+   * @see AimdConcurrencyLimiter
+   */
+  public ConcurrencyLimits(MeterRegistry meterRegistry, int initialLimit, int minLimit,
+      int maxLimit, Duration latencyThreshold, double backoffRatio) {
+    this.meterRegistry = meterRegistry;
+    this.initialLimit = initialLimit;
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.latencyThreshold = latencyThreshold;
+    this.backoffRatio = backoffRatio;
+  }
+
+  /**
+   * @param className the repository class name (as used for the &quot;class&quot; metric tag)
+   * @param method the repository method
+   * @return the limiter of the repository or <code>null</code> in case that the calls of the
+   * method are not limited, not being asynchronous
+   */
+  AimdConcurrencyLimiter getLimiter(String className, Method method) {
+    var returnKind = MethodTimers.ReturnKind.of(method.getReturnType());
+    if (returnKind != MethodTimers.ReturnKind.LISTENABLE_FUTURE
+        && returnKind != MethodTimers.ReturnKind.COMPLETION_STAGE) {
+      return null;
+    }
+    return getLimiter(className);
+  }
+
+  /**
+   * @param className the repository class name (as used for the &quot;class&quot; metric tag)
+   * @return the limiter of the repository
+   */
+  public AimdConcurrencyLimiter getLimiter(String className) {
+    var limiter = limiters.get(className);
+    if (limiter == null) {
+      limiter = limiters.computeIfAbsent(className, this::createLimiter);
+    }
+    return limiter;
+  }
+
+  private AimdConcurrencyLimiter createLimiter(String className) {
+    var limiter = new AimdConcurrencyLimiter(meterRegistry.config().clock(), initialLimit,
+        minLimit, maxLimit, latencyThreshold, backoffRatio, Duration.ZERO);
+    Gauge.builder(IN_FLIGHT_METRIC_NAME, limiter, AimdConcurrencyLimiter::getInFlight)
+        .tags("class", className)
+        .register(meterRegistry);
+    Gauge.builder(LIMIT_METRIC_NAME, limiter, AimdConcurrencyLimiter::getLimit)
+        .tags("class", className)
+        .register(meterRegistry);
+    FunctionCounter.builder(REJECTIONS_METRIC_NAME, limiter, AimdConcurrencyLimiter::getRejections)
+        .tags("class", className)
+        .register(meterRegistry);
+    return limiter;
+  }
+}
@@ -0,0 +1,24 @@
+package com.findinpath.aop;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Specifies the deadline of the calls of the asynchronous methods of a repository (or of all
+ * the asynchronous methods of the annotated repository class), enforced when
+ * <code>repository.deadlines.enabled</code> is set to <code>true</code> (see
+ * {@link CallDeadlines}).
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface Deadline {
+
+  /**
+   * @return the deadline (e.g. : <code>"2s"</code>)
+   */
+  String value();
+}
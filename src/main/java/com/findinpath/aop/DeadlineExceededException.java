@@ -0,0 +1,17 @@
+package com.findinpath.aop;
+
+import org.springframework.dao.QueryTimeoutException;
+
+/**
+ * Signals that an asynchronous repository method call hasn't completed within its deadline (see
+ * {@link CallDeadlines}).
+ *
+ * The call itself may still complete later on, in which case its completion gets counted as a
+ * late completion.
+ */
+public class DeadlineExceededException extends QueryTimeoutException {
+
+  public DeadlineExceededException(String msg) {
+    super(msg);
+  }
+}
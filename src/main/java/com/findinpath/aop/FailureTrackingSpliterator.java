@@ -0,0 +1,93 @@
+package com.findinpath.aop;
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * {@link Spliterator} remembering the first failure of the source of a stream returned by a
+ * repository method (e.g. : a timed out fetch of the next page of rows), so that the stream can be
+ * timed with the outcome of its source once it gets closed.
+ *
+ * The failures of the downstream operations of the stream (e.g. : of a mapping function of the
+ * caller) are not failures of the repository call, reason why they are not remembered.
+ *
+ * @param <T> the type of the elements
+ */
+final class FailureTrackingSpliterator<T> implements Spliterator<T> {
+
+  private final Spliterator<T> source;
+  private final AtomicReference<Throwable> failure;
+  private boolean downstreamFailed;
+
+  FailureTrackingSpliterator(Spliterator<T> source, AtomicReference<Throwable> failure) {
+    this.source = source;
+    this.failure = failure;
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super T> action) {
+    try {
+      return source.tryAdvance(downstream(action));
+    } catch (RuntimeException | Error ex) {
+      onFailure(ex);
+      throw ex;
+    }
+  }
+
+  @Override
+  public void forEachRemaining(Consumer<? super T> action) {
+    try {
+      source.forEachRemaining(downstream(action));
+    } catch (RuntimeException | Error ex) {
+      onFailure(ex);
+      throw ex;
+    }
+  }
+
+  @Override
+  public Spliterator<T> trySplit() {
+    var split = source.trySplit();
+    return split == null ? null : new FailureTrackingSpliterator<>(split, failure);
+  }
+
+  @Override
+  public long estimateSize() {
+    return source.estimateSize();
+  }
+
+  @Override
+  public long getExactSizeIfKnown() {
+    return source.getExactSizeIfKnown();
+  }
+
+  @Override
+  public int characteristics() {
+    return source.characteristics();
+  }
+
+  @Override
+  public Comparator<? super T> getComparator() {
+    return source.getComparator();
+  }
+
+  private Consumer<T> downstream(Consumer<? super T> action) {
+    return element -> {
+      try {
+        action.accept(element);
+      } catch (RuntimeException | Error ex) {
+        downstreamFailed = true;
+        throw ex;
+      }
+    };
+  }
+
+  private void onFailure(Throwable ex) {
+    if (downstreamFailed) {
+      downstreamFailed = false;
+    } else {
+      failure.compareAndSet(null, ex);
+    }
+  }
+}
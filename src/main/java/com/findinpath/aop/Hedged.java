@@ -0,0 +1,25 @@
+package com.findinpath.aop;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the idempotent read methods of a repository (or all the methods of the annotated
+ * repository class) whose calls get hedged, when <code>repository.hedging.enabled</code> is set
+ * to <code>true</code>, by a second speculative attempt in case that the first attempt doesn't
+ * complete within the hedge delay (see {@link HedgedReads}).
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface Hedged {
+
+  /**
+   * @return the fixed hedge delay (e.g. : <code>"20ms"</code>) or empty for the delay derived out
+   * of the observed latency of the method
+   */
+  String delay() default "";
+}
@@ -0,0 +1,169 @@
+package com.findinpath.aop;
+
+import com.findinpath.concurrent.AimdConcurrencyLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.util.Assert;
+
+/**
+ * Settings of the hedging of the idempotent repository read calls, applied by the
+ * {@link RepositoryTimerAspect}.
+ *
+ * The tail latency of the reads comes mostly from occasional slow replicas. For the hedged
+ * methods, when the first attempt of a call hasn't completed within the hedge delay, a second
+ * speculative attempt is sent and the call completes with the first of the attempts which
+ * succeeds (the other attempt being cancelled, when possible). The hedge delay is, from the most
+ * specific to the least specific setting:
+ *
+ * <ol>
+ *   <li>the fixed delay for the <code>Class.method</code> or <code>Class</code> key</li>
+ *   <li>the fixed delay of the {@link Hedged} annotation</li>
+ *   <li>the percentile (e.g. : p95) of the latency of the successful calls of the method, as
+ *   observed by its repository timer, which therefor needs to publish the percentile (see
+ *   {@link TimerDistributions}). The percentile is refreshed at most once per second.</li>
+ * </ol>
+ *
+ * The delay is capped between the minimum and the maximum delay, so that a degraded latency
+ * distribution doesn't either flood the database with hedges or postpone them indefinitely. The
+ * hedges themselves are capped by a budget, which grows by the maximum ratio of hedges with each
+ * call, so that the hedging doesn't amplify the load when the database is overloaded.
+ *
+ * The hedged methods are the {@link org.springframework.util.concurrent.ListenableFuture}
+ * repository methods annotated with {@link Hedged} (or declared by a repository class annotated
+ * with it), along with the ones specified by the repository class name (as used for the
+ * &quot;class&quot; metric tag) or by the repository class and method names joined by a dot. The
+ * synchronous methods are not hedged, as their attempts would need threads of their own. The
+ * hedges are sent from the hedging timer thread, reason why the phases of the hedged calls are
+ * not tracked (see {@link CallPhaseTracker}). In case that the calls in flight of the repository
+ * are limited (see {@link ConcurrencyLimits}), the hedges are charged against the limit as well
+ * and are not sent while the limit is reached.
+ *
+ * The number of hedges sent and of hedges completing before the first attempt are published,
+ * tagged with the repository class and method names, on the {@link #HEDGES_SENT_METRIC_NAME}
+ * and {@link #HEDGES_WON_METRIC_NAME} counters.
+ */
+public class HedgedReads {
+
+  public static final String HEDGES_SENT_METRIC_NAME = "repository.hedges.sent";
+
+  public static final String HEDGES_WON_METRIC_NAME = "repository.hedges.won";
+
+  private final MeterRegistry meterRegistry;
+  private final Set<String> methods;
+  private final Map<String, Duration> delays;
+  private final double percentile;
+  private final Duration minDelay;
+  private final Duration maxDelay;
+  private final double maxRatio;
+  private final ScheduledThreadPoolExecutor scheduler;
+
+  /**
+   * @param meterRegistry the registry where the hedges are counted
+   * @param methods the keys of the hedged methods besides the ones annotated with {@link Hedged}
+   * @param delays the fixed hedge delays keyed by the repository class name or by the repository
+   * class and method names joined by a dot, whose methods get hedged as well
+   * @param percentile the percentile of the observed latency used as hedge delay
+   * @param minDelay the minimum hedge delay
+   * @param maxDelay the maximum hedge delay
+   * @param maxRatio the maximum ratio of the calls which get hedged
+   */
+  public HedgedReads(MeterRegistry meterRegistry, Collection<String> methods,
+      Map<String, Duration> delays, double percentile, Duration minDelay, Duration maxDelay,
+      double maxRatio) {
+    Assert.isTrue(percentile > 0 && percentile < 1, "The percentile must be within (0, 1)");
+    Assert.isTrue(minDelay.compareTo(maxDelay) <= 0,
+        "The minimum delay must not exceed the maximum delay");
+    Assert.isTrue(maxRatio >= 0 && maxRatio <= 1, "The maximum ratio must be within [0, 1]");
+    this.meterRegistry = meterRegistry;
+    this.methods = Set.copyOf(methods);
+    this.delays = Map.copyOf(delays);
+    this.percentile = percentile;
+    this.minDelay = minDelay;
+    this.maxDelay = maxDelay;
+    this.maxRatio = maxRatio;
+    this.scheduler = new ScheduledThreadPoolExecutor(1, threadFactory("repository-hedging-timer"));
+    this.scheduler.setRemoveOnCancelPolicy(true);
+  }
+
+  /**
+   * @param className the repository class name (as used for the &quot;class&quot; metric tag)
+   * @param method the repository method
+   * @return whether the calls of the method get hedged
+   */
+  public boolean isHedged(String className, Method method) {
+    if (MethodTimers.ReturnKind.of(method.getReturnType())
+        != MethodTimers.ReturnKind.LISTENABLE_FUTURE) {
+      return false;
+    }
+    var methodKey = className + "." + method.getName();
+    return methods.contains(methodKey) || delays.containsKey(methodKey)
+        || methods.contains(className) || delays.containsKey(className)
+        || AnnotatedElementUtils.hasAnnotation(method, Hedged.class)
+        || AnnotatedElementUtils.hasAnnotation(method.getDeclaringClass(), Hedged.class);
+  }
+
+  /**
+   * Stops the hedging timer thread.
+   */
+  public void shutdown() {
+    scheduler.shutdownNow();
+  }
+
+  /**
+   * @param className the repository class name (as used for the &quot;class&quot; metric tag)
+   * @param method the repository method
+   * @param successfulTimer supplier of the timer of the successful calls of the method, or of
+   * <code>null</code> while the timer is not registered yet
+   * @param concurrencyLimiter the limiter of the calls in flight of the repository, charged with
+   * the hedges as well, or <code>null</code> in case that the calls are not limited
+   * @return the hedging of the method calls or <code>null</code> in case that the calls of the
+   * method are not hedged
+   */
+  MethodHedging getHedging(String className, Method method, Supplier<Timer> successfulTimer,
+      AimdConcurrencyLimiter concurrencyLimiter) {
+    if (!isHedged(className, method)) {
+      return null;
+    }
+    return new MethodHedging(meterRegistry, className, method, resolveFixedDelay(className,
+        method), percentile, minDelay, maxDelay, maxRatio, successfulTimer, scheduler,
+        concurrencyLimiter);
+  }
+
+  private Duration resolveFixedDelay(String className, Method method) {
+    var delay = delays.get(className + "." + method.getName());
+    if (delay == null) {
+      delay = delays.get(className);
+    }
+    if (delay == null) {
+      var annotation = AnnotatedElementUtils.findMergedAnnotation(method, Hedged.class);
+      if (annotation == null) {
+        annotation = AnnotatedElementUtils
+            .findMergedAnnotation(method.getDeclaringClass(), Hedged.class);
+      }
+      if (annotation != null && !annotation.delay().isEmpty()) {
+        delay = DurationStyle.detectAndParse(annotation.delay());
+      }
+    }
+    return delay;
+  }
+
+  private static ThreadFactory threadFactory(String namePrefix) {
+    var threadCount = new AtomicInteger();
+    return runnable -> {
+      var thread = new Thread(runnable, namePrefix + "-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
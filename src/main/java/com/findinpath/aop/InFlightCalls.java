@@ -0,0 +1,124 @@
+package com.findinpath.aop;
+
+import io.micrometer.core.instrument.Counter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureAdapter;
+
+/**
+ * The calls in flight of a collapsed repository method (see {@link SingleFlights}), keyed by the
+ * repository instance and the arguments of the call.
+ *
+ * The lists, sets and maps returned by the method are shared by the leader and the followers as
+ * unmodifiable views (see {@link #share(Object)}), so that none of the callers can modify the
+ * result seen by the others.
+ */
+final class InFlightCalls {
+
+  private final ConcurrentMap<List<Object>, CompletableFuture<Object>> flights =
+      new ConcurrentHashMap<>();
+  private final Counter collapsedCounter;
+  private final Class<?> resultType;
+  private final boolean viewsShared;
+
+  /**
+   * @param collapsedCounter the counter of the collapsed calls
+   * @param resultType the (resolved) type of the results returned by the method or
+   * <code>null</code> in case that it is not known
+   */
+  InFlightCalls(Counter collapsedCounter, Class<?> resultType) {
+    this.collapsedCounter = collapsedCounter;
+    this.resultType = resultType;
+    this.viewsShared = resultType != null && resultType != Object.class
+        && (resultType.isAssignableFrom(List.class) || resultType.isAssignableFrom(Set.class)
+        || resultType.isAssignableFrom(Map.class));
+  }
+
+  static List<Object> key(Object target, Object[] args) {
+    var key = new Object[args.length + 1];
+    key[0] = target;
+    System.arraycopy(args, 0, key, 1, args.length);
+    return Arrays.asList(key);
+  }
+
+  /**
+   * Registers the specified flight as the one of the call, unless an identical call is already in
+   * flight.
+   *
+   * @param key the key of the call (see {@link #key(Object, Object[])})
+   * @param flight the flight led by the call, to be completed through
+   * {@link #land(List, CompletableFuture, Object, Throwable)}
+   * @return the flight of the identical call which the call follows or <code>null</code> in case
+   * that the call leads the specified flight
+   */
+  CompletableFuture<Object> join(List<Object> key, CompletableFuture<Object> flight) {
+    var inFlight = flights.putIfAbsent(key, flight);
+    if (inFlight != null) {
+      collapsedCounter.increment();
+    }
+    return inFlight;
+  }
+
+  /**
+   * Wraps the result of a leader call, which gets shared with its followers, into an unmodifiable
+   * view in case that it is a list, a set or a map and that the declared result type of the
+   * method allows it.
+   *
+   * @param result the result of the leader call
+   * @return the result to be returned to the leader and to the followers
+   */
+  Object share(Object result) {
+    if (!viewsShared) {
+      return result;
+    } else if (result instanceof List && resultType.isAssignableFrom(List.class)) {
+      return Collections.unmodifiableList((List<?>) result);
+    } else if (result instanceof Set && resultType.isAssignableFrom(Set.class)) {
+      return Collections.unmodifiableSet((Set<?>) result);
+    } else if (result instanceof Map && resultType.isAssignableFrom(Map.class)) {
+      return Collections.unmodifiableMap((Map<?, ?>) result);
+    }
+    return result;
+  }
+
+  /**
+   * @param asyncResult the future of the result of a leader call
+   * @return the future of the result to be returned to the leader (see {@link #share(Object)})
+   */
+  @SuppressWarnings("unchecked")
+  ListenableFuture<?> share(ListenableFuture<?> asyncResult) {
+    if (!viewsShared) {
+      return asyncResult;
+    }
+    return new ListenableFutureAdapter<Object, Object>((ListenableFuture<Object>) asyncResult) {
+      @Override
+      protected Object adapt(Object result) {
+        return share(result);
+      }
+    };
+  }
+
+  /**
+   * Completes the flight led by a call, with the outcome of the call.
+   *
+   * @param key the key of the call
+   * @param flight the flight led by the call
+   * @param result the result of the call
+   * @param ex the exception with which the call failed or <code>null</code>
+   */
+  void land(List<Object> key, CompletableFuture<Object> flight, Object result, Throwable ex) {
+    // the calls arriving from now on lead a new flight
+    flights.remove(key, flight);
+    if (ex == null) {
+      flight.complete(result);
+    } else {
+      flight.completeExceptionally(ex);
+    }
+  }
+}
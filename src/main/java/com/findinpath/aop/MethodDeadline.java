@@ -0,0 +1,91 @@
+package com.findinpath.aop;
+
+import com.findinpath.concurrent.HashedTimerWheel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+/**
+ * Deadline of the asynchronous calls of a repository method (see {@link CallDeadlines}).
+ */
+final class MethodDeadline {
+
+  private static final Outcome[] OUTCOMES = Outcome.values();
+
+  private final MeterRegistry meterRegistry;
+  private final String className;
+  private final String methodName;
+  private final Duration deadline;
+  private final long deadlineNanos;
+  private final HashedTimerWheel timerWheel;
+  private final AtomicReferenceArray<Counter> lateCounters =
+      new AtomicReferenceArray<>(OUTCOMES.length);
+
+  MethodDeadline(MeterRegistry meterRegistry, String className, String methodName,
+      Duration deadline, HashedTimerWheel timerWheel) {
+    this.meterRegistry = meterRegistry;
+    this.className = className;
+    this.methodName = methodName;
+    this.deadline = deadline;
+    this.deadlineNanos = deadline.toNanos();
+    this.timerWheel = timerWheel;
+  }
+
+  /**
+   * Bounds the call by the deadline.
+   *
+   * @param call the future returned by the call
+   * @return the future completed with the outcome of the call or, once the deadline has elapsed,
+   * with a {@link DeadlineExceededException}
+   */
+  ListenableFuture<Object> apply(ListenableFuture<Object> call) {
+    if (call.isDone()) {
+      return call;
+    }
+    var result = new SettableListenableFuture<Object>();
+    var timeout = timerWheel.schedule(() -> result.setException(new DeadlineExceededException(
+        "The call of " + className + "." + methodName + " has exceeded its deadline of "
+            + deadline)), deadlineNanos, TimeUnit.NANOSECONDS);
+    call.addCallback(
+        value -> {
+          timeout.cancel();
+          if (!result.set(value) && timeout.isExpired()) {
+            countLate(Outcome.SUCCESSFUL);
+          }
+        },
+        ex -> {
+          timeout.cancel();
+          if (!result.setException(ex) && timeout.isExpired()) {
+            countLate(Outcome.of(ex));
+          }
+        });
+    // the expiry of the deadline doesn't cancel the call, only the caller does
+    result.addCallback(value -> {
+    }, ex -> {
+      if (result.isCancelled()) {
+        timeout.cancel();
+        call.cancel(true);
+      }
+    });
+    return result;
+  }
+
+  private void countLate(Outcome outcome) {
+    var index = outcome.ordinal();
+    var counter = lateCounters.get(index);
+    if (counter == null) {
+      // concurrent registrations of the same counter yield the same instance
+      counter = Counter.builder(CallDeadlines.LATE_COMPLETIONS_METRIC_NAME)
+          .tags("class", className)
+          .tags("method", methodName)
+          .tags("outcome", outcome.getTagValue())
+          .register(meterRegistry);
+      lateCounters.set(index, counter);
+    }
+    counter.increment();
+  }
+}
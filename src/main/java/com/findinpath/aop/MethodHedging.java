@@ -0,0 +1,280 @@
+package com.findinpath.aop;
+
+import com.findinpath.concurrent.AimdConcurrencyLimiter;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+/**
+ * Hedging of the calls of a repository method (see {@link HedgedReads}).
+ */
+final class MethodHedging {
+
+  private static final long REFRESH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  /**
+   * The budget of hedges is kept in thousandths of hedge.
+   */
+  private static final long HEDGE_COST = 1000;
+
+  /**
+   * The maximum number of hedges which can be sent in a burst.
+   */
+  private static final long MAX_BUDGET = 10 * HEDGE_COST;
+
+  private final Clock clock;
+  private final Long fixedDelayNanos;
+  private final double percentile;
+  private final long minDelayNanos;
+  private final long maxDelayNanos;
+  private final long budgetPerCall;
+  private final Supplier<Timer> successfulTimer;
+  private final ScheduledExecutorService scheduler;
+  private final AimdConcurrencyLimiter concurrencyLimiter;
+  private final Counter sentCounter;
+  private final Counter wonCounter;
+  private final AtomicLong budget = new AtomicLong();
+  private volatile long delayNanos;
+  private volatile long delayRefreshNanos;
+  private volatile boolean delayResolved;
+
+  MethodHedging(MeterRegistry meterRegistry, String className, Method method,
+      Duration fixedDelay, double percentile, Duration minDelay, Duration maxDelay,
+      double maxRatio, Supplier<Timer> successfulTimer, ScheduledExecutorService scheduler,
+      AimdConcurrencyLimiter concurrencyLimiter) {
+    this.clock = meterRegistry.config().clock();
+    this.fixedDelayNanos = fixedDelay == null ? null : fixedDelay.toNanos();
+    this.percentile = percentile;
+    this.minDelayNanos = minDelay.toNanos();
+    this.maxDelayNanos = maxDelay.toNanos();
+    this.budgetPerCall = Math.round(maxRatio * HEDGE_COST);
+    this.successfulTimer = successfulTimer;
+    this.scheduler = scheduler;
+    this.concurrencyLimiter = concurrencyLimiter;
+    this.sentCounter = Counter.builder(HedgedReads.HEDGES_SENT_METRIC_NAME)
+        .tags("class", className)
+        .tags("method", method.getName())
+        .register(meterRegistry);
+    this.wonCounter = Counter.builder(HedgedReads.HEDGES_WON_METRIC_NAME)
+        .tags("class", className)
+        .tags("method", method.getName())
+        .register(meterRegistry);
+  }
+
+  /**
+   * Proceeds with the method call, hedged by a second attempt in case that the first attempt
+   * doesn't complete within the hedge delay.
+   *
+   * @param proceedingJoinPoint the join point of the call
+   * @return the future of the result of the first successful attempt
+   * @throws Throwable the failure of the first attempt, in case that it fails right away
+   */
+  @SuppressWarnings("unchecked")
+  Object proceed(ProceedingJoinPoint proceedingJoinPoint) throws Throwable {
+    budget.accumulateAndGet(budgetPerCall, (current, added) -> Math.min(current + added,
+        MAX_BUDGET));
+    var first = (ListenableFuture<Object>) proceedingJoinPoint.proceed();
+    if (first == null || first.isDone()) {
+      return first;
+    }
+
+    var call = new HedgedCall(first);
+    call.hedgeTimer = scheduler.schedule(() -> sendHedge(proceedingJoinPoint, call),
+        getDelayNanos(), TimeUnit.NANOSECONDS);
+    call.track(first, false);
+    return call.result;
+  }
+
+  /**
+   * @return the current hedge delay, capped between the minimum and the maximum delay
+   */
+  long getDelayNanos() {
+    if (fixedDelayNanos != null) {
+      return cap(fixedDelayNanos);
+    }
+    var now = clock.monotonicTime();
+    if (!delayResolved || now - delayRefreshNanos >= REFRESH_INTERVAL_NANOS) {
+      delayRefreshNanos = now;
+      delayNanos = cap(observedDelayNanos());
+      delayResolved = true;
+    }
+    return delayNanos;
+  }
+
+  /**
+   * @return the observed percentile of the latency of the successful calls or the maximum delay
+   * in case that it is not known (yet)
+   */
+  private long observedDelayNanos() {
+    var timer = successfulTimer.get();
+    if (timer == null || timer.count() == 0) {
+      return maxDelayNanos;
+    }
+    for (var percentileValue : timer.takeSnapshot().percentileValues()) {
+      if (Math.abs(percentileValue.percentile() - percentile) < 1e-9) {
+        return (long) percentileValue.value(TimeUnit.NANOSECONDS);
+      }
+    }
+    return maxDelayNanos;
+  }
+
+  private long cap(long delayNanos) {
+    return Math.max(minDelayNanos, Math.min(maxDelayNanos, delayNanos));
+  }
+
+  private boolean tryAcquireHedge() {
+    while (true) {
+      var current = budget.get();
+      if (current < HEDGE_COST) {
+        return false;
+      }
+      if (budget.compareAndSet(current, current - HEDGE_COST)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Sends the hedge of the call, in case that the call is still in flight and that both the
+   * budget of hedges and the limit of the calls in flight of the repository (if any) allow it.
+   */
+  @SuppressWarnings("unchecked")
+  private void sendHedge(ProceedingJoinPoint proceedingJoinPoint, HedgedCall call) {
+    if (call.result.isDone() || !call.tryAddAttempt()) {
+      // the call has already completed or all its attempts have already failed
+      return;
+    }
+    if (!tryAcquireHedge()) {
+      call.abandonAttempt();
+      return;
+    }
+    AimdConcurrencyLimiter.Permit permit = null;
+    if (concurrencyLimiter != null) {
+      permit = concurrencyLimiter.tryAcquireNow();
+      if (permit == null) {
+        // the hedge is not sent, reason why it is given back to the budget
+        budget.accumulateAndGet(HEDGE_COST, (current, added) -> Math.min(current + added,
+            MAX_BUDGET));
+        call.abandonAttempt();
+        return;
+      }
+    }
+    sentCounter.increment();
+    ListenableFuture<Object> hedge;
+    try {
+      hedge = (ListenableFuture<Object>) proceedingJoinPoint.proceed();
+    } catch (Throwable ex) {
+      release(permit, Outcome.of(ex));
+      call.onFailure(ex);
+      return;
+    }
+    if (permit != null) {
+      var hedgePermit = permit;
+      hedge.addCallback(value -> release(hedgePermit, Outcome.SUCCESSFUL),
+          ex -> release(hedgePermit, Outcome.of(ex)));
+    }
+    call.hedge = hedge;
+    call.track(hedge, true);
+  }
+
+  private static void release(AimdConcurrencyLimiter.Permit permit, Outcome outcome) {
+    if (permit != null) {
+      // the cancellations of the losing hedges are not a sign of overload
+      permit.release(outcome == Outcome.FAILED || outcome == Outcome.TIMEOUT);
+    }
+  }
+
+  /**
+   * Call made of the first attempt and, possibly, of a hedge.
+   */
+  private final class HedgedCall {
+
+    private final SettableListenableFuture<Object> result = new SettableListenableFuture<>();
+    private final AtomicInteger pendingAttempts = new AtomicInteger(1);
+    private final ListenableFuture<Object> first;
+    private volatile ListenableFuture<Object> hedge;
+    private volatile ScheduledFuture<?> hedgeTimer;
+    private volatile Throwable failure;
+
+    private HedgedCall(ListenableFuture<Object> first) {
+      this.first = first;
+      result.addCallback(value -> {
+      }, ex -> {
+        if (result.isCancelled()) {
+          cancelAttempts();
+        }
+      });
+    }
+
+    void track(ListenableFuture<Object> attempt, boolean isHedge) {
+      attempt.addCallback(value -> {
+        if (result.set(value)) {
+          if (isHedge) {
+            wonCounter.increment();
+          }
+          cancelAttempts();
+        }
+      }, this::onFailure);
+    }
+
+    void onFailure(Throwable ex) {
+      failure = ex;
+      // the call fails only when all its attempts failed
+      if (pendingAttempts.decrementAndGet() == 0) {
+        result.setException(ex);
+      }
+    }
+
+    /**
+     * Adds a pending attempt to the call, unless all the attempts of the call have already
+     * failed, in which case the call has already failed as well.
+     *
+     * @return whether the attempt has been added
+     */
+    boolean tryAddAttempt() {
+      while (true) {
+        var pending = pendingAttempts.get();
+        if (pending == 0) {
+          return false;
+        }
+        if (pendingAttempts.compareAndSet(pending, pending + 1)) {
+          return true;
+        }
+      }
+    }
+
+    /**
+     * Removes the attempt added but not sent, failing the call with the failure of the first
+     * attempt in case that it failed in the meantime.
+     */
+    void abandonAttempt() {
+      if (pendingAttempts.decrementAndGet() == 0) {
+        result.setException(failure);
+      }
+    }
+
+    private void cancelAttempts() {
+      var timer = hedgeTimer;
+      if (timer != null) {
+        timer.cancel(false);
+      }
+      first.cancel(true);
+      var currentHedge = hedge;
+      if (currentHedge != null) {
+        currentHedge.cancel(true);
+      }
+    }
+  }
+}
@@ -0,0 +1,120 @@
+package com.findinpath.aop;
+
+import static com.findinpath.aop.RepositoryTimerAspect.REPOSITORY_CALLS_METRIC_NAME;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides which of the successful calls of a repository method get recorded (see
+ * {@link TimingSampling}) and counts exactly all the calls of the method, per {@link Outcome}.
+ *
+ * The decision for the sampled out calls does neither read the clock nor touch any state shared
+ * among the threads. In the adaptive mode, the call rate of the method is computed once per
+ * second, by one of the sampled calls, out of the exact call counters.
+ */
+final class MethodSampler {
+
+  private static final Outcome[] OUTCOMES = Outcome.values();
+
+  private static final long RATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final MeterRegistry meterRegistry;
+  private final String className;
+  private final String methodName;
+  private final int rate;
+  private final long callsPerSecondThreshold;
+  private final Clock clock;
+  private final AtomicReferenceArray<LongAdder> calls =
+      new AtomicReferenceArray<>(OUTCOMES.length);
+
+  private final AtomicLong windowStartNanos;
+  private volatile long windowStartCalls;
+  private volatile boolean throttled;
+
+  MethodSampler(MeterRegistry meterRegistry, String className, String methodName,
+      TimingSampling sampling) {
+    this.meterRegistry = meterRegistry;
+    this.className = className;
+    this.methodName = methodName;
+    this.rate = sampling.getRate();
+    this.callsPerSecondThreshold = sampling.getMode() == TimingSampling.Mode.ADAPTIVE
+        ? sampling.getCallsPerSecondThreshold() : 0;
+    this.clock = meterRegistry.config().clock();
+    this.windowStartNanos = new AtomicLong(clock.monotonicTime());
+  }
+
+  /**
+   * @return whether the current call of the method is to be timed
+   */
+  boolean isSampled() {
+    var selected = rate == 1 || ThreadLocalRandom.current().nextInt(rate) == 0;
+    if (callsPerSecondThreshold == 0) {
+      return selected;
+    }
+    if (selected) {
+      updateCallRate();
+      return true;
+    }
+    return !throttled;
+  }
+
+  /**
+   * Counts a completed call of the method.
+   *
+   * @param outcome the outcome of the call
+   */
+  void count(Outcome outcome) {
+    var index = outcome.ordinal();
+    var counter = calls.get(index);
+    if (counter == null) {
+      counter = registerCounter(index, outcome);
+    }
+    counter.increment();
+  }
+
+  private void updateCallRate() {
+    var windowStart = windowStartNanos.get();
+    var now = clock.monotonicTime();
+    var elapsed = now - windowStart;
+    // only one of the threads crossing the end of the window computes the call rate
+    if (elapsed >= RATE_WINDOW_NANOS && windowStartNanos.compareAndSet(windowStart, now)) {
+      var totalCalls = sumCalls();
+      var windowCalls = totalCalls - windowStartCalls;
+      windowStartCalls = totalCalls;
+      throttled = windowCalls * (double) RATE_WINDOW_NANOS / elapsed > callsPerSecondThreshold;
+    }
+  }
+
+  private long sumCalls() {
+    var sum = 0L;
+    for (int i = 0; i < OUTCOMES.length; i++) {
+      var counter = calls.get(i);
+      if (counter != null) {
+        sum += counter.sum();
+      }
+    }
+    return sum;
+  }
+
+  private LongAdder registerCounter(int index, Outcome outcome) {
+    var counter = new LongAdder();
+    if (!calls.compareAndSet(index, null, counter)) {
+      return calls.get(index);
+    }
+    FunctionCounter
+        .builder(REPOSITORY_CALLS_METRIC_NAME, counter, LongAdder::doubleValue)
+        .tags("class", className)
+        .tags("method", methodName)
+        .tags("successful", Boolean.toString(outcome.isSuccessful()))
+        .tags("outcome", outcome.getTagValue())
+        .register(meterRegistry);
+    return counter;
+  }
+}
@@ -0,0 +1,496 @@
+package com.findinpath.aop;
+
+import static com.findinpath.aop.RepositoryTimerAspect.REPOSITORY_METRIC_NAME;
+import static com.findinpath.aop.RepositoryTimerAspect.REPOSITORY_PAYLOAD_METRIC_NAME;
+import static com.findinpath.aop.RepositoryTimerAspect.REPOSITORY_PHASE_METRIC_NAME;
+import static com.findinpath.aop.RepositoryTimerAspect.REPOSITORY_RESULTS_METRIC_NAME;
+import static com.findinpath.aop.RepositoryTimerAspect.REPOSITORY_ROWS_METRIC_NAME;
+
+import com.findinpath.concurrent.AimdConcurrencyLimiter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.BaseStream;
+import org.aspectj.lang.JoinPoint;
+import org.springframework.core.ResolvableType;
+import org.springframework.util.concurrent.ListenableFuture;
+
+/**
+ * Holder for the timers of a repository method, one for each of the possible {@link Outcome}s
+ * and {@link Source}s of the method calls.
+ *
+ * Each of the timers gets registered lazily, on the first call having the corresponding
+ * outcome, in order to avoid publishing empty timers for the failed calls, unless they get
+ * registered at startup (see {@link RepositoryWarmUp}).
+ *
+ * The way in which the method calls get timed (see {@link ReturnKind}) and the distribution
+ * statistics of the timers (see {@link TimerDistributions}) are resolved as well only once, when
+ * creating the holder. The same goes for the parameter annotated with
+ * {@link RowCount}, if any, and whether the cardinality of the method results can be recorded
+ * (see {@link PayloadSizes}).
+ *
+ * When the calls are sampled (see {@link TimingSampling}), only the sampled successful calls get
+ * recorded on their timers, while the calls of the other outcomes get always recorded.
+ *
+ * When the phases of the calls are tracked (see {@link CallPhaseTracker}), the durations of the
+ * phases of the timed successful calls get published as well.
+ *
+ * For the hot methods (see {@link StripedTimers}), the calls get recorded on
+ * {@link StripedTimer}s instead of the regular Micrometer timers.
+ */
+final class MethodTimers {
+
+  private static final Outcome[] OUTCOMES = Outcome.values();
+  private static final Source[] SOURCES = Source.values();
+  private static final CallPhases.Phase[] PHASES = CallPhases.Phase.values();
+
+  private final MeterRegistry meterRegistry;
+  private final String className;
+  private final String methodName;
+  private final ReturnKind returnKind;
+  private final AtomicReferenceArray<Timer> timers =
+      new AtomicReferenceArray<>(OUTCOMES.length * SOURCES.length);
+  private final int rowCountParameterIndex;
+  private final DistributionSummary rowCountSummary;
+  private final MethodSampler sampler;
+  private final DistributionStatisticConfig distribution;
+  private final SlowCallBuffer slowCalls;
+  private final boolean resultsRecorded;
+  private volatile DistributionSummary resultsSummary;
+  private volatile DistributionSummary payloadSummary;
+  private final boolean phasesTracked;
+  private final AtomicReferenceArray<Timer> phaseTimers =
+      new AtomicReferenceArray<>(PHASES.length);
+  private final AimdConcurrencyLimiter concurrencyLimiter;
+  private final InFlightCalls inFlightCalls;
+  private final MethodHedging hedging;
+  private final MethodDeadline deadline;
+  private final StripedTimers stripedTimers;
+
+  MethodTimers(MeterRegistry meterRegistry, String className, Method method,
+      TimingSampling sampling, DistributionStatisticConfig distribution,
+      SlowCallBuffer slowCalls, boolean phasesTracked,
+      AimdConcurrencyLimiter concurrencyLimiter, InFlightCalls inFlightCalls,
+      HedgedReads hedgedReads, CallDeadlines callDeadlines, StripedTimers stripedTimers) {
+    this.meterRegistry = meterRegistry;
+    this.className = className;
+    this.methodName = method.getName();
+    this.returnKind = ReturnKind.of(method.getReturnType());
+    this.rowCountParameterIndex = findRowCountParameterIndex(method);
+    this.rowCountSummary = rowCountParameterIndex < 0 ? null : DistributionSummary
+        .builder(REPOSITORY_ROWS_METRIC_NAME)
+        .tags("class", className)
+        .tags("method", methodName)
+        .register(meterRegistry);
+    this.sampler = sampling.getMode() == TimingSampling.Mode.NONE ? null
+        : new MethodSampler(meterRegistry, className, methodName, sampling);
+    this.distribution = distribution;
+    this.slowCalls = slowCalls;
+    this.resultsRecorded = PayloadSizes.isSized(resolveResultType(method, returnKind));
+    this.concurrencyLimiter = concurrencyLimiter;
+    this.hedging = hedgedReads == null ? null : hedgedReads.getHedging(className, method,
+        () -> timers.get(timerIndex(Outcome.SUCCESSFUL, Source.DATABASE)),
+        this.concurrencyLimiter);
+    // the hedges are not linked to the phases of the calling thread
+    this.phasesTracked = phasesTracked && hedging == null;
+    this.inFlightCalls = inFlightCalls;
+    this.deadline = callDeadlines == null ? null : callDeadlines.getDeadline(className, method);
+    this.stripedTimers = stripedTimers != null && stripedTimers.isStriped(className, method)
+        ? stripedTimers : null;
+  }
+
+  String getClassName() {
+    return className;
+  }
+
+  String getMethodName() {
+    return methodName;
+  }
+
+  ReturnKind getReturnKind() {
+    return returnKind;
+  }
+
+  /**
+   * @return the limiter of the calls in flight or <code>null</code> in case that the calls of
+   * the method are not limited (see {@link ConcurrencyLimits})
+   */
+  AimdConcurrencyLimiter getConcurrencyLimiter() {
+    return concurrencyLimiter;
+  }
+
+  /**
+   * @return the calls in flight or <code>null</code> in case that the concurrent identical calls
+   * of the method are not collapsed (see {@link SingleFlights})
+   */
+  InFlightCalls getInFlightCalls() {
+    return inFlightCalls;
+  }
+
+  /**
+   * @return the hedging of the calls or <code>null</code> in case that the calls of the method
+   * are not hedged (see {@link HedgedReads})
+   */
+  MethodHedging getHedging() {
+    return hedging;
+  }
+
+  /**
+   * @return the deadline of the calls or <code>null</code> in case that the calls of the method
+   * have no deadline (see {@link CallDeadlines})
+   */
+  MethodDeadline getDeadline() {
+    return deadline;
+  }
+
+  Timer get(Outcome outcome) {
+    return get(outcome, Source.DATABASE);
+  }
+
+  Timer get(Outcome outcome, Source source) {
+    var index = timerIndex(outcome, source);
+    var timer = timers.get(index);
+    if (timer == null) {
+      if (stripedTimers != null) {
+        // the striped timers are shared by the methods having the same meter id
+        timer = stripedTimers.getTimer(meterRegistry, REPOSITORY_METRIC_NAME,
+            timerTags(outcome, source), distribution);
+        timers.set(index, timer);
+      } else {
+        // concurrent registrations of the same timer yield the same instance
+        timer = registerTimer(outcome, source);
+        timers.set(index, timer);
+      }
+    }
+    return timer;
+  }
+
+  /**
+   * Registers, ahead of the first calls of the method, the timers of the expected outcomes (see
+   * {@link ReturnKind#getExpectedOutcomes()}) of the calls served by the repository itself, along
+   * with the timers of their phases and the summaries of their results.
+   */
+  void registerTimers() {
+    for (var outcome : returnKind.getExpectedOutcomes()) {
+      get(outcome);
+    }
+    if (resultsRecorded) {
+      registerResultSummaries();
+    }
+    if (phasesTracked) {
+      getPhaseTimer(CallPhases.Phase.DRIVER);
+      getPhaseTimer(CallPhases.Phase.MAPPING);
+      if (returnKind == ReturnKind.LISTENABLE_FUTURE
+          || returnKind == ReturnKind.COMPLETION_STAGE) {
+        getPhaseTimer(CallPhases.Phase.CALLBACK);
+      }
+    }
+  }
+
+  private static int timerIndex(Outcome outcome, Source source) {
+    return source.ordinal() * OUTCOMES.length + outcome.ordinal();
+  }
+
+  /**
+   * Starts timing a call of the method. All the calls get started, because whether a call is
+   * recorded on its timer is known only once its outcome is known (see
+   * {@link #stop(Timer.Sample, Outcome, JoinPoint, Object, CallPhases)}).
+   *
+   * @return the started sample
+   */
+  Timer.Sample start() {
+    return Timer.start();
+  }
+
+  /**
+   * Starts tracking the phases of a sampled call of the method.
+   *
+   * @param sample the sample returned by {@link #start()}
+   * @return the phases of the call or <code>null</code> in case that the phases of the call are
+   * not tracked
+   */
+  CallPhases startPhases(Timer.Sample sample) {
+    return phasesTracked && sample != null && isSampled()
+        ? new CallPhases(meterRegistry.config().clock()) : null;
+  }
+
+  private boolean isSampled() {
+    return sampler == null || sampler.isSampled();
+  }
+
+  /**
+   * @return whether a call having the specified outcome is to be recorded on its timer: the
+   * failed calls (of any outcome other than successful) are always recorded, so that their
+   * latency stays visible regardless of the sampling
+   */
+  private boolean isRecorded(Outcome outcome) {
+    return !outcome.isSuccessful() || isSampled();
+  }
+
+  /**
+   * Stops timing a call of the method, recording it on its timer in case that it is sampled or
+   * that it hasn't been successful.
+   *
+   * @param sample the sample returned by {@link #start()}
+   * @param outcome the outcome of the call
+   * @param joinPoint the join point of the call, out of which the arguments of the call are
+   * retrieved only in case that the call is captured as slow call
+   * @param statement the statement returned by {@link #takeStatement()}
+   * @param phases the phases returned by {@link #startPhases(Timer.Sample)}
+   */
+  void stop(Timer.Sample sample, Outcome outcome, JoinPoint joinPoint, Object statement,
+      CallPhases phases) {
+    if (sampler != null) {
+      sampler.count(outcome);
+    }
+    if (phases != null) {
+      stopPhases(phases, outcome);
+    }
+    if (sample != null && isRecorded(outcome)) {
+      var durationNanos = sample.stop(get(outcome));
+      if (slowCalls != null && slowCalls.isCaptured(durationNanos)) {
+        slowCalls.record(durationNanos, outcome, joinPoint.getArgs(), statement);
+      }
+    }
+  }
+
+  /**
+   * Stops timing a call of the method which hasn't been served by the repository itself (e.g. :
+   * a call following an identical call in flight).
+   *
+   * @param sample the sample returned by {@link #start()}
+   * @param outcome the outcome of the call
+   * @param source the source out of which the call has been served
+   */
+  void stop(Timer.Sample sample, Outcome outcome, Source source) {
+    if (sampler != null) {
+      sampler.count(outcome);
+    }
+    if (sample != null && isRecorded(outcome)) {
+      sample.stop(get(outcome, source));
+    }
+  }
+
+  private void stopPhases(CallPhases phases, Outcome outcome) {
+    if (outcome == Outcome.SUCCESSFUL) {
+      getPhaseTimer(CallPhases.Phase.DRIVER)
+          .record(phases.getDriverNanos(), TimeUnit.NANOSECONDS);
+      getPhaseTimer(CallPhases.Phase.MAPPING)
+          .record(phases.getMappingNanos(), TimeUnit.NANOSECONDS);
+      if (returnKind == ReturnKind.LISTENABLE_FUTURE
+          || returnKind == ReturnKind.COMPLETION_STAGE) {
+        getPhaseTimer(CallPhases.Phase.CALLBACK)
+            .record(phases.getCallbackDelayNanos(), TimeUnit.NANOSECONDS);
+      }
+    }
+    phases.complete();
+  }
+
+  private Timer getPhaseTimer(CallPhases.Phase phase) {
+    var timer = phaseTimers.get(phase.ordinal());
+    if (timer == null) {
+      var builder = Timer
+          .builder(REPOSITORY_PHASE_METRIC_NAME)
+          .tags("class", className)
+          .tags("method", methodName)
+          .tags("phase", phase.getTagValue());
+      // concurrent registrations of the same timer yield the same instance
+      timer = TimerDistributions.apply(builder, distribution).register(meterRegistry);
+      phaseTimers.set(phase.ordinal(), timer);
+    }
+    return timer;
+  }
+
+  /**
+   * Forgets the statement executed on the calling thread before the start of the call of the
+   * method, in case that the slow calls are captured.
+   *
+   * @see StatementCapture
+   */
+  void clearStatement() {
+    if (slowCalls != null) {
+      StatementCapture.clear();
+    }
+  }
+
+  /**
+   * Takes the statement executed by the call of the method on the calling thread, if any, in
+   * case that the slow calls are captured.
+   *
+   * @return the statement or <code>null</code>
+   * @see StatementCapture
+   */
+  Object takeStatement() {
+    return slowCalls == null ? null : StatementCapture.take();
+  }
+
+  boolean isRowCountRecorded() {
+    return rowCountSummary != null;
+  }
+
+  /**
+   * Records the number of rows written by the method call.
+   *
+   * @param args the arguments of the method call
+   */
+  void recordRowCount(Object[] args) {
+    var rows = args[rowCountParameterIndex];
+    if (rows instanceof Collection) {
+      rowCountSummary.record(((Collection<?>) rows).size());
+    }
+  }
+
+  boolean isResultRecorded() {
+    return resultsRecorded;
+  }
+
+  /**
+   * Records the cardinality and the estimated payload size of the result of a successful method
+   * call. Only the sampled calls get their result recorded, so that the sampled out calls don't
+   * pay for the estimation of the payload size. The results which can't be inspected without
+   * consuming them (see {@link PayloadSizes#isCountable(Object)}) are not recorded.
+   *
+   * @param result the result of the method call (already completed for the asynchronous calls)
+   */
+  void recordResult(Object result) {
+    if (PayloadSizes.isCountable(result) && isSampled()) {
+      if (resultsSummary == null) {
+        registerResultSummaries();
+      }
+      resultsSummary.record(PayloadSizes.count(result));
+      payloadSummary.record(PayloadSizes.estimate(result));
+    }
+  }
+
+  /**
+   * Registers the summaries of the results lazily, so that the methods returning only results
+   * which can't be inspected (e.g. : driver result sets) don't publish empty summaries.
+   */
+  private void registerResultSummaries() {
+    // concurrent registrations of the same summaries yield the same instances
+    payloadSummary = DistributionSummary
+        .builder(REPOSITORY_PAYLOAD_METRIC_NAME)
+        .baseUnit("bytes")
+        .tags("class", className)
+        .tags("method", methodName)
+        .register(meterRegistry);
+    resultsSummary = DistributionSummary
+        .builder(REPOSITORY_RESULTS_METRIC_NAME)
+        .baseUnit("rows")
+        .tags("class", className)
+        .tags("method", methodName)
+        .register(meterRegistry);
+  }
+
+  /**
+   * Resolves the type of the results returned by the method, out of the generic type of the
+   * futures for the asynchronous methods.
+   */
+  static Class<?> resolveResultType(Method method, ReturnKind returnKind) {
+    switch (returnKind) {
+      case SYNCHRONOUS:
+        return method.getReturnType();
+      case LISTENABLE_FUTURE:
+        return ResolvableType.forMethodReturnType(method).as(ListenableFuture.class)
+            .resolveGeneric(0);
+      case COMPLETION_STAGE:
+        return ResolvableType.forMethodReturnType(method).as(CompletionStage.class)
+            .resolveGeneric(0);
+      default:
+        return null;
+    }
+  }
+
+  private static int findRowCountParameterIndex(Method method) {
+    var parameterAnnotations = method.getParameterAnnotations();
+    for (int i = 0; i < parameterAnnotations.length; i++) {
+      for (var annotation : parameterAnnotations[i]) {
+        if (annotation instanceof RowCount) {
+          return i;
+        }
+      }
+    }
+    return -1;
+  }
+
+  private Timer registerTimer(Outcome outcome, Source source) {
+    var builder = Timer
+        .builder(REPOSITORY_METRIC_NAME)
+        .tags(timerTags(outcome, source));
+    return TimerDistributions.apply(builder, distribution).register(meterRegistry);
+  }
+
+  private Tags timerTags(Outcome outcome, Source source) {
+    return Tags.of(
+        "class", className,
+        "method", methodName,
+        "successful", Boolean.toString(outcome.isSuccessful()),
+        "outcome", outcome.getTagValue(),
+        "source", source.getTagValue());
+  }
+
+  /**
+   * The kinds of repository method return types which need to be timed differently.
+   */
+  enum ReturnKind {
+    /**
+     * The duration of the method call is measured.
+     */
+    SYNCHRONOUS(Outcome.SUCCESSFUL, Outcome.FAILED),
+    /**
+     * The duration until the completion of the returned {@link ListenableFuture} is measured.
+     */
+    LISTENABLE_FUTURE(Outcome.values()),
+    /**
+     * The duration until the completion of the returned {@link CompletionStage} (e.g. :
+     * {@link java.util.concurrent.CompletableFuture}) is measured.
+     */
+    COMPLETION_STAGE(Outcome.values()),
+    /**
+     * The duration between the subscription and the termination or the cancellation of the
+     * returned reactor publisher is measured.
+     */
+    REACTIVE(Outcome.SUCCESSFUL, Outcome.FAILED, Outcome.CANCELLED),
+    /**
+     * The duration until the returned (lazily fetched) {@link java.util.stream.Stream} gets
+     * closed is measured. The streams which are never closed are not measured.
+     */
+    STREAM(Outcome.SUCCESSFUL, Outcome.FAILED);
+
+    private final Outcome[] expectedOutcomes;
+
+    ReturnKind(Outcome... expectedOutcomes) {
+      this.expectedOutcomes = expectedOutcomes;
+    }
+
+    /**
+     * @return the outcomes which the calls are expected to have, i.e. : the cancellations and the
+     * deadlines apply only to the asynchronous results. The other outcomes (e.g. : a synchronous
+     * call timed out by the driver) still get timed, on timers registered on their first
+     * occurrence.
+     */
+    Outcome[] getExpectedOutcomes() {
+      return expectedOutcomes;
+    }
+
+    static ReturnKind of(Class<?> returnType) {
+      if (ListenableFuture.class.isAssignableFrom(returnType)) {
+        return LISTENABLE_FUTURE;
+      } else if (CompletionStage.class.isAssignableFrom(returnType)) {
+        return COMPLETION_STAGE;
+      } else if (ReactiveTimings.isReactiveType(returnType)) {
+        return REACTIVE;
+      } else if (BaseStream.class.isAssignableFrom(returnType)) {
+        return STREAM;
+      }
+      return SYNCHRONOUS;
+    }
+  }
+}
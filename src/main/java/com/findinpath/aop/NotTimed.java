@@ -0,0 +1,21 @@
+package com.findinpath.aop;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Excludes the annotated repository class from the timing done by the
+ * {@link RepositoryTimerAspect}.
+ *
+ * Meant for the repository decorators (e.g. : caches) which record on their own the timings of
+ * the calls which they serve without delegating them to the decorated repository.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface NotTimed {
+
+}
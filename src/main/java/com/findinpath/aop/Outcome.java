@@ -0,0 +1,55 @@
+package com.findinpath.aop;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeoutException;
+import org.springframework.dao.QueryTimeoutException;
+
+/**
+ * The outcome of a repository method call, published through the &quot;outcome&quot; metric
+ * tag.
+ */
+public enum Outcome {
+  SUCCESSFUL("successful"),
+  FAILED("failed"),
+  CANCELLED("cancelled"),
+  /**
+   * The call hasn't completed within its deadline (see {@link CallDeadlines}) or has been timed
+   * out by the database driver.
+   */
+  TIMEOUT("timeout");
+
+  private final String tagValue;
+
+  Outcome(String tagValue) {
+    this.tagValue = tagValue;
+  }
+
+  /**
+   * Determines the outcome of a repository method call out of the exception with which the call
+   * has completed.
+   *
+   * @param throwable the exception thrown by the call or <code>null</code> in case that the call
+   * completed successfully
+   * @return the outcome of the call
+   */
+  public static Outcome of(Throwable throwable) {
+    if (throwable == null) {
+      return SUCCESSFUL;
+    }
+    if (throwable instanceof CancellationException) {
+      return CANCELLED;
+    }
+    if (throwable instanceof QueryTimeoutException || throwable instanceof TimeoutException) {
+      return TIMEOUT;
+    }
+    return FAILED;
+  }
+
+  public String getTagValue() {
+    return tagValue;
+  }
+
+  public boolean isSuccessful() {
+    return this == SUCCESSFUL;
+  }
+}
@@ -0,0 +1,198 @@
+package com.findinpath.aop;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Estimates the cardinality and the serialized size of the results returned by the repository
+ * methods.
+ *
+ * The size of an entity is estimated as the sum of the sizes of the values held by its fields, in
+ * their Cassandra serialized form (e.g. : 16 bytes for a <code>uuid</code>, the length of the
+ * characters for a <code>text</code>), without any protocol overhead. The estimate is meant for
+ * spotting the calls returning more (or bigger) rows than usual and not for an exact accounting.
+ *
+ * In order to keep the cost of the estimation bounded for big results, only the first
+ * {@link #SAMPLED_ELEMENTS} elements of a result get inspected and their average size gets
+ * extrapolated over all the elements. The fields of the entity classes are resolved only once
+ * per class.
+ *
+ * The methods declared as returning an {@link Iterable} (e.g. :
+ * <code>CrudRepository.findAll()</code>) usually return a collection, but only the results which
+ * are collections, maps, arrays or {@link Optional}s at runtime get inspected (see
+ * {@link #isCountable(Object)}). The other {@link Iterable}s (e.g. : a driver
+ * <code>ResultSet</code>) may be iterable only once, so that iterating them would consume the
+ * results before the caller gets to read them.
+ */
+final class PayloadSizes {
+
+  static final int SAMPLED_ELEMENTS = 16;
+
+  /**
+   * The depth of the nested objects up to which the fields get inspected.
+   */
+  private static final int MAX_DEPTH = 4;
+
+  private static final ClassValue<List<Field>> FIELDS = new ClassValue<>() {
+    @Override
+    protected List<Field> computeValue(Class<?> type) {
+      var fields = new ArrayList<Field>();
+      for (var current = type; current != null && current != Object.class;
+          current = current.getSuperclass()) {
+        for (var field : current.getDeclaredFields()) {
+          if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()
+              && field.trySetAccessible()) {
+            fields.add(field);
+          }
+        }
+      }
+      return fields;
+    }
+  };
+
+  private PayloadSizes() {
+  }
+
+  /**
+   * @param resultType the (resolved) type of the results returned by a repository method
+   * @return whether the cardinality of the results may be recorded, depending on the results
+   * returned by each of the calls (see {@link #isCountable(Object)})
+   */
+  static boolean isSized(Class<?> resultType) {
+    return resultType != null && (Iterable.class.isAssignableFrom(resultType)
+        || Map.class.isAssignableFrom(resultType) || Optional.class.isAssignableFrom(resultType)
+        || resultType.isArray());
+  }
+
+  /**
+   * @param result the result of a call of a method having a sized result type
+   * @return whether the result can be inspected without consuming it
+   */
+  static boolean isCountable(Object result) {
+    return result == null || result instanceof Collection || result instanceof Map
+        || result instanceof Optional || result.getClass().isArray();
+  }
+
+  /**
+   * @param result the result of a repository method call
+   * @return the number of elements of the result
+   */
+  static long count(Object result) {
+    if (result == null) {
+      return 0;
+    } else if (result instanceof Collection) {
+      return ((Collection<?>) result).size();
+    } else if (result instanceof Map) {
+      return ((Map<?, ?>) result).size();
+    } else if (result instanceof Optional) {
+      return ((Optional<?>) result).isPresent() ? 1 : 0;
+    } else if (result.getClass().isArray()) {
+      return Array.getLength(result);
+    }
+    return 1;
+  }
+
+  /**
+   * @param result the result of a repository method call
+   * @return the estimated serialized size, in bytes, of the result
+   */
+  static long estimate(Object result) {
+    return estimate(result, 0);
+  }
+
+  private static long estimate(Object value, int depth) {
+    if (value == null) {
+      return 0;
+    } else if (value instanceof CharSequence) {
+      return ((CharSequence) value).length();
+    } else if (value instanceof Long || value instanceof Double || value instanceof Instant
+        || value instanceof Date || value instanceof LocalTime) {
+      return 8;
+    } else if (value instanceof Integer || value instanceof Float
+        || value instanceof LocalDate) {
+      return 4;
+    } else if (value instanceof Short || value instanceof Character) {
+      return 2;
+    } else if (value instanceof Byte || value instanceof Boolean) {
+      return 1;
+    } else if (value instanceof UUID) {
+      return 16;
+    } else if (value instanceof LocalDateTime) {
+      return 12;
+    } else if (value instanceof Enum) {
+      return ((Enum<?>) value).name().length();
+    } else if (value instanceof byte[]) {
+      return ((byte[]) value).length;
+    } else if (value instanceof ByteBuffer) {
+      return ((ByteBuffer) value).remaining();
+    } else if (value instanceof Optional) {
+      return estimate(((Optional<?>) value).orElse(null), depth);
+    } else if (value instanceof Map) {
+      var map = (Map<?, ?>) value;
+      return estimateElements(map.entrySet(), map.size(), depth);
+    } else if (value instanceof Map.Entry) {
+      var entry = (Map.Entry<?, ?>) value;
+      return estimate(entry.getKey(), depth) + estimate(entry.getValue(), depth);
+    } else if (value instanceof Collection) {
+      var collection = (Collection<?>) value;
+      return estimateElements(collection, collection.size(), depth);
+    } else if (value instanceof Iterable) {
+      // the other iterables are not to be consumed
+      return 0;
+    } else if (value.getClass().isArray()) {
+      return estimateArray(value, depth);
+    }
+    return estimateFields(value, depth);
+  }
+
+  private static long estimateElements(Iterable<?> elements, long count, int depth) {
+    var sampled = 0;
+    var sampledSize = 0L;
+    for (var element : elements) {
+      if (sampled == SAMPLED_ELEMENTS) {
+        break;
+      }
+      sampledSize += estimate(element, depth + 1);
+      sampled++;
+    }
+    return sampled == 0 ? 0 : sampledSize * count / sampled;
+  }
+
+  private static long estimateArray(Object array, int depth) {
+    var length = Array.getLength(array);
+    var sampled = Math.min(length, SAMPLED_ELEMENTS);
+    var sampledSize = 0L;
+    for (int i = 0; i < sampled; i++) {
+      sampledSize += estimate(Array.get(array, i), depth + 1);
+    }
+    return sampled == 0 ? 0 : sampledSize * length / sampled;
+  }
+
+  private static long estimateFields(Object value, int depth) {
+    if (depth >= MAX_DEPTH) {
+      return 0;
+    }
+    var size = 0L;
+    for (var field : FIELDS.get(value.getClass())) {
+      try {
+        size += estimate(field.get(value), depth + 1);
+      } catch (IllegalAccessException e) {
+        // the fields which are not accessible are not accounted
+      }
+    }
+    return size;
+  }
+}
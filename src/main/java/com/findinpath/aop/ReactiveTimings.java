@@ -0,0 +1,77 @@
+package com.findinpath.aop;
+
+import org.aspectj.lang.JoinPoint;
+import org.springframework.util.ClassUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Times the reactor {@link Mono} and {@link Flux} publishers returned by the repository methods
+ * (e.g. : the methods of the
+ * {@link org.springframework.data.cassandra.repository.ReactiveCassandraRepository}).
+ *
+ * The timer starts on each subscription to the publisher and stops when the publisher completes,
+ * errors or gets cancelled.
+ *
+ * The reactor library is an optional dependency, reason why all the references to the reactor
+ * classes are isolated in the nested <code>Reactor</code> holder, which doesn't get loaded unless
+ * the reactor classes are present on the classpath.
+ */
+final class ReactiveTimings {
+
+  private static final boolean REACTOR_PRESENT = ClassUtils
+      .isPresent("reactor.core.publisher.Mono", ReactiveTimings.class.getClassLoader());
+
+  private ReactiveTimings() {
+  }
+
+  static boolean isReactiveType(Class<?> type) {
+    return REACTOR_PRESENT && Reactor.isReactiveType(type);
+  }
+
+  static Object time(Object publisher, MethodTimers methodTimers, JoinPoint joinPoint) {
+    return Reactor.time(publisher, methodTimers, joinPoint);
+  }
+
+  /**
+   * Isolates the references to the reactor classes.
+   */
+  private static final class Reactor {
+
+    private static boolean isReactiveType(Class<?> type) {
+      return Mono.class.isAssignableFrom(type) || Flux.class.isAssignableFrom(type);
+    }
+
+    private static Object time(Object publisher, MethodTimers methodTimers,
+        JoinPoint joinPoint) {
+      if (publisher instanceof Mono) {
+        var mono = (Mono<?>) publisher;
+        return Mono.defer(() -> {
+          var sample = methodTimers.start();
+          return mono.doFinally(signalType -> methodTimers
+              .stop(sample, toOutcome(signalType), joinPoint, null, null));
+        });
+      } else if (publisher instanceof Flux) {
+        var flux = (Flux<?>) publisher;
+        return Flux.defer(() -> {
+          var sample = methodTimers.start();
+          return flux.doFinally(signalType -> methodTimers
+              .stop(sample, toOutcome(signalType), joinPoint, null, null));
+        });
+      }
+      return publisher;
+    }
+
+    private static Outcome toOutcome(SignalType signalType) {
+      switch (signalType) {
+        case ON_COMPLETE:
+          return Outcome.SUCCESSFUL;
+        case CANCEL:
+          return Outcome.CANCELLED;
+        default:
+          return Outcome.FAILED;
+      }
+    }
+  }
+}
@@ -0,0 +1,121 @@
+package com.findinpath.aop;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.springframework.aop.framework.Advised;
+
+/**
+ * Resolves the name of the repository class (used for the &quot;class&quot; metric tag) out of the
+ * proxy through which a repository method is being called.
+ *
+ * The resolved name never changes for a given proxy class, reason why it is memoized, so that
+ * repeated calls only cost one map lookup instead of the inspection of the proxied interfaces.
+ *
+ * This class is shared by both the {@link RepositoryTimerAspect} and the Spring AOP
+ * {@link com.findinpath.config.RepositoryTimerConfiguration} interception styles.
+ */
+public final class RepositoryClassNames {
+
+  public static final String DEFAULT_CLASS_NAME = "Repository";
+
+  /**
+   * Marker value for the proxy classes for which the name needs to be resolved out of the
+   * target class.
+   */
+  private static final String TARGET_CLASS_NAME = new String("target");
+
+  private static final ConcurrentMap<Class<?>, String> PROXY_CLASS_NAMES =
+      new ConcurrentHashMap<>();
+
+  private static final ConcurrentMap<Class<?>, String> TARGET_CLASS_NAMES =
+      new ConcurrentHashMap<>();
+
+  private RepositoryClassNames() {
+  }
+
+  /**
+   * Retrieves the memoized repository class name for the specified proxy.
+   *
+   * @param proxy the proxy through which the repository method has been called
+   * @param target the target object of the proxy
+   * @return the repository class name
+   */
+  public static String getDeclaredClassName(Object proxy, Object target) {
+    if (proxy == null) {
+      return DEFAULT_CLASS_NAME;
+    }
+    var proxyClass = proxy.getClass();
+    var className = PROXY_CLASS_NAMES.get(proxyClass);
+    if (className == null) {
+      className = PROXY_CLASS_NAMES.computeIfAbsent(proxyClass,
+          key -> resolveProxyClassName(proxy));
+    }
+
+    // JDK proxy classes are shared among the proxies having the same interfaces
+    // so that they can't be used for identifying the target class.
+    //noinspection StringEquality
+    if (className == TARGET_CLASS_NAME) {
+      className = getTargetClassName(target);
+    }
+    return className;
+  }
+
+  /**
+   * Retrieves the memoized repository class name for a repository called directly, without any
+   * proxy (e.g. : the woven repositories).
+   *
+   * @param target the repository object
+   * @return the repository class name
+   */
+  public static String getTargetClassName(Object target) {
+    if (target == null) {
+      return DEFAULT_CLASS_NAME;
+    }
+    var targetClass = target.getClass();
+    var className = TARGET_CLASS_NAMES.get(targetClass);
+    if (className == null) {
+      className = TARGET_CLASS_NAMES.computeIfAbsent(targetClass, Class::getSimpleName);
+    }
+    return className;
+  }
+
+  /**
+   * Resolves, without any memoization, the repository class name for the specified proxy.
+   *
+   * @param proxy the proxy through which the repository method has been called
+   * @param target the target object of the proxy
+   * @return the repository class name
+   */
+  static String resolveDeclaredClassName(Object proxy, Object target) {
+    String typeName = DEFAULT_CLASS_NAME;
+    if (proxy instanceof Advised) {
+      Class<?>[] proxiedInterfaces = ((Advised) proxy).getProxiedInterfaces();
+      if (proxiedInterfaces != null && proxiedInterfaces.length > 1) {
+        // Through the Advised object, we can get the proxied
+        // interfaces using {@link Advised#getProxiedInterfaces()}
+        // In this case, the type that we look for is the first one in the list of interfaces.
+        typeName = proxiedInterfaces[0].getSimpleName();
+      } else {
+        typeName = target.getClass().getSimpleName();
+      }
+    }
+
+    return typeName;
+  }
+
+  private static String resolveProxyClassName(Object proxy) {
+    if (proxy instanceof Advised) {
+      Class<?>[] proxiedInterfaces = ((Advised) proxy).getProxiedInterfaces();
+      if (proxiedInterfaces != null && proxiedInterfaces.length > 1) {
+        return proxiedInterfaces[0].getSimpleName();
+      } else if (Proxy.isProxyClass(proxy.getClass())) {
+        return TARGET_CLASS_NAME;
+      } else {
+        // The CGLIB proxy classes are generated for each of the target classes
+        return ((Advised) proxy).getTargetClass().getSimpleName();
+      }
+    }
+    return DEFAULT_CLASS_NAME;
+  }
+}
@@ -1,18 +1,28 @@
 package com.findinpath.aop;
 
+import com.findinpath.concurrent.AimdConcurrencyLimiter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
-import java.util.Optional;
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.BaseStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import org.aspectj.lang.ProceedingJoinPoint;
-import org.aspectj.lang.Signature;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.aop.aspectj.MethodInvocationProceedingJoinPoint;
-import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
 
 /**
  * AspectJ aspect for intercepting the spring data repositories on any of the following criteria:
@@ -27,7 +37,62 @@ import org.springframework.util.concurrent.ListenableFuture;
  * published towards Micrometer's {@link MeterRegistry} as {@link Timer} information.
  *
  * There is made a distinction when emitting the metrics whether the call was successful
- * or not (through the &quot;successful&quot; metric tag).
+ * or not (through the &quot;successful&quot; metric tag) as well as on the {@link Outcome} of the
+ * call (through the &quot;outcome&quot; metric tag). The calls served by the repository itself
+ * are tagged with the {@link Source#DATABASE} &quot;source&quot; metric tag.
+ *
+ * The asynchronous methods (returning {@link ListenableFuture}, {@link CompletionStage} or reactor
+ * <code>Mono</code> / <code>Flux</code> publishers) are timed until the completion of their
+ * result. The methods returning a {@link java.util.stream.Stream} are timed until the stream gets
+ * closed, with the outcome of the first failure (if any) of the fetching of its elements. The
+ * streams which are never closed are not timed at all, reason why the callers need to close them
+ * (e.g. : through try-with-resources).
+ *
+ * The {@link Timer} instances are resolved only once per repository class and method and are
+ * subsequently reused, so that the steady state of a repository call does only need to stop the
+ * {@link Timer.Sample} on an already registered timer.
+ *
+ * For the repository methods having a parameter annotated with {@link RowCount}, the number of
+ * rows written is recorded as well (see {@link #REPOSITORY_ROWS_METRIC_NAME}).
+ *
+ * For the repository methods returning an {@link Iterable}, an {@link java.util.Optional}, an
+ * array or a future of them, the number of rows returned (see
+ * {@link #REPOSITORY_RESULTS_METRIC_NAME}) and their estimated payload size (see
+ * {@link #REPOSITORY_PAYLOAD_METRIC_NAME}) are recorded on each of the timed successful calls.
+ *
+ * Under extreme call rates, the successful calls can be sampled (see {@link TimingSampling}), in
+ * which case all the calls get counted exactly through the {@link #REPOSITORY_CALLS_METRIC_NAME}
+ * counters.
+ *
+ * The distribution statistics published by the timers (client side percentiles, histograms, SLA
+ * buckets) can be chosen per repository class or method (see {@link TimerDistributions}).
+ *
+ * The calls slower than a threshold can be captured, along with their arguments and CQL
+ * statement, for later inspection (see {@link SlowCallRecorder}).
+ *
+ * The duration of the calls can be split into driver, mapping and callback phases (see
+ * {@link CallPhaseTracker} and {@link #REPOSITORY_PHASE_METRIC_NAME}).
+ *
+ * The number of asynchronous calls in flight on each repository can be limited adaptively (see
+ * {@link ConcurrencyLimits}).
+ *
+ * The concurrent identical calls of the read methods can be collapsed into a single call (see
+ * {@link SingleFlights}).
+ *
+ * The read calls can be hedged by a speculative second attempt when their first attempt is
+ * slower than usual (see {@link HedgedReads}).
+ *
+ * The asynchronous calls can be bounded by deadlines, the calls exceeding their deadline being
+ * tagged with the {@link Outcome#TIMEOUT} outcome (see {@link CallDeadlines}).
+ *
+ * The repository classes can be woven, at compile time or at load time, instead of being proxied
+ * (see {@link WovenRepositoryTimerAspect}).
+ *
+ * The timers of the repository methods can be registered at startup, ahead of the first calls
+ * (see {@link RepositoryWarmUp}).
+ *
+ * The hot repository methods can be timed on striped timers, which don't contend under many
+ * concurrent callers (see {@link StripedTimers}).
  */
 @Aspect
 @Component
@@ -37,45 +102,140 @@ public class RepositoryTimerAspect {
 
   public static final String REPOSITORY_METRIC_NAME = "repository";
 
+  public static final String REPOSITORY_ROWS_METRIC_NAME = "repository.rows";
+
+  public static final String REPOSITORY_CALLS_METRIC_NAME = "repository.calls";
+
+  public static final String REPOSITORY_RESULTS_METRIC_NAME = "repository.results";
+
+  public static final String REPOSITORY_PAYLOAD_METRIC_NAME = "repository.payload";
+
+  public static final String REPOSITORY_PHASE_METRIC_NAME = "repository.phase";
+
+  /**
+   * The expression of the pointcut of the advised repository methods.
+   */
+  static final String REPOSITORY_POINTCUT = "(execution(public * org.springframework.data.repository.Repository+.*(..)) ||  within(@org.springframework.stereotype.Repository *)) && !within(@com.findinpath.aop.NotTimed *) && !within(com.findinpath.aop.WovenRepository+)";
+
   private final MeterRegistry meterRegistry;
+  private final TimingSampling sampling;
+  private final TimerDistributions distributions;
+  private final SlowCallRecorder slowCallRecorder;
+  private final CallPhaseTracker callPhaseTracker;
+  private final ConcurrencyLimits concurrencyLimits;
+  private final SingleFlights singleFlights;
+  private final HedgedReads hedgedReads;
+  private final CallDeadlines callDeadlines;
+  private final StripedTimers stripedTimers;
+
+  /**
+   * Cache of the timers registered for the repository methods, grouped by the repository class
+   * name.
+   */
+  private final ConcurrentMap<String, ConcurrentMap<Method, MethodTimers>> timers =
+      new ConcurrentHashMap<>();
 
   public RepositoryTimerAspect(MeterRegistry meterRegistry) {
+    this(meterRegistry, TimingSampling.none());
+  }
+
+  public RepositoryTimerAspect(MeterRegistry meterRegistry, TimingSampling sampling) {
+    this(meterRegistry, sampling, TimerDistributions.defaults(), RepositoryTimerFeatures.none());
+  }
+
+  /**
+   * @param meterRegistry the registry where the repository timers are published
+   * @param sampling the sampling of the timed calls
+   * @param distributions the distribution statistics of the timers
+   * @param features the optional features applied on top of the timing of the calls
+   */
+  @Autowired
+  public RepositoryTimerAspect(MeterRegistry meterRegistry, TimingSampling sampling,
+      TimerDistributions distributions, RepositoryTimerFeatures features) {
     this.meterRegistry = meterRegistry;
+    this.sampling = sampling;
+    this.distributions = distributions;
+    this.slowCallRecorder = features.getSlowCallRecorder();
+    this.callPhaseTracker = features.getCallPhaseTracker();
+    this.concurrencyLimits = features.getConcurrencyLimits();
+    this.singleFlights = features.getSingleFlights();
+    this.hedgedReads = features.getHedgedReads();
+    this.callDeadlines = features.getCallDeadlines();
+    this.stripedTimers = features.getStripedTimers();
+  }
+
+  /**
+   * Retrieves the timer corresponding to the specified repository class, method and outcome. The
+   * timer is registered in the {@link MeterRegistry} only on the first call for the specified
+   * arguments.
+   *
+   * @param className the repository class name (used for the &quot;class&quot; metric tag)
+   * @param method the repository method
+   * @param outcome the outcome of the calls measured by the timer
+   * @return the cached timer
+   */
+  Timer getTimer(String className, Method method, Outcome outcome) {
+    return getMethodTimers(className, method).get(outcome);
+  }
+
+  /**
+   * Retrieves the timer corresponding to the specified repository class, method, outcome and
+   * source. Meant to be used by the repository decorators which serve calls on their own, without
+   * delegating them to the decorated (timed) repository.
+   *
+   * @param className the repository class name (used for the &quot;class&quot; metric tag)
+   * @param method the repository method
+   * @param outcome the outcome of the calls measured by the timer
+   * @param source the source out of which the calls measured by the timer get served
+   * @return the cached timer
+   * @see NotTimed
+   */
+  public Timer getTimer(String className, Method method, Outcome outcome, Source source) {
+    return getMethodTimers(className, method).get(outcome, source);
+  }
+
+  /**
+   * Resolves all the per method state of the aspect for the specified repository method and
+   * registers its timers for the expected outcomes of the calls served by the repository itself,
+   * so that the first call of the method doesn't pay for them (see {@link RepositoryWarmUp}).
+   *
+   * @param className the repository class name (used for the &quot;class&quot; metric tag)
+   * @param method the repository method
+   */
+  void warmUp(String className, Method method) {
+    getMethodTimers(className, method).registerTimers();
   }
 
-  private static void emitMetrics(MeterRegistry meterRegistry,
-      Timer.Sample sample, String className, String methodName, Optional<Throwable> exception) {
-    String successful = exception.isPresent() ? "false" : "true";
-    sample.stop(Timer
-        .builder(REPOSITORY_METRIC_NAME)
-        .tags("class", className)
-        .tags("method", methodName)
-        .tags("successful", successful)
-        .publishPercentiles(EXPORTED_PERCENTILES)
-        .register(meterRegistry));
+  private MethodTimers getMethodTimers(String className, Method method) {
+    var classTimers = timers.get(className);
+    if (classTimers == null) {
+      classTimers = timers.computeIfAbsent(className, key -> new ConcurrentHashMap<>());
+    }
+    var methodTimers = classTimers.get(method);
+    if (methodTimers == null) {
+      methodTimers = classTimers.computeIfAbsent(method,
+          key -> new MethodTimers(meterRegistry, className, key, sampling,
+              distributions.resolve(className, key),
+              slowCallRecorder == null ? null
+                  : slowCallRecorder.getBuffer(className, key.getName()),
+              callPhaseTracker != null,
+              concurrencyLimits == null ? null : concurrencyLimits.getLimiter(className, key),
+              singleFlights == null ? null : singleFlights.getInFlightCalls(className, key),
+              hedgedReads, callDeadlines, stripedTimers));
+    }
+    return methodTimers;
   }
 
   private static String getDeclaredClassName(ProceedingJoinPoint proceedingJoinPoint) {
-    String typeName = "Repository";
     if (proceedingJoinPoint instanceof MethodInvocationProceedingJoinPoint) {
-      var proxy = proceedingJoinPoint.getThis();
-      if (proxy instanceof Advised) {
-        Class<?>[] proxiedInterfaces = ((Advised) proxy).getProxiedInterfaces();
-        if (proxiedInterfaces != null && proxiedInterfaces.length > 1) {
-          // Through the Advised object, we can get the proxied
-          // interfaces using {@link Advised#getProxiedInterfaces()}
-          // In this case, the type that we look for is the first one in the list of interfaces.
-          typeName = proxiedInterfaces[0].getSimpleName();
-        } else {
-          typeName = proceedingJoinPoint.getTarget().getClass().getSimpleName();
-        }
-      }
+      return RepositoryClassNames.getDeclaredClassName(proceedingJoinPoint.getThis(),
+          proceedingJoinPoint.getTarget());
     }
-
-    return typeName;
+    // the join points woven by the WovenRepositoryTimerAspect are not called through a proxy
+    return RepositoryClassNames.getTargetClassName(proceedingJoinPoint.getTarget());
   }
 
-  @Pointcut("execution(public * org.springframework.data.repository.Repository+.*(..)) ||  within(@org.springframework.stereotype.Repository *)")
+  @Pointcut(REPOSITORY_POINTCUT)
   public void repositoryClassMethods() {
   }
 
@@ -87,46 +247,331 @@ public class RepositoryTimerAspect {
       return proceedingJoinPoint.proceed();
     }
 
-    Signature signature = proceedingJoinPoint.getSignature();
-    Class returnType = ((MethodSignature) signature).getReturnType();
+    var method = ((MethodSignature) proceedingJoinPoint.getSignature()).getMethod();
+    var methodTimers = getMethodTimers(getDeclaredClassName(proceedingJoinPoint), method);
+    methodTimers.clearStatement();
+    if (methodTimers.isRowCountRecorded()) {
+      methodTimers.recordRowCount(proceedingJoinPoint.getArgs());
+    }
 
-    if (ListenableFuture.class.equals(returnType)) {
-      return measureAsyncMethodExecutionTime(proceedingJoinPoint);
-    } else {
-      return measureSyncMethodExecutionTime(proceedingJoinPoint);
+    var inFlightCalls = methodTimers.getInFlightCalls();
+    if (inFlightCalls != null) {
+      return measureCollapsedMethodExecutionTime(proceedingJoinPoint, methodTimers,
+          inFlightCalls);
+    }
+
+    switch (methodTimers.getReturnKind()) {
+      case LISTENABLE_FUTURE:
+        return measureAsyncMethodExecutionTime(proceedingJoinPoint, methodTimers);
+      case COMPLETION_STAGE:
+        return measureCompletionStageMethodExecutionTime(proceedingJoinPoint, methodTimers);
+      case REACTIVE:
+        return measureReactiveMethodExecutionTime(proceedingJoinPoint, methodTimers);
+      case STREAM:
+        return measureStreamMethodExecutionTime(proceedingJoinPoint, methodTimers);
+      default:
+        return measureSyncMethodExecutionTime(proceedingJoinPoint, methodTimers);
     }
   }
 
-  private Object measureAsyncMethodExecutionTime(ProceedingJoinPoint proceedingJoinPoint)
-      throws Throwable {
+  @SuppressWarnings("unchecked")
+  private Object measureAsyncMethodExecutionTime(ProceedingJoinPoint proceedingJoinPoint,
+      MethodTimers methodTimers) throws Throwable {
     // We'll need to measure the execution time of the asynchronous method,
     // in a callback after its completion.
-    var sample = Timer.start();
-    var className = getDeclaredClassName(proceedingJoinPoint);
-    var methodName = proceedingJoinPoint.getSignature().getName();
+    AimdConcurrencyLimiter.Permit permit;
+    try {
+      permit = acquirePermit(methodTimers);
+    } catch (ConcurrencyLimitExceededException ex) {
+      var rejected = new SettableListenableFuture<>();
+      rejected.setException(ex);
+      return rejected;
+    }
+    var sample = methodTimers.start();
+    var phases = methodTimers.startPhases(sample);
 
-    var asyncResult = (ListenableFuture) proceedingJoinPoint.proceed();
-    asyncResult.addCallback(
-        result -> emitMetrics(meterRegistry, sample, className, methodName, Optional.empty()),
-        ex -> emitMetrics(meterRegistry, sample, className, methodName, Optional.of(ex)));
+    var asyncResult = (ListenableFuture<Object>) proceedAsync(proceedingJoinPoint, sample,
+        methodTimers, phases, permit);
+    var statement = methodTimers.takeStatement();
+    if (asyncResult == null) {
+      release(permit, Outcome.SUCCESSFUL);
+      methodTimers.stop(sample, Outcome.SUCCESSFUL, proceedingJoinPoint, statement, phases);
+    } else {
+      if (permit != null) {
+        // the call keeps its permit until it completes, even past its deadline
+        asyncResult.addCallback(result -> release(permit, Outcome.SUCCESSFUL),
+            ex -> release(permit, Outcome.of(ex)));
+      }
+      var deadline = methodTimers.getDeadline();
+      if (deadline != null) {
+        asyncResult = deadline.apply(asyncResult);
+      }
+      asyncResult.addCallback(
+          result -> {
+            if (methodTimers.isResultRecorded()) {
+              methodTimers.recordResult(result);
+            }
+            methodTimers.stop(sample, Outcome.SUCCESSFUL, proceedingJoinPoint, statement,
+                phases);
+          },
+          ex -> methodTimers.stop(sample, Outcome.of(ex), proceedingJoinPoint, statement,
+              phases));
+    }
     return asyncResult;
+  }
 
+  private Object measureCompletionStageMethodExecutionTime(
+      ProceedingJoinPoint proceedingJoinPoint, MethodTimers methodTimers) throws Throwable {
+    AimdConcurrencyLimiter.Permit permit;
+    try {
+      permit = acquirePermit(methodTimers);
+    } catch (ConcurrencyLimitExceededException ex) {
+      var returnType = ((MethodSignature) proceedingJoinPoint.getSignature()).getReturnType();
+      if (returnType.isAssignableFrom(CompletableFuture.class)) {
+        return CompletableFuture.failedFuture(ex);
+      }
+      throw ex;
+    }
+    var sample = methodTimers.start();
+    var phases = methodTimers.startPhases(sample);
+
+    var asyncResult = (CompletionStage<?>) proceedAsync(proceedingJoinPoint, sample,
+        methodTimers, phases, permit);
+    var statement = methodTimers.takeStatement();
+    if (asyncResult == null) {
+      release(permit, Outcome.SUCCESSFUL);
+      methodTimers.stop(sample, Outcome.SUCCESSFUL, proceedingJoinPoint, statement, phases);
+    } else {
+      // the callback is registered on a dependent stage, the returned stage stays unchanged
+      asyncResult.whenComplete((result, ex) -> {
+        release(permit, Outcome.of(unwrap(ex)));
+        if (ex == null && methodTimers.isResultRecorded()) {
+          methodTimers.recordResult(result);
+        }
+        methodTimers.stop(sample, Outcome.of(unwrap(ex)), proceedingJoinPoint, statement,
+            phases);
+      });
+    }
+    return asyncResult;
+  }
+
+  /**
+   * The reactive publishers get timed only from the moment of their subscription (see
+   * {@link ReactiveTimings}), while the calls failing before returning a publisher get timed
+   * right away.
+   */
+  private static Object measureReactiveMethodExecutionTime(
+      ProceedingJoinPoint proceedingJoinPoint, MethodTimers methodTimers) throws Throwable {
+    var sample = methodTimers.start();
+    Object publisher;
+    try {
+      publisher = proceedingJoinPoint.proceed();
+    } catch (Throwable ex) {
+      methodTimers.stop(sample, Outcome.of(ex), proceedingJoinPoint,
+          methodTimers.takeStatement(), null);
+      throw ex;
+    }
+    return ReactiveTimings.time(publisher, methodTimers, proceedingJoinPoint);
+  }
+
+  private Object measureStreamMethodExecutionTime(ProceedingJoinPoint proceedingJoinPoint,
+      MethodTimers methodTimers) throws Throwable {
+    var sample = methodTimers.start();
+    var phases = methodTimers.startPhases(sample);
+
+    var stream = (BaseStream<?, ?>) proceedSync(proceedingJoinPoint, sample, methodTimers,
+        phases);
+    var statement = methodTimers.takeStatement();
+    if (stream == null) {
+      methodTimers.stop(sample, Outcome.SUCCESSFUL, proceedingJoinPoint, statement, phases);
+      return null;
+    }
+    var failure = new AtomicReference<Throwable>();
+    BaseStream<?, ?> trackedStream = stream;
+    if (stream instanceof Stream) {
+      trackedStream = trackFailures((Stream<?>) stream, failure);
+    }
+    // the close handlers get run only once, no matter how many times the stream gets closed
+    return trackedStream.onClose(() -> methodTimers
+        .stop(sample, Outcome.of(failure.get()), proceedingJoinPoint, statement, phases));
+  }
+
+  /**
+   * Wraps the spliterator of the stream in order to remember the first failure of its source.
+   */
+  private static <T> Stream<T> trackFailures(Stream<T> stream,
+      AtomicReference<Throwable> failure) {
+    return StreamSupport
+        .stream(new FailureTrackingSpliterator<>(stream.spliterator(), failure),
+            stream.isParallel())
+        .onClose(stream::close);
   }
 
-  private Object measureSyncMethodExecutionTime(ProceedingJoinPoint proceedingJoinPoint)
+  private Object measureSyncMethodExecutionTime(ProceedingJoinPoint proceedingJoinPoint,
+      MethodTimers methodTimers) throws Throwable {
+    var sample = methodTimers.start();
+    var phases = methodTimers.startPhases(sample);
+
+    var result = proceedSync(proceedingJoinPoint, sample, methodTimers, phases);
+    if (methodTimers.isResultRecorded()) {
+      methodTimers.recordResult(result);
+    }
+    methodTimers.stop(sample, Outcome.SUCCESSFUL, proceedingJoinPoint,
+        methodTimers.takeStatement(), phases);
+    return result;
+  }
+
+  /**
+   * Proceeds with the call in case that no identical call is in flight, otherwise shares the
+   * outcome of the identical call in flight.
+   */
+  private Object measureCollapsedMethodExecutionTime(ProceedingJoinPoint proceedingJoinPoint,
+      MethodTimers methodTimers, InFlightCalls inFlightCalls) throws Throwable {
+    var key = InFlightCalls.key(proceedingJoinPoint.getTarget(), proceedingJoinPoint.getArgs());
+    var flight = new CompletableFuture<Object>();
+    var inFlight = inFlightCalls.join(key, flight);
+    if (inFlight != null) {
+      return follow(inFlight, methodTimers);
+    }
+
+    if (methodTimers.getReturnKind() == MethodTimers.ReturnKind.LISTENABLE_FUTURE) {
+      ListenableFuture<?> asyncResult;
+      try {
+        asyncResult = (ListenableFuture<?>) measureAsyncMethodExecutionTime(proceedingJoinPoint,
+            methodTimers);
+      } catch (Throwable ex) {
+        inFlightCalls.land(key, flight, null, ex);
+        throw ex;
+      }
+      if (asyncResult == null) {
+        inFlightCalls.land(key, flight, null, null);
+        return null;
+      }
+      asyncResult.addCallback(
+          result -> inFlightCalls.land(key, flight, inFlightCalls.share(result), null),
+          ex -> inFlightCalls.land(key, flight, null, ex));
+      return inFlightCalls.share(asyncResult);
+    }
+
+    Object result;
+    try {
+      result = inFlightCalls.share(
+          measureSyncMethodExecutionTime(proceedingJoinPoint, methodTimers));
+    } catch (Throwable ex) {
+      inFlightCalls.land(key, flight, null, ex);
+      throw ex;
+    }
+    inFlightCalls.land(key, flight, result, null);
+    return result;
+  }
+
+  /**
+   * Serves a call out of the outcome of the identical call in flight, which gets waited for by
+   * the synchronous methods.
+   */
+  private static Object follow(CompletableFuture<Object> flight, MethodTimers methodTimers)
       throws Throwable {
-    Optional<Throwable> throwable = Optional.empty();
-    var sample = Timer.start();
-    var className = getDeclaredClassName(proceedingJoinPoint);
-    var methodName = proceedingJoinPoint.getSignature().getName();
+    var sample = methodTimers.start();
+    if (methodTimers.getReturnKind() == MethodTimers.ReturnKind.LISTENABLE_FUTURE) {
+      // the followers get their own future, so that none of them can cancel the leader call
+      var asyncResult = new SettableListenableFuture<Object>();
+      flight.whenComplete((result, ex) -> {
+        var cause = unwrap(ex);
+        methodTimers.stop(sample, Outcome.of(cause), Source.IN_FLIGHT);
+        if (cause == null) {
+          asyncResult.set(result);
+        } else {
+          asyncResult.setException(cause);
+        }
+      });
+      return asyncResult;
+    }
 
+    Object result;
     try {
-      return proceedingJoinPoint.proceed();
+      result = flight.join();
+    } catch (CompletionException ex) {
+      var cause = unwrap(ex);
+      methodTimers.stop(sample, Outcome.of(cause), Source.IN_FLIGHT);
+      throw cause;
+    }
+    methodTimers.stop(sample, Outcome.SUCCESSFUL, Source.IN_FLIGHT);
+    return result;
+  }
+
+  /**
+   * Acquires the permit for an asynchronous call in case that the calls in flight of the method
+   * are limited.
+   *
+   * @return the permit or <code>null</code> in case that the calls are not limited
+   * @throws ConcurrencyLimitExceededException in case that the call is rejected
+   */
+  private static AimdConcurrencyLimiter.Permit acquirePermit(MethodTimers methodTimers) {
+    var limiter = methodTimers.getConcurrencyLimiter();
+    if (limiter == null) {
+      return null;
+    }
+    var permit = limiter.tryAcquire();
+    if (permit == null) {
+      throw new ConcurrencyLimitExceededException("The limit of the calls in flight on "
+          + methodTimers.getClassName() + " has been reached");
+    }
+    return permit;
+  }
+
+  private static void release(AimdConcurrencyLimiter.Permit permit, Outcome outcome) {
+    if (permit != null) {
+      // the cancellations are not a sign of overload
+      permit.release(outcome == Outcome.FAILED || outcome == Outcome.TIMEOUT);
+    }
+  }
+
+  /**
+   * Proceeds with the asynchronous method call and releases the permit of the call in case that
+   * the call itself fails.
+   */
+  private static Object proceedAsync(ProceedingJoinPoint proceedingJoinPoint,
+      Timer.Sample sample, MethodTimers methodTimers, CallPhases phases,
+      AimdConcurrencyLimiter.Permit permit) throws Throwable {
+    try {
+      return proceedSync(proceedingJoinPoint, sample, methodTimers, phases);
+    } catch (Throwable ex) {
+      release(permit, Outcome.of(ex));
+      throw ex;
+    }
+  }
+
+  /**
+   * Proceeds with the method call, hedged if needed, and stops the sample in case that the call
+   * itself fails. The phases of the call, if tracked, are linked to the calling thread while
+   * proceeding.
+   */
+  private static Object proceedSync(ProceedingJoinPoint proceedingJoinPoint, Timer.Sample sample,
+      MethodTimers methodTimers, CallPhases phases) throws Throwable {
+    var previousPhases = phases == null ? null : CallPhases.enter(phases);
+    try {
+      var hedging = methodTimers.getHedging();
+      return hedging == null ? proceedingJoinPoint.proceed()
+          : hedging.proceed(proceedingJoinPoint);
     } catch (Throwable ex) {
-      throwable = Optional.of(ex);
+      methodTimers.stop(sample, Outcome.of(ex), proceedingJoinPoint,
+          methodTimers.takeStatement(), phases);
       throw ex;
     } finally {
-      emitMetrics(meterRegistry, sample, className, methodName, throwable);
+      if (phases != null) {
+        CallPhases.exit(previousPhases);
+      }
+    }
+  }
+
+  /**
+   * The dependent stages of a {@link CompletionStage} get the exceptions wrapped in a
+   * {@link CompletionException}.
+   */
+  private static Throwable unwrap(Throwable ex) {
+    if (ex instanceof CompletionException && ex.getCause() != null) {
+      return ex.getCause();
     }
+    return ex;
   }
 }
@@ -0,0 +1,162 @@
+package com.findinpath.aop;
+
+/**
+ * The optional features applied by the {@link RepositoryTimerAspect} on top of the timing of the
+ * repository calls, each of them being disabled unless specified through the {@link Builder}:
+ *
+ * <ul>
+ *   <li>the capturing of the slow calls (see {@link SlowCallRecorder})</li>
+ *   <li>the tracking of the phases of the calls (see {@link CallPhaseTracker})</li>
+ *   <li>the limits of the asynchronous calls in flight (see {@link ConcurrencyLimits})</li>
+ *   <li>the collapsing of the concurrent identical calls (see {@link SingleFlights})</li>
+ *   <li>the hedging of the read calls (see {@link HedgedReads})</li>
+ *   <li>the deadlines of the asynchronous calls (see {@link CallDeadlines})</li>
+ *   <li>the striped timers of the hot methods (see {@link StripedTimers})</li>
+ * </ul>
+ */
+public final class RepositoryTimerFeatures {
+
+  private static final RepositoryTimerFeatures NONE = builder().build();
+
+  private final SlowCallRecorder slowCallRecorder;
+  private final CallPhaseTracker callPhaseTracker;
+  private final ConcurrencyLimits concurrencyLimits;
+  private final SingleFlights singleFlights;
+  private final HedgedReads hedgedReads;
+  private final CallDeadlines callDeadlines;
+  private final StripedTimers stripedTimers;
+
+  private RepositoryTimerFeatures(Builder builder) {
+    this.slowCallRecorder = builder.slowCallRecorder;
+    this.callPhaseTracker = builder.callPhaseTracker;
+    this.concurrencyLimits = builder.concurrencyLimits;
+    this.singleFlights = builder.singleFlights;
+    this.hedgedReads = builder.hedgedReads;
+    this.callDeadlines = builder.callDeadlines;
+    this.stripedTimers = builder.stripedTimers;
+  }
+
+  /**
+   * @return the features with all the optional features disabled
+   */
+  public static RepositoryTimerFeatures none() {
+    return NONE;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  SlowCallRecorder getSlowCallRecorder() {
+    return slowCallRecorder;
+  }
+
+  CallPhaseTracker getCallPhaseTracker() {
+    return callPhaseTracker;
+  }
+
+  ConcurrencyLimits getConcurrencyLimits() {
+    return concurrencyLimits;
+  }
+
+  SingleFlights getSingleFlights() {
+    return singleFlights;
+  }
+
+  HedgedReads getHedgedReads() {
+    return hedgedReads;
+  }
+
+  CallDeadlines getCallDeadlines() {
+    return callDeadlines;
+  }
+
+  StripedTimers getStripedTimers() {
+    return stripedTimers;
+  }
+
+  /**
+   * Builder of the {@link RepositoryTimerFeatures}. The features left unspecified (or specified
+   * as <code>null</code>) are disabled.
+   */
+  public static final class Builder {
+
+    private SlowCallRecorder slowCallRecorder;
+    private CallPhaseTracker callPhaseTracker;
+    private ConcurrencyLimits concurrencyLimits;
+    private SingleFlights singleFlights;
+    private HedgedReads hedgedReads;
+    private CallDeadlines callDeadlines;
+    private StripedTimers stripedTimers;
+
+    private Builder() {
+    }
+
+    /**
+     * @param slowCallRecorder the recorder of the slow calls
+     * @return this builder
+     */
+    public Builder slowCallRecorder(SlowCallRecorder slowCallRecorder) {
+      this.slowCallRecorder = slowCallRecorder;
+      return this;
+    }
+
+    /**
+     * @param callPhaseTracker the tracker of the phases of the calls
+     * @return this builder
+     */
+    public Builder callPhaseTracker(CallPhaseTracker callPhaseTracker) {
+      this.callPhaseTracker = callPhaseTracker;
+      return this;
+    }
+
+    /**
+     * @param concurrencyLimits the limits of the asynchronous calls in flight
+     * @return this builder
+     */
+    public Builder concurrencyLimits(ConcurrencyLimits concurrencyLimits) {
+      this.concurrencyLimits = concurrencyLimits;
+      return this;
+    }
+
+    /**
+     * @param singleFlights the settings of the collapsing of the concurrent identical calls
+     * @return this builder
+     */
+    public Builder singleFlights(SingleFlights singleFlights) {
+      this.singleFlights = singleFlights;
+      return this;
+    }
+
+    /**
+     * @param hedgedReads the settings of the hedging of the read calls
+     * @return this builder
+     */
+    public Builder hedgedReads(HedgedReads hedgedReads) {
+      this.hedgedReads = hedgedReads;
+      return this;
+    }
+
+    /**
+     * @param callDeadlines the settings of the deadlines of the asynchronous calls
+     * @return this builder
+     */
+    public Builder callDeadlines(CallDeadlines callDeadlines) {
+      this.callDeadlines = callDeadlines;
+      return this;
+    }
+
+    /**
+     * @param stripedTimers the settings of the striped timers of the hot methods
+     * @return this builder
+     */
+    public Builder stripedTimers(StripedTimers stripedTimers) {
+      this.stripedTimers = stripedTimers;
+      return this;
+    }
+
+    public RepositoryTimerFeatures build() {
+      return new RepositoryTimerFeatures(this);
+    }
+  }
+}
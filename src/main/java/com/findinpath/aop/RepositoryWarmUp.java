@@ -0,0 +1,147 @@
+package com.findinpath.aop;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aop.support.AopUtils;
+
+/**
+ * Startup phase sparing the first calls of each repository method from the latency spike of the
+ * one-time work otherwise done on the first call:
+ *
+ * <ul>
+ *   <li>the resolution of the repository class name out of the proxy class and the resolution of
+ *   the per method state of the {@link RepositoryTimerAspect} (return kind, distribution
+ *   statistics, sampling, limits, etc.)</li>
+ *   <li>the registration of the repository timers of the outcomes expected from the return type
+ *   of the methods, including the allocation of their percentile histograms</li>
+ *   <li>the work of the repositories implementing {@link WarmedUpRepository} (e.g. : preparing
+ *   their statements on the Cassandra session)</li>
+ * </ul>
+ *
+ * The warmed up methods are the ones of the proxied repositories matched by the pointcut of the
+ * {@link RepositoryTimerAspect}. The woven repositories (see {@link WovenRepositoryTimerAspect})
+ * get only their own work done.
+ *
+ * The duration of the warm-up is published on the {@link #WARM_UP_METRIC_NAME} timer.
+ */
+public class RepositoryWarmUp {
+
+  public static final String WARM_UP_METRIC_NAME = "repository.warmup";
+
+  private final MeterRegistry meterRegistry;
+  private final RepositoryTimerAspect repositoryTimerAspect;
+  private final AspectJExpressionPointcut pointcut = new AspectJExpressionPointcut();
+  private final CompletableFuture<Duration> completion = new CompletableFuture<>();
+
+  public RepositoryWarmUp(MeterRegistry meterRegistry,
+      RepositoryTimerAspect repositoryTimerAspect) {
+    this.meterRegistry = meterRegistry;
+    this.repositoryTimerAspect = repositoryTimerAspect;
+    this.pointcut.setExpression(RepositoryTimerAspect.REPOSITORY_POINTCUT);
+  }
+
+  /**
+   * Warms up the specified repositories.
+   *
+   * @param repositories the repository beans (proxied or not)
+   * @return the number of repository methods warmed up
+   */
+  public int warmUp(Collection<?> repositories) {
+    var startNanos = meterRegistry.config().clock().monotonicTime();
+    try {
+      var methods = 0;
+      for (var repository : repositories) {
+        methods += warmUpRepository(repository);
+      }
+      var durationNanos = meterRegistry.config().clock().monotonicTime() - startNanos;
+      Timer.builder(WARM_UP_METRIC_NAME)
+          .register(meterRegistry)
+          .record(durationNanos, TimeUnit.NANOSECONDS);
+      completion.complete(Duration.ofNanos(durationNanos));
+      return methods;
+    } catch (RuntimeException ex) {
+      completion.completeExceptionally(ex);
+      throw ex;
+    }
+  }
+
+  /**
+   * @return the future completed with the duration of the warm-up once it is done or with its
+   * failure
+   */
+  public CompletableFuture<Duration> getCompletion() {
+    return completion;
+  }
+
+  /**
+   * @return whether the warm-up has completed successfully
+   */
+  public boolean isCompleted() {
+    return completion.isDone() && !completion.isCompletedExceptionally();
+  }
+
+  private int warmUpRepository(Object repository) {
+    var target = AopUtils.isAopProxy(repository) ? AopProxyUtils.getSingletonTarget(repository)
+        : repository;
+    var methods = 0;
+    if (AopUtils.isAopProxy(repository) && target != null) {
+      var className = RepositoryClassNames.getDeclaredClassName(repository, target);
+      for (var method : getAdvisedMethods(repository, target.getClass())) {
+        repositoryTimerAspect.warmUp(className, method);
+        methods++;
+      }
+    }
+    if (target instanceof WarmedUpRepository) {
+      ((WarmedUpRepository) target).warmUp();
+    }
+    return methods;
+  }
+
+  /**
+   * Resolves the methods advised by the {@link RepositoryTimerAspect}, as seen by the aspect: the
+   * interface methods for the interface based proxies (e.g. : the spring data repositories) and
+   * the class methods for the class based proxies.
+   */
+  private Set<Method> getAdvisedMethods(Object repository, Class<?> targetClass) {
+    var candidates = new ArrayList<Method>();
+    if (AopUtils.isJdkDynamicProxy(repository)) {
+      for (var proxiedInterface : AopProxyUtils.proxiedUserInterfaces(repository)) {
+        candidates.addAll(List.of(proxiedInterface.getMethods()));
+      }
+    } else {
+      candidates.addAll(List.of(targetClass.getMethods()));
+    }
+
+    var methods = new LinkedHashSet<Method>();
+    for (var method : candidates) {
+      if (method.getDeclaringClass() == Object.class
+          || isWarmUpMethod(method, targetClass)
+          || Modifier.isStatic(method.getModifiers())
+          || method.isBridge() || method.isSynthetic()
+          || "toString".equals(method.getName())) {
+        continue;
+      }
+      if (pointcut.matches(method, targetClass)) {
+        methods.add(method);
+      }
+    }
+    return methods;
+  }
+
+  private static boolean isWarmUpMethod(Method method, Class<?> targetClass) {
+    return WarmedUpRepository.class.isAssignableFrom(targetClass)
+        && "warmUp".equals(method.getName()) && method.getParameterCount() == 0;
+  }
+}
@@ -0,0 +1,22 @@
+package com.findinpath.aop;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the {@link java.util.Collection} parameter of a repository method holding the rows written
+ * by the method (e.g. : the rows of a batch statement).
+ *
+ * The {@link RepositoryTimerAspect} records the size of the annotated parameter on each call in
+ * the {@link RepositoryTimerAspect#REPOSITORY_ROWS_METRIC_NAME} distribution summary, with the
+ * same &quot;class&quot; and &quot;method&quot; tags as the ones of the repository timer.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface RowCount {
+
+}
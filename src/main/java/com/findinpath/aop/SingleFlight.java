@@ -0,0 +1,22 @@
+package com.findinpath.aop;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the read methods of a repository (or all the read methods of the annotated repository
+ * class) whose concurrent identical calls get collapsed into a single call, when
+ * <code>repository.single-flight.enabled</code> is set to <code>true</code>.
+ *
+ * Only the side effect free methods, whose result can be shared among the callers, are to be
+ * annotated (see {@link SingleFlights}).
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface SingleFlight {
+
+}
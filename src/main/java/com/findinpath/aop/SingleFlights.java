@@ -0,0 +1,110 @@
+package com.findinpath.aop;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+/**
+ * Settings of the collapsing of the concurrent identical repository read calls, applied by the
+ * {@link RepositoryTimerAspect}.
+ *
+ * Under a thundering herd, many threads read at the same moment the same entry (e.g. :
+ * <code>ConfigRepository.findById</code> with the same key), each of them through its own round
+ * trip to the database. For the collapsed methods, the first of the identical calls (same
+ * repository, method and arguments) gets to be the leader of the call and proceeds with the
+ * database round trip, while the identical calls arriving before its completion follow it by
+ * waiting for (or, for the methods returning a
+ * {@link org.springframework.util.concurrent.ListenableFuture}, by being completed with) its
+ * result or failure. The followers share therefor the very same result instance, which is not to
+ * be modified by the callers: the lists, sets and maps get returned as unmodifiable views (see
+ * {@link InFlightCalls}).
+ *
+ * The leader calls are timed as usual, while the follower calls are timed with the
+ * {@link Source#IN_FLIGHT} &quot;source&quot; metric tag and counted on the
+ * {@link #COLLAPSED_METRIC_NAME} counter.
+ *
+ * The collapsed methods are the synchronous and the {@link
+ * org.springframework.util.concurrent.ListenableFuture} repository methods annotated with
+ * {@link SingleFlight} or specified by the repository class and method names joined by a dot,
+ * along with the read methods (see {@link #READ_METHOD_PREFIXES}) of the repository classes
+ * annotated with {@link SingleFlight} or specified by their name (as used for the
+ * &quot;class&quot; metric tag). The writes of a collapsed repository class (e.g. :
+ * <code>save</code>) are therefor never collapsed.
+ */
+public class SingleFlights {
+
+  public static final String COLLAPSED_METRIC_NAME = "repository.collapsed";
+
+  /**
+   * The prefixes of the names of the read methods (following the Spring Data query method
+   * naming), which are the only ones collapsed when the whole repository class is collapsed.
+   */
+  static final List<String> READ_METHOD_PREFIXES = List.of("find", "get", "read", "query",
+      "search", "count", "exists");
+
+  private final MeterRegistry meterRegistry;
+  private final Set<String> methods;
+
+  /**
+   * @param meterRegistry the registry where the number of collapsed calls is published
+   * @param methods the keys of the collapsed methods besides the ones annotated with
+   * {@link SingleFlight}
+   */
+  public SingleFlights(MeterRegistry meterRegistry, Collection<String> methods) {
+    this.meterRegistry = meterRegistry;
+    this.methods = Set.copyOf(methods);
+  }
+
+  /**
+   * @param className the repository class name (as used for the &quot;class&quot; metric tag)
+   * @param method the repository method
+   * @return whether the concurrent identical calls of the method get collapsed
+   */
+  public boolean isCollapsed(String className, Method method) {
+    var returnKind = MethodTimers.ReturnKind.of(method.getReturnType());
+    if (returnKind != MethodTimers.ReturnKind.SYNCHRONOUS
+        && returnKind != MethodTimers.ReturnKind.LISTENABLE_FUTURE) {
+      return false;
+    }
+    if (methods.contains(className + "." + method.getName())
+        || AnnotatedElementUtils.hasAnnotation(method, SingleFlight.class)) {
+      return true;
+    }
+    return isReadMethod(method) && (methods.contains(className)
+        || AnnotatedElementUtils.hasAnnotation(method.getDeclaringClass(), SingleFlight.class));
+  }
+
+  private static boolean isReadMethod(Method method) {
+    if (method.getReturnType() == void.class) {
+      return false;
+    }
+    var methodName = method.getName();
+    for (var prefix : READ_METHOD_PREFIXES) {
+      if (methodName.startsWith(prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @param className the repository class name (as used for the &quot;class&quot; metric tag)
+   * @param method the repository method
+   * @return the calls in flight of the method or <code>null</code> in case that the calls of the
+   * method are not collapsed
+   */
+  InFlightCalls getInFlightCalls(String className, Method method) {
+    if (!isCollapsed(className, method)) {
+      return null;
+    }
+    var returnKind = MethodTimers.ReturnKind.of(method.getReturnType());
+    return new InFlightCalls(Counter.builder(COLLAPSED_METRIC_NAME)
+        .tags("class", className)
+        .tags("method", method.getName())
+        .register(meterRegistry), MethodTimers.resolveResultType(method, returnKind));
+  }
+}
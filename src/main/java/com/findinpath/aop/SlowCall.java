@@ -0,0 +1,77 @@
+package com.findinpath.aop;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Repository method call captured by the {@link SlowCallRecorder} for being slower than the
+ * configured threshold.
+ */
+public final class SlowCall {
+
+  private final Instant timestamp;
+  private final String className;
+  private final String methodName;
+  private final List<String> arguments;
+  private final Duration duration;
+  private final Outcome outcome;
+  private final String cql;
+
+  SlowCall(Instant timestamp, String className, String methodName, List<String> arguments,
+      Duration duration, Outcome outcome, String cql) {
+    this.timestamp = timestamp;
+    this.className = className;
+    this.methodName = methodName;
+    this.arguments = arguments;
+    this.duration = duration;
+    this.outcome = outcome;
+    this.cql = cql;
+  }
+
+  /**
+   * @return the moment of the completion of the call
+   */
+  public Instant getTimestamp() {
+    return timestamp;
+  }
+
+  public String getClassName() {
+    return className;
+  }
+
+  public String getMethodName() {
+    return methodName;
+  }
+
+  /**
+   * @return the summaries of the call arguments (e.g. : the size of the collections instead of
+   * their elements)
+   */
+  public List<String> getArguments() {
+    return arguments;
+  }
+
+  public Duration getDuration() {
+    return duration;
+  }
+
+  public Outcome getOutcome() {
+    return outcome;
+  }
+
+  /**
+   * @return the last CQL statement executed by the call on the calling thread or
+   * <code>null</code> in case that it is not known
+   * @see StatementCapture
+   */
+  public String getCql() {
+    return cql;
+  }
+
+  @Override
+  public String toString() {
+    return className + "." + methodName + arguments + " took " + duration.toMillis() + " ms ("
+        + outcome.getTagValue() + ")" + (cql == null ? "" : ": " + cql);
+  }
+}
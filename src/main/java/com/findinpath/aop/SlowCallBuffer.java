@@ -0,0 +1,151 @@
+package com.findinpath.aop;
+
+import java.lang.reflect.Array;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed size, lock-free buffer of the slow calls of a repository method.
+ *
+ * Depending on the {@link SlowCallRecorder.Mode}, the buffer keeps either the slowest calls or
+ * the latest calls over the threshold. The calls under the threshold are rejected through a
+ * single comparison, without any allocation.
+ */
+final class SlowCallBuffer {
+
+  private static final int MAX_ARGUMENT_LENGTH = 64;
+
+  private final String className;
+  private final String methodName;
+  private final long thresholdNanos;
+  private final boolean keepSlowest;
+  private final AtomicReferenceArray<SlowCall> calls;
+  private final AtomicLong writeIndex = new AtomicLong();
+
+  /**
+   * The duration of the fastest of the calls kept, once the buffer is full, in the
+   * {@link SlowCallRecorder.Mode#SLOWEST} mode. It is only a hint for rejecting early the calls
+   * which are not slow enough for being kept.
+   */
+  private volatile long minimumNanos;
+
+  SlowCallBuffer(String className, String methodName, Duration threshold, int capacity,
+      SlowCallRecorder.Mode mode) {
+    this.className = className;
+    this.methodName = methodName;
+    this.thresholdNanos = threshold.toNanos();
+    this.keepSlowest = mode == SlowCallRecorder.Mode.SLOWEST;
+    this.calls = new AtomicReferenceArray<>(capacity);
+  }
+
+  boolean isCaptured(long durationNanos) {
+    return durationNanos >= thresholdNanos && durationNanos > minimumNanos;
+  }
+
+  void record(long durationNanos, Outcome outcome, Object[] args, Object statement) {
+    var call = new SlowCall(Instant.now(), className, methodName, summarize(args),
+        Duration.ofNanos(durationNanos), outcome, StatementCapture.toCql(statement));
+    if (keepSlowest) {
+      recordSlowest(call, durationNanos);
+    } else {
+      calls.set((int) (writeIndex.getAndIncrement() % calls.length()), call);
+    }
+  }
+
+  List<SlowCall> getCalls() {
+    var result = new ArrayList<SlowCall>(calls.length());
+    for (int i = 0; i < calls.length(); i++) {
+      var call = calls.get(i);
+      if (call != null) {
+        result.add(call);
+      }
+    }
+    return result;
+  }
+
+  void clear() {
+    for (int i = 0; i < calls.length(); i++) {
+      calls.set(i, null);
+    }
+    minimumNanos = 0;
+  }
+
+  private void recordSlowest(SlowCall call, long durationNanos) {
+    while (true) {
+      var fastestIndex = -1;
+      SlowCall fastest = null;
+      for (int i = 0; i < calls.length(); i++) {
+        var current = calls.get(i);
+        if (current == null) {
+          if (calls.compareAndSet(i, null, call)) {
+            return;
+          }
+          current = calls.get(i);
+        }
+        if (fastest == null || current.getDuration().compareTo(fastest.getDuration()) < 0) {
+          fastest = current;
+          fastestIndex = i;
+        }
+      }
+      if (fastest.getDuration().toNanos() >= durationNanos) {
+        return;
+      }
+      if (calls.compareAndSet(fastestIndex, fastest, call)) {
+        updateMinimum();
+        return;
+      }
+    }
+  }
+
+  private void updateMinimum() {
+    var minimum = Long.MAX_VALUE;
+    for (int i = 0; i < calls.length(); i++) {
+      var current = calls.get(i);
+      if (current == null) {
+        return;
+      }
+      minimum = Math.min(minimum, current.getDuration().toNanos());
+    }
+    minimumNanos = minimum;
+  }
+
+  /**
+   * Summarizes the arguments of the call, without rendering the whole content of the entities or
+   * of the collections.
+   */
+  static List<String> summarize(Object[] args) {
+    var summaries = new ArrayList<String>(args.length);
+    for (var arg : args) {
+      summaries.add(summarize(arg));
+    }
+    return summaries;
+  }
+
+  private static String summarize(Object arg) {
+    if (arg == null) {
+      return "null";
+    } else if (arg instanceof CharSequence) {
+      var value = arg.toString();
+      return value.length() <= MAX_ARGUMENT_LENGTH ? value
+          : value.substring(0, MAX_ARGUMENT_LENGTH) + "...";
+    } else if (arg instanceof Number || arg instanceof Boolean || arg instanceof UUID
+        || arg instanceof Enum || arg instanceof Duration || arg instanceof Instant) {
+      return arg.toString();
+    } else if (arg instanceof Collection) {
+      return arg.getClass().getSimpleName() + "[size=" + ((Collection<?>) arg).size() + "]";
+    } else if (arg instanceof Map) {
+      return arg.getClass().getSimpleName() + "[size=" + ((Map<?, ?>) arg).size() + "]";
+    } else if (arg.getClass().isArray()) {
+      return arg.getClass().getComponentType().getSimpleName() + "[" + Array.getLength(arg)
+          + "]";
+    }
+    return arg.getClass().getSimpleName();
+  }
+}
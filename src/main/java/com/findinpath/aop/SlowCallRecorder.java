@@ -0,0 +1,112 @@
+package com.findinpath.aop;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Captures the repository method calls timed by the {@link RepositoryTimerAspect} which are
+ * slower than a threshold, along with their (summarized) arguments, outcome and CQL statement,
+ * so that the calls responsible for the latency peaks seen on the repository timers can be
+ * identified.
+ *
+ * Each of the repository methods has its own fixed size buffer (see {@link Mode}), so that a
+ * method being constantly slow can't evict the slow calls of the other methods. The calls under
+ * the threshold are rejected through a single comparison.
+ *
+ * The CQL statements are only known when the Cassandra session used by the repositories is
+ * wrapped through {@link StatementCapture#capturing(com.datastax.driver.core.Session)}.
+ */
+public class SlowCallRecorder {
+
+  private final Duration threshold;
+  private final int capacity;
+  private final Mode mode;
+  private final ConcurrentMap<String, SlowCallBuffer> buffers = new ConcurrentHashMap<>();
+  private final AtomicBoolean shutDown = new AtomicBoolean();
+
+  /**
+   * @param threshold the duration from which on the calls are captured
+   * @param capacity the maximum number of calls kept for each of the repository methods
+   * @param mode which of the calls over the threshold are kept
+   */
+  public SlowCallRecorder(Duration threshold, int capacity, Mode mode) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("The capacity must be at least 1: " + capacity);
+    }
+    this.threshold = threshold;
+    this.capacity = capacity;
+    this.mode = mode;
+    StatementCapture.enable();
+  }
+
+  /**
+   * @return the slow calls captured for all the repository methods, the slowest first
+   */
+  public List<SlowCall> getSlowCalls() {
+    var slowCalls = new ArrayList<SlowCall>();
+    buffers.values().forEach(buffer -> slowCalls.addAll(buffer.getCalls()));
+    slowCalls.sort(Comparator.comparing(SlowCall::getDuration).reversed());
+    return slowCalls;
+  }
+
+  /**
+   * @param className the repository class name (as used for the &quot;class&quot; metric tag)
+   * @param methodName the repository method name
+   * @return the slow calls captured for the specified repository method, the slowest first
+   */
+  public List<SlowCall> getSlowCalls(String className, String methodName) {
+    var buffer = buffers.get(key(className, methodName));
+    if (buffer == null) {
+      return List.of();
+    }
+    var slowCalls = buffer.getCalls();
+    slowCalls.sort(Comparator.comparing(SlowCall::getDuration).reversed());
+    return slowCalls;
+  }
+
+  /**
+   * Stops remembering the statements executed through the wrapped sessions (see
+   * {@link StatementCapture}), unless other recorders are still in use. The recorder must not be
+   * used any more by the {@link RepositoryTimerAspect} once shut down.
+   */
+  public void shutdown() {
+    if (shutDown.compareAndSet(false, true)) {
+      StatementCapture.disable();
+    }
+  }
+
+  /**
+   * Discards all the slow calls captured so far.
+   */
+  public void clear() {
+    buffers.values().forEach(SlowCallBuffer::clear);
+  }
+
+  SlowCallBuffer getBuffer(String className, String methodName) {
+    return buffers.computeIfAbsent(key(className, methodName),
+        key -> new SlowCallBuffer(className, methodName, threshold, capacity, mode));
+  }
+
+  private static String key(String className, String methodName) {
+    return className + "." + methodName;
+  }
+
+  /**
+   * Which of the calls over the threshold are kept in the buffer of a repository method.
+   */
+  public enum Mode {
+    /**
+     * The slowest calls are kept.
+     */
+    SLOWEST,
+    /**
+     * The latest calls are kept.
+     */
+    LATEST
+  }
+}
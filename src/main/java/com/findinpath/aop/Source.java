@@ -0,0 +1,32 @@
+package com.findinpath.aop;
+
+/**
+ * The source out of which a repository method call has been served, published through the
+ * &quot;source&quot; metric tag.
+ */
+public enum Source {
+  /**
+   * The call has been served by the repository itself, i.e. : through a round trip to the
+   * database.
+   */
+  DATABASE("database"),
+  /**
+   * The call has been served out of a local cache placed in front of the repository.
+   */
+  CACHE("cache"),
+  /**
+   * The call has been served by sharing the result of an identical call already in flight (see
+   * {@link SingleFlights}).
+   */
+  IN_FLIGHT("in-flight");
+
+  private final String tagValue;
+
+  Source(String tagValue) {
+    this.tagValue = tagValue;
+  }
+
+  public String getTagValue() {
+    return tagValue;
+  }
+}
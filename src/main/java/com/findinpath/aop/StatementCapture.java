@@ -0,0 +1,166 @@
+package com.findinpath.aop;
+
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Remembers, per thread, the last statement executed through a Cassandra {@link Session}, so that
+ * the {@link SlowCallRecorder} can report the CQL of the slow repository calls.
+ *
+ * Both the synchronous and the asynchronous statements get executed on the thread calling the
+ * repository method, which makes the last statement executed on that thread the one of the
+ * repository call. The statements are only remembered, they get rendered to CQL only for the
+ * calls captured as slow.
+ *
+ * The statements are remembered only while a {@link SlowCallRecorder} is in use (i.e. : created
+ * and not yet shut down), so that the threads don't retain their last statement (e.g. : a batch
+ * with all its bound values) when the slow calls are not captured. The last statement of the
+ * thread gets forgotten as well at the start of each of the repository calls, so that a call
+ * executing no statement doesn't get reported with the statement of an earlier call.
+ *
+ * The statements executed on behalf of a repository call whose phases are tracked (see
+ * {@link CallPhaseTracker}) get linked to the call as well.
+ */
+public final class StatementCapture {
+
+  private static final ThreadLocal<Object> LAST_STATEMENT = new ThreadLocal<>();
+
+  /**
+   * The number of the {@link SlowCallRecorder}s in use.
+   */
+  private static final AtomicInteger RECORDERS = new AtomicInteger();
+
+  private StatementCapture() {
+  }
+
+  /**
+   * Wraps the specified session for remembering the statements executed through it.
+   *
+   * @param session the session used by the repositories
+   * @return the wrapped session
+   */
+  public static Session capturing(Session session) {
+    return (Session) Proxy.newProxyInstance(StatementCapture.class.getClassLoader(),
+        new Class<?>[]{Session.class},
+        (proxy, method, args) -> {
+          var methodName = method.getName();
+          CallPhases phases = null;
+          if (args != null && args.length > 0
+              && ("execute".equals(methodName) || "executeAsync".equals(methodName))) {
+            if (RECORDERS.get() > 0) {
+              LAST_STATEMENT.set(args[0]);
+            }
+            // the query strings get wrapped by the session in statements which are not known here
+            phases = args[0] instanceof Statement ? CallPhases.current() : null;
+            if (phases != null) {
+              phases.link(args[0]);
+            }
+          }
+          Object result;
+          try {
+            result = method.invoke(session, args);
+          } catch (InvocationTargetException e) {
+            throw e.getCause();
+          }
+          if (phases != null && result instanceof ResultSetFuture) {
+            return linkListeners((ResultSetFuture) result, phases);
+          }
+          return result;
+        });
+  }
+
+  /**
+   * Wraps the driver future of a statement executed on behalf of a tracked call, so that the
+   * listeners added by the templates (mapping the rows on the driver threads) run with the call
+   * linked to their thread only for their own duration (see
+   * {@link CallPhases#wrapDriverListener(Runnable)}).
+   */
+  private static ResultSetFuture linkListeners(ResultSetFuture future, CallPhases phases) {
+    return (ResultSetFuture) Proxy.newProxyInstance(StatementCapture.class.getClassLoader(),
+        new Class<?>[]{ResultSetFuture.class},
+        (proxy, method, args) -> {
+          if ("addListener".equals(method.getName()) && args != null && args.length == 2) {
+            args = new Object[]{phases.wrapDriverListener((Runnable) args[0]), args[1]};
+          }
+          try {
+            return method.invoke(future, args);
+          } catch (InvocationTargetException e) {
+            throw e.getCause();
+          }
+        });
+  }
+
+  /**
+   * Starts remembering the statements executed through the wrapped sessions, on behalf of a
+   * {@link SlowCallRecorder} being created.
+   */
+  static void enable() {
+    RECORDERS.incrementAndGet();
+  }
+
+  /**
+   * Stops remembering the statements executed through the wrapped sessions, on behalf of a
+   * {@link SlowCallRecorder} being shut down, unless other recorders are still in use.
+   */
+  static void disable() {
+    RECORDERS.decrementAndGet();
+  }
+
+  /**
+   * Forgets the last statement executed on the current thread, at the start of a repository
+   * call.
+   */
+  static void clear() {
+    if (RECORDERS.get() > 0) {
+      LAST_STATEMENT.remove();
+    }
+  }
+
+  /**
+   * Takes (and forgets) the last statement executed on the current thread.
+   *
+   * @return the statement or <code>null</code> in case that no statement has been executed since
+   * the last call of this method
+   */
+  static Object take() {
+    if (RECORDERS.get() == 0) {
+      return null;
+    }
+    var statement = LAST_STATEMENT.get();
+    if (statement != null) {
+      LAST_STATEMENT.set(null);
+    }
+    return statement;
+  }
+
+  /**
+   * Renders the specified statement as CQL, without the values bound to the prepared
+   * statements.
+   *
+   * @param statement the statement (either a query string or a driver statement)
+   * @return the CQL or <code>null</code> for a <code>null</code> statement
+   */
+  static String toCql(Object statement) {
+    if (statement == null) {
+      return null;
+    } else if (statement instanceof String) {
+      return (String) statement;
+    } else if (statement instanceof BoundStatement) {
+      return ((BoundStatement) statement).preparedStatement().getQueryString();
+    } else if (statement instanceof RegularStatement) {
+      return ((RegularStatement) statement).getQueryString();
+    } else if (statement instanceof BatchStatement) {
+      var statements = ((BatchStatement) statement).getStatements();
+      return "BATCH of " + statements.size() + " statements"
+          + (statements.isEmpty() ? "" : ": " + toCql(statements.iterator().next()));
+    }
+    return statement.toString();
+  }
+}
@@ -0,0 +1,20 @@
+package com.findinpath.aop;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the hot methods of a repository (or all the methods of the annotated repository class)
+ * whose calls get recorded, when <code>repository.timer.striped.enabled</code> is set to
+ * <code>true</code>, on striped timers instead of the regular Micrometer timers (see
+ * {@link StripedTimers}).
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface StripedTimed {
+
+}
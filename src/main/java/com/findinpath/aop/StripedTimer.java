@@ -0,0 +1,245 @@
+package com.findinpath.aop;
+
+import com.findinpath.concurrent.StripedHistogram;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Measurement;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Statistic;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * {@link Timer} recording into a {@link StripedHistogram}, for the hot repository methods whose
+ * timers are contended by many concurrent callers (see {@link StripedTimers}).
+ *
+ * The timer gets published as a {@link Meter.Type#TIMER} meter with the count, total time and
+ * max statistics, along with the client side percentiles of the distribution statistics as
+ * gauges tagged with the &quot;phi&quot; tag (in the same way in which Micrometer publishes
+ * them for the regular timers). The registries read the statistics and the percentiles one by one,
+ * reason why all of them get served out of a single snapshot of the timer, merged out of the
+ * stripes on the first of the reads and reused by the reads of the same publication (see
+ * {@link #PUBLICATION_WINDOW_NANOS}). The durations are published in seconds.
+ *
+ * The percentiles and the max value decay in the same way as the ones of the regular timers: the
+ * histogram gets rotated, on reading, once per the expiry divided by the buffer length of the
+ * distribution statistics, and only the values recorded during the last buffer length rotations
+ * are taken into account.
+ */
+final class StripedTimer implements Timer {
+
+  private static final Duration DEFAULT_EXPIRY = Duration.ofMinutes(2);
+  private static final int DEFAULT_BUFFER_LENGTH = 3;
+  private static final CountAtBucket[] NO_BUCKETS = new CountAtBucket[0];
+
+  /**
+   * The period during which the published snapshot gets reused. All the reads of a publication
+   * (e.g. : a Prometheus scrape) happen well within it, while the publications are seconds apart.
+   */
+  static final long PUBLICATION_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final Clock clock;
+  private final StripedHistogram histogram;
+  private final double[] percentiles;
+  private final long rotationNanos;
+
+  /**
+   * Guarded by <code>this</code>. The snapshots and the max values taken on the last rotations,
+   * the oldest one being the next one to be replaced.
+   */
+  private final StripedHistogram.Snapshot[] rotatedSnapshots;
+  private final long[] rotatedMaxes;
+  private int oldest;
+  private long lastRotationNanos;
+
+  private volatile Id id;
+  private volatile HistogramSnapshot published;
+  private volatile long publishedNanos;
+
+  StripedTimer(Clock clock, int stripes, DistributionStatisticConfig distribution) {
+    var expiry = distribution.getExpiry() == null ? DEFAULT_EXPIRY : distribution.getExpiry();
+    var bufferLength = distribution.getBufferLength() == null ? DEFAULT_BUFFER_LENGTH
+        : distribution.getBufferLength();
+    this.clock = clock;
+    this.histogram = new StripedHistogram(stripes);
+    this.percentiles = distribution.getPercentiles() == null ? new double[0]
+        : distribution.getPercentiles().clone();
+    this.rotationNanos = Math.max(1, expiry.toNanos() / bufferLength);
+    this.rotatedSnapshots = new StripedHistogram.Snapshot[bufferLength];
+    Arrays.fill(rotatedSnapshots, StripedHistogram.Snapshot.empty());
+    this.rotatedMaxes = new long[bufferLength];
+    this.lastRotationNanos = clock.monotonicTime();
+  }
+
+  /**
+   * Publishes the timer and its percentiles in the registry.
+   *
+   * @param meterRegistry the registry
+   * @param name the name of the timer
+   * @param tags the tags of the timer
+   */
+  void register(MeterRegistry meterRegistry, String name, Tags tags) {
+    id = Meter.builder(name, Meter.Type.TIMER, List.of(
+        new Measurement(() -> (double) publishedSnapshot().count(), Statistic.COUNT),
+        new Measurement(() -> publishedSnapshot().total(TimeUnit.SECONDS), Statistic.TOTAL_TIME),
+        new Measurement(() -> publishedSnapshot().max(TimeUnit.SECONDS), Statistic.MAX)))
+        .tags(tags)
+        .baseUnit("seconds")
+        .register(meterRegistry)
+        .getId();
+    for (var percentile : percentiles) {
+      Gauge.builder(name + ".percentile", this,
+          timer -> timer.publishedPercentileValue(percentile, TimeUnit.SECONDS))
+          .tags(tags)
+          .tags("phi", BigDecimal.valueOf(percentile).stripTrailingZeros().toPlainString())
+          .baseUnit("seconds")
+          .register(meterRegistry);
+    }
+  }
+
+  @Override
+  public Id getId() {
+    return id;
+  }
+
+  @Override
+  public void record(long amount, TimeUnit unit) {
+    histogram.record(unit.toNanos(amount));
+  }
+
+  @Override
+  public <T> T record(Supplier<T> f) {
+    var startNanos = clock.monotonicTime();
+    try {
+      return f.get();
+    } finally {
+      histogram.record(clock.monotonicTime() - startNanos);
+    }
+  }
+
+  @Override
+  public <T> T recordCallable(Callable<T> f) throws Exception {
+    var startNanos = clock.monotonicTime();
+    try {
+      return f.call();
+    } finally {
+      histogram.record(clock.monotonicTime() - startNanos);
+    }
+  }
+
+  @Override
+  public void record(Runnable f) {
+    var startNanos = clock.monotonicTime();
+    try {
+      f.run();
+    } finally {
+      histogram.record(clock.monotonicTime() - startNanos);
+    }
+  }
+
+  @Override
+  public long count() {
+    return histogram.count();
+  }
+
+  @Override
+  public double totalTime(TimeUnit unit) {
+    return toUnit(histogram.total(), unit);
+  }
+
+  @Override
+  public double max(TimeUnit unit) {
+    return toUnit(maxNanos(), unit);
+  }
+
+  @Override
+  public TimeUnit baseTimeUnit() {
+    return TimeUnit.NANOSECONDS;
+  }
+
+  @Override
+  public HistogramSnapshot takeSnapshot() {
+    var cumulative = histogram.snapshot();
+    long maxNanos;
+    StripedHistogram.Snapshot window;
+    synchronized (this) {
+      rotate();
+      maxNanos = maxNanos();
+      window = cumulative.minus(rotatedSnapshots[oldest]);
+    }
+    var percentileValues = new ValueAtPercentile[percentiles.length];
+    for (int i = 0; i < percentiles.length; i++) {
+      percentileValues[i] = new ValueAtPercentile(percentiles[i],
+          Math.min(window.valueAtPercentile(percentiles[i]), maxNanos));
+    }
+    return new HistogramSnapshot(cumulative.count(), cumulative.total(), maxNanos,
+        percentileValues, NO_BUCKETS, null);
+  }
+
+  /**
+   * @return the snapshot taken on the first read of the current publication
+   */
+  private HistogramSnapshot publishedSnapshot() {
+    var nowNanos = clock.monotonicTime();
+    var snapshot = published;
+    if (snapshot == null || nowNanos - publishedNanos >= PUBLICATION_WINDOW_NANOS) {
+      // concurrent publications may both take a snapshot, the latest one being kept
+      snapshot = takeSnapshot();
+      publishedNanos = nowNanos;
+      published = snapshot;
+    }
+    return snapshot;
+  }
+
+  private double publishedPercentileValue(double percentile, TimeUnit unit) {
+    for (var percentileValue : publishedSnapshot().percentileValues()) {
+      if (percentileValue.percentile() == percentile) {
+        return percentileValue.value(unit);
+      }
+    }
+    return Double.NaN;
+  }
+
+  private synchronized long maxNanos() {
+    rotate();
+    var max = histogram.max();
+    for (int i = 0; i < rotatedMaxes.length; i++) {
+      // the oldest max value has been recorded before the start of the decay window
+      if (i != oldest) {
+        max = Math.max(max, rotatedMaxes[i]);
+      }
+    }
+    return max;
+  }
+
+  /**
+   * Replaces the oldest snapshot and max value once the rotation period has elapsed since the
+   * last rotation. Called only by the readers, reason why a single rotation is done even when the
+   * timer hasn't been read during several rotation periods.
+   */
+  private void rotate() {
+    var nowNanos = clock.monotonicTime();
+    if (nowNanos - lastRotationNanos >= rotationNanos) {
+      rotatedMaxes[oldest] = histogram.resetMax();
+      rotatedSnapshots[oldest] = histogram.snapshot();
+      oldest = (oldest + 1) % rotatedSnapshots.length;
+      lastRotationNanos = nowNanos;
+    }
+  }
+
+  private static double toUnit(long nanos, TimeUnit unit) {
+    return nanos / (double) unit.toNanos(1);
+  }
+}
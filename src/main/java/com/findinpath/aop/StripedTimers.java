@@ -0,0 +1,90 @@
+package com.findinpath.aop;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.util.Assert;
+
+/**
+ * Settings of the striped timers, used by the {@link RepositoryTimerAspect} instead of the
+ * regular Micrometer timers for the hot repository methods.
+ *
+ * When hundreds of threads call the same repository method (e.g. :
+ * <code>ConfigRepository.findById</code>), they all record on the same few timers, whose
+ * histograms (along with the ring of decaying histograms of each of the client side percentiles)
+ * get updated atomically on every call and become a contention point. The striped timers record
+ * instead into a {@link com.findinpath.concurrent.StripedHistogram}, whose stripes get merged only
+ * when the timers are read (e.g. : when the registry gets scraped), and get published under the
+ * same {@link RepositoryTimerAspect#REPOSITORY_METRIC_NAME} meter name and tags as the regular
+ * timers (see {@link StripedTimer}).
+ *
+ * The striped timers publish the count, the total time, the max and the client side percentiles
+ * of the distribution statistics of the method (see {@link TimerDistributions}), but not the
+ * percentiles histogram nor the SLA buckets, reason why the methods relying on the server side
+ * aggregation of their latency are to keep the regular timers.
+ *
+ * The methods timed on striped timers are the repository methods annotated with
+ * {@link StripedTimed} (or declared by a repository class annotated with it), along with the ones
+ * specified by the repository class name (as used for the &quot;class&quot; metric tag) or by
+ * the repository class and method names joined by a dot.
+ *
+ * Unlike the regular timers, the striped timers are not deduplicated by the registry, reason why
+ * they are kept by their meter id, so that the methods sharing the same meter id (e.g. : the
+ * overloads of a method) record on the same striped timer.
+ */
+public class StripedTimers {
+
+  private final Set<String> methods;
+  private final int stripes;
+  private final ConcurrentMap<Meter.Id, StripedTimer> timers = new ConcurrentHashMap<>();
+
+  /**
+   * @param methods the keys of the methods timed on striped timers besides the ones annotated
+   * with {@link StripedTimed}
+   * @param stripes the number of stripes of each of the timers (e.g. : the number of processors)
+   */
+  public StripedTimers(Collection<String> methods, int stripes) {
+    Assert.isTrue(stripes > 0, "The number of stripes must be positive");
+    this.methods = Set.copyOf(methods);
+    this.stripes = stripes;
+  }
+
+  /**
+   * @param className the repository class name (as used for the &quot;class&quot; metric tag)
+   * @param method the repository method
+   * @return whether the calls of the method get timed on striped timers
+   */
+  public boolean isStriped(String className, Method method) {
+    return methods.contains(className + "." + method.getName())
+        || methods.contains(className)
+        || AnnotatedElementUtils.hasAnnotation(method, StripedTimed.class)
+        || AnnotatedElementUtils.hasAnnotation(method.getDeclaringClass(), StripedTimed.class);
+  }
+
+  /**
+   * Resolves the striped timer with the specified name and tags, which gets created and published
+   * in the registry on the first request.
+   *
+   * @param meterRegistry the registry where the timer is published
+   * @param name the name of the timer
+   * @param tags the tags of the timer
+   * @param distribution the distribution statistics of the timer
+   * @return the striped timer
+   */
+  StripedTimer getTimer(MeterRegistry meterRegistry, String name, Tags tags,
+      DistributionStatisticConfig distribution) {
+    var id = new Meter.Id(name, tags, null, null, Meter.Type.TIMER);
+    return timers.computeIfAbsent(id, key -> {
+      var timer = new StripedTimer(meterRegistry.config().clock(), stripes, distribution);
+      timer.register(meterRegistry, name, tags);
+      return timer;
+    });
+  }
+}
@@ -0,0 +1,52 @@
+package com.findinpath.aop;
+
+import org.springframework.data.cassandra.core.convert.MappingCassandraConverter;
+import org.springframework.data.cassandra.core.mapping.CassandraMappingContext;
+
+/**
+ * {@link MappingCassandraConverter} measuring the time spent mapping the rows read by the timed
+ * repository method calls (see {@link CallPhaseTracker}).
+ *
+ * The rows which are not read on behalf of a timed repository call get mapped without any
+ * overhead besides a thread local lookup.
+ *
+ * The subclasses mapping the rows on their own (e.g. :
+ * {@link com.findinpath.mapping.RowMappingCassandraConverter}) override
+ * {@link #doRead(Class, Object)}, so that their mapping gets measured as well.
+ */
+public class TimedMappingCassandraConverter extends MappingCassandraConverter {
+
+  public TimedMappingCassandraConverter() {
+    super();
+  }
+
+  public TimedMappingCassandraConverter(CassandraMappingContext mappingContext) {
+    super(mappingContext);
+  }
+
+  @Override
+  public <R> R read(Class<R> type, Object row) {
+    var phases = CallPhases.current();
+    if (phases == null) {
+      return doRead(type, row);
+    }
+    var startNanos = phases.startMapping();
+    try {
+      return doRead(type, row);
+    } finally {
+      phases.stopMapping(startNanos);
+    }
+  }
+
+  /**
+   * Maps the row, without measuring the mapping time.
+   *
+   * @param type the type of the entity to read
+   * @param row the row to read
+   * @param <R> the type of the entity
+   * @return the entity
+   */
+  protected <R> R doRead(Class<R> type, Object row) {
+    return super.read(type, row);
+  }
+}
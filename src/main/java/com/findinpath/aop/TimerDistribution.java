@@ -0,0 +1,57 @@
+package com.findinpath.aop;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Overrides the distribution statistics published by the repository timers of the annotated
+ * method or of all the methods of the annotated repository class.
+ *
+ * The annotation replaces the default distribution statistics (the client side
+ * {@link RepositoryTimerAspect#EXPORTED_PERCENTILES}) as a whole, e.g. :
+ *
+ * <pre>
+ * &#64;TimerDistribution(percentilesHistogram = true, sla = {"5ms", "20ms", "100ms"})
+ * </pre>
+ *
+ * publishes only the server side aggregatable histogram with the specified SLA buckets.
+ *
+ * The settings coming from the <code>repository.timer.distribution.overrides.*</code> properties
+ * take precedence over the annotation (see {@link TimerDistributions}).
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface TimerDistribution {
+
+  /**
+   * @return the client side computed percentiles to publish (e.g. : <code>0.99</code>)
+   */
+  double[] percentiles() default {};
+
+  /**
+   * @return whether to publish the histogram buckets needed for computing aggregatable
+   * percentiles on the server side
+   */
+  boolean percentilesHistogram() default false;
+
+  /**
+   * @return the SLA boundaries (e.g. : <code>"20ms"</code>) to be published as histogram buckets
+   */
+  String[] sla() default {};
+
+  /**
+   * @return the duration (e.g. : <code>"1m"</code>) after which the samples are discarded from
+   * the client side percentiles and the max value, or empty for the registry default
+   */
+  String expiry() default "";
+
+  /**
+   * @return the number of histograms kept in the ring buffer used for the expiry of the samples,
+   * or <code>0</code> for the registry default
+   */
+  int bufferLength() default 0;
+}
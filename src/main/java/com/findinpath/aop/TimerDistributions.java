@@ -0,0 +1,125 @@
+package com.findinpath.aop;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+/**
+ * Resolves the distribution statistics (client side percentiles, percentiles histogram, SLA
+ * buckets, expiry) published by the timers of each of the repository methods.
+ *
+ * Each of the client side percentiles keeps its own ring of decaying histograms, which costs
+ * memory for each of the timers and CPU on each of the recordings, while the server side
+ * histograms are aggregatable over the application instances. The distribution statistics can
+ * therefor be chosen per repository class or method, from the most specific to the least
+ * specific setting:
+ *
+ * <ol>
+ *   <li>the override for the <code>Class.method</code> key</li>
+ *   <li>the {@link TimerDistribution} annotation of the repository method</li>
+ *   <li>the override for the <code>Class</code> key</li>
+ *   <li>the {@link TimerDistribution} annotation of the repository class</li>
+ *   <li>the defaults</li>
+ * </ol>
+ *
+ * The overrides and the annotations replace the defaults as a whole, except for the expiry and
+ * the buffer length, which are taken from the defaults when not specified.
+ */
+public final class TimerDistributions {
+
+  /**
+   * The client side {@link RepositoryTimerAspect#EXPORTED_PERCENTILES}.
+   */
+  public static final DistributionStatisticConfig DEFAULT_DISTRIBUTION =
+      DistributionStatisticConfig.builder()
+          .percentiles(RepositoryTimerAspect.EXPORTED_PERCENTILES)
+          .build();
+
+  private static final TimerDistributions DEFAULTS =
+      new TimerDistributions(DEFAULT_DISTRIBUTION, Map.of());
+
+  private final DistributionStatisticConfig defaults;
+  private final Map<String, DistributionStatisticConfig> overrides;
+
+  /**
+   * @param defaults the distribution statistics of the timers which are not overridden
+   * @param overrides the distribution statistics keyed by the repository class name (as used for
+   * the &quot;class&quot; metric tag) or by the repository class and method names joined by a dot
+   */
+  public TimerDistributions(DistributionStatisticConfig defaults,
+      Map<String, DistributionStatisticConfig> overrides) {
+    this.defaults = defaults;
+    this.overrides = Map.copyOf(overrides);
+  }
+
+  /**
+   * @return the distributions publishing the client side
+   * {@link RepositoryTimerAspect#EXPORTED_PERCENTILES} for all the repository methods
+   */
+  public static TimerDistributions defaults() {
+    return DEFAULTS;
+  }
+
+  /**
+   * Resolves the distribution statistics of the timers of a repository method.
+   *
+   * @param className the repository class name (used for the &quot;class&quot; metric tag)
+   * @param method the repository method
+   * @return the distribution statistics
+   */
+  public DistributionStatisticConfig resolve(String className, Method method) {
+    var distribution = overrides.get(className + "." + method.getName());
+    if (distribution == null) {
+      distribution = toDistribution(
+          AnnotatedElementUtils.findMergedAnnotation(method, TimerDistribution.class));
+    }
+    if (distribution == null) {
+      distribution = overrides.get(className);
+    }
+    if (distribution == null) {
+      distribution = toDistribution(AnnotatedElementUtils
+          .findMergedAnnotation(method.getDeclaringClass(), TimerDistribution.class));
+    }
+    return distribution == null ? defaults : distribution.merge(defaults);
+  }
+
+  /**
+   * Applies the specified distribution statistics on the timer builder.
+   *
+   * @param builder the timer builder
+   * @param distribution the distribution statistics
+   * @return the timer builder
+   */
+  public static Timer.Builder apply(Timer.Builder builder,
+      DistributionStatisticConfig distribution) {
+    var sla = distribution.getSlaBoundaries();
+    return builder
+        .publishPercentiles(distribution.getPercentiles())
+        .publishPercentileHistogram(distribution.isPercentileHistogram())
+        .sla(sla == null ? null : Arrays.stream(sla).mapToObj(Duration::ofNanos)
+            .toArray(Duration[]::new))
+        .distributionStatisticExpiry(distribution.getExpiry())
+        .distributionStatisticBufferLength(distribution.getBufferLength());
+  }
+
+  private static DistributionStatisticConfig toDistribution(TimerDistribution annotation) {
+    if (annotation == null) {
+      return null;
+    }
+    return DistributionStatisticConfig.builder()
+        .percentiles(annotation.percentiles())
+        .percentilesHistogram(annotation.percentilesHistogram())
+        .sla(Arrays.stream(annotation.sla())
+            .mapToLong(sla -> DurationStyle.detectAndParse(sla).toNanos())
+            .toArray())
+        .expiry(annotation.expiry().isEmpty() ? null
+            : DurationStyle.detectAndParse(annotation.expiry()))
+        .bufferLength(annotation.bufferLength() == 0 ? null : annotation.bufferLength())
+        .build();
+  }
+}
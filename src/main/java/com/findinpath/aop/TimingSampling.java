@@ -0,0 +1,100 @@
+package com.findinpath.aop;
+
+/**
+ * Settings of the sampling done by the {@link RepositoryTimerAspect} on the repository method
+ * calls.
+ *
+ * Under extreme call rates, recording the duration of each of the calls on the timers adds a
+ * measurable CPU overhead. When sampling, only a fraction of the successful calls are recorded,
+ * while the sampled out calls skip the recording (e.g. : the updates of the percentiles and
+ * histograms) and the estimation of their result size. The failed (timed out, cancelled) calls
+ * get always recorded, so that the latency of the failures stays visible. All the calls (sampled
+ * or not) are still counted exactly, per outcome, on the
+ * {@link RepositoryTimerAspect#REPOSITORY_CALLS_METRIC_NAME} counter.
+ *
+ * @see Mode
+ */
+public final class TimingSampling {
+
+  private static final TimingSampling NONE = new TimingSampling(Mode.NONE, 1, 0);
+
+  private final Mode mode;
+  private final int rate;
+  private final long callsPerSecondThreshold;
+
+  private TimingSampling(Mode mode, int rate, long callsPerSecondThreshold) {
+    this.mode = mode;
+    this.rate = rate;
+    this.callsPerSecondThreshold = callsPerSecondThreshold;
+  }
+
+  /**
+   * @return the settings for timing each of the repository method calls
+   */
+  public static TimingSampling none() {
+    return NONE;
+  }
+
+  /**
+   * @param rate the <code>N</code> of the 1-in-N calls being timed
+   * @return the settings for timing, on average, one out of <code>rate</code> calls
+   */
+  public static TimingSampling fixed(int rate) {
+    return new TimingSampling(Mode.FIXED, checkRate(rate), 0);
+  }
+
+  /**
+   * @param rate the <code>N</code> of the 1-in-N calls being timed above the threshold
+   * @param callsPerSecondThreshold the calls per second rate of a repository method above which
+   * its calls get sampled
+   * @return the settings for timing each of the calls of a repository method until its call
+   * rate crosses the specified threshold and, on average, one out of <code>rate</code> calls
+   * afterwards
+   */
+  public static TimingSampling adaptive(int rate, long callsPerSecondThreshold) {
+    if (callsPerSecondThreshold <= 0) {
+      throw new IllegalArgumentException(
+          "The calls per second threshold must be positive: " + callsPerSecondThreshold);
+    }
+    return new TimingSampling(Mode.ADAPTIVE, checkRate(rate), callsPerSecondThreshold);
+  }
+
+  public Mode getMode() {
+    return mode;
+  }
+
+  public int getRate() {
+    return rate;
+  }
+
+  public long getCallsPerSecondThreshold() {
+    return callsPerSecondThreshold;
+  }
+
+  private static int checkRate(int rate) {
+    if (rate < 1) {
+      throw new IllegalArgumentException("The sampling rate must be at least 1: " + rate);
+    }
+    return rate;
+  }
+
+  /**
+   * The sampling modes of the repository method calls.
+   */
+  public enum Mode {
+    /**
+     * Each of the calls is timed.
+     */
+    NONE,
+    /**
+     * One out of <code>rate</code> calls, randomly chosen, is timed.
+     */
+    FIXED,
+    /**
+     * Each of the calls of a repository method is timed as long as the calls per second rate of
+     * the method stays below the threshold. Above it, one out of <code>rate</code> calls is
+     * timed.
+     */
+    ADAPTIVE
+  }
+}
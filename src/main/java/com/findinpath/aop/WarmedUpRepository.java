@@ -0,0 +1,14 @@
+package com.findinpath.aop;
+
+/**
+ * Implemented by the repository classes having work of their own to be done at startup, ahead of
+ * their first calls (e.g. : preparing their statements), by the {@link RepositoryWarmUp}.
+ */
+public interface WarmedUpRepository {
+
+  /**
+   * Does the work needed ahead of the first calls of the repository. Called on the repository
+   * itself (not through its proxy), so that the call doesn't get timed.
+   */
+  void warmUp();
+}
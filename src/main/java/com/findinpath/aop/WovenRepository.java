@@ -0,0 +1,13 @@
+package com.findinpath.aop;
+
+/**
+ * Marker interface declared by the {@link WovenRepositoryTimerAspect} on the repository classes
+ * woven at compile time or at load time.
+ *
+ * The {@link RepositoryTimerAspect} excludes the classes implementing this interface, so that
+ * Spring AOP doesn't create any proxy for the repositories which are already timed through
+ * weaving.
+ */
+public interface WovenRepository {
+
+}
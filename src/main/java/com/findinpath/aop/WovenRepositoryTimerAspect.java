@@ -0,0 +1,73 @@
+package com.findinpath.aop;
+
+import java.util.concurrent.atomic.AtomicReference;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.DeclareParents;
+import org.aspectj.lang.annotation.Pointcut;
+
+/**
+ * AspectJ aspect woven, at compile time or at load time (see <code>META-INF/aop.xml</code>), into
+ * the repository classes, so that their methods call straight into the timing code instead of
+ * going through a Spring AOP proxy.
+ *
+ * The aspect is instantiated by AspectJ and not by Spring, reason why it delegates the timing to
+ * the {@link RepositoryTimerAspect} bean bound through {@link #bind(RepositoryTimerAspect)}. The
+ * calls made before the binding are not timed. As the binding is shared by all the application
+ * contexts of the class loader, a context being closed unbinds only the aspect it has bound
+ * itself (see {@link #unbind(RepositoryTimerAspect)}).
+ *
+ * Unlike the proxies, the woven methods are timed on self-invocations as well.
+ */
+@Aspect
+public class WovenRepositoryTimerAspect {
+
+  private static final AtomicReference<RepositoryTimerAspect> TIMER_ASPECT =
+      new AtomicReference<>();
+
+  /**
+   * Marks the woven repository classes, so that they are not proxied anymore by Spring AOP.
+   */
+  @DeclareParents("((@org.springframework.stereotype.Repository *) || org.springframework.data.repository.Repository+) && !(@com.findinpath.aop.NotTimed *) && is(ClassType)")
+  public static WovenRepository wovenRepository;
+
+  /**
+   * Binds the aspect to which the woven repository methods delegate their timing.
+   *
+   * @param repositoryTimerAspect the aspect timing the repository methods or <code>null</code>
+   * for not timing them anymore
+   */
+  public static void bind(RepositoryTimerAspect repositoryTimerAspect) {
+    TIMER_ASPECT.set(repositoryTimerAspect);
+  }
+
+  /**
+   * Unbinds the specified aspect, unless another aspect has been bound in the meantime (e.g. : by
+   * a newer application context).
+   *
+   * @param repositoryTimerAspect the aspect bound through {@link #bind(RepositoryTimerAspect)}
+   * @return whether the aspect has been unbound
+   */
+  public static boolean unbind(RepositoryTimerAspect repositoryTimerAspect) {
+    return TIMER_ASPECT.compareAndSet(repositoryTimerAspect, null);
+  }
+
+  /**
+   * Unlike Spring AOP, AspectJ advises as well the field accesses, the constructors and the
+   * non-public methods, reason why the pointcut is restricted to the public method executions.
+   */
+  @Pointcut("execution(public !static * *(..)) && within(com.findinpath.aop.WovenRepository+)")
+  public void wovenRepositoryMethods() {
+  }
+
+  @Around("wovenRepositoryMethods()")
+  public Object measureMethodExecutionTime(ProceedingJoinPoint proceedingJoinPoint)
+      throws Throwable {
+    var aspect = TIMER_ASPECT.get();
+    if (aspect == null) {
+      return proceedingJoinPoint.proceed();
+    }
+    return aspect.measureMethodExecutionTime(proceedingJoinPoint);
+  }
+}
@@ -0,0 +1,187 @@
+package com.findinpath.concurrent;
+
+import io.micrometer.core.instrument.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.util.Assert;
+
+/**
+ * Limits the number of operations in flight to a limit which adapts to the latency of the
+ * operations, following the additive increase / multiplicative decrease (AIMD) rule:
+ *
+ * <ul>
+ *   <li>the limit grows by one when an operation completes within the latency threshold while
+ *   the limit is being used at least by half</li>
+ *   <li>the limit gets multiplied by the backoff ratio when an operation completes above the
+ *   latency threshold or gets dropped (e.g. : fails)</li>
+ * </ul>
+ *
+ * The operations over the limit either get rejected right away or wait (blocking the calling
+ * thread) up to a maximum queue time for one of the operations in flight to complete.
+ *
+ * @see Permit
+ */
+public final class AimdConcurrencyLimiter {
+
+  private final Clock clock;
+  private final int minLimit;
+  private final int maxLimit;
+  private final long latencyThresholdNanos;
+  private final double backoffRatio;
+  private final long maxQueueNanos;
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final LongAdder rejections = new LongAdder();
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition released = lock.newCondition();
+  private volatile int waiting;
+
+  /**
+   * Guarded by <code>this</code>. The limit is kept fractional, so that repeated backoffs of a
+   * small limit still have an effect.
+   */
+  private double limit;
+  private volatile int currentLimit;
+
+  /**
+   * @param clock the clock used for measuring the latency of the operations
+   * @param initialLimit the initial limit
+   * @param minLimit the minimum limit
+   * @param maxLimit the maximum limit
+   * @param latencyThreshold the latency above which the limit gets decreased
+   * @param backoffRatio the ratio by which the limit gets multiplied when decreased
+   * @param maxQueueTime the maximum time to wait for an operation over the limit or
+   * {@link Duration#ZERO} for rejecting right away the operations over the limit
+   */
+  public AimdConcurrencyLimiter(Clock clock, int initialLimit, int minLimit, int maxLimit,
+      Duration latencyThreshold, double backoffRatio, Duration maxQueueTime) {
+    Assert.isTrue(minLimit > 0, "The minimum limit must be positive");
+    Assert.isTrue(minLimit <= initialLimit && initialLimit <= maxLimit,
+        "The initial limit must be between the minimum and the maximum limit");
+    Assert.isTrue(backoffRatio > 0 && backoffRatio < 1,
+        "The backoff ratio must be between 0 and 1");
+    this.clock = clock;
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.latencyThresholdNanos = latencyThreshold.toNanos();
+    this.backoffRatio = backoffRatio;
+    this.maxQueueNanos = maxQueueTime.toNanos();
+    this.limit = initialLimit;
+    this.currentLimit = initialLimit;
+  }
+
+  /**
+   * Acquires a permit for starting an operation, waiting, if so configured, for one of the
+   * operations in flight to complete in case that the limit is reached.
+   *
+   * @return the permit to release on the completion of the operation or <code>null</code> in
+   * case that the operation is rejected
+   */
+  public Permit tryAcquire() {
+    if (tryIncrementInFlight() || (maxQueueNanos > 0 && awaitInFlight())) {
+      return new Permit(clock.monotonicTime());
+    }
+    rejections.increment();
+    return null;
+  }
+
+  /**
+   * Acquires a permit for starting an optional operation (e.g. : a speculative retry), only in
+   * case that the limit is not reached. The operation neither waits nor gets counted as rejected.
+   *
+   * @return the permit to release on the completion of the operation or <code>null</code> in
+   * case that the limit is reached
+   */
+  public Permit tryAcquireNow() {
+    return tryIncrementInFlight() ? new Permit(clock.monotonicTime()) : null;
+  }
+
+  public int getLimit() {
+    return currentLimit;
+  }
+
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  public long getRejections() {
+    return rejections.sum();
+  }
+
+  private boolean tryIncrementInFlight() {
+    while (true) {
+      var current = inFlight.get();
+      if (current >= currentLimit) {
+        return false;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  private boolean awaitInFlight() {
+    var remainingNanos = maxQueueNanos;
+    lock.lock();
+    try {
+      waiting++;
+      while (!tryIncrementInFlight()) {
+        if (remainingNanos <= 0) {
+          return false;
+        }
+        remainingNanos = released.awaitNanos(remainingNanos);
+      }
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } finally {
+      waiting--;
+      lock.unlock();
+    }
+  }
+
+  private void release(long latencyNanos, boolean dropped) {
+    var inFlightBefore = inFlight.getAndDecrement();
+    synchronized (this) {
+      if (dropped || latencyNanos > latencyThresholdNanos) {
+        limit = Math.max(minLimit, limit * backoffRatio);
+      } else if (inFlightBefore * 2 >= limit) {
+        limit = Math.min(maxLimit, limit + 1);
+      }
+      currentLimit = (int) limit;
+    }
+    if (waiting > 0) {
+      lock.lock();
+      try {
+        released.signal();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Permit of an operation in flight, to be released exactly once, on the completion of the
+   * operation.
+   */
+  public final class Permit {
+
+    private final long startNanos;
+
+    private Permit(long startNanos) {
+      this.startNanos = startNanos;
+    }
+
+    /**
+     * @param dropped whether the operation has been dropped (e.g. : failed, timed out), in which
+     * case the limit gets decreased regardless of the latency of the operation
+     */
+    public void release(boolean dropped) {
+      AimdConcurrencyLimiter.this.release(clock.monotonicTime() - startNanos, dropped);
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package com.findinpath.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import org.springframework.util.Assert;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+/**
+ * Pipelines asynchronous operations while keeping at most a fixed number of them in flight.
+ *
+ * A new operation is started only when one of the operations in flight completes, without
+ * blocking any of the threads involved. In case that one of the operations fails, no further
+ * operations are started and the pipeline result fails with the same exception.
+ */
+public final class BoundedPipeline<T, R> {
+
+  private final List<T> items;
+  private final Function<? super T, ? extends ListenableFuture<R>> operation;
+  private final SettableListenableFuture<List<R>> result = new SettableListenableFuture<>();
+  private final AtomicReferenceArray<R> results;
+  private final AtomicInteger nextIndex = new AtomicInteger();
+  private final AtomicInteger completed = new AtomicInteger();
+  /**
+   * Counter of the pending requests for starting a new operation. It avoids the recursion
+   * between starting an operation and its (possibly synchronous) completion callback.
+   */
+  private final AtomicInteger pendingStarts = new AtomicInteger();
+
+  private BoundedPipeline(List<T> items,
+      Function<? super T, ? extends ListenableFuture<R>> operation) {
+    this.items = items;
+    this.operation = operation;
+    this.results = new AtomicReferenceArray<>(items.size());
+  }
+
+  /**
+   * Applies asynchronously the specified operation on each of the items.
+   *
+   * @param items the items to be processed
+   * @param maxInFlight the maximum number of operations in flight
+   * @param operation the asynchronous operation to apply on each of the items
+   * @param <T> the type of the items
+   * @param <R> the type of the operation results
+   * @return the results of the operations, in the order of the items
+   */
+  public static <T, R> ListenableFuture<List<R>> map(List<T> items, int maxInFlight,
+      Function<? super T, ? extends ListenableFuture<R>> operation) {
+    Assert.isTrue(maxInFlight > 0, "The maximum number of operations in flight must be positive");
+
+    var pipeline = new BoundedPipeline<T, R>(items, operation);
+    if (items.isEmpty()) {
+      pipeline.result.set(List.of());
+    } else {
+      for (int i = 0, n = Math.min(maxInFlight, items.size()); i < n; i++) {
+        pipeline.requestStart();
+      }
+    }
+    return pipeline.result;
+  }
+
+  private void requestStart() {
+    if (pendingStarts.getAndIncrement() == 0) {
+      do {
+        start();
+      } while (pendingStarts.decrementAndGet() != 0);
+    }
+  }
+
+  private void start() {
+    var index = nextIndex.getAndIncrement();
+    if (index >= items.size() || result.isDone()) {
+      return;
+    }
+
+    ListenableFuture<R> future;
+    try {
+      future = operation.apply(items.get(index));
+    } catch (RuntimeException e) {
+      result.setException(e);
+      return;
+    }
+    future.addCallback(
+        value -> {
+          results.set(index, value);
+          if (completed.incrementAndGet() == items.size()) {
+            result.set(toList());
+          } else {
+            requestStart();
+          }
+        },
+        result::setException);
+  }
+
+  private List<R> toList() {
+    var list = new ArrayList<R>(results.length());
+    for (int i = 0; i < results.length(); i++) {
+      list.add(results.get(i));
+    }
+    return list;
+  }
+}
@@ -0,0 +1,186 @@
+package com.findinpath.concurrent;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import org.springframework.util.Assert;
+
+/**
+ * Timer for very large numbers of short-lived timeouts, most of which get cancelled before their
+ * expiry (e.g. : the deadlines of the asynchronous calls).
+ *
+ * The timeouts are hashed into the buckets of a wheel whose buckets get swept, one per tick, by
+ * a single daemon thread. Scheduling a timeout costs only the allocation of the timeout and an
+ * enqueue on a lock-free queue, instead of the heap insertion (and the removal, on cancellation)
+ * of a {@link java.util.concurrent.ScheduledExecutorService} task. The cancelled timeouts are not
+ * removed right away, but dropped when their bucket gets swept.
+ *
+ * The timeouts expire with a precision of one tick, never before their delay. The expiry tasks
+ * are run on the timer thread, so they need to be short and non-blocking.
+ */
+public final class HashedTimerWheel {
+
+  private final long tickNanos;
+  private final int mask;
+  private final Queue<Timeout>[] buckets;
+  private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+  private final long startNanos;
+  private final Thread worker;
+  private volatile boolean running = true;
+
+  /**
+   * @param threadName the name of the timer thread
+   * @param tickDuration the duration of a tick, i.e. : the precision of the timer
+   * @param ticksPerWheel the number of buckets of the wheel, rounded up to a power of two
+   */
+  @SuppressWarnings("unchecked")
+  public HashedTimerWheel(String threadName, Duration tickDuration, int ticksPerWheel) {
+    Assert.isTrue(!tickDuration.isNegative() && !tickDuration.isZero(),
+        "The tick duration must be positive");
+    Assert.isTrue(ticksPerWheel > 0 && ticksPerWheel <= 1 << 30,
+        "The number of ticks per wheel must be within [1, 2^30]");
+    this.tickNanos = tickDuration.toNanos();
+    var wheelSize = Integer.highestOneBit(ticksPerWheel - 1) << 1;
+    this.mask = Math.max(wheelSize, 1) - 1;
+    this.buckets = new Queue[mask + 1];
+    for (int i = 0; i < buckets.length; i++) {
+      buckets[i] = new ArrayDeque<>();
+    }
+    this.startNanos = System.nanoTime();
+    this.worker = new Thread(this::run, threadName);
+    this.worker.setDaemon(true);
+    this.worker.start();
+  }
+
+  /**
+   * Schedules the task to be run once the delay has elapsed, unless the returned timeout gets
+   * cancelled beforehand.
+   *
+   * @param task the expiry task, run on the timer thread
+   * @param delay the delay
+   * @param unit the unit of the delay
+   * @return the timeout
+   */
+  public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+    var timeout = new Timeout(task, System.nanoTime() - startNanos + unit.toNanos(delay));
+    scheduled.add(timeout);
+    return timeout;
+  }
+
+  /**
+   * Stops the timer thread. The pending timeouts never expire.
+   */
+  public void shutdown() {
+    running = false;
+    LockSupport.unpark(worker);
+  }
+
+  private void run() {
+    var tick = 0L;
+    while (running) {
+      var tickDeadline = tickNanos * (tick + 1);
+      var sleepNanos = tickDeadline - (System.nanoTime() - startNanos);
+      if (sleepNanos > 0) {
+        LockSupport.parkNanos(this, sleepNanos);
+        // spurious wake ups and shutdowns are handled by the loop
+        continue;
+      }
+      transferScheduled(tick);
+      expire(buckets[(int) (tick & mask)]);
+      tick++;
+    }
+  }
+
+  /**
+   * Moves the newly scheduled timeouts into the buckets of the wheel. The timeouts whose
+   * deadline falls within an already swept tick go into the bucket of the current tick.
+   */
+  private void transferScheduled(long currentTick) {
+    Timeout timeout;
+    while ((timeout = scheduled.poll()) != null) {
+      if (timeout.isCancelled()) {
+        continue;
+      }
+      var deadlineTick = Math.max(ceilDiv(timeout.deadlineNanos, tickNanos) - 1, currentTick);
+      timeout.remainingRounds = (deadlineTick - currentTick) / buckets.length;
+      buckets[(int) (deadlineTick & mask)].add(timeout);
+    }
+  }
+
+  private static void expire(Queue<Timeout> bucket) {
+    for (int i = bucket.size(); i > 0; i--) {
+      var timeout = bucket.poll();
+      if (timeout.isCancelled()) {
+        continue;
+      }
+      if (timeout.remainingRounds > 0) {
+        timeout.remainingRounds--;
+        bucket.add(timeout);
+      } else {
+        timeout.expire();
+      }
+    }
+  }
+
+  private static long ceilDiv(long dividend, long divisor) {
+    return -Math.floorDiv(-dividend, divisor);
+  }
+
+  /**
+   * Timeout scheduled on a {@link HashedTimerWheel}.
+   */
+  public static final class Timeout {
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final Runnable task;
+    private final long deadlineNanos;
+    private final AtomicInteger state = new AtomicInteger(PENDING);
+
+    /**
+     * Accessed only by the timer thread.
+     */
+    private long remainingRounds;
+
+    private Timeout(Runnable task, long deadlineNanos) {
+      this.task = task;
+      this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Cancels the timeout, in case that it hasn't expired yet.
+     *
+     * @return whether the timeout has been cancelled by this call
+     */
+    public boolean cancel() {
+      return state.compareAndSet(PENDING, CANCELLED);
+    }
+
+    public boolean isCancelled() {
+      return state.get() == CANCELLED;
+    }
+
+    /**
+     * @return whether the expiry task of the timeout has been run (or is running)
+     */
+    public boolean isExpired() {
+      return state.get() == EXPIRED;
+    }
+
+    private void expire() {
+      if (state.compareAndSet(PENDING, EXPIRED)) {
+        try {
+          task.run();
+        } catch (RuntimeException ex) {
+          // a failing expiry task must not stop the timer thread
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,245 @@
+package com.findinpath.concurrent;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.springframework.util.Assert;
+
+/**
+ * Histogram of non-negative <code>long</code> values (e.g. : durations in nanoseconds) which can
+ * be recorded concurrently by many threads without contending on the same memory locations.
+ *
+ * The histogram is split into stripes, each of them holding its own total, max and bucket
+ * counters, and each of the recording threads records into the stripe picked out of its thread
+ * id. The recording costs only a few atomic additions on the primitive counters of the stripe
+ * (no locks, no allocations), while the readers merge the stripes on demand (see
+ * {@link #snapshot()} and {@link #max()}). The stripes are padded, so that the threads recording
+ * into neighbouring stripes don't share cache lines either.
+ *
+ * The buckets are log-linear: the values below {@value #SUB_BUCKETS} get their own bucket, while
+ * each power of two above is split into {@value #SUB_BUCKETS} buckets of equal width, so that the
+ * values resolved out of the buckets are within 12.5% of the recorded values. The values above
+ * 2<sup>{@value #MAX_EXPONENT}</sup> (about 18 minutes, in nanoseconds) are all counted in the last
+ * bucket.
+ */
+public final class StripedHistogram {
+
+  static final int SUB_BUCKET_BITS = 3;
+  static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  static final int MAX_EXPONENT = 40;
+  static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+  private static final int TOTAL = 0;
+  private static final int MAX = 1;
+  private static final int FIRST_BUCKET = 2;
+  /**
+   * A cache line worth of <code>long</code> counters between the stripes.
+   */
+  private static final int PADDING = 8;
+  private static final int STRIPE_LENGTH = FIRST_BUCKET + BUCKETS + PADDING;
+
+  private final int stripeMask;
+  private final AtomicLongArray cells;
+
+  /**
+   * @param stripes the number of stripes, rounded up to a power of two (e.g. : the number of
+   * processors)
+   */
+  public StripedHistogram(int stripes) {
+    Assert.isTrue(stripes > 0, "The number of stripes must be positive");
+    var stripeCount = Integer.highestOneBit(stripes) == stripes ? stripes
+        : Integer.highestOneBit(stripes) << 1;
+    this.stripeMask = stripeCount - 1;
+    this.cells = new AtomicLongArray(stripeCount * STRIPE_LENGTH);
+  }
+
+  /**
+   * Records a value. The negative values are recorded as <code>0</code>.
+   *
+   * @param value the value
+   */
+  public void record(long value) {
+    if (value < 0) {
+      value = 0;
+    }
+    var stripe = stripeOffset();
+    cells.getAndAdd(stripe + TOTAL, value);
+    cells.getAndIncrement(stripe + FIRST_BUCKET + bucketIndex(value));
+    var max = cells.get(stripe + MAX);
+    while (value > max && !cells.compareAndSet(stripe + MAX, max, value)) {
+      max = cells.get(stripe + MAX);
+    }
+  }
+
+  /**
+   * @return the merged counts of the values recorded so far
+   */
+  public Snapshot snapshot() {
+    var counts = new long[BUCKETS];
+    long total = 0;
+    for (int stripe = 0; stripe <= stripeMask; stripe++) {
+      var offset = stripe * STRIPE_LENGTH;
+      total += cells.get(offset + TOTAL);
+      for (int i = 0; i < BUCKETS; i++) {
+        counts[i] += cells.get(offset + FIRST_BUCKET + i);
+      }
+    }
+    return new Snapshot(counts, total);
+  }
+
+  /**
+   * @return the number of values recorded so far, without merging the stripes into a snapshot
+   */
+  public long count() {
+    long count = 0;
+    for (int stripe = 0; stripe <= stripeMask; stripe++) {
+      var offset = stripe * STRIPE_LENGTH;
+      for (int i = 0; i < BUCKETS; i++) {
+        count += cells.get(offset + FIRST_BUCKET + i);
+      }
+    }
+    return count;
+  }
+
+  /**
+   * @return the sum of the values recorded so far, without merging the stripes into a snapshot
+   */
+  public long total() {
+    long total = 0;
+    for (int stripe = 0; stripe <= stripeMask; stripe++) {
+      total += cells.get(stripe * STRIPE_LENGTH + TOTAL);
+    }
+    return total;
+  }
+
+  /**
+   * @return the max value recorded since the last {@link #resetMax()}
+   */
+  public long max() {
+    long max = 0;
+    for (int stripe = 0; stripe <= stripeMask; stripe++) {
+      max = Math.max(max, cells.get(stripe * STRIPE_LENGTH + MAX));
+    }
+    return max;
+  }
+
+  /**
+   * Resets the max value, without losing any of the values being recorded concurrently.
+   *
+   * @return the max value recorded since the previous reset
+   */
+  public long resetMax() {
+    long max = 0;
+    for (int stripe = 0; stripe <= stripeMask; stripe++) {
+      max = Math.max(max, cells.getAndSet(stripe * STRIPE_LENGTH + MAX, 0));
+    }
+    return max;
+  }
+
+  private int stripeOffset() {
+    // Fibonacci hashing spreads the thread ids evenly over the stripes
+    var hash = (int) ((Thread.currentThread().getId() * 0x9E3779B97F4A7C15L) >>> 32);
+    return (hash & stripeMask) * STRIPE_LENGTH;
+  }
+
+  static int bucketIndex(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    var exponent = 63 - Long.numberOfLeadingZeros(value);
+    if (exponent > MAX_EXPONENT) {
+      return BUCKETS - 1;
+    }
+    var subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  /**
+   * @return the highest value counted in the bucket
+   */
+  static long highestValue(int bucketIndex) {
+    if (bucketIndex < SUB_BUCKETS) {
+      return bucketIndex;
+    }
+    if (bucketIndex == BUCKETS - 1) {
+      return Long.MAX_VALUE;
+    }
+    var exponent = bucketIndex / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    var subBucket = bucketIndex % SUB_BUCKETS;
+    var width = 1L << (exponent - SUB_BUCKET_BITS);
+    return ((long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS)) + width - 1;
+  }
+
+  /**
+   * Merged counts of the values recorded in a {@link StripedHistogram}.
+   */
+  public static final class Snapshot {
+
+    private static final Snapshot EMPTY = new Snapshot(new long[BUCKETS], 0);
+
+    private final long[] counts;
+    private final long total;
+    private final long count;
+
+    private Snapshot(long[] counts, long total) {
+      this.counts = counts;
+      this.total = total;
+      long count = 0;
+      for (var bucketCount : counts) {
+        count += bucketCount;
+      }
+      this.count = count;
+    }
+
+    /**
+     * @return the snapshot of a histogram without any value recorded
+     */
+    public static Snapshot empty() {
+      return EMPTY;
+    }
+
+    /**
+     * @return the number of values
+     */
+    public long count() {
+      return count;
+    }
+
+    /**
+     * @return the sum of the values
+     */
+    public long total() {
+      return total;
+    }
+
+    /**
+     * @param previous an earlier snapshot of the same histogram
+     * @return the counts of the values recorded since the earlier snapshot
+     */
+    public Snapshot minus(Snapshot previous) {
+      var counts = new long[BUCKETS];
+      for (int i = 0; i < BUCKETS; i++) {
+        counts[i] = Math.max(0, this.counts[i] - previous.counts[i]);
+      }
+      return new Snapshot(counts, total - previous.total);
+    }
+
+    /**
+     * @param percentile the percentile within [0, 1] (e.g. : <code>0.99</code>)
+     * @return the highest value of the bucket holding the percentile or <code>0</code> when
+     * there are no values
+     */
+    public long valueAtPercentile(double percentile) {
+      if (count == 0) {
+        return 0;
+      }
+      var rank = Math.max(1, (long) Math.ceil(percentile * count));
+      long cumulativeCount = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+        cumulativeCount += counts[i];
+        if (cumulativeCount >= rank) {
+          return highestValue(i);
+        }
+      }
+      return highestValue(BUCKETS - 1);
+    }
+  }
+}
@@ -0,0 +1,38 @@
+package com.findinpath.config;
+
+import com.findinpath.aop.RepositoryTimerAspect;
+import com.findinpath.repository.CachingConfigRepository;
+import com.findinpath.repository.ConfigRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Places, when the <code>repository.config.cache.enabled</code> property is set to
+ * <code>true</code>, a near cache in front of the spring data {@link ConfigRepository}.
+ *
+ * The {@link CachingConfigRepository} is the primary {@link ConfigRepository} bean, so that it
+ * gets injected instead of the spring data repository wherever a {@link ConfigRepository} is
+ * needed.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "repository.config.cache", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ConfigRepositoryCacheProperties.class)
+public class ConfigRepositoryCacheConfiguration {
+
+  @Bean
+  @Primary
+  public CachingConfigRepository cachingConfigRepository(
+      @Qualifier("configRepository") ConfigRepository configRepository,
+      RepositoryTimerAspect repositoryTimerAspect,
+      MeterRegistry meterRegistry,
+      ConfigRepositoryCacheProperties properties) {
+    return new CachingConfigRepository(configRepository, repositoryTimerAspect, meterRegistry,
+        properties.getMaximumSize(), properties.getExpireAfterWrite(),
+        properties.getRefreshAfterWrite(), properties.getNegativeExpireAfterWrite());
+  }
+}
@@ -0,0 +1,80 @@
+package com.findinpath.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the near cache placed in front of the
+ * {@link com.findinpath.repository.ConfigRepository}.
+ *
+ * @see ConfigRepositoryCacheConfiguration
+ */
+@ConfigurationProperties(prefix = "repository.config.cache")
+public class ConfigRepositoryCacheProperties {
+
+  /**
+   * Whether the near cache is used.
+   */
+  private boolean enabled;
+
+  /**
+   * Maximum number of configuration entries held in the cache.
+   */
+  private long maximumSize = 10_000;
+
+  /**
+   * Duration after which an existing configuration entry expires from the cache.
+   */
+  private Duration expireAfterWrite = Duration.ofMinutes(10);
+
+  /**
+   * Duration after which an existing configuration entry gets reloaded asynchronously on its
+   * next access, while still serving the cached value.
+   */
+  private Duration refreshAfterWrite = Duration.ofMinutes(1);
+
+  /**
+   * Duration after which the lookup of a missing configuration entry expires from the cache.
+   */
+  private Duration negativeExpireAfterWrite = Duration.ofSeconds(10);
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public long getMaximumSize() {
+    return maximumSize;
+  }
+
+  public void setMaximumSize(long maximumSize) {
+    this.maximumSize = maximumSize;
+  }
+
+  public Duration getExpireAfterWrite() {
+    return expireAfterWrite;
+  }
+
+  public void setExpireAfterWrite(Duration expireAfterWrite) {
+    this.expireAfterWrite = expireAfterWrite;
+  }
+
+  public Duration getRefreshAfterWrite() {
+    return refreshAfterWrite;
+  }
+
+  public void setRefreshAfterWrite(Duration refreshAfterWrite) {
+    this.refreshAfterWrite = refreshAfterWrite;
+  }
+
+  public Duration getNegativeExpireAfterWrite() {
+    return negativeExpireAfterWrite;
+  }
+
+  public void setNegativeExpireAfterWrite(Duration negativeExpireAfterWrite) {
+    this.negativeExpireAfterWrite = negativeExpireAfterWrite;
+  }
+}
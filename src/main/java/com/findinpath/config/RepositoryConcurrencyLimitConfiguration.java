@@ -0,0 +1,29 @@
+package com.findinpath.config;
+
+import com.findinpath.aop.ConcurrencyLimits;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Exposes, when the <code>repository.concurrency-limit.enabled</code> property is set to
+ * <code>true</code>, the {@link ConcurrencyLimits} bean through which the
+ * {@link com.findinpath.aop.RepositoryTimerAspect} limits adaptively the asynchronous repository
+ * method calls in flight.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "repository.concurrency-limit", name = "enabled",
+    havingValue = "true")
+@EnableConfigurationProperties(RepositoryConcurrencyLimitProperties.class)
+public class RepositoryConcurrencyLimitConfiguration {
+
+  @Bean
+  public ConcurrencyLimits concurrencyLimits(MeterRegistry meterRegistry,
+      RepositoryConcurrencyLimitProperties properties) {
+    return new ConcurrencyLimits(meterRegistry, properties.getInitialLimit(),
+        properties.getMinLimit(), properties.getMaxLimit(), properties.getLatencyThreshold(),
+        properties.getBackoffRatio());
+  }
+}
@@ -0,0 +1,93 @@
+package com.findinpath.config;
+
+import com.findinpath.aop.ConcurrencyLimits;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the adaptive limits of the asynchronous repository method calls in flight.
+ *
+ * @see ConcurrencyLimits
+ * @see RepositoryConcurrencyLimitConfiguration
+ */
+@ConfigurationProperties(prefix = "repository.concurrency-limit")
+public class RepositoryConcurrencyLimitProperties {
+
+  /**
+   * Whether the asynchronous calls in flight are limited.
+   */
+  private boolean enabled;
+
+  /**
+   * The initial limit of the calls in flight of each repository.
+   */
+  private int initialLimit = 64;
+
+  /**
+   * The minimum limit of the calls in flight of each repository.
+   */
+  private int minLimit = 8;
+
+  /**
+   * The maximum limit of the calls in flight of each repository.
+   */
+  private int maxLimit = 1024;
+
+  /**
+   * The latency of the calls above which the limit gets decreased.
+   */
+  private Duration latencyThreshold = Duration.ofMillis(50);
+
+  /**
+   * The ratio by which the limit gets multiplied when decreased.
+   */
+  private double backoffRatio = 0.9;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public int getInitialLimit() {
+    return initialLimit;
+  }
+
+  public void setInitialLimit(int initialLimit) {
+    this.initialLimit = initialLimit;
+  }
+
+  public int getMinLimit() {
+    return minLimit;
+  }
+
+  public void setMinLimit(int minLimit) {
+    this.minLimit = minLimit;
+  }
+
+  public int getMaxLimit() {
+    return maxLimit;
+  }
+
+  public void setMaxLimit(int maxLimit) {
+    this.maxLimit = maxLimit;
+  }
+
+  public Duration getLatencyThreshold() {
+    return latencyThreshold;
+  }
+
+  public void setLatencyThreshold(Duration latencyThreshold) {
+    this.latencyThreshold = latencyThreshold;
+  }
+
+  public double getBackoffRatio() {
+    return backoffRatio;
+  }
+
+  public void setBackoffRatio(double backoffRatio) {
+    this.backoffRatio = backoffRatio;
+  }
+}
@@ -0,0 +1,27 @@
+package com.findinpath.config;
+
+import com.findinpath.aop.CallDeadlines;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Exposes, when the <code>repository.deadlines.enabled</code> property is set to
+ * <code>true</code>, the {@link CallDeadlines} bean through which the
+ * {@link com.findinpath.aop.RepositoryTimerAspect} bounds the asynchronous repository calls by
+ * their deadlines.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "repository.deadlines", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(RepositoryDeadlineProperties.class)
+public class RepositoryDeadlineConfiguration {
+
+  @Bean(destroyMethod = "shutdown")
+  public CallDeadlines callDeadlines(MeterRegistry meterRegistry,
+      RepositoryDeadlineProperties properties) {
+    return new CallDeadlines(meterRegistry, properties.getDurations(),
+        properties.getTickDuration(), properties.getTicksPerWheel());
+  }
+}
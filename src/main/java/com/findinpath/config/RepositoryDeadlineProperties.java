@@ -0,0 +1,76 @@
+package com.findinpath.config;
+
+import com.findinpath.aop.CallDeadlines;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the deadlines of the asynchronous repository method calls, e.g. :
+ *
+ * <pre>
+ * repository.deadlines.enabled=true
+ * repository.deadlines.durations.[UserBookmarkRepository.findLatestBookmarksAsync]=500ms
+ * repository.deadlines.durations.UserBookmarkBatchRepository=10s
+ * </pre>
+ *
+ * @see CallDeadlines
+ * @see RepositoryDeadlineConfiguration
+ */
+@ConfigurationProperties(prefix = "repository.deadlines")
+public class RepositoryDeadlineProperties {
+
+  /**
+   * Whether the deadlines of the asynchronous calls get enforced.
+   */
+  private boolean enabled;
+
+  /**
+   * The deadlines keyed by repository class or by repository class and method, besides the ones
+   * specified through the {@link com.findinpath.aop.Deadline} annotation.
+   */
+  private Map<String, Duration> durations = new LinkedHashMap<>();
+
+  /**
+   * The precision of the deadlines.
+   */
+  private Duration tickDuration = Duration.ofMillis(10);
+
+  /**
+   * The number of buckets of the timer wheel tracking the deadlines.
+   */
+  private int ticksPerWheel = 512;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public Map<String, Duration> getDurations() {
+    return durations;
+  }
+
+  public void setDurations(Map<String, Duration> durations) {
+    this.durations = durations;
+  }
+
+  public Duration getTickDuration() {
+    return tickDuration;
+  }
+
+  public void setTickDuration(Duration tickDuration) {
+    this.tickDuration = tickDuration;
+  }
+
+  public int getTicksPerWheel() {
+    return ticksPerWheel;
+  }
+
+  public void setTicksPerWheel(int ticksPerWheel) {
+    this.ticksPerWheel = ticksPerWheel;
+  }
+}
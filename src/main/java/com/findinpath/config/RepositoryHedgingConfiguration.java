@@ -0,0 +1,27 @@
+package com.findinpath.config;
+
+import com.findinpath.aop.HedgedReads;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Exposes, when the <code>repository.hedging.enabled</code> property is set to
+ * <code>true</code>, the {@link HedgedReads} bean through which the
+ * {@link com.findinpath.aop.RepositoryTimerAspect} hedges the idempotent repository read calls.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "repository.hedging", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(RepositoryHedgingProperties.class)
+public class RepositoryHedgingConfiguration {
+
+  @Bean(destroyMethod = "shutdown")
+  public HedgedReads hedgedReads(MeterRegistry meterRegistry,
+      RepositoryHedgingProperties properties) {
+    return new HedgedReads(meterRegistry, properties.getMethods(), properties.getDelays(),
+        properties.getPercentile(), properties.getMinDelay(), properties.getMaxDelay(),
+        properties.getMaxRatio());
+  }
+}
@@ -0,0 +1,118 @@
+package com.findinpath.config;
+
+import com.findinpath.aop.HedgedReads;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the hedging of the idempotent repository read calls, e.g. :
+ *
+ * <pre>
+ * repository.hedging.enabled=true
+ * repository.hedging.methods=ConfigRepository.findById
+ * repository.hedging.delays.[UserBookmarkRepository.findLatestBookmarks]=20ms
+ * </pre>
+ *
+ * @see HedgedReads
+ * @see RepositoryHedgingConfiguration
+ */
+@ConfigurationProperties(prefix = "repository.hedging")
+public class RepositoryHedgingProperties {
+
+  /**
+   * Whether the calls of the hedged methods get hedged.
+   */
+  private boolean enabled;
+
+  /**
+   * The hedged methods, besides the ones annotated with {@link com.findinpath.aop.Hedged},
+   * specified by repository class or by repository class and method names joined by a dot.
+   */
+  private Set<String> methods = new LinkedHashSet<>();
+
+  /**
+   * The fixed hedge delays keyed by repository class or by repository class and method.
+   */
+  private Map<String, Duration> delays = new LinkedHashMap<>();
+
+  /**
+   * The percentile of the observed latency used as hedge delay of the methods without a fixed
+   * delay.
+   */
+  private double percentile = 0.95;
+
+  /**
+   * The minimum hedge delay.
+   */
+  private Duration minDelay = Duration.ofMillis(1);
+
+  /**
+   * The maximum hedge delay.
+   */
+  private Duration maxDelay = Duration.ofMillis(100);
+
+  /**
+   * The maximum ratio of the calls which get hedged.
+   */
+  private double maxRatio = 0.1;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public Set<String> getMethods() {
+    return methods;
+  }
+
+  public void setMethods(Set<String> methods) {
+    this.methods = methods;
+  }
+
+  public Map<String, Duration> getDelays() {
+    return delays;
+  }
+
+  public void setDelays(Map<String, Duration> delays) {
+    this.delays = delays;
+  }
+
+  public double getPercentile() {
+    return percentile;
+  }
+
+  public void setPercentile(double percentile) {
+    this.percentile = percentile;
+  }
+
+  public Duration getMinDelay() {
+    return minDelay;
+  }
+
+  public void setMinDelay(Duration minDelay) {
+    this.minDelay = minDelay;
+  }
+
+  public Duration getMaxDelay() {
+    return maxDelay;
+  }
+
+  public void setMaxDelay(Duration maxDelay) {
+    this.maxDelay = maxDelay;
+  }
+
+  public double getMaxRatio() {
+    return maxRatio;
+  }
+
+  public void setMaxRatio(double maxRatio) {
+    this.maxRatio = maxRatio;
+  }
+}
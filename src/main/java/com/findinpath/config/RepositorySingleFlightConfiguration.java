@@ -0,0 +1,27 @@
+package com.findinpath.config;
+
+import com.findinpath.aop.SingleFlights;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Exposes, when the <code>repository.single-flight.enabled</code> property is set to
+ * <code>true</code>, the {@link SingleFlights} bean through which the
+ * {@link com.findinpath.aop.RepositoryTimerAspect} collapses the concurrent identical repository
+ * read calls.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "repository.single-flight", name = "enabled",
+    havingValue = "true")
+@EnableConfigurationProperties(RepositorySingleFlightProperties.class)
+public class RepositorySingleFlightConfiguration {
+
+  @Bean
+  public SingleFlights singleFlights(MeterRegistry meterRegistry,
+      RepositorySingleFlightProperties properties) {
+    return new SingleFlights(meterRegistry, properties.getMethods());
+  }
+}
@@ -0,0 +1,49 @@
+package com.findinpath.config;
+
+import com.findinpath.aop.SingleFlights;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the collapsing of the concurrent identical repository read calls, e.g. :
+ *
+ * <pre>
+ * repository.single-flight.enabled=true
+ * repository.single-flight.methods=ConfigRepository.findById
+ * </pre>
+ *
+ * @see SingleFlights
+ * @see RepositorySingleFlightConfiguration
+ */
+@ConfigurationProperties(prefix = "repository.single-flight")
+public class RepositorySingleFlightProperties {
+
+  /**
+   * Whether the concurrent identical calls of the collapsed methods get collapsed.
+   */
+  private boolean enabled;
+
+  /**
+   * The collapsed methods, besides the ones annotated with
+   * {@link com.findinpath.aop.SingleFlight}, specified by repository class or by repository class
+   * and method names joined by a dot.
+   */
+  private Set<String> methods = new LinkedHashSet<>();
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public Set<String> getMethods() {
+    return methods;
+  }
+
+  public void setMethods(Set<String> methods) {
+    this.methods = methods;
+  }
+}
@@ -0,0 +1,25 @@
+package com.findinpath.config;
+
+import com.findinpath.aop.StripedTimers;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Exposes, when the <code>repository.timer.striped.enabled</code> property is set to
+ * <code>true</code>, the {@link StripedTimers} bean through which the
+ * {@link com.findinpath.aop.RepositoryTimerAspect} times the hot repository methods on striped
+ * timers.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "repository.timer.striped", name = "enabled",
+    havingValue = "true")
+@EnableConfigurationProperties(RepositoryStripedTimerProperties.class)
+public class RepositoryStripedTimerConfiguration {
+
+  @Bean
+  public StripedTimers stripedTimers(RepositoryStripedTimerProperties properties) {
+    return new StripedTimers(properties.getMethods(), properties.getStripes());
+  }
+}
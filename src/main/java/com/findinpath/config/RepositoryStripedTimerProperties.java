@@ -0,0 +1,62 @@
+package com.findinpath.config;
+
+import com.findinpath.aop.StripedTimers;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the striped timers of the hot repository methods, e.g. :
+ *
+ * <pre>
+ * repository.timer.striped.enabled=true
+ * repository.timer.striped.methods=ConfigRepository.findById
+ * </pre>
+ *
+ * @see StripedTimers
+ * @see RepositoryStripedTimerConfiguration
+ */
+@ConfigurationProperties(prefix = "repository.timer.striped")
+public class RepositoryStripedTimerProperties {
+
+  /**
+   * Whether the calls of the hot methods get timed on striped timers.
+   */
+  private boolean enabled;
+
+  /**
+   * The hot methods, besides the ones annotated with {@link com.findinpath.aop.StripedTimed},
+   * specified by repository class or by repository class and method names joined by a dot.
+   */
+  private Set<String> methods = new LinkedHashSet<>();
+
+  /**
+   * The number of stripes of each of the striped timers, rounded up to a power of two. Defaults
+   * to the number of processors.
+   */
+  private int stripes = Runtime.getRuntime().availableProcessors();
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public Set<String> getMethods() {
+    return methods;
+  }
+
+  public void setMethods(Set<String> methods) {
+    this.methods = methods;
+  }
+
+  public int getStripes() {
+    return stripes;
+  }
+
+  public void setStripes(int stripes) {
+    this.stripes = stripes;
+  }
+}
@@ -1,12 +1,12 @@
 package com.findinpath.config;
 
+import com.findinpath.aop.RepositoryClassNames;
 import com.findinpath.aop.RepositoryTimerAspect;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import java.util.Optional;
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
-import org.springframework.aop.framework.Advised;
 import org.springframework.aop.framework.ReflectiveMethodInvocation;
 import org.springframework.context.annotation.Bean;
 import org.springframework.util.concurrent.ListenableFuture;
@@ -48,23 +48,11 @@ public class RepositoryTimerConfiguration {
   public static final String REPOSITORY_METRIC_NAME = "repository";
 
   private static String getDeclaredClassName(MethodInvocation invocation) {
-    String typeName = "Repository";
     if (invocation instanceof ReflectiveMethodInvocation) {
-      Object proxy = ((ReflectiveMethodInvocation) invocation).getProxy();
-      if (proxy instanceof Advised) {
-        Class<?>[] proxiedInterfaces = ((Advised) proxy).getProxiedInterfaces();
-        if (proxiedInterfaces != null && proxiedInterfaces.length > 1) {
-          // Through the Advised object, we can get the proxied
-          // interfaces using {@link Advised#getProxiedInterfaces()}
-          // In this case, the type that we look for is the first one in the list of interfaces.
-          typeName = proxiedInterfaces[0].getSimpleName();
-        } else {
-          typeName = invocation.getThis().getClass().getSimpleName();
-        }
-      }
+      return RepositoryClassNames.getDeclaredClassName(
+          ((ReflectiveMethodInvocation) invocation).getProxy(), invocation.getThis());
     }
-
-    return typeName;
+    return RepositoryClassNames.DEFAULT_CLASS_NAME;
   }
 
   private static void emitMetrics(MeterRegistry meterRegistry,
@@ -0,0 +1,29 @@
+package com.findinpath.config;
+
+import com.findinpath.aop.TimerDistributions;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import java.util.LinkedHashMap;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Exposes the {@link TimerDistributions} used by the
+ * {@link com.findinpath.aop.RepositoryTimerAspect} out of the
+ * <code>repository.timer.distribution.*</code> properties.
+ */
+@Configuration
+@EnableConfigurationProperties(RepositoryTimerDistributionProperties.class)
+public class RepositoryTimerDistributionConfiguration {
+
+  @Bean
+  public TimerDistributions timerDistributions(RepositoryTimerDistributionProperties properties) {
+    var defaults = properties.getDefaults() == null ? TimerDistributions.DEFAULT_DISTRIBUTION
+        : properties.getDefaults().toDistributionStatisticConfig();
+    var overrides = new LinkedHashMap<String, DistributionStatisticConfig>();
+    properties.getOverrides()
+        .forEach((key, distribution) -> overrides.put(key,
+            distribution.toDistributionStatisticConfig()));
+    return new TimerDistributions(defaults, overrides);
+  }
+}
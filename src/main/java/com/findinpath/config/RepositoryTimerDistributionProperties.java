@@ -0,0 +1,135 @@
+package com.findinpath.config;
+
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the distribution statistics published by the repository timers.
+ *
+ * The overrides are keyed by the repository class name or by the repository class and method
+ * names joined by a dot, in which case the key needs to be escaped through brackets, e.g. :
+ *
+ * <pre>
+ * repository.timer.distribution.overrides.ConfigRepository.percentiles-histogram=true
+ * repository.timer.distribution.overrides.[UserBookmarkRepository.save].percentiles=0.5,0.99
+ * </pre>
+ *
+ * @see com.findinpath.aop.TimerDistributions
+ * @see RepositoryTimerDistributionConfiguration
+ */
+@ConfigurationProperties(prefix = "repository.timer.distribution")
+public class RepositoryTimerDistributionProperties {
+
+  /**
+   * The distribution statistics of the timers which are not overridden. By default, the client
+   * side percentiles {@link com.findinpath.aop.RepositoryTimerAspect#EXPORTED_PERCENTILES} get
+   * published.
+   */
+  private Distribution defaults;
+
+  /**
+   * The distribution statistics keyed by repository class or by repository class and method.
+   */
+  private Map<String, Distribution> overrides = new LinkedHashMap<>();
+
+  public Distribution getDefaults() {
+    return defaults;
+  }
+
+  public void setDefaults(Distribution defaults) {
+    this.defaults = defaults;
+  }
+
+  public Map<String, Distribution> getOverrides() {
+    return overrides;
+  }
+
+  public void setOverrides(Map<String, Distribution> overrides) {
+    this.overrides = overrides;
+  }
+
+  public static class Distribution {
+
+    /**
+     * The client side computed percentiles to publish.
+     */
+    private List<Double> percentiles;
+
+    /**
+     * Whether to publish the histogram buckets needed for computing aggregatable percentiles on
+     * the server side.
+     */
+    private boolean percentilesHistogram;
+
+    /**
+     * The SLA boundaries to publish as histogram buckets.
+     */
+    private List<Duration> sla;
+
+    /**
+     * The duration after which the samples are discarded from the client side percentiles and
+     * the max value.
+     */
+    private Duration expiry;
+
+    /**
+     * The number of histograms kept in the ring buffer used for the expiry of the samples.
+     */
+    private Integer bufferLength;
+
+    public List<Double> getPercentiles() {
+      return percentiles;
+    }
+
+    public void setPercentiles(List<Double> percentiles) {
+      this.percentiles = percentiles;
+    }
+
+    public boolean isPercentilesHistogram() {
+      return percentilesHistogram;
+    }
+
+    public void setPercentilesHistogram(boolean percentilesHistogram) {
+      this.percentilesHistogram = percentilesHistogram;
+    }
+
+    public List<Duration> getSla() {
+      return sla;
+    }
+
+    public void setSla(List<Duration> sla) {
+      this.sla = sla;
+    }
+
+    public Duration getExpiry() {
+      return expiry;
+    }
+
+    public void setExpiry(Duration expiry) {
+      this.expiry = expiry;
+    }
+
+    public Integer getBufferLength() {
+      return bufferLength;
+    }
+
+    public void setBufferLength(Integer bufferLength) {
+      this.bufferLength = bufferLength;
+    }
+
+    DistributionStatisticConfig toDistributionStatisticConfig() {
+      return DistributionStatisticConfig.builder()
+          .percentiles(percentiles == null ? new double[0]
+              : percentiles.stream().mapToDouble(Double::doubleValue).toArray())
+          .percentilesHistogram(percentilesHistogram)
+          .sla(sla == null ? new long[0] : sla.stream().mapToLong(Duration::toNanos).toArray())
+          .expiry(expiry)
+          .bufferLength(bufferLength)
+          .build();
+    }
+  }
+}
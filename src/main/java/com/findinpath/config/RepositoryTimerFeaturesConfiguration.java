@@ -0,0 +1,42 @@
+package com.findinpath.config;
+
+import com.findinpath.aop.CallDeadlines;
+import com.findinpath.aop.CallPhaseTracker;
+import com.findinpath.aop.ConcurrencyLimits;
+import com.findinpath.aop.HedgedReads;
+import com.findinpath.aop.RepositoryTimerFeatures;
+import com.findinpath.aop.SingleFlights;
+import com.findinpath.aop.SlowCallRecorder;
+import com.findinpath.aop.StripedTimers;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Exposes the {@link RepositoryTimerFeatures} applied by the
+ * {@link com.findinpath.aop.RepositoryTimerAspect}, made of the beans of the optional features
+ * which are enabled through their own <code>repository.*.enabled</code> properties.
+ */
+@Configuration
+public class RepositoryTimerFeaturesConfiguration {
+
+  @Bean
+  public RepositoryTimerFeatures repositoryTimerFeatures(
+      ObjectProvider<SlowCallRecorder> slowCallRecorder,
+      ObjectProvider<CallPhaseTracker> callPhaseTracker,
+      ObjectProvider<ConcurrencyLimits> concurrencyLimits,
+      ObjectProvider<SingleFlights> singleFlights,
+      ObjectProvider<HedgedReads> hedgedReads,
+      ObjectProvider<CallDeadlines> callDeadlines,
+      ObjectProvider<StripedTimers> stripedTimers) {
+    return RepositoryTimerFeatures.builder()
+        .slowCallRecorder(slowCallRecorder.getIfAvailable())
+        .callPhaseTracker(callPhaseTracker.getIfAvailable())
+        .concurrencyLimits(concurrencyLimits.getIfAvailable())
+        .singleFlights(singleFlights.getIfAvailable())
+        .hedgedReads(hedgedReads.getIfAvailable())
+        .callDeadlines(callDeadlines.getIfAvailable())
+        .stripedTimers(stripedTimers.getIfAvailable())
+        .build();
+  }
+}
@@ -0,0 +1,35 @@
+package com.findinpath.config;
+
+import com.datastax.driver.core.Cluster;
+import com.findinpath.aop.CallPhaseTracker;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Exposes, when the <code>repository.timer.phases.enabled</code> property is set to
+ * <code>true</code>, the {@link CallPhaseTracker} bean splitting the duration of the repository
+ * calls into phases and registers it on the Cassandra {@link Cluster} beans.
+ *
+ * The Cassandra templates used by the repositories need to be created with a session wrapped
+ * through {@link com.findinpath.aop.StatementCapture#capturing(com.datastax.driver.core.Session)}
+ * and with a {@link com.findinpath.aop.TimedMappingCassandraConverter}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "repository.timer.phases", name = "enabled",
+    havingValue = "true")
+public class RepositoryTimerPhasesConfiguration {
+
+  @Bean
+  public CallPhaseTracker callPhaseTracker() {
+    return new CallPhaseTracker();
+  }
+
+  @Bean
+  public SmartInitializingSingleton callPhaseTrackerRegistration(
+      CallPhaseTracker callPhaseTracker, ObjectProvider<Cluster> clusters) {
+    return () -> clusters.forEach(cluster -> cluster.register(callPhaseTracker));
+  }
+}
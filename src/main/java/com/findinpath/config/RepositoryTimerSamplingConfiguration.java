@@ -0,0 +1,30 @@
+package com.findinpath.config;
+
+import com.findinpath.aop.TimingSampling;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Exposes the {@link TimingSampling} settings used by the
+ * {@link com.findinpath.aop.RepositoryTimerAspect} out of the
+ * <code>repository.timer.sampling.*</code> properties. By default, each of the repository method
+ * calls gets timed.
+ */
+@Configuration
+@EnableConfigurationProperties(RepositoryTimerSamplingProperties.class)
+public class RepositoryTimerSamplingConfiguration {
+
+  @Bean
+  public TimingSampling timingSampling(RepositoryTimerSamplingProperties properties) {
+    switch (properties.getMode()) {
+      case FIXED:
+        return TimingSampling.fixed(properties.getRate());
+      case ADAPTIVE:
+        return TimingSampling
+            .adaptive(properties.getRate(), properties.getCallsPerSecondThreshold());
+      default:
+        return TimingSampling.none();
+    }
+  }
+}
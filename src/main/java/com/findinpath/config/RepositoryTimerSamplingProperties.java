@@ -0,0 +1,55 @@
+package com.findinpath.config;
+
+import com.findinpath.aop.TimingSampling;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the sampling of the repository method calls timed by the
+ * {@link com.findinpath.aop.RepositoryTimerAspect}.
+ *
+ * @see TimingSampling
+ * @see RepositoryTimerSamplingConfiguration
+ */
+@ConfigurationProperties(prefix = "repository.timer.sampling")
+public class RepositoryTimerSamplingProperties {
+
+  /**
+   * The sampling mode of the repository method calls.
+   */
+  private TimingSampling.Mode mode = TimingSampling.Mode.NONE;
+
+  /**
+   * The <code>N</code> of the 1-in-N repository method calls being timed when sampling.
+   */
+  private int rate = 100;
+
+  /**
+   * The calls per second rate of a repository method above which its calls get sampled in the
+   * adaptive mode.
+   */
+  private long callsPerSecondThreshold = 10_000;
+
+  public TimingSampling.Mode getMode() {
+    return mode;
+  }
+
+  public void setMode(TimingSampling.Mode mode) {
+    this.mode = mode;
+  }
+
+  public int getRate() {
+    return rate;
+  }
+
+  public void setRate(int rate) {
+    this.rate = rate;
+  }
+
+  public long getCallsPerSecondThreshold() {
+    return callsPerSecondThreshold;
+  }
+
+  public void setCallsPerSecondThreshold(long callsPerSecondThreshold) {
+    this.callsPerSecondThreshold = callsPerSecondThreshold;
+  }
+}
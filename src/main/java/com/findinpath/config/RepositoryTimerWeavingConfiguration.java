@@ -0,0 +1,29 @@
+package com.findinpath.config;
+
+import com.findinpath.aop.RepositoryTimerAspect;
+import com.findinpath.aop.WovenRepositoryTimerAspect;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Binds the {@link RepositoryTimerAspect} bean to the {@link WovenRepositoryTimerAspect}, so that
+ * the repository classes woven at compile time or at load time get timed by the same aspect as
+ * the proxied repositories. The binding has no effect when the repository classes are not woven.
+ * On the shutdown of the application context, the aspect gets unbound only in case that it is
+ * still the bound one, so that the binding of another context isn't undone.
+ */
+@Configuration
+public class RepositoryTimerWeavingConfiguration implements DisposableBean {
+
+  private final RepositoryTimerAspect repositoryTimerAspect;
+
+  public RepositoryTimerWeavingConfiguration(RepositoryTimerAspect repositoryTimerAspect) {
+    this.repositoryTimerAspect = repositoryTimerAspect;
+    WovenRepositoryTimerAspect.bind(repositoryTimerAspect);
+  }
+
+  @Override
+  public void destroy() {
+    WovenRepositoryTimerAspect.unbind(repositoryTimerAspect);
+  }
+}
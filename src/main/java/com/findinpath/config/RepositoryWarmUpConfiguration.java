@@ -0,0 +1,63 @@
+package com.findinpath.config;
+
+import com.findinpath.aop.RepositoryTimerAspect;
+import com.findinpath.aop.RepositoryWarmUp;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.LinkedHashMap;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.data.repository.Repository;
+
+/**
+ * Warms up, when the <code>repository.warm-up.enabled</code> property is set to
+ * <code>true</code>, all the {@link Repository} and
+ * {@link org.springframework.stereotype.Repository @Repository} beans once the application
+ * context has been refreshed (see {@link RepositoryWarmUp}).
+ *
+ * The refresh of the context completes before the web server (if any) gets started and before
+ * the application is reported as ready, so with <code>repository.warm-up.delay-readiness</code>
+ * set to <code>true</code> the warm-up runs on the refreshing thread and the readiness of the
+ * application waits for it. Otherwise, the warm-up runs on a background thread.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "repository.warm-up", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(RepositoryWarmUpProperties.class)
+public class RepositoryWarmUpConfiguration {
+
+  @Bean
+  public RepositoryWarmUp repositoryWarmUp(MeterRegistry meterRegistry,
+      RepositoryTimerAspect repositoryTimerAspect) {
+    return new RepositoryWarmUp(meterRegistry, repositoryTimerAspect);
+  }
+
+  @Bean
+  public ApplicationListener<ContextRefreshedEvent> repositoryWarmUpListener(
+      ApplicationContext applicationContext, RepositoryWarmUp repositoryWarmUp,
+      RepositoryWarmUpProperties properties) {
+    return event -> {
+      // the refreshes of the child contexts are not of interest
+      if (event.getApplicationContext() != applicationContext
+          || repositoryWarmUp.getCompletion().isDone()) {
+        return;
+      }
+      var repositories = new LinkedHashMap<String, Object>();
+      repositories.putAll(applicationContext.getBeansOfType(Repository.class));
+      repositories.putAll(applicationContext
+          .getBeansWithAnnotation(org.springframework.stereotype.Repository.class));
+
+      if (properties.isDelayReadiness()) {
+        repositoryWarmUp.warmUp(repositories.values());
+      } else {
+        var thread = new Thread(() -> repositoryWarmUp.warmUp(repositories.values()),
+            "repository-warm-up");
+        thread.setDaemon(true);
+        thread.start();
+      }
+    };
+  }
+}
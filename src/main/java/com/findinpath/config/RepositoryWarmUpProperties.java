@@ -0,0 +1,46 @@
+package com.findinpath.config;
+
+import com.findinpath.aop.RepositoryWarmUp;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the warm-up of the repositories at startup, e.g. :
+ *
+ * <pre>
+ * repository.warm-up.enabled=true
+ * repository.warm-up.delay-readiness=true
+ * </pre>
+ *
+ * @see RepositoryWarmUp
+ * @see RepositoryWarmUpConfiguration
+ */
+@ConfigurationProperties(prefix = "repository.warm-up")
+public class RepositoryWarmUpProperties {
+
+  /**
+   * Whether the repositories get warmed up once the application context has been refreshed.
+   */
+  private boolean enabled;
+
+  /**
+   * Whether the readiness of the application waits for the warm-up, which then runs on the
+   * thread refreshing the application context, instead of running in the background.
+   */
+  private boolean delayReadiness;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public boolean isDelayReadiness() {
+    return delayReadiness;
+  }
+
+  public void setDelayReadiness(boolean delayReadiness) {
+    this.delayReadiness = delayReadiness;
+  }
+}
@@ -0,0 +1,25 @@
+package com.findinpath.config;
+
+import com.findinpath.aop.SlowCallRecorder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Exposes, when the <code>repository.timer.slow-calls.enabled</code> property is set to
+ * <code>true</code>, the {@link SlowCallRecorder} bean through which the slow repository calls
+ * can be inspected.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "repository.timer.slow-calls", name = "enabled",
+    havingValue = "true")
+@EnableConfigurationProperties(SlowCallRecorderProperties.class)
+public class SlowCallRecorderConfiguration {
+
+  @Bean(destroyMethod = "shutdown")
+  public SlowCallRecorder slowCallRecorder(SlowCallRecorderProperties properties) {
+    return new SlowCallRecorder(properties.getThreshold(), properties.getCapacity(),
+        properties.getMode());
+  }
+}
@@ -0,0 +1,67 @@
+package com.findinpath.config;
+
+import com.findinpath.aop.SlowCallRecorder;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the capture of the slow repository method calls.
+ *
+ * @see SlowCallRecorder
+ * @see SlowCallRecorderConfiguration
+ */
+@ConfigurationProperties(prefix = "repository.timer.slow-calls")
+public class SlowCallRecorderProperties {
+
+  /**
+   * Whether the slow calls are captured.
+   */
+  private boolean enabled;
+
+  /**
+   * The duration from which on the calls are captured.
+   */
+  private Duration threshold = Duration.ofMillis(100);
+
+  /**
+   * The maximum number of calls kept for each of the repository methods.
+   */
+  private int capacity = 16;
+
+  /**
+   * Which of the calls over the threshold are kept.
+   */
+  private SlowCallRecorder.Mode mode = SlowCallRecorder.Mode.SLOWEST;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public Duration getThreshold() {
+    return threshold;
+  }
+
+  public void setThreshold(Duration threshold) {
+    this.threshold = threshold;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  public void setCapacity(int capacity) {
+    this.capacity = capacity;
+  }
+
+  public SlowCallRecorder.Mode getMode() {
+    return mode;
+  }
+
+  public void setMode(SlowCallRecorder.Mode mode) {
+    this.mode = mode;
+  }
+}
@@ -0,0 +1,28 @@
+package com.findinpath.config;
+
+import com.findinpath.importer.UserBookmarkImporter;
+import com.findinpath.repository.UserBookmarkBatchRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Exposes the {@link UserBookmarkImporter} bean out of the <code>user-bookmarks.import.*</code>
+ * properties. The batches get written through the {@link UserBookmarkBatchRepository} bean, so
+ * that each of them is timed by the {@link com.findinpath.aop.RepositoryTimerAspect} as well.
+ */
+@Configuration
+@EnableConfigurationProperties(UserBookmarkImportProperties.class)
+public class UserBookmarkImportConfiguration {
+
+  @Bean
+  public UserBookmarkImporter userBookmarkImporter(
+      UserBookmarkBatchRepository userBookmarkBatchRepository, MeterRegistry meterRegistry,
+      UserBookmarkImportProperties properties) {
+    return new UserBookmarkImporter(userBookmarkBatchRepository::saveBatchAsync, meterRegistry,
+        properties.getChunkSize(), properties.getParallelism(), properties.getMaxBatchSize(),
+        properties.getMaxBatchesInFlight(), properties.getMaxAttempts(),
+        properties.getInitialBackoff());
+  }
+}
@@ -0,0 +1,92 @@
+package com.findinpath.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the bulk import of the bookmarks.
+ *
+ * @see com.findinpath.importer.UserBookmarkImporter
+ * @see UserBookmarkImportConfiguration
+ */
+@ConfigurationProperties(prefix = "user-bookmarks.import")
+public class UserBookmarkImportProperties {
+
+  /**
+   * The number of lines of the chunks in which the export files are read and parsed.
+   */
+  private int chunkSize = 1000;
+
+  /**
+   * The number of threads parsing the chunks.
+   */
+  private int parallelism = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * The maximum number of bookmarks of a batch.
+   */
+  private int maxBatchSize = 20;
+
+  /**
+   * The maximum number of batches being written at the same time.
+   */
+  private int maxBatchesInFlight = 32;
+
+  /**
+   * The maximum number of attempts of writing a batch failing with a transient failure.
+   */
+  private int maxAttempts = 5;
+
+  /**
+   * The delay before the first retry of a batch, doubled on each of the following retries.
+   */
+  private Duration initialBackoff = Duration.ofMillis(100);
+
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  public void setChunkSize(int chunkSize) {
+    this.chunkSize = chunkSize;
+  }
+
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  public void setParallelism(int parallelism) {
+    this.parallelism = parallelism;
+  }
+
+  public int getMaxBatchSize() {
+    return maxBatchSize;
+  }
+
+  public void setMaxBatchSize(int maxBatchSize) {
+    this.maxBatchSize = maxBatchSize;
+  }
+
+  public int getMaxBatchesInFlight() {
+    return maxBatchesInFlight;
+  }
+
+  public void setMaxBatchesInFlight(int maxBatchesInFlight) {
+    this.maxBatchesInFlight = maxBatchesInFlight;
+  }
+
+  public int getMaxAttempts() {
+    return maxAttempts;
+  }
+
+  public void setMaxAttempts(int maxAttempts) {
+    this.maxAttempts = maxAttempts;
+  }
+
+  public Duration getInitialBackoff() {
+    return initialBackoff;
+  }
+
+  public void setInitialBackoff(Duration initialBackoff) {
+    this.initialBackoff = initialBackoff;
+  }
+}
@@ -0,0 +1,134 @@
+package com.findinpath.importer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.findinpath.model.UserBookmark;
+import com.findinpath.model.UserBookmarkKey;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.UUID;
+
+/**
+ * Formats of the bookmark export files, having one bookmark per line with the
+ * <code>user_id</code>, <code>timestamp</code> (TIMEUUID) and <code>url</code> fields.
+ */
+public enum ImportFormat {
+
+  /**
+   * Comma separated values, in the <code>user_id,timestamp,url</code> order, optionally enclosed
+   * in double quotes. A header line is skipped.
+   */
+  CSV {
+    @Override
+    UserBookmark parse(String line) {
+      if (line.isBlank() || line.equals(CSV_HEADER)) {
+        return null;
+      }
+      var fields = splitCsvLine(line);
+      if (fields.size() != 3) {
+        throw new IllegalArgumentException("Expected 3 fields instead of " + fields.size());
+      }
+      return createUserBookmark(fields.get(0), fields.get(1), fields.get(2));
+    }
+  },
+
+  /**
+   * Newline delimited JSON objects having the <code>user_id</code>, <code>timestamp</code> and
+   * <code>url</code> fields.
+   */
+  NDJSON {
+    @Override
+    UserBookmark parse(String line) {
+      if (line.isBlank()) {
+        return null;
+      }
+      JsonNode node;
+      try {
+        node = OBJECT_MAPPER.readTree(line);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      return createUserBookmark(getText(node, UserBookmarkKey.USER_ID_FIELD_NAME),
+          getText(node, UserBookmarkKey.TIMESTAMP_FIELD_NAME),
+          getText(node, UserBookmark.URL_FIELD_NAME));
+    }
+  };
+
+  private static final String CSV_HEADER = UserBookmarkKey.USER_ID_FIELD_NAME + ","
+      + UserBookmarkKey.TIMESTAMP_FIELD_NAME + "," + UserBookmark.URL_FIELD_NAME;
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  /**
+   * Parses one line of an export file.
+   *
+   * @param line the line to parse
+   * @return the parsed bookmark or <code>null</code> for the lines to be skipped (e.g. : blank)
+   * @throws RuntimeException in case that the line is malformed
+   */
+  abstract UserBookmark parse(String line);
+
+  /**
+   * @param fileName the name of the export file
+   * @return the format corresponding to the extension of the file name
+   */
+  public static ImportFormat fromFileName(String fileName) {
+    var lowerCaseFileName = fileName.toLowerCase();
+    if (lowerCaseFileName.endsWith(".csv")) {
+      return CSV;
+    }
+    if (lowerCaseFileName.endsWith(".ndjson") || lowerCaseFileName.endsWith(".jsonl")) {
+      return NDJSON;
+    }
+    throw new IllegalArgumentException("Unknown format of the file " + fileName);
+  }
+
+  private static UserBookmark createUserBookmark(String userId, String timestamp, String url) {
+    var userBookmark = new UserBookmark();
+    userBookmark.setPrimaryKey(
+        new UserBookmarkKey(UUID.fromString(userId), UUID.fromString(timestamp)));
+    userBookmark.setUrl(url);
+    return userBookmark;
+  }
+
+  private static String getText(JsonNode node, String fieldName) {
+    var field = node.get(fieldName);
+    if (field == null || !field.isTextual()) {
+      throw new IllegalArgumentException("Missing the " + fieldName + " field");
+    }
+    return field.asText();
+  }
+
+  private static ArrayList<String> splitCsvLine(String line) {
+    var fields = new ArrayList<String>(3);
+    var field = new StringBuilder();
+    var quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      var c = line.charAt(i);
+      if (quoted) {
+        if (c != '"') {
+          field.append(c);
+        } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+          // escaped double quote
+          field.append(c);
+          i++;
+        } else {
+          quoted = false;
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else {
+        field.append(c);
+      }
+    }
+    if (quoted) {
+      throw new IllegalArgumentException("Unterminated quoted field");
+    }
+    fields.add(field.toString());
+    return fields;
+  }
+}
@@ -0,0 +1,83 @@
+package com.findinpath.importer;
+
+import java.time.Duration;
+
+/**
+ * Summary of an import of bookmarks done by the {@link UserBookmarkImporter}.
+ */
+public final class ImportResult {
+
+  private final long importedRows;
+  private final long failedRows;
+  private final long rejectedLines;
+  private final long batches;
+  private final long retries;
+  private final Duration duration;
+
+  ImportResult(long importedRows, long failedRows, long rejectedLines, long batches,
+      long retries, Duration duration) {
+    this.importedRows = importedRows;
+    this.failedRows = failedRows;
+    this.rejectedLines = rejectedLines;
+    this.batches = batches;
+    this.retries = retries;
+    this.duration = duration;
+  }
+
+  /**
+   * @return the number of bookmarks written
+   */
+  public long getImportedRows() {
+    return importedRows;
+  }
+
+  /**
+   * @return the number of bookmarks whose batch failed to be written, even after the retries
+   */
+  public long getFailedRows() {
+    return failedRows;
+  }
+
+  /**
+   * @return the number of malformed lines
+   */
+  public long getRejectedLines() {
+    return rejectedLines;
+  }
+
+  public long getBatches() {
+    return batches;
+  }
+
+  /**
+   * @return the number of batch writes retried after a transient failure
+   */
+  public long getRetries() {
+    return retries;
+  }
+
+  public Duration getDuration() {
+    return duration;
+  }
+
+  /**
+   * @return the number of bookmarks written per second
+   */
+  public double getRowsPerSecond() {
+    var nanos = duration.toNanos();
+    return nanos == 0 ? 0 : importedRows * 1_000_000_000.0 / nanos;
+  }
+
+  @Override
+  public String toString() {
+    return "ImportResult{"
+        + "importedRows=" + importedRows
+        + ", failedRows=" + failedRows
+        + ", rejectedLines=" + rejectedLines
+        + ", batches=" + batches
+        + ", retries=" + retries
+        + ", duration=" + duration
+        + ", rowsPerSecond=" + String.format("%.1f", getRowsPerSecond())
+        + '}';
+  }
+}
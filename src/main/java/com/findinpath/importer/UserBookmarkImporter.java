@@ -0,0 +1,317 @@
+package com.findinpath.importer;
+
+import com.findinpath.model.UserBookmark;
+import com.findinpath.repository.UserBookmarkRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.util.Assert;
+import org.springframework.util.concurrent.ListenableFuture;
+
+/**
+ * Bulk imports the bookmarks of an export file (see {@link ImportFormat}) through a pipeline of
+ * stages:
+ *
+ * <ul>
+ *   <li><i>read</i>: the file is streamed, on the calling thread, in chunks of lines</li>
+ *   <li><i>parse</i>: the chunks are parsed in parallel and their bookmarks are grouped by user
+ *   (partition) into batches (see {@link UserBookmarkRepository#partitionBatches})</li>
+ *   <li><i>write</i>: the batches are written asynchronously, with at most a fixed number of
+ *   batches in flight, and get retried with an exponential backoff on the transient failures
+ *   (e.g. : write timeouts)</li>
+ * </ul>
+ *
+ * The reading waits whenever the maximum number of chunks is being parsed or written, which
+ * bounds the memory used by the import regardless of the size of the file. In case that the
+ * reading fails, the chunks read so far still get written before the failure is reported.
+ *
+ * The duration of each stage is published on the {@link #STAGE_METRIC_NAME} timer, with the
+ * &quot;stage&quot; tag (each of the attempts of writing a batch being timed on its own), and the
+ * number of imported, failed and rejected rows on the {@link #ROWS_METRIC_NAME} counter, with the
+ * &quot;outcome&quot; tag.
+ */
+public class UserBookmarkImporter {
+
+  public static final String STAGE_METRIC_NAME = "bookmark.import.stage";
+
+  public static final String ROWS_METRIC_NAME = "bookmark.import.rows";
+
+  public static final String RETRIES_METRIC_NAME = "bookmark.import.retries";
+
+  private final Function<? super List<UserBookmark>, ? extends ListenableFuture<?>> batchWriter;
+  private final int chunkSize;
+  private final int parallelism;
+  private final int maxBatchSize;
+  private final int maxBatchesInFlight;
+  private final int maxAttempts;
+  private final Duration initialBackoff;
+
+  private final Timer readTimer;
+  private final Timer parseTimer;
+  private final Timer writeTimer;
+  private final Counter importedRowsCounter;
+  private final Counter failedRowsCounter;
+  private final Counter rejectedRowsCounter;
+  private final Counter retriesCounter;
+
+  /**
+   * @param batchWriter the asynchronous writer of a batch of bookmarks of a single user (e.g. :
+   * {@link com.findinpath.repository.UserBookmarkBatchRepository#saveBatchAsync(List)})
+   * @param meterRegistry the registry where the timings of the stages are published
+   * @param chunkSize the number of lines of the chunks in which the file is read and parsed
+   * @param parallelism the number of threads parsing the chunks
+   * @param maxBatchSize the maximum number of bookmarks of a batch
+   * @param maxBatchesInFlight the maximum number of batches being written at the same time
+   * @param maxAttempts the maximum number of attempts of writing a batch
+   * @param initialBackoff the delay before the first retry of a batch, doubled on each retry
+   */
+  public UserBookmarkImporter(
+      Function<? super List<UserBookmark>, ? extends ListenableFuture<?>> batchWriter,
+      MeterRegistry meterRegistry, int chunkSize, int parallelism, int maxBatchSize,
+      int maxBatchesInFlight, int maxAttempts, Duration initialBackoff) {
+    Assert.isTrue(chunkSize > 0, "The chunk size must be positive");
+    Assert.isTrue(parallelism > 0, "The parallelism must be positive");
+    Assert.isTrue(maxBatchSize > 0, "The maximum batch size must be positive");
+    Assert.isTrue(maxBatchesInFlight > 0,
+        "The maximum number of batches in flight must be positive");
+    Assert.isTrue(maxAttempts > 0, "The maximum number of attempts must be positive");
+    this.batchWriter = batchWriter;
+    this.chunkSize = chunkSize;
+    this.parallelism = parallelism;
+    this.maxBatchSize = maxBatchSize;
+    this.maxBatchesInFlight = maxBatchesInFlight;
+    this.maxAttempts = maxAttempts;
+    this.initialBackoff = initialBackoff;
+
+    this.readTimer = stageTimer(meterRegistry, "read");
+    this.parseTimer = stageTimer(meterRegistry, "parse");
+    this.writeTimer = stageTimer(meterRegistry, "write");
+    this.importedRowsCounter = rowsCounter(meterRegistry, "imported");
+    this.failedRowsCounter = rowsCounter(meterRegistry, "failed");
+    this.rejectedRowsCounter = rowsCounter(meterRegistry, "rejected");
+    this.retriesCounter = meterRegistry.counter(RETRIES_METRIC_NAME);
+  }
+
+  /**
+   * Imports the bookmarks of the specified export file, whose format is deduced out of its
+   * extension.
+   *
+   * @param file the export file
+   * @return the summary of the import
+   * @throws IOException in case that the file can't be read
+   */
+  public ImportResult importBookmarks(Path file) throws IOException {
+    var format = ImportFormat.fromFileName(file.getFileName().toString());
+    try (var reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      return importBookmarks(reader, format);
+    }
+  }
+
+  /**
+   * Imports the bookmarks read out of the specified reader and waits for all of them to be
+   * written.
+   *
+   * @param reader the reader of the exported bookmarks
+   * @param format the format of the exported bookmarks
+   * @return the summary of the import
+   * @throws IOException in case that the bookmarks can't be read
+   */
+  public ImportResult importBookmarks(Reader reader, ImportFormat format) throws IOException {
+    var bufferedReader = reader instanceof BufferedReader ? (BufferedReader) reader
+        : new BufferedReader(reader);
+    return new ImportRun(format).run(bufferedReader);
+  }
+
+  private static Timer stageTimer(MeterRegistry meterRegistry, String stage) {
+    return Timer.builder(STAGE_METRIC_NAME)
+        .tags("stage", stage)
+        .register(meterRegistry);
+  }
+
+  private static Counter rowsCounter(MeterRegistry meterRegistry, String outcome) {
+    return Counter.builder(ROWS_METRIC_NAME)
+        .tags("outcome", outcome)
+        .register(meterRegistry);
+  }
+
+  /**
+   * State of a single import.
+   */
+  private final class ImportRun {
+
+    private final ImportFormat format;
+    private final ExecutorService parseExecutor = Executors.newFixedThreadPool(parallelism);
+    private final ScheduledExecutorService retryScheduler =
+        Executors.newSingleThreadScheduledExecutor();
+    /**
+     * The chunks being parsed or written, bounding the memory used by the import.
+     */
+    private final Semaphore chunkPermits = new Semaphore(parallelism * 2);
+    private final Semaphore batchPermits = new Semaphore(maxBatchesInFlight);
+    /**
+     * Tracks the chunks which are not written yet.
+     */
+    private final Phaser pendingChunks = new Phaser(1);
+    private final LongAdder importedRows = new LongAdder();
+    private final LongAdder failedRows = new LongAdder();
+    private final LongAdder rejectedLines = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+
+    private ImportRun(ImportFormat format) {
+      this.format = format;
+    }
+
+    ImportResult run(BufferedReader reader) throws IOException {
+      var startNanos = System.nanoTime();
+      try {
+        readChunks(reader);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while importing the bookmarks");
+      } finally {
+        // the chunks read so far (even when the reading failed) get written before the retries
+        // stop being scheduled, unless the import got interrupted
+        if (!Thread.currentThread().isInterrupted()) {
+          pendingChunks.arriveAndAwaitAdvance();
+        }
+        parseExecutor.shutdown();
+        retryScheduler.shutdown();
+      }
+      return new ImportResult(importedRows.sum(), failedRows.sum(), rejectedLines.sum(),
+          batches.sum(), retries.sum(), Duration.ofNanos(System.nanoTime() - startNanos));
+    }
+
+    private void readChunks(BufferedReader reader) throws IOException, InterruptedException {
+      while (true) {
+        chunkPermits.acquire();
+        var sample = Timer.start();
+        var lines = new ArrayList<String>(chunkSize);
+        String line;
+        while (lines.size() < chunkSize && (line = reader.readLine()) != null) {
+          lines.add(line);
+        }
+        sample.stop(readTimer);
+        if (lines.isEmpty()) {
+          chunkPermits.release();
+          return;
+        }
+        pendingChunks.register();
+        parseExecutor.execute(() -> processChunk(lines));
+      }
+    }
+
+    private void processChunk(List<String> lines) {
+      var chunkBatches = List.<List<UserBookmark>>of();
+      try {
+        chunkBatches = parseTimer.record(() -> parseChunk(lines));
+      } finally {
+        if (chunkBatches.isEmpty()) {
+          completeChunk();
+        }
+      }
+      var remainingBatches = new AtomicInteger(chunkBatches.size());
+      for (var batch : chunkBatches) {
+        batchPermits.acquireUninterruptibly();
+        batches.increment();
+        write(batch, 1, () -> {
+          batchPermits.release();
+          if (remainingBatches.decrementAndGet() == 0) {
+            completeChunk();
+          }
+        });
+      }
+    }
+
+    private List<List<UserBookmark>> parseChunk(List<String> lines) {
+      var userBookmarks = new ArrayList<UserBookmark>(lines.size());
+      for (var line : lines) {
+        try {
+          var userBookmark = format.parse(line);
+          if (userBookmark != null) {
+            userBookmarks.add(userBookmark);
+          }
+        } catch (RuntimeException e) {
+          rejectedLines.increment();
+          rejectedRowsCounter.increment();
+        }
+      }
+      return UserBookmarkRepository.partitionBatches(userBookmarks, maxBatchSize);
+    }
+
+    private void write(List<UserBookmark> batch, int attempt, Runnable onCompletion) {
+      // each of the attempts is timed on its own
+      var sample = Timer.start();
+      ListenableFuture<?> result;
+      try {
+        result = batchWriter.apply(batch);
+      } catch (RuntimeException e) {
+        onWriteFailure(batch, attempt, sample, onCompletion, e);
+        return;
+      }
+      result.addCallback(
+          value -> {
+            sample.stop(writeTimer);
+            importedRows.add(batch.size());
+            importedRowsCounter.increment(batch.size());
+            onCompletion.run();
+          },
+          ex -> onWriteFailure(batch, attempt, sample, onCompletion, ex));
+    }
+
+    private void onWriteFailure(List<UserBookmark> batch, int attempt, Timer.Sample sample,
+        Runnable onCompletion, Throwable ex) {
+      sample.stop(writeTimer);
+      if (attempt < maxAttempts && ex instanceof TransientDataAccessException
+          && scheduleRetry(batch, attempt, onCompletion)) {
+        return;
+      }
+      failedRows.add(batch.size());
+      failedRowsCounter.increment(batch.size());
+      onCompletion.run();
+    }
+
+    /**
+     * @return whether the retry got scheduled, which is not the case anymore once the import got
+     * interrupted
+     */
+    private boolean scheduleRetry(List<UserBookmark> batch, int attempt, Runnable onCompletion) {
+      var backoffMillis = initialBackoff.toMillis() << Math.min(attempt - 1, 16);
+      try {
+        retryScheduler.schedule(() -> write(batch, attempt + 1, onCompletion),
+            backoffMillis, TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException e) {
+        return false;
+      }
+      retries.increment();
+      retriesCounter.increment();
+      return true;
+    }
+
+    private void completeChunk() {
+      chunkPermits.release();
+      pendingChunks.arriveAndDeregister();
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package com.findinpath.mapping;
+
+import com.datastax.driver.core.ColumnDefinitions;
+import com.datastax.driver.core.Row;
+
+/**
+ * Resolves the indexes of the mapped columns within the rows.
+ *
+ * The rows of the same result set (and the ones of the same prepared statement) share their
+ * {@link ColumnDefinitions}, so the indexes are resolved by name only when the definitions of
+ * the rows change, instead of on each of the columns of each row.
+ */
+final class ColumnIndexes {
+
+  private final String[] columnNames;
+  private volatile Resolved resolved;
+
+  /**
+   * @param columnNames the names of the mapped columns
+   */
+  ColumnIndexes(String... columnNames) {
+    this.columnNames = columnNames.clone();
+  }
+
+  /**
+   * @param row the row
+   * @return the indexes of the mapped columns within the row, in the order of their names, with
+   * <code>-1</code> for the columns missing from the row
+   */
+  int[] of(Row row) {
+    var definitions = row.getColumnDefinitions();
+    var current = resolved;
+    if (current == null || current.definitions != definitions) {
+      var indexes = new int[columnNames.length];
+      for (int i = 0; i < columnNames.length; i++) {
+        indexes[i] = definitions.getIndexOf(columnNames[i]);
+      }
+      // racing resolutions yield equal indexes
+      current = new Resolved(definitions, indexes);
+      resolved = current;
+    }
+    return current.indexes;
+  }
+
+  private static final class Resolved {
+
+    private final ColumnDefinitions definitions;
+    private final int[] indexes;
+
+    private Resolved(ColumnDefinitions definitions, int[] indexes) {
+      this.definitions = definitions;
+      this.indexes = indexes;
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package com.findinpath.mapping;
+
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.querybuilder.Insert;
+import com.findinpath.model.Config;
+
+/**
+ * Pre-built mapping of the {@link Config} entities.
+ */
+public final class ConfigRowMapper implements EntityRowMapper<Config> {
+
+  private static final int KEY = 0;
+  private static final int VALUE = 1;
+
+  private final ColumnIndexes columnIndexes = new ColumnIndexes(
+      Config.KEY_FIELD_NAME,
+      Config.VALUE_FIELD_NAME);
+
+  @Override
+  public Class<Config> getEntityType() {
+    return Config.class;
+  }
+
+  @Override
+  public Config read(Row row) {
+    var indexes = columnIndexes.of(row);
+    var config = new Config();
+    if (indexes[KEY] >= 0) {
+      config.setKey(row.getString(indexes[KEY]));
+    }
+    if (indexes[VALUE] >= 0) {
+      config.setValue(row.getString(indexes[VALUE]));
+    }
+    return config;
+  }
+
+  @Override
+  public void write(Config config, Insert insert) {
+    if (config.getKey() != null) {
+      insert.value(Config.KEY_FIELD_NAME, config.getKey());
+    }
+    if (config.getValue() != null) {
+      insert.value(Config.VALUE_FIELD_NAME, config.getValue());
+    }
+  }
+}
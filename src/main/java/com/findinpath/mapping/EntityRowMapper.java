@@ -0,0 +1,39 @@
+package com.findinpath.mapping;
+
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.querybuilder.Insert;
+
+/**
+ * Pre-built mapping of an entity class, reading the entities straight out of the
+ * {@link Row}s and writing them straight into the {@link Insert} statements, without the
+ * reflection and the property accessors of the
+ * {@link org.springframework.data.cassandra.core.convert.MappingCassandraConverter}.
+ *
+ * The mappers need to produce the same entities and statements as the converter does for the
+ * mapping metadata of their entity class (see {@link RowMappingCassandraConverter}).
+ *
+ * @param <T> the entity class
+ */
+public interface EntityRowMapper<T> {
+
+  /**
+   * @return the entity class
+   */
+  Class<T> getEntityType();
+
+  /**
+   * Reads the entity out of the row. The columns missing from the row are left unset.
+   *
+   * @param row the row
+   * @return the entity
+   */
+  T read(Row row);
+
+  /**
+   * Writes the non-null values of the entity into the insert statement.
+   *
+   * @param entity the entity
+   * @param insert the insert statement
+   */
+  void write(T entity, Insert insert);
+}
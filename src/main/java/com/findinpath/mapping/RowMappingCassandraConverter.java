@@ -0,0 +1,91 @@
+package com.findinpath.mapping;
+
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.querybuilder.Insert;
+import com.findinpath.aop.TimedMappingCassandraConverter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.data.cassandra.core.mapping.CassandraMappingContext;
+import org.springframework.data.cassandra.core.mapping.CassandraPersistentEntity;
+
+/**
+ * {@link TimedMappingCassandraConverter} taking the fast path of the pre-built
+ * {@link EntityRowMapper}s for reading the rows of their entity classes and for writing their
+ * entities into insert statements.
+ *
+ * The reflective mapping of the
+ * {@link org.springframework.data.cassandra.core.convert.MappingCassandraConverter} (entity
+ * instantiation and property accessors resolved out of the mapping metadata) accounts for a
+ * large share of the CPU time of the reads returning many rows. The entity classes without a
+ * mapper, as well as the other kinds of sources and sinks (e.g. : update or delete statements),
+ * keep being mapped by the converter.
+ *
+ * The fast path is opt-in, by creating the Cassandra templates with this converter instead of
+ * the default one.
+ */
+public class RowMappingCassandraConverter extends TimedMappingCassandraConverter {
+
+  private final Map<Class<?>, EntityRowMapper<?>> rowMappers;
+
+  /**
+   * Creates the converter with the mappers of the {@link com.findinpath.model.UserBookmark} and
+   * {@link com.findinpath.model.Config} entities.
+   *
+   * @param mappingContext the mapping context
+   */
+  public RowMappingCassandraConverter(CassandraMappingContext mappingContext) {
+    this(mappingContext, List.of(new UserBookmarkRowMapper(), new ConfigRowMapper()));
+  }
+
+  /**
+   * @param mappingContext the mapping context
+   * @param rowMappers the mappers of the entity classes to be mapped through the fast path
+   */
+  public RowMappingCassandraConverter(CassandraMappingContext mappingContext,
+      List<EntityRowMapper<?>> rowMappers) {
+    super(mappingContext);
+    var mappers = new HashMap<Class<?>, EntityRowMapper<?>>();
+    for (var rowMapper : rowMappers) {
+      mappers.put(rowMapper.getEntityType(), rowMapper);
+    }
+    this.rowMappers = Map.copyOf(mappers);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  protected <R> R doRead(Class<R> type, Object row) {
+    var rowMapper = rowMappers.get(type);
+    if (rowMapper != null && row instanceof Row) {
+      return (R) rowMapper.read((Row) row);
+    }
+    return super.doRead(type, row);
+  }
+
+  @Override
+  public void write(Object source, Object sink) {
+    if (!writeInsert(source, sink)) {
+      super.write(source, sink);
+    }
+  }
+
+  @Override
+  public void write(Object source, Object sink, CassandraPersistentEntity<?> entity) {
+    if (!writeInsert(source, sink)) {
+      super.write(source, sink, entity);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private boolean writeInsert(Object source, Object sink) {
+    if (!(sink instanceof Insert) || source == null) {
+      return false;
+    }
+    var rowMapper = (EntityRowMapper<Object>) rowMappers.get(source.getClass());
+    if (rowMapper == null) {
+      return false;
+    }
+    rowMapper.write(source, (Insert) sink);
+    return true;
+  }
+}
@@ -0,0 +1,56 @@
+package com.findinpath.mapping;
+
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.querybuilder.Insert;
+import com.findinpath.model.UserBookmark;
+import com.findinpath.model.UserBookmarkKey;
+
+/**
+ * Pre-built mapping of the {@link UserBookmark} entities, along with their
+ * {@link UserBookmarkKey} primary key.
+ */
+public final class UserBookmarkRowMapper implements EntityRowMapper<UserBookmark> {
+
+  private static final int USER_ID = 0;
+  private static final int TIMESTAMP = 1;
+  private static final int URL = 2;
+
+  private final ColumnIndexes columnIndexes = new ColumnIndexes(
+      UserBookmarkKey.USER_ID_FIELD_NAME,
+      UserBookmarkKey.TIMESTAMP_FIELD_NAME,
+      UserBookmark.URL_FIELD_NAME);
+
+  @Override
+  public Class<UserBookmark> getEntityType() {
+    return UserBookmark.class;
+  }
+
+  @Override
+  public UserBookmark read(Row row) {
+    var indexes = columnIndexes.of(row);
+    var userBookmark = new UserBookmark();
+    userBookmark.setPrimaryKey(new UserBookmarkKey(
+        indexes[USER_ID] < 0 ? null : row.getUUID(indexes[USER_ID]),
+        indexes[TIMESTAMP] < 0 ? null : row.getUUID(indexes[TIMESTAMP])));
+    if (indexes[URL] >= 0) {
+      userBookmark.setUrl(row.getString(indexes[URL]));
+    }
+    return userBookmark;
+  }
+
+  @Override
+  public void write(UserBookmark userBookmark, Insert insert) {
+    var primaryKey = userBookmark.getPrimaryKey();
+    if (primaryKey != null) {
+      if (primaryKey.getUserId() != null) {
+        insert.value(UserBookmarkKey.USER_ID_FIELD_NAME, primaryKey.getUserId());
+      }
+      if (primaryKey.getTimestamp() != null) {
+        insert.value(UserBookmarkKey.TIMESTAMP_FIELD_NAME, primaryKey.getTimestamp());
+      }
+    }
+    if (userBookmark.getUrl() != null) {
+      insert.value(UserBookmark.URL_FIELD_NAME, userBookmark.getUrl());
+    }
+  }
+}
@@ -0,0 +1,218 @@
+package com.findinpath.repository;
+
+import com.findinpath.aop.NotTimed;
+import com.findinpath.aop.Outcome;
+import com.findinpath.aop.RepositoryTimerAspect;
+import com.findinpath.aop.Source;
+import com.findinpath.model.Config;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Read-through near cache placed in front of the spring data {@link ConfigRepository}.
+ *
+ * The configuration entries are read very often and rarely written, reason why the lookups done
+ * through {@link #findById(String)} are served, whenever possible, out of a size bounded local
+ * cache:
+ *
+ * <ul>
+ *   <li>the cached entries get reloaded asynchronously (refresh-ahead) after the
+ *   <code>refreshAfterWrite</code> duration, while still being served out of the cache</li>
+ *   <li>the lookups of missing entries are cached as well, but only for the shorter
+ *   <code>negativeExpireAfterWrite</code> duration</li>
+ *   <li>the entries get invalidated when they are saved or deleted through this repository</li>
+ * </ul>
+ *
+ * The calls served out of the cache are recorded on the repository timer of the
+ * {@link ConfigRepository} with the {@link Source#CACHE} &quot;source&quot; tag, while the
+ * database round trips done for loading the entries are timed as usual by the
+ * {@link RepositoryTimerAspect} on the decorated repository. The statistics of the cache (hits,
+ * misses, evictions, load duration) are published with the &quot;cache&quot; tag
+ * <code>config</code> (see {@link CaffeineCacheMetrics}).
+ */
+@NotTimed
+public class CachingConfigRepository implements ConfigRepository {
+
+  public static final String CACHE_NAME = "config";
+
+  private static final Method FIND_BY_ID_METHOD = ClassUtils
+      .getMethod(CrudRepository.class, "findById", Object.class);
+
+  private final ConfigRepository configRepository;
+  private final RepositoryTimerAspect repositoryTimerAspect;
+  private final LoadingCache<String, Optional<Config>> cache;
+  private volatile Timer cacheTimer;
+
+  public CachingConfigRepository(ConfigRepository configRepository,
+      RepositoryTimerAspect repositoryTimerAspect, MeterRegistry meterRegistry,
+      long maximumSize, Duration expireAfterWrite, Duration refreshAfterWrite,
+      Duration negativeExpireAfterWrite) {
+    this(configRepository, repositoryTimerAspect, meterRegistry, maximumSize, expireAfterWrite,
+        refreshAfterWrite, negativeExpireAfterWrite, Ticker.systemTicker(),
+        ForkJoinPool.commonPool());
+  }
+
+  CachingConfigRepository(ConfigRepository configRepository,
+      RepositoryTimerAspect repositoryTimerAspect, MeterRegistry meterRegistry,
+      long maximumSize, Duration expireAfterWrite, Duration refreshAfterWrite,
+      Duration negativeExpireAfterWrite, Ticker ticker, Executor executor) {
+    this.configRepository = configRepository;
+    this.repositoryTimerAspect = repositoryTimerAspect;
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfter(new ConfigExpiry(expireAfterWrite, negativeExpireAfterWrite))
+        .refreshAfterWrite(refreshAfterWrite)
+        .ticker(ticker)
+        .executor(executor)
+        .recordStats()
+        .build(configRepository::findById);
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+  }
+
+  @Override
+  public Optional<Config> findById(String key) {
+    var sample = Timer.start();
+    var config = cache.getIfPresent(key);
+    if (config == null) {
+      var loaded = new boolean[1];
+      config = cache.get(key, missingKey -> {
+        // the database round trip gets timed on the decorated repository
+        loaded[0] = true;
+        return configRepository.findById(missingKey);
+      });
+      if (loaded[0]) {
+        return config;
+      }
+    }
+    // served out of the cache (possibly after waiting for a concurrent load of the entry)
+    sample.stop(getCacheTimer());
+    return config;
+  }
+
+  @Override
+  public <S extends Config> S save(S entity) {
+    try {
+      return configRepository.save(entity);
+    } finally {
+      cache.invalidate(entity.getKey());
+    }
+  }
+
+  @Override
+  public <S extends Config> Iterable<S> saveAll(Iterable<S> entities) {
+    try {
+      return configRepository.saveAll(entities);
+    } finally {
+      entities.forEach(entity -> cache.invalidate(entity.getKey()));
+    }
+  }
+
+  @Override
+  public boolean existsById(String key) {
+    return configRepository.existsById(key);
+  }
+
+  @Override
+  public Iterable<Config> findAll() {
+    return configRepository.findAll();
+  }
+
+  @Override
+  public Iterable<Config> findAllById(Iterable<String> keys) {
+    return configRepository.findAllById(keys);
+  }
+
+  @Override
+  public long count() {
+    return configRepository.count();
+  }
+
+  @Override
+  public void deleteById(String key) {
+    try {
+      configRepository.deleteById(key);
+    } finally {
+      cache.invalidate(key);
+    }
+  }
+
+  @Override
+  public void delete(Config entity) {
+    try {
+      configRepository.delete(entity);
+    } finally {
+      cache.invalidate(entity.getKey());
+    }
+  }
+
+  @Override
+  public void deleteAll(Iterable<? extends Config> entities) {
+    try {
+      configRepository.deleteAll(entities);
+    } finally {
+      entities.forEach(entity -> cache.invalidate(entity.getKey()));
+    }
+  }
+
+  @Override
+  public void deleteAll() {
+    try {
+      configRepository.deleteAll();
+    } finally {
+      cache.invalidateAll();
+    }
+  }
+
+  private Timer getCacheTimer() {
+    var timer = cacheTimer;
+    if (timer == null) {
+      timer = repositoryTimerAspect.getTimer(ConfigRepository.class.getSimpleName(),
+          FIND_BY_ID_METHOD, Outcome.SUCCESSFUL, Source.CACHE);
+      cacheTimer = timer;
+    }
+    return timer;
+  }
+
+  /**
+   * Expires the missing configuration entries sooner than the existing ones.
+   */
+  private static final class ConfigExpiry implements Expiry<String, Optional<Config>> {
+
+    private final long expireAfterWriteNanos;
+    private final long negativeExpireAfterWriteNanos;
+
+    private ConfigExpiry(Duration expireAfterWrite, Duration negativeExpireAfterWrite) {
+      this.expireAfterWriteNanos = expireAfterWrite.toNanos();
+      this.negativeExpireAfterWriteNanos = negativeExpireAfterWrite.toNanos();
+    }
+
+    @Override
+    public long expireAfterCreate(String key, Optional<Config> value, long currentTime) {
+      return value.isPresent() ? expireAfterWriteNanos : negativeExpireAfterWriteNanos;
+    }
+
+    @Override
+    public long expireAfterUpdate(String key, Optional<Config> value, long currentTime,
+        long currentDuration) {
+      return expireAfterCreate(key, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(String key, Optional<Config> value, long currentTime,
+        long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
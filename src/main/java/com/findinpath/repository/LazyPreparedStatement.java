@@ -0,0 +1,46 @@
+package com.findinpath.repository;
+
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.RegularStatement;
+import org.springframework.data.cassandra.core.cql.CqlOperations;
+import org.springframework.data.cassandra.core.cql.SessionCallback;
+
+/**
+ * Statement which gets prepared on the Cassandra session only once, on its first use, and is
+ * subsequently reused for binding the values of each execution.
+ *
+ * Reusing the prepared statement spares Cassandra from parsing the query on each execution and
+ * allows the driver to route the bound statements towards the replicas owning their partition
+ * (token aware routing).
+ */
+final class LazyPreparedStatement {
+
+  private final CqlOperations cqlOperations;
+  private final RegularStatement statement;
+  private volatile PreparedStatement preparedStatement;
+
+  LazyPreparedStatement(CqlOperations cqlOperations, RegularStatement statement) {
+    this.cqlOperations = cqlOperations;
+    this.statement = statement;
+  }
+
+  PreparedStatement get() {
+    var prepared = preparedStatement;
+    if (prepared == null) {
+      synchronized (this) {
+        prepared = preparedStatement;
+        if (prepared == null) {
+          prepared = cqlOperations.execute(
+              (SessionCallback<PreparedStatement>) session -> session.prepare(statement));
+          preparedStatement = prepared;
+        }
+      }
+    }
+    return prepared;
+  }
+
+  BoundStatement bind(Object... values) {
+    return get().bind(values);
+  }
+}
@@ -0,0 +1,59 @@
+package com.findinpath.repository;
+
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.querybuilder.QueryBuilder;
+import com.findinpath.aop.RowCount;
+import com.findinpath.model.UserBookmark;
+import java.util.List;
+import org.springframework.data.cassandra.core.AsyncCassandraOperations;
+import org.springframework.data.cassandra.core.CassandraOperations;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.concurrent.ListenableFuture;
+
+/**
+ * Writes batches of bookmarks as <code>UNLOGGED</code> batch statements.
+ *
+ * The batches are expected to contain the bookmarks of a single user (i.e. : a single
+ * partition), which makes the unlogged batch to be applied atomically on a single replica set
+ * without the overhead of the batch log.
+ *
+ * This repository is used by {@link UserBookmarkRepository#saveAll(java.util.Collection)} and
+ * {@link UserBookmarkRepository#saveAllAsync(java.util.Collection)} and exists separately from
+ * it in order to get each of the batch calls timed.
+ */
+@Repository
+public class UserBookmarkBatchRepository {
+
+  private final CassandraOperations cassandraOperations;
+  private final AsyncCassandraOperations asyncCassandraOperations;
+  private final String tableName;
+
+  public UserBookmarkBatchRepository(
+      CassandraOperations cassandraOperations,
+      AsyncCassandraOperations asyncCassandraOperations) {
+
+    this.cassandraOperations = cassandraOperations;
+    this.asyncCassandraOperations = asyncCassandraOperations;
+    this.tableName = cassandraOperations.getTableName(UserBookmark.class).toCql();
+  }
+
+  public boolean saveBatch(@RowCount List<UserBookmark> userBookmarks) {
+    return cassandraOperations.getCqlOperations().execute(createBatchStatement(userBookmarks));
+  }
+
+  public ListenableFuture<Boolean> saveBatchAsync(@RowCount List<UserBookmark> userBookmarks) {
+    return asyncCassandraOperations.getAsyncCqlOperations()
+        .execute(createBatchStatement(userBookmarks));
+  }
+
+  private BatchStatement createBatchStatement(List<UserBookmark> userBookmarks) {
+    var batchStatement = new BatchStatement(BatchStatement.Type.UNLOGGED);
+    var converter = cassandraOperations.getConverter();
+    for (var userBookmark : userBookmarks) {
+      var insert = QueryBuilder.insertInto(tableName);
+      converter.write(userBookmark, insert);
+      batchStatement.add(insert);
+    }
+    return batchStatement;
+  }
+}
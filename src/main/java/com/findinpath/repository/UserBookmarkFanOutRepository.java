@@ -0,0 +1,195 @@
+package com.findinpath.repository;
+
+import com.findinpath.concurrent.BoundedPipeline;
+import com.findinpath.model.UserBookmark;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.Assert;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureAdapter;
+
+/**
+ * Retrieves the latest bookmarks of many users at once, by running the per user (partition)
+ * queries concurrently, with at most <code>user-bookmarks.fan-out.max-in-flight</code> queries
+ * in flight.
+ *
+ * The per user queries are done through
+ * {@link UserBookmarkRepository#findLatestBookmarksAsync(UUID, int)}, so that each of them gets
+ * timed, while the timing of the methods of this repository covers the whole fan-out.
+ */
+@Repository
+public class UserBookmarkFanOutRepository {
+
+  private static final Comparator<BookmarkCursor> LATEST_FIRST = Comparator
+      .comparingLong(BookmarkCursor::timestamp).reversed();
+
+  private final UserBookmarkRepository userBookmarkRepository;
+  private final int maxQueriesInFlight;
+
+  public UserBookmarkFanOutRepository(
+      UserBookmarkRepository userBookmarkRepository,
+      @Value("${user-bookmarks.fan-out.max-in-flight:16}") int maxQueriesInFlight) {
+    Assert.isTrue(maxQueriesInFlight > 0,
+        "The maximum number of the queries in flight must be positive");
+    this.userBookmarkRepository = userBookmarkRepository;
+    this.maxQueriesInFlight = maxQueriesInFlight;
+  }
+
+  /**
+   * @param userIds the user identifiers
+   * @param limitPerUser the maximum number of bookmarks retrieved for each of the users
+   * @return the latest bookmarks of each of the users, in the order of the user identifiers
+   * @see #findLatestBookmarksByUserAsync(Collection, int)
+   */
+  public Map<UUID, List<UserBookmark>> findLatestBookmarksByUser(Collection<UUID> userIds,
+      int limitPerUser) {
+    return await(fanOut(userIds, limitPerUser));
+  }
+
+  /**
+   * Retrieves concurrently the latest bookmarks of each of the specified users. The returned
+   * future fails as soon as one of the per user queries fails.
+   *
+   * @param userIds the user identifiers
+   * @param limitPerUser the maximum number of bookmarks retrieved for each of the users
+   * @return the latest bookmarks of each of the users, in the order of the user identifiers
+   */
+  public ListenableFuture<Map<UUID, List<UserBookmark>>> findLatestBookmarksByUserAsync(
+      Collection<UUID> userIds, int limitPerUser) {
+    return fanOut(userIds, limitPerUser);
+  }
+
+  /**
+   * @param userIds the user identifiers
+   * @param limitPerUser the maximum number of bookmarks retrieved for each of the users
+   * @param limit the maximum number of bookmarks retrieved overall
+   * @return the latest bookmarks of all the users, the latest first
+   * @see #findMergedLatestBookmarksAsync(Collection, int, int)
+   */
+  public List<UserBookmark> findMergedLatestBookmarks(Collection<UUID> userIds, int limitPerUser,
+      int limit) {
+    return await(merge(fanOut(userIds, limitPerUser), limit));
+  }
+
+  /**
+   * Retrieves concurrently the latest bookmarks of each of the specified users and merges them
+   * in the descending order of their <code>timestamp</code>.
+   *
+   * @param userIds the user identifiers
+   * @param limitPerUser the maximum number of bookmarks retrieved for each of the users
+   * @param limit the maximum number of bookmarks retrieved overall
+   * @return the latest bookmarks of all the users, the latest first
+   */
+  public ListenableFuture<List<UserBookmark>> findMergedLatestBookmarksAsync(
+      Collection<UUID> userIds, int limitPerUser, int limit) {
+    return merge(fanOut(userIds, limitPerUser), limit);
+  }
+
+  private ListenableFuture<Map<UUID, List<UserBookmark>>> fanOut(Collection<UUID> userIds,
+      int limitPerUser) {
+    var distinctUserIds = List.copyOf(new LinkedHashSet<>(userIds));
+    return new ListenableFutureAdapter<>(BoundedPipeline.map(distinctUserIds, maxQueriesInFlight,
+        userId -> userBookmarkRepository.findLatestBookmarksAsync(userId, limitPerUser))) {
+      @Override
+      protected Map<UUID, List<UserBookmark>> adapt(List<List<UserBookmark>> results) {
+        var bookmarksByUser = new LinkedHashMap<UUID, List<UserBookmark>>();
+        for (int i = 0; i < distinctUserIds.size(); i++) {
+          bookmarksByUser.put(distinctUserIds.get(i), results.get(i));
+        }
+        return bookmarksByUser;
+      }
+    };
+  }
+
+  private static ListenableFuture<List<UserBookmark>> merge(
+      ListenableFuture<Map<UUID, List<UserBookmark>>> bookmarksByUser, int limit) {
+    return new ListenableFutureAdapter<>(bookmarksByUser) {
+      @Override
+      protected List<UserBookmark> adapt(Map<UUID, List<UserBookmark>> result) {
+        return mergeLatest(result.values(), limit);
+      }
+    };
+  }
+
+  /**
+   * Merges the bookmarks of the users, each of them being already sorted in the descending order
+   * of the <code>timestamp</code> clustering column, by picking repeatedly the latest of the
+   * bookmarks not merged yet.
+   *
+   * @param bookmarksByUser the latest bookmarks of each of the users
+   * @param limit the maximum number of merged bookmarks
+   * @return the merged bookmarks, the latest first
+   */
+  static List<UserBookmark> mergeLatest(Collection<List<UserBookmark>> bookmarksByUser,
+      int limit) {
+    var cursors = new PriorityQueue<BookmarkCursor>(Math.max(1, bookmarksByUser.size()),
+        LATEST_FIRST);
+    for (var userBookmarks : bookmarksByUser) {
+      if (!userBookmarks.isEmpty()) {
+        cursors.add(new BookmarkCursor(userBookmarks));
+      }
+    }
+
+    var merged = new ArrayList<UserBookmark>();
+    while (merged.size() < limit && !cursors.isEmpty()) {
+      var cursor = cursors.poll();
+      merged.add(cursor.current());
+      if (cursor.advance()) {
+        cursors.add(cursor);
+      }
+    }
+    return merged;
+  }
+
+  private static <T> T await(ListenableFuture<T> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while retrieving the user bookmarks", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException("Failed to retrieve the user bookmarks", e.getCause());
+    }
+  }
+
+  /**
+   * Position within the bookmarks of a user, during their merge.
+   */
+  private static final class BookmarkCursor {
+
+    private final List<UserBookmark> userBookmarks;
+    private int index;
+
+    private BookmarkCursor(List<UserBookmark> userBookmarks) {
+      this.userBookmarks = userBookmarks;
+    }
+
+    UserBookmark current() {
+      return userBookmarks.get(index);
+    }
+
+    /**
+     * @return the 60-bit timestamp of the TIMEUUID of the current bookmark
+     */
+    long timestamp() {
+      return current().getPrimaryKey().getTimestamp().timestamp();
+    }
+
+    boolean advance() {
+      return ++index < userBookmarks.size();
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package com.findinpath.repository;
+
+import com.findinpath.model.UserBookmark;
+import java.util.List;
+
+/**
+ * Page of bookmarks of a user, along with the opaque token needed for fetching the next page.
+ *
+ * The token wraps the paging state of the Cassandra driver and can be handed over to the
+ * clients (e.g. : as HTTP query parameter) for resuming the pagination later on, without having
+ * to keep any state on the server side.
+ *
+ * @see UserBookmarkPageRepository#findLatestBookmarksPage(java.util.UUID, int, int, String)
+ */
+public final class UserBookmarkPage {
+
+  private final List<UserBookmark> bookmarks;
+  private final String nextPageToken;
+
+  public UserBookmarkPage(List<UserBookmark> bookmarks, String nextPageToken) {
+    this.bookmarks = bookmarks;
+    this.nextPageToken = nextPageToken;
+  }
+
+  public List<UserBookmark> getBookmarks() {
+    return bookmarks;
+  }
+
+  /**
+   * @return the token of the next page or <code>null</code> in case that this is the last page
+   */
+  public String getNextPageToken() {
+    return nextPageToken;
+  }
+
+  public boolean hasNext() {
+    return nextPageToken != null;
+  }
+}
@@ -0,0 +1,97 @@
+package com.findinpath.repository;
+
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.PagingState;
+import com.findinpath.aop.WarmedUpRepository;
+import com.findinpath.model.UserBookmark;
+import java.time.Instant;
+import java.util.UUID;
+import org.springframework.data.cassandra.core.CassandraOperations;
+import org.springframework.data.cassandra.core.query.CassandraPageRequest;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Reads the bookmarks of a user one page at a time, by making use of the paging state of the
+ * Cassandra driver.
+ *
+ * This repository is used by {@link UserBookmarkRepository#streamLatestBookmarks(UUID, int, int)}
+ * and {@link UserBookmarkRepository#streamBookmarksBetween(UUID, Instant, Instant, int, int)}
+ * and exists separately from it in order to get each of the page fetches timed.
+ */
+@Repository
+public class UserBookmarkPageRepository implements WarmedUpRepository {
+
+  private final CassandraOperations cassandraOperations;
+  private final LazyPreparedStatement latestBookmarksStatement;
+  private final LazyPreparedStatement bookmarksBetweenStatement;
+
+  public UserBookmarkPageRepository(CassandraOperations cassandraOperations) {
+    this.cassandraOperations = cassandraOperations;
+    this.latestBookmarksStatement = UserBookmarkRepository
+        .createLatestBookmarksStatement(cassandraOperations);
+    this.bookmarksBetweenStatement = UserBookmarkRepository
+        .createBookmarksBetweenStatement(cassandraOperations);
+  }
+
+  /**
+   * Prepares the statements of the repository on the Cassandra session.
+   */
+  @Override
+  public void warmUp() {
+    latestBookmarksStatement.get();
+    bookmarksBetweenStatement.get();
+  }
+
+  /**
+   * Fetches a page of the latest bookmarks of the specified user.
+   *
+   * The same <code>userId</code> and <code>limit</code> need to be used for all the pages of the
+   * pagination, otherwise the page token is rejected by the driver.
+   *
+   * @param userId the user identifier
+   * @param limit the maximum number of bookmarks to be fetched over all the pages
+   * @param pageSize the maximum number of bookmarks to be fetched in this page
+   * @param pageToken the token of the page to fetch (see
+   * {@link UserBookmarkPage#getNextPageToken()}) or <code>null</code> for fetching the first page
+   * @return the page of bookmarks
+   */
+  public UserBookmarkPage findLatestBookmarksPage(UUID userId, int limit, int pageSize,
+      String pageToken) {
+    return fetchPage(latestBookmarksStatement.bind(userId, limit), pageSize, pageToken);
+  }
+
+  /**
+   * Fetches a page of the bookmarks of the specified user within the specified time range.
+   *
+   * The same <code>userId</code>, time range and <code>limit</code> need to be used for all the
+   * pages of the pagination, otherwise the page token is rejected by the driver.
+   *
+   * @param userId the user identifier
+   * @param from the start of the time range (inclusive)
+   * @param to the end of the time range (inclusive)
+   * @param limit the maximum number of bookmarks to be fetched over all the pages
+   * @param pageSize the maximum number of bookmarks to be fetched in this page
+   * @param pageToken the token of the page to fetch (see
+   * {@link UserBookmarkPage#getNextPageToken()}) or <code>null</code> for fetching the first page
+   * @return the page of bookmarks, the latest first
+   */
+  public UserBookmarkPage findBookmarksBetweenPage(UUID userId, Instant from, Instant to,
+      int limit, int pageSize, String pageToken) {
+    return fetchPage(UserBookmarkRepository.bindBookmarksBetween(bookmarksBetweenStatement,
+        userId, from, to, limit), pageSize, pageToken);
+  }
+
+  private UserBookmarkPage fetchPage(BoundStatement statement, int pageSize, String pageToken) {
+    statement.setFetchSize(pageSize);
+    if (pageToken != null) {
+      statement.setPagingState(PagingState.fromString(pageToken));
+    }
+
+    var slice = cassandraOperations.slice(statement, UserBookmark.class);
+    String nextPageToken = null;
+    if (slice.hasNext()) {
+      nextPageToken = ((CassandraPageRequest) slice.nextPageable()).getPagingState().toString();
+    }
+    return new UserBookmarkPage(slice.getContent(), nextPageToken);
+  }
+}
@@ -1,50 +1,181 @@
 package com.findinpath.repository;
 
+import static com.datastax.driver.core.querybuilder.QueryBuilder.bindMarker;
 import static com.datastax.driver.core.querybuilder.QueryBuilder.eq;
+import static com.datastax.driver.core.querybuilder.QueryBuilder.fcall;
+import static com.datastax.driver.core.querybuilder.QueryBuilder.gte;
+import static com.datastax.driver.core.querybuilder.QueryBuilder.lte;
 
+import com.datastax.driver.core.BoundStatement;
 import com.datastax.driver.core.querybuilder.QueryBuilder;
-import com.datastax.driver.core.querybuilder.Select;
+import com.findinpath.aop.WarmedUpRepository;
+import com.findinpath.concurrent.BoundedPipeline;
 import com.findinpath.model.UserBookmark;
 import com.findinpath.model.UserBookmarkKey;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.cassandra.core.AsyncCassandraOperations;
 import org.springframework.data.cassandra.core.CassandraOperations;
 import org.springframework.stereotype.Repository;
+import org.springframework.util.Assert;
 import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureAdapter;
 
 @Repository
-public class UserBookmarkRepository {
+public class UserBookmarkRepository implements WarmedUpRepository {
 
   private final CassandraOperations cassandraOperations;
   private final AsyncCassandraOperations asyncCassandraOperations;
-  private final String tableName;
+  private final UserBookmarkBatchRepository userBookmarkBatchRepository;
+  private final UserBookmarkPageRepository userBookmarkPageRepository;
+  private final LazyPreparedStatement latestBookmarksStatement;
+  private final LazyPreparedStatement bookmarksBetweenStatement;
+  private final int maxBatchSize;
+  private final int maxBatchesInFlight;
 
   public UserBookmarkRepository(
       CassandraOperations cassandraOperations,
-      AsyncCassandraOperations asyncCassandraOperations) {
+      AsyncCassandraOperations asyncCassandraOperations,
+      UserBookmarkBatchRepository userBookmarkBatchRepository,
+      UserBookmarkPageRepository userBookmarkPageRepository,
+      @Value("${user-bookmarks.batch.max-size:20}") int maxBatchSize,
+      @Value("${user-bookmarks.batch.max-in-flight:8}") int maxBatchesInFlight) {
+    Assert.isTrue(maxBatchSize > 0, "The maximum size of the batches must be positive");
+    Assert.isTrue(maxBatchesInFlight > 0,
+        "The maximum number of the batches in flight must be positive");
 
     this.cassandraOperations = cassandraOperations;
     this.asyncCassandraOperations = asyncCassandraOperations;
-    this.tableName = cassandraOperations.getTableName(UserBookmark.class).toCql();
+    this.userBookmarkBatchRepository = userBookmarkBatchRepository;
+    this.userBookmarkPageRepository = userBookmarkPageRepository;
+    this.latestBookmarksStatement = createLatestBookmarksStatement(cassandraOperations);
+    this.bookmarksBetweenStatement = createBookmarksBetweenStatement(cassandraOperations);
+    this.maxBatchSize = maxBatchSize;
+    this.maxBatchesInFlight = maxBatchesInFlight;
+  }
+
+  /**
+   * Prepares the statements of the repository on the Cassandra session.
+   */
+  @Override
+  public void warmUp() {
+    latestBookmarksStatement.get();
+    bookmarksBetweenStatement.get();
   }
 
   public List<UserBookmark> findLatestBookmarks(UUID userId, int limit) {
-    Select select = QueryBuilder.select().from(tableName);
+    return cassandraOperations
+        .select(latestBookmarksStatement.bind(userId, limit), UserBookmark.class);
+  }
 
-    select.where(eq(UserBookmarkKey.USER_ID_FIELD_NAME, userId))
-        .limit(limit);
+  public ListenableFuture<List<UserBookmark>> findLatestBookmarksAsync(UUID userId, int limit) {
+    return asyncCassandraOperations
+        .select(latestBookmarksStatement.bind(userId, limit), UserBookmark.class);
+  }
 
-    return cassandraOperations.select(select, UserBookmark.class);
+  /**
+   * Retrieves the latest bookmarks of the specified user within the specified time range.
+   *
+   * The time bounds are pushed down to Cassandra as <code>minTimeuuid</code> /
+   * <code>maxTimeuuid</code> predicates on the <code>timestamp</code> clustering column, so that
+   * only the bookmarks of the time range get read out of the partition.
+   *
+   * @param userId the user identifier
+   * @param from the start of the time range (inclusive)
+   * @param to the end of the time range (inclusive)
+   * @param limit the maximum number of bookmarks to be retrieved
+   * @return the bookmarks of the time range, the latest first
+   */
+  public List<UserBookmark> findBookmarksBetween(UUID userId, Instant from, Instant to,
+      int limit) {
+    return cassandraOperations.select(bindBookmarksBetween(bookmarksBetweenStatement,
+        userId, from, to, limit), UserBookmark.class);
   }
 
-  public ListenableFuture<List<UserBookmark>> findLatestBookmarksAsync(UUID userId, int limit) {
-    Select select = QueryBuilder.select().from(tableName);
+  /**
+   * @param userId the user identifier
+   * @param from the start of the time range (inclusive)
+   * @param to the end of the time range (inclusive)
+   * @param limit the maximum number of bookmarks to be retrieved
+   * @return the bookmarks of the time range, the latest first
+   * @see #findBookmarksBetween(UUID, Instant, Instant, int)
+   */
+  public ListenableFuture<List<UserBookmark>> findBookmarksBetweenAsync(UUID userId, Instant from,
+      Instant to, int limit) {
+    return asyncCassandraOperations.select(bindBookmarksBetween(bookmarksBetweenStatement,
+        userId, from, to, limit), UserBookmark.class);
+  }
+
+  /**
+   * Streams the latest bookmarks of the specified user, fetching lazily one page of bookmarks at
+   * a time, so that only the page being consumed is held in memory.
+   *
+   * Each of the page fetches is timed on its own (see {@link UserBookmarkPageRepository}), while
+   * the timing of this method covers the whole lifetime of the stream, until it gets closed.
+   * The returned stream needs therefor to be closed after its consumption (e.g. : through a
+   * try-with-resources statement).
+   *
+   * @param userId the user identifier
+   * @param limit the maximum number of bookmarks to be streamed
+   * @param pageSize the number of bookmarks to be fetched with each page
+   * @return the lazily fetched stream of bookmarks
+   */
+  public Stream<UserBookmark> streamLatestBookmarks(UUID userId, int limit, int pageSize) {
+    return streamPages(pageToken -> userBookmarkPageRepository
+        .findLatestBookmarksPage(userId, limit, pageSize, pageToken));
+  }
 
-    select.where(eq(UserBookmarkKey.USER_ID_FIELD_NAME, userId))
-        .limit(limit);
+  /**
+   * Streams the bookmarks of the specified user within the specified time range, fetching lazily
+   * one page of bookmarks at a time.
+   *
+   * @param userId the user identifier
+   * @param from the start of the time range (inclusive)
+   * @param to the end of the time range (inclusive)
+   * @param limit the maximum number of bookmarks to be streamed
+   * @param pageSize the number of bookmarks to be fetched with each page
+   * @return the lazily fetched stream of bookmarks, the latest first
+   * @see #streamLatestBookmarks(UUID, int, int)
+   */
+  public Stream<UserBookmark> streamBookmarksBetween(UUID userId, Instant from, Instant to,
+      int limit, int pageSize) {
+    return streamPages(pageToken -> userBookmarkPageRepository
+        .findBookmarksBetweenPage(userId, from, to, limit, pageSize, pageToken));
+  }
+
+  private static Stream<UserBookmark> streamPages(
+      Function<String, UserBookmarkPage> pageFetcher) {
+    var pages = new Spliterators.AbstractSpliterator<UserBookmarkPage>(Long.MAX_VALUE,
+        Spliterator.ORDERED | Spliterator.NONNULL) {
+      private String pageToken;
+      private boolean lastPageFetched;
 
-    return asyncCassandraOperations.select(select, UserBookmark.class);
+      @Override
+      public boolean tryAdvance(Consumer<? super UserBookmarkPage> action) {
+        if (lastPageFetched) {
+          return false;
+        }
+        var page = pageFetcher.apply(pageToken);
+        pageToken = page.getNextPageToken();
+        lastPageFetched = !page.hasNext();
+        action.accept(page);
+        return true;
+      }
+    };
+    return StreamSupport.stream(pages, false).flatMap(page -> page.getBookmarks().stream());
   }
 
   public UserBookmark save(UserBookmark userBookmark) {
@@ -55,4 +186,97 @@ public class UserBookmarkRepository {
     return asyncCassandraOperations.insert(userBookmark);
   }
 
+  /**
+   * Saves the specified bookmarks through unlogged batches grouping the bookmarks of the same
+   * user (partition) and waits for all the batches to be written.
+   *
+   * @param userBookmarks the bookmarks to save
+   * @see #saveAllAsync(Collection)
+   */
+  public void saveAll(Collection<UserBookmark> userBookmarks) {
+    try {
+      saveAllAsync(userBookmarks).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while saving the user bookmarks", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException("Failed to save the user bookmarks", e.getCause());
+    }
+  }
+
+  /**
+   * Saves the specified bookmarks through unlogged batches grouping the bookmarks of the same
+   * user (partition), so that each batch is written on a single replica set.
+   *
+   * The batches contain at most <code>user-bookmarks.batch.max-size</code> bookmarks and are
+   * pipelined with at most <code>user-bookmarks.batch.max-in-flight</code> batches being written
+   * at the same time.
+   *
+   * @param userBookmarks the bookmarks to save
+   * @return a future completing after all the batches have been written
+   */
+  public ListenableFuture<Void> saveAllAsync(Collection<UserBookmark> userBookmarks) {
+    var batches = partitionBatches(userBookmarks, maxBatchSize);
+    return new ListenableFutureAdapter<>(BoundedPipeline.map(batches, maxBatchesInFlight,
+        userBookmarkBatchRepository::saveBatchAsync)) {
+      @Override
+      protected Void adapt(List<Boolean> results) {
+        return null;
+      }
+    };
+  }
+
+  static LazyPreparedStatement createLatestBookmarksStatement(
+      CassandraOperations cassandraOperations) {
+    var tableName = cassandraOperations.getTableName(UserBookmark.class).toCql();
+    return new LazyPreparedStatement(cassandraOperations.getCqlOperations(),
+        QueryBuilder.select().from(tableName)
+            .where(eq(UserBookmarkKey.USER_ID_FIELD_NAME, bindMarker()))
+            .limit(bindMarker()));
+  }
+
+  static LazyPreparedStatement createBookmarksBetweenStatement(
+      CassandraOperations cassandraOperations) {
+    var tableName = cassandraOperations.getTableName(UserBookmark.class).toCql();
+    return new LazyPreparedStatement(cassandraOperations.getCqlOperations(),
+        QueryBuilder.select().from(tableName)
+            .where(eq(UserBookmarkKey.USER_ID_FIELD_NAME, bindMarker()))
+            .and(gte(UserBookmarkKey.TIMESTAMP_FIELD_NAME, fcall("minTimeuuid", bindMarker())))
+            .and(lte(UserBookmarkKey.TIMESTAMP_FIELD_NAME, fcall("maxTimeuuid", bindMarker())))
+            .limit(bindMarker()));
+  }
+
+  static BoundStatement bindBookmarksBetween(LazyPreparedStatement bookmarksBetweenStatement,
+      UUID userId, Instant from, Instant to, int limit) {
+    return bookmarksBetweenStatement.bind(userId, Date.from(from), Date.from(to), limit);
+  }
+
+  /**
+   * Groups the bookmarks by user (partition) into batches of at most the specified size.
+   *
+   * @param userBookmarks the bookmarks to group
+   * @param maxBatchSize the maximum number of bookmarks of a batch
+   * @return the batches, each of them containing the bookmarks of a single user
+   */
+  public static List<List<UserBookmark>> partitionBatches(Collection<UserBookmark> userBookmarks,
+      int maxBatchSize) {
+    Assert.isTrue(maxBatchSize > 0, "The maximum size of the batches must be positive");
+    var partitions = new LinkedHashMap<UUID, List<UserBookmark>>();
+    for (var userBookmark : userBookmarks) {
+      partitions.computeIfAbsent(userBookmark.getPrimaryKey().getUserId(),
+          userId -> new ArrayList<>()).add(userBookmark);
+    }
+
+    var batches = new ArrayList<List<UserBookmark>>();
+    for (var partition : partitions.values()) {
+      for (int from = 0; from < partition.size(); from += maxBatchSize) {
+        batches.add(partition.subList(from, Math.min(from + maxBatchSize, partition.size())));
+      }
+    }
+    return batches;
+  }
+
 }
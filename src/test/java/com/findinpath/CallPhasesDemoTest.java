@@ -0,0 +1,91 @@
+package com.findinpath;
+
+import static com.findinpath.Utils.getTimers;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+
+import com.datastax.driver.core.utils.UUIDs;
+import com.findinpath.aop.RepositoryTimerAspect;
+import com.findinpath.model.UserBookmark;
+import com.findinpath.model.UserBookmarkKey;
+import com.findinpath.repository.UserBookmarkRepository;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.cassandra.core.CassandraOperations;
+
+/**
+ * Demo of the split of the repository call durations into driver, mapping and callback phases,
+ * kept apart from the {@link DemoTest} scenarios, which run with the phase tracking disabled.
+ */
+@SpringBootTest(properties = "repository.timer.phases.enabled=true")
+public class CallPhasesDemoTest {
+
+  private static Logger LOG = LoggerFactory.getLogger(CallPhasesDemoTest.class);
+
+  private static final String[] BOOKMARKS = new String[]{
+      "https://www.findinpath.com",
+      "https://www.github.com",
+      "https://www.google.com",
+  };
+
+  @Autowired
+  private UserBookmarkRepository userBookmarkRepository;
+
+  @Autowired
+  private CassandraOperations cassandraOperations;
+
+  @Autowired
+  private SimpleMeterRegistry meterRegistry;
+
+  @BeforeEach
+  @AfterEach
+  public void truncateTables() {
+    cassandraOperations.truncate(UserBookmark.class);
+  }
+
+  /**
+   * Read the bookmarks of an user both synchronously and asynchronously and retrieve from the
+   * `meterRegistry` the mean times of the driver, mapping and callback phases of the reads.
+   */
+  @Test
+  public void callPhasesDemo() throws Exception {
+    var userId = UUID.randomUUID();
+    for (int i = 0; i < BOOKMARKS.length; i++) {
+      userBookmarkRepository.save(createUserBookmark(userId, i + 1, BOOKMARKS[i]));
+    }
+
+    assertThat(userBookmarkRepository.findLatestBookmarks(userId, BOOKMARKS.length),
+        hasSize(BOOKMARKS.length));
+    assertThat(userBookmarkRepository.findLatestBookmarksAsync(userId, BOOKMARKS.length).get(),
+        hasSize(BOOKMARKS.length));
+
+    var phaseTimers = getTimers(meterRegistry.getMeters(),
+        RepositoryTimerAspect.REPOSITORY_PHASE_METRIC_NAME,
+        Tag.of("class", "UserBookmarkRepository"));
+    assertThat(phaseTimers, not(empty()));
+    phaseTimers.forEach(timer -> LOG.info("{} {} phase: {} ms on average",
+        timer.getId().getTag("method"), timer.getId().getTag("phase"),
+        timer.mean(TimeUnit.MILLISECONDS)));
+  }
+
+  private static UserBookmark createUserBookmark(UUID userId, int ageInDays, String url) {
+    var userBookmark = new UserBookmark();
+    userBookmark.setPrimaryKey(new UserBookmarkKey(userId,
+        UUIDs.startOf(Instant.now().minus(ageInDays, ChronoUnit.DAYS).toEpochMilli())));
+    userBookmark.setUrl(url);
+    return userBookmark;
+  }
+}
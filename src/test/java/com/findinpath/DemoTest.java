@@ -7,12 +7,15 @@ import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.hasSize;
 
+import com.datastax.driver.core.querybuilder.QueryBuilder;
 import com.datastax.driver.core.utils.UUIDs;
 import com.findinpath.aop.RepositoryTimerAspect;
+import com.findinpath.mapping.RowMappingCassandraConverter;
 import com.findinpath.model.Config;
 import com.findinpath.model.UserBookmark;
 import com.findinpath.model.UserBookmarkKey;
 import com.findinpath.repository.ConfigRepository;
+import com.findinpath.repository.UserBookmarkPageRepository;
 import com.findinpath.repository.UserBookmarkRepository;
 import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.Tag;
@@ -20,9 +23,11 @@ import io.micrometer.core.instrument.Timer;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -32,6 +37,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.cassandra.core.CassandraOperations;
+import org.springframework.data.cassandra.core.convert.MappingCassandraConverter;
 
 @SpringBootTest
 public class DemoTest {
@@ -57,6 +63,9 @@ public class DemoTest {
   @Autowired
   private UserBookmarkRepository userBookmarkRepository;
 
+  @Autowired
+  private UserBookmarkPageRepository userBookmarkPageRepository;
+
   @Autowired
   private CassandraOperations cassandraOperations;
 
@@ -152,7 +161,131 @@ public class DemoTest {
         Integer.toUnsignedLong(BOOKMARKS.length));
     checkTimerValidity(meters, "UserBookmarkRepository", "findLatestBookmarksAsync",
         Integer.toUnsignedLong(BOOKMARKS.length));
+  }
+
+  /**
+   * Read the bookmarks of an user page by page, both through a lazily fetched stream and through
+   * the resumable page tokens, and retrieve from the `meterRegistry` the times of the page
+   * fetches as well as the time of the whole stream consumption.
+   */
+  @Test
+  public void pagedReadsDemo() {
+    var userId = UUID.randomUUID();
+    for (int i = 0; i < BOOKMARKS.length; i++) {
+      userBookmarkRepository.save(createUserBookmark(userId, i + 1, BOOKMARKS[i]));
+    }
+
+    try (var bookmarks = userBookmarkRepository
+        .streamLatestBookmarks(userId, BOOKMARKS.length, 2)) {
+      assertThat(bookmarks.map(UserBookmark::getUrl).collect(Collectors.toList()),
+          equalTo(List.of(BOOKMARKS)));
+    }
+
+    var urls = new ArrayList<String>();
+    String pageToken = null;
+    do {
+      var page = userBookmarkPageRepository
+          .findLatestBookmarksPage(userId, BOOKMARKS.length, 4, pageToken);
+      page.getBookmarks().forEach(userBookmark -> urls.add(userBookmark.getUrl()));
+      pageToken = page.getNextPageToken();
+    } while (pageToken != null);
+    assertThat(urls, equalTo(List.of(BOOKMARKS)));
+
+    var meters = meterRegistry.getMeters();
+    checkTimerValidity(meters, "UserBookmarkRepository", "streamLatestBookmarks", 1);
+    var pageTimer = getExactlyOneTimer(meters,
+        RepositoryTimerAspect.REPOSITORY_METRIC_NAME,
+        Tag.of("class", "UserBookmarkPageRepository"),
+        Tag.of("method", "findLatestBookmarksPage"));
+    logTimerGenericInformation(pageTimer);
+    assertThat(pageTimer.count(), greaterThanOrEqualTo(5L + 3L));
+  }
+
+  /**
+   * Read the bookmarks of an user within a time range, the time bounds being evaluated by
+   * Cassandra on the `timestamp` clustering column, both at once and page by page.
+   */
+  @Test
+  public void timeRangeReadsDemo() throws Exception {
+    var userId = UUID.randomUUID();
+    for (int i = 0; i < BOOKMARKS.length; i++) {
+      userBookmarkRepository.save(createUserBookmark(userId, i + 1, BOOKMARKS[i]));
+    }
+    // the bookmarks saved between 7 and 2 days ago
+    var now = Instant.now();
+    var from = now.minus(7, ChronoUnit.DAYS).minus(1, ChronoUnit.HOURS);
+    var to = now.minus(2, ChronoUnit.DAYS).plus(1, ChronoUnit.HOURS);
+    var expectedUrls = List.of(BOOKMARKS).subList(1, 7);
+
+    assertThat(userBookmarkRepository.findBookmarksBetween(userId, from, to, BOOKMARKS.length)
+        .stream().map(UserBookmark::getUrl).collect(Collectors.toList()), equalTo(expectedUrls));
+    assertThat(userBookmarkRepository.findBookmarksBetweenAsync(userId, from, to, 3).get()
+        .stream().map(UserBookmark::getUrl).collect(Collectors.toList()),
+        equalTo(expectedUrls.subList(0, 3)));
+    try (var bookmarks = userBookmarkRepository
+        .streamBookmarksBetween(userId, from, to, BOOKMARKS.length, 4)) {
+      assertThat(bookmarks.map(UserBookmark::getUrl).collect(Collectors.toList()),
+          equalTo(expectedUrls));
+    }
+
+    var meters = meterRegistry.getMeters();
+    checkTimerValidity(meters, "UserBookmarkRepository", "findBookmarksBetween", 1);
+    checkTimerValidity(meters, "UserBookmarkRepository", "findBookmarksBetweenAsync", 1);
+    checkTimerValidity(meters, "UserBookmarkPageRepository", "findBookmarksBetweenPage", 2);
+  }
+
+  /**
+   * Map the rows of the `demo.user_bookmarks` and `demo.config` tables both through the
+   * reflective `MappingCassandraConverter` and through the pre-built row mappers of the
+   * `RowMappingCassandraConverter`, which need to yield the same entities. The entities written
+   * through the row mappers get read back the same as well.
+   */
+  @Test
+  public void rowMappersDemo() {
+    var userId = UUID.randomUUID();
+    for (int i = 0; i < BOOKMARKS.length; i++) {
+      userBookmarkRepository.save(createUserBookmark(userId, i + 1, BOOKMARKS[i]));
+    }
+    var websiteConfig = new Config();
+    websiteConfig.setKey("website");
+    websiteConfig.setValue("https://findinpath.com");
+    configRepository.save(websiteConfig);
+
+    var mappingContext = cassandraOperations.getConverter().getMappingContext();
+    var converter = new MappingCassandraConverter(mappingContext);
+    converter.afterPropertiesSet();
+    var rowMappingConverter = new RowMappingCassandraConverter(mappingContext);
+    rowMappingConverter.afterPropertiesSet();
+
+    var cqlOperations = cassandraOperations.getCqlOperations();
+    var userBookmarksTable = cassandraOperations.getTableName(UserBookmark.class).toCql();
+    var userBookmarkRows = cqlOperations
+        .queryForResultSet(QueryBuilder.select().from(userBookmarksTable)).all();
+    assertThat(userBookmarkRows, hasSize(BOOKMARKS.length));
+    for (var row : userBookmarkRows) {
+      var expected = converter.read(UserBookmark.class, row);
+      var actual = rowMappingConverter.read(UserBookmark.class, row);
+      assertThat(actual.getPrimaryKey(), equalTo(expected.getPrimaryKey()));
+      assertThat(actual.getUrl(), equalTo(expected.getUrl()));
+    }
+    var configTable = cassandraOperations.getTableName(Config.class).toCql();
+    for (var row : cqlOperations.queryForResultSet(QueryBuilder.select().from(configTable))) {
+      var expected = converter.read(Config.class, row);
+      var actual = rowMappingConverter.read(Config.class, row);
+      assertThat(actual.getKey(), equalTo(expected.getKey()));
+      assertThat(actual.getValue(), equalTo(expected.getValue()));
+    }
 
+    var writtenUserBookmark = createUserBookmark(UUID.randomUUID(), 1, BOOKMARKS[0]);
+    var insert = QueryBuilder.insertInto(userBookmarksTable);
+    rowMappingConverter.write(writtenUserBookmark, insert);
+    cqlOperations.execute(insert);
+    var readUserBookmarks = userBookmarkRepository
+        .findLatestBookmarks(writtenUserBookmark.getPrimaryKey().getUserId(), 1);
+    assertThat(readUserBookmarks, hasSize(1));
+    assertThat(readUserBookmarks.get(0).getPrimaryKey(),
+        equalTo(writtenUserBookmark.getPrimaryKey()));
+    assertThat(readUserBookmarks.get(0).getUrl(), equalTo(writtenUserBookmark.getUrl()));
   }
 
   private static UserBookmark createUserBookmark(UUID userId, int ageInDays, String url) {
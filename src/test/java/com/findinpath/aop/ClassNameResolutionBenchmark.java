@@ -0,0 +1,82 @@
+package com.findinpath.aop;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.framework.ProxyFactory;
+
+/**
+ * Compares the per call cost of resolving the repository class name (used for the
+ * &quot;class&quot; metric tag) with and without the memoization done in
+ * {@link RepositoryClassNames}.
+ *
+ * The resolution is measured for both the JDK proxies (as used for the spring data repository
+ * interfaces) and the CGLIB proxies (as used for the classes annotated with
+ * {@link org.springframework.stereotype.Repository}).
+ *
+ * The benchmark is placed along with {@link RepositoryClassNames}, the resolution without
+ * memoization being internal to the <code>com.findinpath.aop</code> package.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClassNameResolutionBenchmark {
+
+  @Param({"jdk", "cglib"})
+  private String proxyType;
+
+  private Object proxy;
+  private Object target;
+
+  @Setup
+  public void setUp() {
+    target = new NoOpRepository();
+    var proxyFactory = new ProxyFactory(target);
+    if ("jdk".equals(proxyType)) {
+      proxyFactory.setInterfaces(NoOpCrudRepository.class, Comparable.class);
+    } else {
+      proxyFactory.setProxyTargetClass(true);
+    }
+    proxy = proxyFactory.getProxy();
+  }
+
+  @Benchmark
+  public String uncached() {
+    return RepositoryClassNames.resolveDeclaredClassName(proxy, target);
+  }
+
+  @Benchmark
+  public String cached() {
+    return RepositoryClassNames.getDeclaredClassName(proxy, target);
+  }
+
+  public interface NoOpCrudRepository {
+
+    String find();
+  }
+
+  public static class NoOpRepository implements NoOpCrudRepository, Comparable<Object> {
+
+    @Override
+    public String find() {
+      return "found";
+    }
+
+    @Override
+    public int compareTo(Object o) {
+      return 0;
+    }
+  }
+}
@@ -0,0 +1,188 @@
+package com.findinpath.aop;
+
+import static com.findinpath.Utils.getExactlyOneTimer;
+import static com.findinpath.Utils.getTimers;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Verifies that the {@link RepositoryTimerAspect} times the asynchronous repository methods until
+ * the completion of their results.
+ */
+public class RepositoryTimerAspectAsyncTest {
+
+  private SimpleMeterRegistry meterRegistry;
+  private AsyncStubRepository target;
+  private AsyncStubRepository asyncStubRepository;
+
+  @BeforeEach
+  public void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    target = new AsyncStubRepository();
+    var proxyFactory = new AspectJProxyFactory(target);
+    proxyFactory.addAspect(new RepositoryTimerAspect(meterRegistry));
+    asyncStubRepository = proxyFactory.getProxy();
+  }
+
+  @Test
+  public void listenableFutureIsTimedUntilCompletion() {
+    asyncStubRepository.findListenableFuture();
+    assertThat(getTimers(meterRegistry.getMeters(), RepositoryTimerAspect.REPOSITORY_METRIC_NAME),
+        empty());
+
+    target.listenableFuture.set("found");
+
+    assertThat(getTimer("findListenableFuture", Outcome.SUCCESSFUL).count(), equalTo(1L));
+  }
+
+  @Test
+  public void cancelledListenableFutureIsTimedAsCancelled() {
+    asyncStubRepository.findListenableFuture().cancel(true);
+
+    assertThat(getTimer("findListenableFuture", Outcome.CANCELLED).count(), equalTo(1L));
+  }
+
+  @Test
+  public void completableFutureIsTimedUntilCompletion() {
+    var result = asyncStubRepository.findCompletableFuture();
+    assertThat(getTimers(meterRegistry.getMeters(), RepositoryTimerAspect.REPOSITORY_METRIC_NAME),
+        empty());
+
+    target.completableFuture.complete("found");
+
+    assertThat(result.join(), equalTo("found"));
+    assertThat(getTimer("findCompletableFuture", Outcome.SUCCESSFUL).count(), equalTo(1L));
+  }
+
+  @Test
+  public void cancelledCompletableFutureIsTimedAsCancelled() {
+    asyncStubRepository.findCompletableFuture().cancel(true);
+
+    assertThat(getTimer("findCompletableFuture", Outcome.CANCELLED).count(), equalTo(1L));
+  }
+
+  @Test
+  public void failedCompletionStageIsTimedAsFailed() {
+    var result = asyncStubRepository.findCompletionStage();
+
+    target.completableFuture.completeExceptionally(new IllegalStateException("failed"));
+
+    assertThrows(Exception.class, () -> result.toCompletableFuture().join());
+    var timer = getTimer("findCompletionStage", Outcome.FAILED);
+    assertThat(timer.count(), equalTo(1L));
+    assertThat(timer.getId().getTag("successful"), equalTo("false"));
+  }
+
+  @Test
+  public void monoIsTimedFromSubscription() {
+    var mono = asyncStubRepository.findMono();
+    assertThat(getTimers(meterRegistry.getMeters(), RepositoryTimerAspect.REPOSITORY_METRIC_NAME),
+        empty());
+
+    assertThat(mono.block(), equalTo("found"));
+    assertThat(mono.block(), equalTo("found"));
+
+    assertThat(getTimer("findMono", Outcome.SUCCESSFUL).count(), equalTo(2L));
+  }
+
+  @Test
+  public void failedMonoIsTimedAsFailed() {
+    var mono = asyncStubRepository.findFailedMono();
+
+    assertThrows(IllegalStateException.class, mono::block);
+
+    assertThat(getTimer("findFailedMono", Outcome.FAILED).count(), equalTo(1L));
+  }
+
+  @Test
+  public void monoMethodFailingBeforeReturningItsPublisherIsTimedAsFailed() {
+    assertThrows(IllegalStateException.class, asyncStubRepository::findMonoFailingRightAway);
+
+    assertThat(getTimer("findMonoFailingRightAway", Outcome.FAILED).count(), equalTo(1L));
+  }
+
+  @Test
+  public void fluxIsTimedUntilCompletion() {
+    var bookmarks = asyncStubRepository.findFlux().collectList().block();
+
+    assertThat(bookmarks, equalTo(List.of("first", "second")));
+    assertThat(getTimer("findFlux", Outcome.SUCCESSFUL).count(), equalTo(1L));
+  }
+
+  @Test
+  public void cancelledFluxIsTimedAsCancelled() {
+    var disposable = asyncStubRepository.findNeverEndingFlux().subscribe();
+
+    disposable.dispose();
+
+    var timer = getTimer("findNeverEndingFlux", Outcome.CANCELLED);
+    assertThat(timer.count(), equalTo(1L));
+    assertThat(timer.getId().getTag("successful"), equalTo("false"));
+  }
+
+  private Timer getTimer(String methodName, Outcome outcome) {
+    return getExactlyOneTimer(meterRegistry.getMeters(),
+        RepositoryTimerAspect.REPOSITORY_METRIC_NAME,
+        Tag.of("class", "AsyncStubRepository"),
+        Tag.of("method", methodName),
+        Tag.of("outcome", outcome.getTagValue()));
+  }
+
+  @Repository
+  public static class AsyncStubRepository {
+
+    private final SettableListenableFuture<String> listenableFuture =
+        new SettableListenableFuture<>();
+
+    private final CompletableFuture<String> completableFuture = new CompletableFuture<>();
+
+    public ListenableFuture<String> findListenableFuture() {
+      return listenableFuture;
+    }
+
+    public CompletableFuture<String> findCompletableFuture() {
+      return completableFuture;
+    }
+
+    public CompletionStage<String> findCompletionStage() {
+      return completableFuture;
+    }
+
+    public Mono<String> findMono() {
+      return Mono.just("found");
+    }
+
+    public Mono<String> findFailedMono() {
+      return Mono.error(new IllegalStateException("failed"));
+    }
+
+    public Mono<String> findMonoFailingRightAway() {
+      throw new IllegalStateException("failed");
+    }
+
+    public Flux<String> findFlux() {
+      return Flux.just("first", "second");
+    }
+
+    public Flux<String> findNeverEndingFlux() {
+      return Flux.never();
+    }
+  }
+}
@@ -0,0 +1,218 @@
+package com.findinpath.aop;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+/**
+ * Load test verifying that the {@link RepositoryTimerAspect} keeps the asynchronous calls in
+ * flight on a stubbed backend within the limits of the {@link ConcurrencyLimits}.
+ */
+public class RepositoryTimerAspectConcurrencyLimitTest {
+
+  private static final int MAX_LIMIT = 8;
+  private static final int CALLERS = 16;
+  private static final int CALLS_PER_CALLER = 100;
+  private static final Duration BACKEND_LATENCY = Duration.ofMillis(2);
+
+  private SimpleMeterRegistry meterRegistry;
+  private ScheduledExecutorService backend;
+  private LimitedStubRepository target;
+
+  @BeforeEach
+  public void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    backend = Executors.newScheduledThreadPool(4);
+    target = new LimitedStubRepository(backend);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    backend.shutdownNow();
+  }
+
+  @Test
+  public void callsOverTheLimitFailFast() throws Exception {
+    var repository = createProxy();
+
+    var results = callConcurrently(repository::findCompletableFuture);
+
+    var rejected = 0;
+    for (var result : results) {
+      try {
+        result.join();
+      } catch (CompletionException e) {
+        assertThat(e.getCause(), instanceOf(ConcurrencyLimitExceededException.class));
+        rejected++;
+      }
+    }
+    assertThat(target.maxInFlight.get(), lessThanOrEqualTo(MAX_LIMIT));
+    assertThat(rejected, greaterThan(0));
+    assertThat(getRejections(), equalTo((double) rejected));
+    assertThat(getGauge(ConcurrencyLimits.LIMIT_METRIC_NAME),
+        lessThanOrEqualTo((double) MAX_LIMIT));
+  }
+
+  @Test
+  public void callsOverTheLimitDoNotBlockTheCaller() {
+    var repository = createProxy();
+    for (var i = 0; i < MAX_LIMIT; i++) {
+      repository.findListenableFuture();
+    }
+
+    var rejected = assertTimeoutPreemptively(Duration.ofSeconds(1),
+        repository::findCompletableFuture);
+
+    assertThat(rejected.isCompletedExceptionally(), equalTo(true));
+    assertThat(target.inFlight.get(), equalTo(0));
+    assertThat(getRejections(), equalTo(1.0));
+  }
+
+  @Test
+  public void rejectedListenableFutureCallsFail() {
+    var repository = createProxy();
+    for (var i = 0; i < MAX_LIMIT; i++) {
+      repository.findListenableFuture();
+    }
+
+    var rejected = repository.findListenableFuture();
+
+    var exception = assertThrows(ExecutionException.class, rejected::get);
+    assertThat(exception.getCause(), instanceOf(ConcurrencyLimitExceededException.class));
+    assertThat(getGauge(ConcurrencyLimits.IN_FLIGHT_METRIC_NAME), equalTo((double) MAX_LIMIT));
+    assertThat(getRejections(), equalTo(1.0));
+  }
+
+  @Test
+  public void synchronousCallsAreNotLimited() {
+    var repository = createProxy();
+    for (var i = 0; i < MAX_LIMIT; i++) {
+      repository.findListenableFuture();
+    }
+
+    assertThat(repository.find(), equalTo("found"));
+  }
+
+  @Test
+  public void repositoriesWithoutAsynchronousMethodsGetNoLimiter() {
+    var concurrencyLimits = new ConcurrencyLimits(meterRegistry, MAX_LIMIT, 1, MAX_LIMIT,
+        Duration.ofSeconds(1), 0.9);
+    var repository = RepositoryTimerAspectFixtures.createProxy(new SyncStubRepository(),
+        meterRegistry,
+        RepositoryTimerFeatures.builder().concurrencyLimits(concurrencyLimits).build());
+
+    assertThat(repository.find(), equalTo("found"));
+    assertThat(meterRegistry.find(ConcurrencyLimits.IN_FLIGHT_METRIC_NAME).gauges(), empty());
+  }
+
+  private LimitedStubRepository createProxy() {
+    var concurrencyLimits = new ConcurrencyLimits(meterRegistry, MAX_LIMIT, 1, MAX_LIMIT,
+        Duration.ofSeconds(1), 0.9);
+    return RepositoryTimerAspectFixtures.createProxy(target, meterRegistry,
+        RepositoryTimerFeatures.builder().concurrencyLimits(concurrencyLimits).build());
+  }
+
+  private static List<CompletableFuture<String>> callConcurrently(
+      Supplier<CompletableFuture<String>> call) throws Exception {
+    var callers = Executors.newFixedThreadPool(CALLERS);
+    try {
+      var tasks = new ArrayList<CompletableFuture<List<CompletableFuture<String>>>>();
+      for (var i = 0; i < CALLERS; i++) {
+        tasks.add(CompletableFuture.supplyAsync(() -> {
+          var results = new ArrayList<CompletableFuture<String>>();
+          for (var j = 0; j < CALLS_PER_CALLER; j++) {
+            results.add(call.get());
+          }
+          return results;
+        }, callers));
+      }
+      var results = new ArrayList<CompletableFuture<String>>();
+      for (var task : tasks) {
+        results.addAll(task.get(30, TimeUnit.SECONDS));
+      }
+      CompletableFuture.allOf(results.toArray(CompletableFuture[]::new))
+          .exceptionally(ex -> null)
+          .get(30, TimeUnit.SECONDS);
+      return results;
+    } finally {
+      callers.shutdownNow();
+    }
+  }
+
+  private double getRejections() {
+    return meterRegistry.get(ConcurrencyLimits.REJECTIONS_METRIC_NAME)
+        .tag("class", "LimitedStubRepository")
+        .functionCounter()
+        .count();
+  }
+
+  private double getGauge(String name) {
+    return meterRegistry.get(name)
+        .tag("class", "LimitedStubRepository")
+        .gauge()
+        .value();
+  }
+
+  @Repository
+  public static class LimitedStubRepository {
+
+    private final ScheduledExecutorService backend;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    public LimitedStubRepository(ScheduledExecutorService backend) {
+      this.backend = backend;
+    }
+
+    public String find() {
+      return "found";
+    }
+
+    public CompletableFuture<String> findCompletableFuture() {
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      var result = new CompletableFuture<String>();
+      backend.schedule(() -> {
+        inFlight.decrementAndGet();
+        result.complete("found");
+      }, BACKEND_LATENCY.toNanos(), TimeUnit.NANOSECONDS);
+      return result;
+    }
+
+    public ListenableFuture<String> findListenableFuture() {
+      // never completes, keeping the permit of the call
+      return new SettableListenableFuture<>();
+    }
+  }
+
+  @Repository
+  public static class SyncStubRepository {
+
+    public String find() {
+      return "found";
+    }
+  }
+}
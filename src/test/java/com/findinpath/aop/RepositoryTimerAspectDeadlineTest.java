@@ -0,0 +1,188 @@
+package com.findinpath.aop;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+/**
+ * Verifies that the {@link RepositoryTimerAspect} bounds the asynchronous calls by the deadlines
+ * configured through the {@link CallDeadlines}.
+ */
+public class RepositoryTimerAspectDeadlineTest {
+
+  private SimpleMeterRegistry meterRegistry;
+  private CallDeadlines callDeadlines;
+  private DeadlineRepository target;
+  private DeadlineRepository deadlineRepository;
+
+  @BeforeEach
+  public void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    callDeadlines = new CallDeadlines(meterRegistry,
+        Map.of("DeadlineRepository.findConfigured", Duration.ofMillis(20)), Duration.ofMillis(1),
+        64);
+    target = new DeadlineRepository();
+    deadlineRepository = RepositoryTimerAspectFixtures.createProxy(target, meterRegistry,
+        RepositoryTimerFeatures.builder().callDeadlines(callDeadlines).build());
+  }
+
+  @AfterEach
+  public void tearDown() {
+    callDeadlines.shutdown();
+  }
+
+  @Test
+  public void hungCallIsTimedOutAtItsDeadline() throws Exception {
+    var result = deadlineRepository.find();
+
+    var ex = assertThrows(ExecutionException.class, () -> result.get(10, TimeUnit.SECONDS));
+
+    assertThat(ex.getCause(), instanceOf(DeadlineExceededException.class));
+    var timer = awaitTimer("find", Outcome.TIMEOUT);
+    assertThat(timer.count(), equalTo(1L));
+    assertThat(timer.totalTime(TimeUnit.MILLISECONDS), greaterThanOrEqualTo(20.0));
+    assertThat(target.call.isCancelled(), equalTo(false));
+  }
+
+  @Test
+  public void lateCompletionIsCounted() throws Exception {
+    var result = deadlineRepository.find();
+    assertThrows(ExecutionException.class, () -> result.get(10, TimeUnit.SECONDS));
+    awaitTimer("find", Outcome.TIMEOUT);
+
+    target.call.set("late");
+
+    assertThat(meterRegistry.get(CallDeadlines.LATE_COMPLETIONS_METRIC_NAME)
+        .tags("class", "DeadlineRepository", "method", "find", "outcome", "successful")
+        .counter().count(), equalTo(1.0));
+    assertThat(meterRegistry.find(RepositoryTimerAspect.REPOSITORY_METRIC_NAME)
+        .tags("outcome", "successful").timer(), nullValue());
+  }
+
+  @Test
+  public void callCompletedWithinItsDeadlineIsNotAffected() throws Exception {
+    var result = deadlineRepository.findConfigured();
+
+    target.call.set("found");
+
+    assertThat(result.get(), equalTo("found"));
+    assertThat(getTimer("findConfigured", Outcome.SUCCESSFUL).count(), equalTo(1L));
+    Thread.sleep(50);
+    assertThat(meterRegistry.find(CallDeadlines.LATE_COMPLETIONS_METRIC_NAME).counter(),
+        nullValue());
+    assertThat(meterRegistry.find(RepositoryTimerAspect.REPOSITORY_METRIC_NAME)
+        .tags("outcome", "timeout").timer(), nullValue());
+  }
+
+  @Test
+  public void timedOutCallKeepsItsPermitUntilItCompletes() throws Exception {
+    var concurrencyLimits = new ConcurrencyLimits(meterRegistry, 1, 1, 1, Duration.ofSeconds(1),
+        0.5);
+    var limitedRepository = RepositoryTimerAspectFixtures.createProxy(target, meterRegistry,
+        RepositoryTimerFeatures.builder()
+            .concurrencyLimits(concurrencyLimits)
+            .callDeadlines(callDeadlines)
+            .build());
+
+    var result = limitedRepository.find();
+    assertThrows(ExecutionException.class, () -> result.get(10, TimeUnit.SECONDS));
+    awaitTimer("find", Outcome.TIMEOUT);
+
+    var limiter = concurrencyLimits.getLimiter("DeadlineRepository");
+    assertThat(limiter.getInFlight(), equalTo(1));
+    target.call.set("late");
+    assertThat(limiter.getInFlight(), equalTo(0));
+  }
+
+  @Test
+  public void callerCancellationIsPropagatedToTheCall() {
+    deadlineRepository.find().cancel(true);
+
+    assertThat(target.call.isCancelled(), equalTo(true));
+    assertThat(getTimer("find", Outcome.CANCELLED).count(), equalTo(1L));
+  }
+
+  @Test
+  public void deadlinesAreResolvedOutOfThePropertiesAndTheAnnotations() throws Exception {
+    assertThat(callDeadlines.resolve("DeadlineRepository",
+        DeadlineRepository.class.getMethod("find")), equalTo(Duration.ofMillis(30)));
+    assertThat(callDeadlines.resolve("DeadlineRepository",
+        DeadlineRepository.class.getMethod("findConfigured")), equalTo(Duration.ofMillis(20)));
+    assertThat(callDeadlines.resolve("DeadlineRepository",
+        DeadlineRepository.class.getMethod("findSync")), nullValue());
+  }
+
+  @Test
+  public void nonPositiveAnnotatedDeadlinesAreRejected() throws Exception {
+    var method = DeadlineRepository.class.getMethod("findWithoutTime");
+
+    var ex = assertThrows(IllegalArgumentException.class,
+        () -> callDeadlines.resolve("DeadlineRepository", method));
+
+    assertThat(ex.getMessage(), containsString("DeadlineRepository.findWithoutTime"));
+  }
+
+  /**
+   * The callbacks of the future may still be running when its waiters get unblocked.
+   */
+  private Timer awaitTimer(String methodName, Outcome outcome) throws InterruptedException {
+    var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    Timer timer;
+    while ((timer = meterRegistry.find(RepositoryTimerAspect.REPOSITORY_METRIC_NAME)
+        .tags("class", "DeadlineRepository", "method", methodName, "outcome",
+            outcome.getTagValue())
+        .timer()) == null && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+    return timer;
+  }
+
+  private Timer getTimer(String methodName, Outcome outcome) {
+    return meterRegistry.get(RepositoryTimerAspect.REPOSITORY_METRIC_NAME)
+        .tags("class", "DeadlineRepository", "method", methodName, "outcome",
+            outcome.getTagValue())
+        .timer();
+  }
+
+  @Repository
+  public static class DeadlineRepository {
+
+    private final SettableListenableFuture<String> call = new SettableListenableFuture<>();
+
+    @Deadline("30ms")
+    public ListenableFuture<String> find() {
+      return call;
+    }
+
+    public ListenableFuture<String> findConfigured() {
+      return call;
+    }
+
+    @Deadline("0s")
+    public ListenableFuture<String> findWithoutTime() {
+      return call;
+    }
+
+    @Deadline("30ms")
+    public String findSync() {
+      return "found";
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package com.findinpath.aop;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.simple.SimpleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+/**
+ * Creates the meter registries and the stub repositories advised by the
+ * {@link RepositoryTimerAspect} shared by the tests of the aspect.
+ */
+final class RepositoryTimerAspectFixtures {
+
+  private RepositoryTimerAspectFixtures() {
+  }
+
+  /**
+   * @param clock the clock driving the timers of the registry
+   * @return the registry publishing the meters through the specified clock
+   */
+  static SimpleMeterRegistry createMeterRegistry(MockClock clock) {
+    return new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+  }
+
+  /**
+   * @param target the stub repository
+   * @param meterRegistry the registry of the timers
+   * @param <T> the type of the stub repository
+   * @return the repository timing each of its calls
+   */
+  static <T> T createProxy(T target, MeterRegistry meterRegistry) {
+    return createProxy(target, new RepositoryTimerAspect(meterRegistry));
+  }
+
+  /**
+   * @param target the stub repository
+   * @param meterRegistry the registry of the timers
+   * @param sampling the sampling of the calls
+   * @param <T> the type of the stub repository
+   * @return the repository timing its calls as sampled
+   */
+  static <T> T createProxy(T target, MeterRegistry meterRegistry, TimingSampling sampling) {
+    return createProxy(target, new RepositoryTimerAspect(meterRegistry, sampling));
+  }
+
+  /**
+   * @param target the stub repository
+   * @param meterRegistry the registry of the timers
+   * @param features the optional features applied by the aspect
+   * @param <T> the type of the stub repository
+   * @return the repository timing each of its calls and applying the specified features
+   */
+  static <T> T createProxy(T target, MeterRegistry meterRegistry,
+      RepositoryTimerFeatures features) {
+    return createProxy(target, new RepositoryTimerAspect(meterRegistry, TimingSampling.none(),
+        TimerDistributions.defaults(), features));
+  }
+
+  private static <T> T createProxy(T target, RepositoryTimerAspect aspect) {
+    var proxyFactory = new AspectJProxyFactory(target);
+    proxyFactory.addAspect(aspect);
+    return proxyFactory.getProxy();
+  }
+}
@@ -0,0 +1,217 @@
+package com.findinpath.aop;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+/**
+ * Verifies that the {@link RepositoryTimerAspect} hedges the slow calls of the methods configured
+ * through the {@link HedgedReads}.
+ */
+public class RepositoryTimerAspectHedgingTest {
+
+  private static final Duration MAX_DELAY = Duration.ofMillis(100);
+
+  private SimpleMeterRegistry meterRegistry;
+  private HedgedRepository target;
+  private HedgedReads hedgedReads;
+
+  @BeforeEach
+  public void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    target = new HedgedRepository();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    hedgedReads.shutdown();
+  }
+
+  @Test
+  public void slowAsynchronousAttemptIsHedged() throws Exception {
+    var hedgedRepository = createProxy(1.0);
+
+    var result = hedgedRepository.findAsync("key");
+    awaitAttempts(2);
+    target.attempts.get(1).set("hedge");
+
+    assertThat(result.get(10, TimeUnit.SECONDS), equalTo("hedge"));
+    assertThat(target.attempts.get(0).isCancelled(), equalTo(true));
+    assertThat(getHedges(HedgedReads.HEDGES_SENT_METRIC_NAME, "findAsync"), equalTo(1.0));
+    assertThat(getHedges(HedgedReads.HEDGES_WON_METRIC_NAME, "findAsync"), equalTo(1.0));
+    assertThat(meterRegistry.get(RepositoryTimerAspect.REPOSITORY_METRIC_NAME)
+        .tags("class", "HedgedRepository", "method", "findAsync", "outcome", "successful")
+        .timer().count(), equalTo(1L));
+  }
+
+  @Test
+  public void fastAsynchronousAttemptIsNotHedged() throws Exception {
+    var hedgedRepository = createProxy(1.0);
+
+    var result = hedgedRepository.findAsync("key");
+    target.attempts.get(0).set("first");
+    Thread.sleep(50);
+
+    assertThat(result.get(), equalTo("first"));
+    assertThat(target.attempts.size(), equalTo(1));
+    assertThat(getHedges(HedgedReads.HEDGES_SENT_METRIC_NAME, "findAsync"), equalTo(0.0));
+  }
+
+  @Test
+  public void synchronousMethodsAreNotHedged() {
+    var hedgedRepository = createProxy(1.0);
+
+    assertThat(hedgedRepository.find("key"), equalTo("first"));
+    assertThat(target.syncAttempts.get(), equalTo(1));
+    assertThat(hedgedReads.isHedged("HedgedRepository", getMethod("find")), equalTo(false));
+  }
+
+  @Test
+  public void hedgesAreNotSentWhileTheConcurrencyLimitIsReached() throws Exception {
+    var concurrencyLimits = new ConcurrencyLimits(meterRegistry, 1, 1, 1, Duration.ofSeconds(1),
+        0.5);
+    var hedgedRepository = createProxy(1.0, concurrencyLimits);
+
+    var result = hedgedRepository.findAsync("key");
+    Thread.sleep(50);
+    target.attempts.get(0).set("first");
+
+    assertThat(result.get(), equalTo("first"));
+    assertThat(target.attempts.size(), equalTo(1));
+    assertThat(getHedges(HedgedReads.HEDGES_SENT_METRIC_NAME, "findAsync"), equalTo(0.0));
+    assertThat(concurrencyLimits.getLimiter("HedgedRepository").getRejections(), equalTo(0L));
+  }
+
+  @Test
+  public void hedgesAreCappedByTheBudget() throws Exception {
+    var hedgedRepository = createProxy(0.0);
+
+    var result = hedgedRepository.findAsync("key");
+    Thread.sleep(50);
+    target.attempts.get(0).set("first");
+
+    assertThat(result.get(), equalTo("first"));
+    assertThat(target.attempts.size(), equalTo(1));
+    assertThat(getHedges(HedgedReads.HEDGES_SENT_METRIC_NAME, "findAsync"), equalTo(0.0));
+  }
+
+  @Test
+  public void hedgeDelayFollowsTheObservedPercentileWithinTheCap() throws Exception {
+    hedgedReads = createHedgedReads(1.0);
+    var timer = Timer.builder("observed")
+        .publishPercentiles(0.95)
+        .register(meterRegistry);
+    var scheduler = Executors.newSingleThreadScheduledExecutor();
+    try {
+      var hedging = new MethodHedging(meterRegistry, "HedgedRepository",
+          HedgedRepository.class.getMethod("findObserved"), null, 0.95, Duration.ofMillis(1),
+          MAX_DELAY, 1.0, () -> timer, scheduler, null);
+
+      assertThat(hedging.getDelayNanos(), equalTo(MAX_DELAY.toNanos()));
+
+      var observedHedging = new MethodHedging(meterRegistry, "HedgedRepository",
+          HedgedRepository.class.getMethod("findObserved"), null, 0.95, Duration.ofMillis(1),
+          MAX_DELAY, 1.0, () -> timer, scheduler, null);
+      for (int i = 0; i < 100; i++) {
+        timer.record(Duration.ofMillis(10));
+      }
+      assertThat(observedHedging.getDelayNanos(), greaterThan(Duration.ofMillis(5).toNanos()));
+      assertThat(observedHedging.getDelayNanos(), lessThan(Duration.ofMillis(15).toNanos()));
+
+      var cappedHedging = new MethodHedging(meterRegistry, "HedgedRepository",
+          HedgedRepository.class.getMethod("findObserved"), null, 0.95, Duration.ofMillis(1),
+          MAX_DELAY, 1.0, () -> timer, scheduler, null);
+      for (int i = 0; i < 1000; i++) {
+        timer.record(Duration.ofSeconds(1));
+      }
+      assertThat(cappedHedging.getDelayNanos(), equalTo(MAX_DELAY.toNanos()));
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+
+  private HedgedRepository createProxy(double maxRatio) {
+    return createProxy(maxRatio, null);
+  }
+
+  private HedgedRepository createProxy(double maxRatio, ConcurrencyLimits concurrencyLimits) {
+    hedgedReads = createHedgedReads(maxRatio);
+    return RepositoryTimerAspectFixtures.createProxy(target, meterRegistry,
+        RepositoryTimerFeatures.builder()
+            .concurrencyLimits(concurrencyLimits)
+            .hedgedReads(hedgedReads)
+            .build());
+  }
+
+  private HedgedReads createHedgedReads(double maxRatio) {
+    return new HedgedReads(meterRegistry, Set.of(),
+        Map.of("HedgedRepository.find", Duration.ofMillis(10)), 0.95, Duration.ofMillis(1),
+        MAX_DELAY, maxRatio);
+  }
+
+  private void awaitAttempts(int attempts) throws InterruptedException {
+    var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (target.attempts.size() < attempts && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+  }
+
+  private static Method getMethod(String name) {
+    try {
+      return HedgedRepository.class.getMethod(name, String.class);
+    } catch (NoSuchMethodException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private double getHedges(String metricName, String methodName) {
+    return meterRegistry.get(metricName)
+        .tags("class", "HedgedRepository", "method", methodName)
+        .counter()
+        .count();
+  }
+
+  @Repository
+  public static class HedgedRepository {
+
+    private final List<SettableListenableFuture<String>> attempts =
+        new CopyOnWriteArrayList<>();
+    private final AtomicInteger syncAttempts = new AtomicInteger();
+
+    @Hedged(delay = "10ms")
+    public ListenableFuture<String> findAsync(String key) {
+      var attempt = new SettableListenableFuture<String>();
+      attempts.add(attempt);
+      return attempt;
+    }
+
+    public String find(String key) {
+      syncAttempts.incrementAndGet();
+      return "first";
+    }
+
+    @Hedged
+    public String findObserved() {
+      return "observed";
+    }
+  }
+}
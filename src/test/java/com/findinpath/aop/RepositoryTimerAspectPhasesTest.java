@@ -0,0 +1,188 @@
+package com.findinpath.aop;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.SimpleStatement;
+import com.datastax.driver.core.Statement;
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+/**
+ * Verifies the split of the repository method calls into driver, mapping and callback phases.
+ */
+public class RepositoryTimerAspectPhasesTest {
+
+  private static final Duration DRIVER_LATENCY = Duration.ofMillis(5);
+  private static final Duration MAPPING_DURATION = Duration.ofMillis(3);
+  private static final Duration CALLBACK_DELAY = Duration.ofMillis(2);
+
+  private MockClock clock;
+  private SimpleMeterRegistry meterRegistry;
+  private CallPhaseTracker callPhaseTracker;
+  private PhasesRepository target;
+  private PhasesRepository phasesRepository;
+
+  @BeforeEach
+  public void setUp() {
+    clock = new MockClock();
+    meterRegistry = RepositoryTimerAspectFixtures.createMeterRegistry(clock);
+    callPhaseTracker = new CallPhaseTracker();
+    target = new PhasesRepository(StatementCapture.capturing(createDriverSession()),
+        new StubConverter());
+    phasesRepository = RepositoryTimerAspectFixtures.createProxy(target, meterRegistry,
+        RepositoryTimerFeatures.builder().callPhaseTracker(callPhaseTracker).build());
+  }
+
+  @Test
+  public void synchronousCallIsSplitIntoDriverAndMappingPhases() {
+    phasesRepository.find();
+
+    assertThat(getPhaseTime("find", "driver"), equalTo((double) DRIVER_LATENCY.toNanos()));
+    assertThat(getPhaseTime("find", "mapping"), equalTo((double) MAPPING_DURATION.toNanos()));
+    assertThat(meterRegistry.find(RepositoryTimerAspect.REPOSITORY_PHASE_METRIC_NAME)
+        .tags("phase", "callback").timers(), empty());
+    assertThat(CallPhases.current(), equalTo(null));
+  }
+
+  @Test
+  public void asynchronousCallIsSplitIntoDriverMappingAndCallbackPhases() {
+    var result = phasesRepository.findAsync();
+    // the driver reports the latency and completes the future on its own threads
+    callPhaseTracker.update(null, target.statement, null, DRIVER_LATENCY.toNanos());
+    target.driverFuture.complete();
+
+    assertThat(result.isDone(), equalTo(true));
+    assertThat(getPhaseTime("findAsync", "driver"), equalTo((double) DRIVER_LATENCY.toNanos()));
+    assertThat(getPhaseTime("findAsync", "mapping"),
+        equalTo((double) MAPPING_DURATION.toNanos()));
+    assertThat(getPhaseTime("findAsync", "callback"),
+        equalTo((double) CALLBACK_DELAY.toNanos()));
+    assertThat(CallPhases.current(), equalTo(null));
+    assertThat(CallPhases.of(target.statement), equalTo(null));
+  }
+
+  @Test
+  public void statementsExecutedAfterTheCompletionOfTheCallAreNotTracked() {
+    var result = phasesRepository.findAsync();
+    // e.g. : the deadline of the call expires before the driver results are ready
+    result.cancel(true);
+    target.driverFuture.complete();
+    // statement executed later on the driver thread, outside of any repository call
+    target.find();
+
+    assertThat(CallPhases.current(), equalTo(null));
+    assertThat(CallPhases.of(target.statement), equalTo(null));
+    assertThat(meterRegistry.find(RepositoryTimerAspect.REPOSITORY_PHASE_METRIC_NAME)
+        .tags("method", "findAsync").timers(), empty());
+  }
+
+  @Test
+  public void mappingOutsideOfTheRepositoryCallsIsNotTracked() {
+    target.find();
+
+    assertThat(meterRegistry.find(RepositoryTimerAspect.REPOSITORY_PHASE_METRIC_NAME).timers(),
+        empty());
+  }
+
+  private double getPhaseTime(String methodName, String phase) {
+    return meterRegistry.get(RepositoryTimerAspect.REPOSITORY_PHASE_METRIC_NAME)
+        .tags("class", "PhasesRepository", "method", methodName, "phase", phase)
+        .timer()
+        .totalTime(TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Session reporting synchronously the latency of the synchronous executions and returning
+   * futures which are completed by the test for the asynchronous executions.
+   */
+  private Session createDriverSession() {
+    return (Session) Proxy.newProxyInstance(Session.class.getClassLoader(),
+        new Class<?>[]{Session.class}, (proxy, method, args) -> {
+          if ("execute".equals(method.getName())) {
+            callPhaseTracker.update(null, (Statement) args[0], null, DRIVER_LATENCY.toNanos());
+            return null;
+          } else if ("executeAsync".equals(method.getName())) {
+            return target.driverFuture;
+          }
+          return null;
+        });
+  }
+
+  /**
+   * Converter taking {@link #MAPPING_DURATION} to map any row.
+   */
+  private class StubConverter extends TimedMappingCassandraConverter {
+
+    @Override
+    public <R> R readRow(Class<R> type, Row row) {
+      clock.add(MAPPING_DURATION);
+      return null;
+    }
+  }
+
+  private static class StubResultSetFuture extends AbstractFuture<ResultSet> implements
+      ResultSetFuture {
+
+    void complete() {
+      set(null);
+    }
+
+    @Override
+    public ResultSet getUninterruptibly() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ResultSet getUninterruptibly(long timeout, TimeUnit unit) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  @Repository
+  public class PhasesRepository {
+
+    private final Statement statement = new SimpleStatement("SELECT * FROM config");
+    private final StubResultSetFuture driverFuture = new StubResultSetFuture();
+    private final Row row = (Row) Proxy.newProxyInstance(Row.class.getClassLoader(),
+        new Class<?>[]{Row.class}, (proxy, method, args) -> null);
+    private final Session session;
+    private final TimedMappingCassandraConverter converter;
+
+    PhasesRepository(Session session, TimedMappingCassandraConverter converter) {
+      this.session = session;
+      this.converter = converter;
+    }
+
+    public String find() {
+      session.execute(statement);
+      return converter.read(String.class, row);
+    }
+
+    public ListenableFuture<String> findAsync() {
+      var result = new SettableListenableFuture<String>();
+      // the templates map the rows in a listener of the driver future
+      session.executeAsync(statement).addListener(() -> {
+        var mapped = converter.read(String.class, row);
+        clock.add(CALLBACK_DELAY);
+        result.set(mapped);
+      }, MoreExecutors.directExecutor());
+      return result;
+    }
+  }
+}
@@ -0,0 +1,174 @@
+package com.findinpath.aop;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+
+import com.findinpath.model.UserBookmark;
+import com.findinpath.model.UserBookmarkKey;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+/**
+ * Verifies the recording of the cardinality and of the estimated payload size of the results
+ * returned by the repository methods.
+ */
+public class RepositoryTimerAspectResultsTest {
+
+  /**
+   * 2 * 16 bytes for the uuid primary key columns and 19 bytes for the url.
+   */
+  private static final long BOOKMARK_SIZE = 51;
+
+  private SimpleMeterRegistry meterRegistry;
+  private ResultsRepository target;
+  private ResultsRepository resultsRepository;
+
+  @BeforeEach
+  public void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    target = new ResultsRepository();
+    resultsRepository = RepositoryTimerAspectFixtures.createProxy(target, meterRegistry);
+  }
+
+  @Test
+  public void listResultsAreRecorded() {
+    resultsRepository.findAll(3);
+    resultsRepository.findAll(0);
+
+    var results = getSummary(RepositoryTimerAspect.REPOSITORY_RESULTS_METRIC_NAME, "findAll");
+    assertThat(results.count(), equalTo(2L));
+    assertThat(results.totalAmount(), equalTo(3.0));
+    assertThat(results.max(), equalTo(3.0));
+    var payload = getSummary(RepositoryTimerAspect.REPOSITORY_PAYLOAD_METRIC_NAME, "findAll");
+    assertThat(payload.max(), equalTo(3.0 * BOOKMARK_SIZE));
+  }
+
+  @Test
+  public void collectionResultsOfIterableMethodsAreRecorded() {
+    resultsRepository.findAll();
+
+    var results = getSummary(RepositoryTimerAspect.REPOSITORY_RESULTS_METRIC_NAME, "findAll");
+    assertThat(results.totalAmount(), equalTo(2.0));
+    var payload = getSummary(RepositoryTimerAspect.REPOSITORY_PAYLOAD_METRIC_NAME, "findAll");
+    assertThat(payload.totalAmount(), equalTo(2.0 * BOOKMARK_SIZE));
+  }
+
+  @Test
+  public void optionalResultsAreRecorded() {
+    resultsRepository.findById(true);
+    resultsRepository.findById(false);
+
+    var results = getSummary(RepositoryTimerAspect.REPOSITORY_RESULTS_METRIC_NAME, "findById");
+    assertThat(results.totalAmount(), equalTo(1.0));
+    var payload = getSummary(RepositoryTimerAspect.REPOSITORY_PAYLOAD_METRIC_NAME, "findById");
+    assertThat(payload.totalAmount(), equalTo((double) BOOKMARK_SIZE));
+  }
+
+  @Test
+  public void asyncResultsAreRecordedOnCompletion() {
+    resultsRepository.findAllListenableFuture();
+    resultsRepository.findAllCompletableFuture();
+    assertThat(getSummary(RepositoryTimerAspect.REPOSITORY_RESULTS_METRIC_NAME,
+        "findAllListenableFuture").count(), equalTo(0L));
+
+    target.listenableFuture.set(bookmarks(2));
+    target.completableFuture.complete(bookmarks(4));
+
+    assertThat(getSummary(RepositoryTimerAspect.REPOSITORY_RESULTS_METRIC_NAME,
+        "findAllListenableFuture").totalAmount(), equalTo(2.0));
+    assertThat(getSummary(RepositoryTimerAspect.REPOSITORY_RESULTS_METRIC_NAME,
+        "findAllCompletableFuture").totalAmount(), equalTo(4.0));
+  }
+
+  @Test
+  public void payloadOfBigResultsIsExtrapolated() {
+    assertThat(PayloadSizes.estimate(bookmarks(1000)), equalTo(1000 * BOOKMARK_SIZE));
+  }
+
+  @Test
+  public void resultsOfNotSizedMethodsAreNotRecorded() {
+    resultsRepository.count();
+
+    assertThat(meterRegistry.find(RepositoryTimerAspect.REPOSITORY_RESULTS_METRIC_NAME)
+        .summaries(), empty());
+  }
+
+  @Test
+  public void resultsOfOtherIterablesAreNotConsumed() {
+    var iterator = resultsRepository.findIterable().iterator();
+
+    assertThat(iterator.hasNext(), equalTo(true));
+    assertThat(meterRegistry.find(RepositoryTimerAspect.REPOSITORY_RESULTS_METRIC_NAME)
+        .summaries(), empty());
+  }
+
+  private DistributionSummary getSummary(String metricName, String methodName) {
+    return meterRegistry.get(metricName)
+        .tags("class", "ResultsRepository", "method", methodName)
+        .summary();
+  }
+
+  private static List<UserBookmark> bookmarks(int count) {
+    var bookmarks = new ArrayList<UserBookmark>(count);
+    for (int i = 0; i < count; i++) {
+      var bookmark = new UserBookmark();
+      bookmark.setPrimaryKey(new UserBookmarkKey(UUID.randomUUID(), UUID.randomUUID()));
+      bookmark.setUrl("https://example.com");
+      bookmarks.add(bookmark);
+    }
+    return bookmarks;
+  }
+
+  @Repository
+  public static class ResultsRepository {
+
+    private final SettableListenableFuture<List<UserBookmark>> listenableFuture =
+        new SettableListenableFuture<>();
+    private final CompletableFuture<List<UserBookmark>> completableFuture =
+        new CompletableFuture<>();
+
+    public List<UserBookmark> findAll(int count) {
+      return bookmarks(count);
+    }
+
+    /**
+     * Declared like <code>CrudRepository.findAll()</code>.
+     */
+    public Iterable<UserBookmark> findAll() {
+      return bookmarks(2);
+    }
+
+    public Optional<UserBookmark> findById(boolean present) {
+      return present ? Optional.of(bookmarks(1).get(0)) : Optional.empty();
+    }
+
+    public ListenableFuture<List<UserBookmark>> findAllListenableFuture() {
+      return listenableFuture;
+    }
+
+    public CompletableFuture<List<UserBookmark>> findAllCompletableFuture() {
+      return completableFuture;
+    }
+
+    public long count() {
+      return 0;
+    }
+
+    public Iterable<UserBookmark> findIterable() {
+      // iterable only once, like a driver result set
+      var iterator = bookmarks(1).iterator();
+      return () -> iterator;
+    }
+  }
+}
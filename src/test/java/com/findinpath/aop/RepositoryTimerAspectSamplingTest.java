@@ -0,0 +1,124 @@
+package com.findinpath.aop;
+
+import static com.findinpath.Utils.getExactlyOneTimer;
+import static com.findinpath.Utils.getTimers;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Verifies the sampling of the repository method calls done by the {@link RepositoryTimerAspect}.
+ */
+public class RepositoryTimerAspectSamplingTest {
+
+  private MockClock clock;
+  private SimpleMeterRegistry meterRegistry;
+
+  @BeforeEach
+  public void setUp() {
+    clock = new MockClock();
+    meterRegistry = RepositoryTimerAspectFixtures.createMeterRegistry(clock);
+  }
+
+  @Test
+  public void fixedSamplingTimesAFractionOfTheCallsAndCountsAllOfThem() {
+    var sampledRepository = createProxy(TimingSampling.fixed(10));
+
+    for (int i = 0; i < 10_000; i++) {
+      sampledRepository.find();
+    }
+
+    // on average 1000 calls get timed
+    assertThat(getFindTimerCount(), allOf(greaterThan(700L), lessThan(1300L)));
+    assertThat(getCallCount("find", Outcome.SUCCESSFUL), equalTo(10_000.0));
+  }
+
+  @Test
+  public void failedCallsAreTimedRegardlessOfTheSampling() {
+    var sampledRepository = createProxy(TimingSampling.fixed(Integer.MAX_VALUE));
+
+    for (int i = 0; i < 100; i++) {
+      sampledRepository.find();
+      assertThrows(IllegalStateException.class, sampledRepository::fail);
+    }
+
+    assertThat(getTimers(meterRegistry.getMeters(), RepositoryTimerAspect.REPOSITORY_METRIC_NAME,
+        Tag.of("method", "find")), empty());
+    assertThat(getExactlyOneTimer(meterRegistry.getMeters(),
+        RepositoryTimerAspect.REPOSITORY_METRIC_NAME,
+        Tag.of("class", "SampledRepository"),
+        Tag.of("method", "fail"),
+        Tag.of("outcome", Outcome.FAILED.getTagValue())).count(), equalTo(100L));
+    assertThat(getCallCount("find", Outcome.SUCCESSFUL), equalTo(100.0));
+    assertThat(getCallCount("fail", Outcome.FAILED), equalTo(100.0));
+  }
+
+  @Test
+  public void adaptiveSamplingStartsAboveTheCallRateThreshold() {
+    var sampledRepository = createProxy(TimingSampling.adaptive(10, 100));
+
+    // 50 calls/s, below the threshold
+    for (int i = 0; i < 50; i++) {
+      sampledRepository.find();
+    }
+    clock.add(Duration.ofSeconds(1));
+    // 1000 calls/s, all timed until the call rate gets computed at the end of the window
+    for (int i = 0; i < 1000; i++) {
+      sampledRepository.find();
+    }
+    assertThat(getFindTimerCount(), equalTo(1050L));
+
+    clock.add(Duration.ofSeconds(1));
+    for (int i = 0; i < 1000; i++) {
+      sampledRepository.find();
+    }
+
+    // on average 10 calls until the rate gets computed and 100 calls afterwards get timed
+    assertThat(getFindTimerCount() - 1050L, allOf(greaterThan(50L), lessThan(300L)));
+    assertThat(getCallCount("find", Outcome.SUCCESSFUL), equalTo(2050.0));
+  }
+
+  private SampledRepository createProxy(TimingSampling sampling) {
+    return RepositoryTimerAspectFixtures.createProxy(new SampledRepository(), meterRegistry,
+        sampling);
+  }
+
+  private long getFindTimerCount() {
+    return getExactlyOneTimer(meterRegistry.getMeters(),
+        RepositoryTimerAspect.REPOSITORY_METRIC_NAME,
+        Tag.of("class", "SampledRepository"),
+        Tag.of("method", "find")).count();
+  }
+
+  private double getCallCount(String methodName, Outcome outcome) {
+    return meterRegistry.get(RepositoryTimerAspect.REPOSITORY_CALLS_METRIC_NAME)
+        .tags("class", "SampledRepository", "method", methodName,
+            "outcome", outcome.getTagValue())
+        .functionCounter()
+        .count();
+  }
+
+  @Repository
+  public static class SampledRepository {
+
+    public String find() {
+      return "found";
+    }
+
+    public String fail() {
+      throw new IllegalStateException("failed");
+    }
+  }
+}
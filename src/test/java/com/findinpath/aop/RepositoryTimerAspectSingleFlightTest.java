@@ -0,0 +1,215 @@
+package com.findinpath.aop;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+/**
+ * Verifies that the {@link RepositoryTimerAspect} collapses the concurrent identical calls of the
+ * methods configured through the {@link SingleFlights}.
+ */
+public class RepositoryTimerAspectSingleFlightTest {
+
+  private SimpleMeterRegistry meterRegistry;
+  private CollapsedRepository target;
+  private CollapsedRepository collapsedRepository;
+
+  @BeforeEach
+  public void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    target = new CollapsedRepository();
+    collapsedRepository = RepositoryTimerAspectFixtures.createProxy(target, meterRegistry,
+        RepositoryTimerFeatures.builder()
+            .singleFlights(
+                new SingleFlights(meterRegistry, Set.of("CollapsedRepository.findConfigured")))
+            .build());
+  }
+
+  @Test
+  public void identicalAsynchronousCallsShareTheLeaderCall() throws Exception {
+    var leader = collapsedRepository.findAsync("key");
+    var followers = List.of(collapsedRepository.findAsync("key"),
+        collapsedRepository.findAsync("key"));
+    var other = collapsedRepository.findAsync("other");
+
+    assertThat(target.calls.get(), equalTo(2));
+    target.pending.get("key").set("value");
+    target.pending.get("other").set("other value");
+
+    assertThat(leader.get(), equalTo("value"));
+    for (var follower : followers) {
+      assertThat(follower.get(), sameInstance(leader.get()));
+    }
+    assertThat(other.get(), equalTo("other value"));
+    assertThat(getCollapsed("findAsync"), equalTo(2.0));
+    assertThat(getTimerCount("findAsync", "successful", Source.DATABASE), equalTo(2L));
+    assertThat(getTimerCount("findAsync", "successful", Source.IN_FLIGHT), equalTo(2L));
+  }
+
+  @Test
+  public void failureOfTheLeaderCallIsSharedByTheFollowers() {
+    var leader = collapsedRepository.findAsync("key");
+    var follower = collapsedRepository.findAsync("key");
+    var failure = new QueryTimeoutException("timeout");
+    target.pending.get("key").setException(failure);
+
+    assertThat(assertThrows(ExecutionException.class, leader::get).getCause(),
+        sameInstance(failure));
+    assertThat(assertThrows(ExecutionException.class, follower::get).getCause(),
+        sameInstance(failure));
+    assertThat(getTimerCount("findAsync", "failed", Source.IN_FLIGHT), equalTo(1L));
+  }
+
+  @Test
+  public void callsAfterTheCompletionOfTheLeaderCallLeadANewCall() throws Exception {
+    var first = collapsedRepository.findAsync("key");
+    target.pending.get("key").set("first");
+    var second = collapsedRepository.findAsync("key");
+    target.pending.get("key").set("second");
+
+    assertThat(first.get(), equalTo("first"));
+    assertThat(second.get(), equalTo("second"));
+    assertThat(target.calls.get(), equalTo(2));
+    assertThat(getCollapsed("findAsync"), equalTo(0.0));
+  }
+
+  @Test
+  public void identicalSynchronousCallsWaitForTheLeaderCall() throws Exception {
+    var executor = Executors.newFixedThreadPool(4);
+    var callers = new ArrayList<CompletableFuture<String>>();
+    for (int i = 0; i < 4; i++) {
+      callers.add(CompletableFuture.supplyAsync(() -> collapsedRepository.find("key"),
+          executor));
+    }
+    // the leader call blocks until all the other calls have joined it
+    var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (meterRegistry.find(SingleFlights.COLLAPSED_METRIC_NAME).tags("method", "find")
+        .counters().stream().mapToDouble(Counter::count).sum() < 3
+        && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+    target.release.countDown();
+
+    for (var caller : callers) {
+      assertThat(caller.get(10, TimeUnit.SECONDS), equalTo("key value"));
+    }
+    executor.shutdown();
+    assertThat(target.calls.get(), equalTo(1));
+    assertThat(getTimerCount("find", "successful", Source.IN_FLIGHT), equalTo(3L));
+  }
+
+  @Test
+  public void onlyTheConfiguredMethodsAreCollapsed() {
+    target.release.countDown();
+
+    collapsedRepository.findAsyncNotCollapsed("key");
+    collapsedRepository.findAsyncNotCollapsed("key");
+    collapsedRepository.findConfigured("key");
+
+    assertThat(target.calls.get(), equalTo(3));
+    assertThat(meterRegistry.find(SingleFlights.COLLAPSED_METRIC_NAME)
+        .tags("method", "findAsyncNotCollapsed").counter(), equalTo(null));
+    assertThat(getCollapsed("findConfigured"), equalTo(0.0));
+  }
+
+  @Test
+  public void sharedListsCanNotBeModifiedByTheCallers() {
+    var result = collapsedRepository.findAll("key");
+
+    assertThrows(UnsupportedOperationException.class, () -> result.add("other"));
+  }
+
+  @Test
+  public void onlyTheReadMethodsOfTheConfiguredClassesAreCollapsed() throws Exception {
+    var singleFlights = new SingleFlights(meterRegistry, Set.of("CollapsedRepository"));
+
+    assertThat(singleFlights.isCollapsed("CollapsedRepository",
+        CollapsedRepository.class.getMethod("findConfigured", String.class)), equalTo(true));
+    assertThat(singleFlights.isCollapsed("CollapsedRepository",
+        CollapsedRepository.class.getMethod("save", String.class)), equalTo(false));
+  }
+
+  private double getCollapsed(String methodName) {
+    return meterRegistry.get(SingleFlights.COLLAPSED_METRIC_NAME)
+        .tags("class", "CollapsedRepository", "method", methodName)
+        .counter()
+        .count();
+  }
+
+  private long getTimerCount(String methodName, String outcome, Source source) {
+    return meterRegistry.get(RepositoryTimerAspect.REPOSITORY_METRIC_NAME)
+        .tags("class", "CollapsedRepository", "method", methodName, "outcome", outcome, "source",
+            source.getTagValue())
+        .timer()
+        .count();
+  }
+
+  @Repository
+  public static class CollapsedRepository {
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final Map<String, SettableListenableFuture<String>> pending =
+        new ConcurrentHashMap<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @SingleFlight
+    public String find(String key) {
+      calls.incrementAndGet();
+      try {
+        release.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return key + " value";
+    }
+
+    @SingleFlight
+    public ListenableFuture<String> findAsync(String key) {
+      calls.incrementAndGet();
+      var result = new SettableListenableFuture<String>();
+      pending.put(key, result);
+      return result;
+    }
+
+    public ListenableFuture<String> findAsyncNotCollapsed(String key) {
+      calls.incrementAndGet();
+      return new SettableListenableFuture<>();
+    }
+
+    public String findConfigured(String key) {
+      calls.incrementAndGet();
+      return key;
+    }
+
+    @SingleFlight
+    public List<String> findAll(String key) {
+      return new ArrayList<>(List.of(key));
+    }
+
+    public String save(String key) {
+      calls.incrementAndGet();
+      return key;
+    }
+  }
+}
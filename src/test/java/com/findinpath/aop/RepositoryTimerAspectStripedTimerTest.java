@@ -0,0 +1,176 @@
+package com.findinpath.aop;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.Statistic;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Verifies that the {@link RepositoryTimerAspect} times the methods configured through the
+ * {@link StripedTimers} on {@link StripedTimer}s published as the regular repository timers.
+ */
+public class RepositoryTimerAspectStripedTimerTest {
+
+  private SimpleMeterRegistry meterRegistry;
+  private HotRepository hotRepository;
+
+  @BeforeEach
+  public void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    hotRepository = RepositoryTimerAspectFixtures.createProxy(new HotRepository(), meterRegistry,
+        RepositoryTimerFeatures.builder()
+            .stripedTimers(new StripedTimers(Set.of("HotRepository.findConfigured"), 4))
+            .build());
+  }
+
+  @Test
+  public void concurrentCallsAreAllRecordedOnTheStripedTimer() throws Exception {
+    var executor = Executors.newFixedThreadPool(8);
+    var callers = new ArrayList<CompletableFuture<Void>>();
+    for (int i = 0; i < 8; i++) {
+      callers.add(CompletableFuture.runAsync(() -> {
+        for (int call = 0; call < 1_000; call++) {
+          hotRepository.findConfigured("key");
+        }
+      }, executor));
+    }
+    for (var caller : callers) {
+      caller.get(10, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+
+    var meter = getMeter("findConfigured");
+    assertThat(meter, not(instanceOf(Timer.class)));
+    assertThat(meter.getId().getType(), equalTo(Meter.Type.TIMER));
+    assertThat(getStatistic(meter, Statistic.COUNT), equalTo(8_000.0));
+  }
+
+  @Test
+  public void annotatedMethodsAreTimedOnStripedTimersWithTheirPercentiles() {
+    hotRepository.findAnnotated("key");
+
+    var meter = getMeter("findAnnotated");
+    assertThat(getStatistic(meter, Statistic.COUNT), equalTo(1.0));
+    for (var percentile : RepositoryTimerAspect.EXPORTED_PERCENTILES) {
+      assertThat(meterRegistry.find(RepositoryTimerAspect.REPOSITORY_METRIC_NAME + ".percentile")
+          .tags("class", "HotRepository", "method", "findAnnotated")
+          .tag("phi", Double.toString(percentile))
+          .gauge(), notNullValue());
+    }
+  }
+
+  @Test
+  public void overloadsAreRecordedOnTheSameStripedTimer() {
+    hotRepository.findAnnotated("key");
+    hotRepository.findAnnotated("key", 10);
+
+    assertThat(getStatistic(getMeter("findAnnotated"), Statistic.COUNT), equalTo(2.0));
+  }
+
+  @Test
+  public void otherMethodsKeepTheRegularTimers() {
+    hotRepository.find("key");
+
+    assertThat(getMeter("find"), instanceOf(Timer.class));
+  }
+
+  @Test
+  public void percentilesAndMaxDecayOverTheExpiry() {
+    var clock = new MockClock();
+    var timer = new StripedTimer(clock, 2, DistributionStatisticConfig.builder()
+        .percentiles(0.5)
+        .expiry(Duration.ofMinutes(1))
+        .bufferLength(2)
+        .build());
+
+    timer.record(100, TimeUnit.MILLISECONDS);
+    clock.add(Duration.ofSeconds(31));
+    assertThat(timer.max(TimeUnit.MILLISECONDS), equalTo(100.0));
+
+    timer.record(10, TimeUnit.MILLISECONDS);
+    clock.add(Duration.ofSeconds(31));
+    assertThat(timer.max(TimeUnit.MILLISECONDS), equalTo(10.0));
+    assertThat(timer.takeSnapshot().percentileValues()[0].value(TimeUnit.MILLISECONDS),
+        closeTo(10.0, 10.0 / 8));
+    assertThat(timer.count(), equalTo(2L));
+    assertThat(timer.totalTime(TimeUnit.MILLISECONDS), equalTo(110.0));
+  }
+
+  @Test
+  public void publishedStatisticsAreReadOutOfTheSameSnapshot() {
+    var clock = new MockClock();
+    var registry = RepositoryTimerAspectFixtures.createMeterRegistry(clock);
+    var timer = new StripedTimer(clock, 2, DistributionStatisticConfig.builder()
+        .percentiles(0.5)
+        .build());
+    timer.register(registry, "striped", Tags.empty());
+
+    timer.record(10, TimeUnit.MILLISECONDS);
+    var meter = registry.get("striped").meter();
+    assertThat(getStatistic(meter, Statistic.COUNT), equalTo(1.0));
+    timer.record(20, TimeUnit.MILLISECONDS);
+    // the rest of the statistics of the same publication are served out of the first snapshot
+    assertThat(getStatistic(meter, Statistic.TOTAL_TIME), equalTo(0.01));
+    assertThat(getStatistic(meter, Statistic.MAX), equalTo(0.01));
+
+    clock.add(Duration.ofNanos(StripedTimer.PUBLICATION_WINDOW_NANOS));
+    assertThat(getStatistic(meter, Statistic.COUNT), equalTo(2.0));
+    assertThat(registry.get("striped.percentile").gauge().value(), closeTo(0.01, 0.01 / 8));
+  }
+
+  private Meter getMeter(String methodName) {
+    return meterRegistry.get(RepositoryTimerAspect.REPOSITORY_METRIC_NAME)
+        .tags("class", "HotRepository", "method", methodName, "outcome", "successful")
+        .meter();
+  }
+
+  private static double getStatistic(Meter meter, Statistic statistic) {
+    for (var measurement : meter.measure()) {
+      if (measurement.getStatistic() == statistic) {
+        return measurement.getValue();
+      }
+    }
+    throw new IllegalArgumentException("No " + statistic + " measurement");
+  }
+
+  @Repository
+  public static class HotRepository {
+
+    public String find(String key) {
+      return key;
+    }
+
+    public String findConfigured(String key) {
+      return key;
+    }
+
+    @StripedTimed
+    public String findAnnotated(String key) {
+      return key;
+    }
+
+    @StripedTimed
+    public String findAnnotated(String key, int limit) {
+      return key;
+    }
+  }
+}
@@ -0,0 +1,255 @@
+package com.findinpath.aop;
+
+import static com.findinpath.Utils.getExactlyOneTimer;
+import static com.findinpath.Utils.getTimers;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.stream.Stream;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Verifies the behaviour of the {@link RepositoryTimerAspect} on stub repositories, without
+ * needing a Cassandra database.
+ */
+public class RepositoryTimerAspectTest {
+
+  /**
+   * The size of a {@link io.micrometer.core.instrument.Timer.Sample} (object header, start time
+   * and clock reference) with compressed references.
+   */
+  private static final int TIMER_SAMPLE_BYTES = 24;
+
+  private SimpleMeterRegistry meterRegistry;
+  private RepositoryTimerAspect repositoryTimerAspect;
+  private StubRepository stubRepository;
+
+  @BeforeEach
+  public void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    repositoryTimerAspect = new RepositoryTimerAspect(meterRegistry);
+    stubRepository = createProxy(new StubRepository(), repositoryTimerAspect);
+  }
+
+  @Test
+  public void timersAreReusedAcrossCalls() {
+    var count = 100;
+    for (int i = 0; i < count; i++) {
+      stubRepository.find();
+    }
+    for (int i = 0; i < count; i++) {
+      assertThrows(IllegalStateException.class, () -> stubRepository.fail());
+    }
+
+    var findTimer = getExactlyOneTimer(meterRegistry.getMeters(),
+        RepositoryTimerAspect.REPOSITORY_METRIC_NAME,
+        Tag.of("class", "StubRepository"),
+        Tag.of("method", "find"));
+    assertThat(findTimer.count(), equalTo((long) count));
+    assertThat(findTimer.getId().getTag("successful"), equalTo("true"));
+
+    var failTimer = getExactlyOneTimer(meterRegistry.getMeters(),
+        RepositoryTimerAspect.REPOSITORY_METRIC_NAME,
+        Tag.of("class", "StubRepository"),
+        Tag.of("method", "fail"));
+    assertThat(failTimer.count(), equalTo((long) count));
+    assertThat(failTimer.getId().getTag("successful"), equalTo("false"));
+
+    assertThat(getTimers(meterRegistry.getMeters(), RepositoryTimerAspect.REPOSITORY_METRIC_NAME),
+        hasSize(2));
+    assertThat(
+        repositoryTimerAspect.getTimer("StubRepository", findMethod(), Outcome.SUCCESSFUL),
+        sameInstance(findTimer));
+  }
+
+  @Test
+  public void advisedCallsAllocateNothingBeyondTheirTimerSample() {
+    var passThroughRepository = createProxy(new StubRepository(), new PassThroughAspect());
+    var iterations = 100_000;
+
+    // warm up the proxies, the cache of the aspect as well as the timer
+    measureAllocatedBytes(passThroughRepository::find, iterations);
+    measureAllocatedBytes(stubRepository::find, iterations);
+    var passThroughBytes = measureAllocatedBytes(passThroughRepository::find, iterations);
+    var timedBytes = measureAllocatedBytes(stubRepository::find, iterations);
+
+    // The join point and the method invocation are allocated by the proxy for both the calls.
+    // Anything beyond the Timer.Sample below one byte per call stems from the occasional
+    // rotation of the timer histograms, not from the aspect.
+    assertThat((double) (timedBytes - passThroughBytes) / iterations,
+        lessThan(TIMER_SAMPLE_BYTES + 1.0));
+  }
+
+  @Test
+  public void classTagOfInterfaceBasedRepositoryIsTheRepositoryInterface() {
+    var proxyFactory = new AspectJProxyFactory(new StubCrudRepositoryImpl());
+    proxyFactory.setInterfaces(StubCrudRepository.class,
+        org.springframework.data.repository.Repository.class);
+    proxyFactory.addAspect(repositoryTimerAspect);
+    StubCrudRepository stubCrudRepository = proxyFactory.getProxy();
+
+    stubCrudRepository.findByKey("key");
+    stubCrudRepository.findByKey("key");
+
+    var timer = getExactlyOneTimer(meterRegistry.getMeters(),
+        RepositoryTimerAspect.REPOSITORY_METRIC_NAME,
+        Tag.of("class", "StubCrudRepository"),
+        Tag.of("method", "findByKey"));
+    assertThat(timer.count(), equalTo(2L));
+  }
+
+  @Test
+  public void rowCountIsRecordedForAnnotatedParameter() {
+    stubRepository.saveAll(List.of("first", "second", "third"));
+    stubRepository.saveAll(List.of("fourth"));
+
+    var rowsSummary = meterRegistry.get(RepositoryTimerAspect.REPOSITORY_ROWS_METRIC_NAME)
+        .tags("class", "StubRepository", "method", "saveAll")
+        .summary();
+    assertThat(rowsSummary.count(), equalTo(2L));
+    assertThat(rowsSummary.totalAmount(), equalTo(4.0));
+  }
+
+  @Test
+  public void streamIsTimedUntilClosed() {
+    try (var stream = stubRepository.stream()) {
+      assertThat(stream.count(), equalTo(2L));
+      assertThat(
+          getTimers(meterRegistry.getMeters(), RepositoryTimerAspect.REPOSITORY_METRIC_NAME),
+          empty());
+    }
+
+    var timer = getExactlyOneTimer(meterRegistry.getMeters(),
+        RepositoryTimerAspect.REPOSITORY_METRIC_NAME,
+        Tag.of("class", "StubRepository"),
+        Tag.of("method", "stream"));
+    assertThat(timer.count(), equalTo(1L));
+  }
+
+  @Test
+  public void streamFailingToFetchItsElementsIsTimedAsFailed() {
+    try (var stream = stubRepository.failingStream()) {
+      assertThrows(IllegalStateException.class, () -> stream.forEach(value -> {
+      }));
+    }
+
+    var timer = getExactlyOneTimer(meterRegistry.getMeters(),
+        RepositoryTimerAspect.REPOSITORY_METRIC_NAME,
+        Tag.of("class", "StubRepository"),
+        Tag.of("method", "failingStream"));
+    assertThat(timer.count(), equalTo(1L));
+    assertThat(timer.getId().getTag("outcome"), equalTo(Outcome.FAILED.getTagValue()));
+  }
+
+  @Test
+  public void streamFailingInTheCallerOperationsIsTimedAsSuccessful() {
+    try (var stream = stubRepository.stream()) {
+      assertThrows(IllegalArgumentException.class, () -> stream.forEach(value -> {
+        throw new IllegalArgumentException(value);
+      }));
+    }
+
+    var timer = getExactlyOneTimer(meterRegistry.getMeters(),
+        RepositoryTimerAspect.REPOSITORY_METRIC_NAME,
+        Tag.of("class", "StubRepository"),
+        Tag.of("method", "stream"));
+    assertThat(timer.getId().getTag("outcome"), equalTo(Outcome.SUCCESSFUL.getTagValue()));
+  }
+
+  private static Method findMethod() {
+    try {
+      return StubRepository.class.getMethod("find");
+    } catch (NoSuchMethodException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static long measureAllocatedBytes(Runnable call, int iterations) {
+    var threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    var threadId = Thread.currentThread().getId();
+    var allocatedBytesBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < iterations; i++) {
+      call.run();
+    }
+    return threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBytesBefore;
+  }
+
+  private static <T> T createProxy(T target, Object aspect) {
+    var proxyFactory = new AspectJProxyFactory(target);
+    proxyFactory.addAspect(aspect);
+    return proxyFactory.getProxy();
+  }
+
+  /**
+   * Aspect advising the same methods as the {@link RepositoryTimerAspect}, only reading the
+   * signature of the join point (as the timing aspect does) and proceeding with the call.
+   */
+  @Aspect
+  public static class PassThroughAspect {
+
+    @Around(RepositoryTimerAspect.REPOSITORY_POINTCUT)
+    public Object proceed(ProceedingJoinPoint proceedingJoinPoint) throws Throwable {
+      proceedingJoinPoint.getSignature();
+      return proceedingJoinPoint.proceed();
+    }
+  }
+
+  public interface StubCrudRepository
+      extends org.springframework.data.repository.Repository<String, String> {
+
+    String findByKey(String key);
+  }
+
+  public static class StubCrudRepositoryImpl implements StubCrudRepository {
+
+    @Override
+    public String findByKey(String key) {
+      return key;
+    }
+  }
+
+  @Repository
+  public static class StubRepository {
+
+    public String find() {
+      return "found";
+    }
+
+    public String fail() {
+      throw new IllegalStateException("failed");
+    }
+
+    public int saveAll(@RowCount List<String> rows) {
+      return rows.size();
+    }
+
+    public Stream<String> stream() {
+      return Stream.of("first", "second");
+    }
+
+    public Stream<String> failingStream() {
+      return Stream.of("first", "second").map(value -> {
+        if (value.equals("second")) {
+          throw new IllegalStateException("fetching failed");
+        }
+        return value;
+      });
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package com.findinpath.aop;
+
+import static com.findinpath.Utils.getExactlyOneTimer;
+import static com.findinpath.Utils.getTimers;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Verifies the timing of the repository classes woven through the
+ * {@link WovenRepositoryTimerAspect}. The tests on the woven repositories are run only with the
+ * <code>aspectj-weaving</code> Maven profile, which weaves the test classes as well.
+ */
+public class RepositoryTimerAspectWeavingTest {
+
+  private SimpleMeterRegistry meterRegistry;
+  private RepositoryTimerAspect repositoryTimerAspect;
+  private WovenStubRepository target;
+
+  @BeforeEach
+  public void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    repositoryTimerAspect = new RepositoryTimerAspect(meterRegistry);
+    target = new WovenStubRepository();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    WovenRepositoryTimerAspect.bind(null);
+  }
+
+  @Test
+  public void selfInvocationsOfWovenRepositoriesAreTimed() {
+    assumeTrue(target instanceof WovenRepository, "The test classes have not been woven");
+    WovenRepositoryTimerAspect.bind(repositoryTimerAspect);
+
+    assertThat(target.findAll(), equalTo(List.of("found")));
+
+    assertThat(getTimer("findAll").count(), equalTo(1L));
+    assertThat(getTimer("findOne").count(), equalTo(1L));
+  }
+
+  @Test
+  public void wovenRepositoriesAreNotTimedBeforeTheBinding() {
+    assumeTrue(target instanceof WovenRepository, "The test classes have not been woven");
+
+    target.findOne();
+
+    assertThat(getTimers(meterRegistry.getMeters(), RepositoryTimerAspect.REPOSITORY_METRIC_NAME),
+        empty());
+  }
+
+  @Test
+  public void wovenRepositoriesAreNotAdvisedByTheProxies() {
+    assumeTrue(target instanceof WovenRepository, "The test classes have not been woven");
+    WovenRepositoryTimerAspect.bind(repositoryTimerAspect);
+
+    createProxy().findOne();
+
+    assertThat(getTimer("findOne").count(), equalTo(1L));
+  }
+
+  @Test
+  public void onlyTheBoundAspectGetsUnbound() {
+    var newerAspect = new RepositoryTimerAspect(meterRegistry);
+    WovenRepositoryTimerAspect.bind(repositoryTimerAspect);
+    WovenRepositoryTimerAspect.bind(newerAspect);
+
+    assertThat(WovenRepositoryTimerAspect.unbind(repositoryTimerAspect), equalTo(false));
+    assertThat(WovenRepositoryTimerAspect.unbind(newerAspect), equalTo(true));
+  }
+
+  @Test
+  public void unwovenRepositoriesAreTimedThroughTheProxies() {
+    assumeFalse(target instanceof WovenRepository, "The test classes have been woven");
+
+    var repository = createProxy();
+    repository.findAll();
+
+    // the self-invocations are missed by the proxies
+    assertThat(getTimer("findAll").count(), equalTo(1L));
+    assertThat(getTimers(meterRegistry.getMeters(), RepositoryTimerAspect.REPOSITORY_METRIC_NAME,
+        Tag.of("method", "findOne")), empty());
+  }
+
+  private WovenStubRepository createProxy() {
+    var proxyFactory = new AspectJProxyFactory(target);
+    proxyFactory.setProxyTargetClass(true);
+    proxyFactory.addAspect(repositoryTimerAspect);
+    return proxyFactory.getProxy();
+  }
+
+  private Timer getTimer(String methodName) {
+    return getExactlyOneTimer(meterRegistry.getMeters(),
+        RepositoryTimerAspect.REPOSITORY_METRIC_NAME,
+        Tag.of("class", "WovenStubRepository"),
+        Tag.of("method", methodName),
+        Tag.of("outcome", Outcome.SUCCESSFUL.getTagValue()));
+  }
+
+  @Repository
+  public static class WovenStubRepository {
+
+    public String findOne() {
+      return "found";
+    }
+
+    public List<String> findAll() {
+      return List.of(findOne());
+    }
+  }
+}
@@ -0,0 +1,110 @@
+package com.findinpath.aop;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Verifies that the {@link RepositoryWarmUp} registers the timers of the repository methods and
+ * does the work of the repositories ahead of their first calls.
+ */
+public class RepositoryWarmUpTest {
+
+  private SimpleMeterRegistry meterRegistry;
+  private RepositoryTimerAspect repositoryTimerAspect;
+  private WarmUpRepository target;
+  private WarmUpRepository warmUpRepository;
+
+  @BeforeEach
+  public void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    repositoryTimerAspect = new RepositoryTimerAspect(meterRegistry);
+    target = new WarmUpRepository();
+    var proxyFactory = new AspectJProxyFactory(target);
+    proxyFactory.setProxyTargetClass(true);
+    proxyFactory.addAspect(repositoryTimerAspect);
+    warmUpRepository = proxyFactory.getProxy();
+  }
+
+  @Test
+  public void timersOfTheExpectedOutcomesAreRegisteredAheadOfTheFirstCall() {
+    var methods = new RepositoryWarmUp(meterRegistry, repositoryTimerAspect)
+        .warmUp(List.of(warmUpRepository));
+
+    assertThat(methods, equalTo(3));
+    for (var methodName : List.of("find", "findAll")) {
+      assertThat(getTimerCount(methodName, Outcome.SUCCESSFUL), equalTo(0L));
+      assertThat(getTimerCount(methodName, Outcome.FAILED), equalTo(0L));
+      assertThat(findTimer(methodName, Outcome.CANCELLED), nullValue());
+      assertThat(findTimer(methodName, Outcome.TIMEOUT), nullValue());
+    }
+    for (var outcome : Outcome.values()) {
+      assertThat(getTimerCount("findAsync", outcome), equalTo(0L));
+    }
+
+    warmUpRepository.find();
+
+    assertThat(getTimerCount("find", Outcome.SUCCESSFUL), equalTo(1L));
+  }
+
+  @Test
+  public void repositoryWorkIsDoneWithoutBeingTimed() {
+    var repositoryWarmUp = new RepositoryWarmUp(meterRegistry, repositoryTimerAspect);
+
+    repositoryWarmUp.warmUp(List.of(warmUpRepository));
+
+    assertThat(target.warmUps, equalTo(1));
+    assertThat(meterRegistry.find(RepositoryTimerAspect.REPOSITORY_METRIC_NAME)
+        .tags("method", "warmUp").timer(), nullValue());
+    assertThat(repositoryWarmUp.isCompleted(), equalTo(true));
+    assertThat(meterRegistry.get(RepositoryWarmUp.WARM_UP_METRIC_NAME).timer().count(),
+        equalTo(1L));
+  }
+
+  private Timer findTimer(String methodName, Outcome outcome) {
+    return meterRegistry.find(RepositoryTimerAspect.REPOSITORY_METRIC_NAME)
+        .tags("class", "WarmUpRepository", "method", methodName, "outcome",
+            outcome.getTagValue())
+        .timer();
+  }
+
+  private long getTimerCount(String methodName, Outcome outcome) {
+    return meterRegistry.get(RepositoryTimerAspect.REPOSITORY_METRIC_NAME)
+        .tags("class", "WarmUpRepository", "method", methodName, "outcome",
+            outcome.getTagValue(), "source", Source.DATABASE.getTagValue())
+        .timer()
+        .count();
+  }
+
+  @Repository
+  public static class WarmUpRepository implements WarmedUpRepository {
+
+    private int warmUps;
+
+    @Override
+    public void warmUp() {
+      warmUps++;
+    }
+
+    public String find() {
+      return "found";
+    }
+
+    public List<String> findAll() {
+      return List.of("found");
+    }
+
+    public CompletableFuture<String> findAsync() {
+      return CompletableFuture.completedFuture("found");
+    }
+  }
+}
@@ -0,0 +1,168 @@
+package com.findinpath.aop;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.nullValue;
+
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.SimpleStatement;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Verifies the capture of the slow repository method calls done by the {@link SlowCallRecorder}.
+ */
+public class SlowCallRecorderTest {
+
+  private static final Duration THRESHOLD = Duration.ofMillis(20);
+
+  private SlowCallRecorder recorder;
+
+  @AfterEach
+  public void tearDown() {
+    if (recorder != null) {
+      recorder.shutdown();
+    }
+  }
+
+  @Test
+  public void callsUnderTheThresholdAreNotCaptured() {
+    recorder = new SlowCallRecorder(THRESHOLD, 4, SlowCallRecorder.Mode.SLOWEST);
+    var slowRepository = createProxy(recorder);
+
+    slowRepository.find("fast", 0);
+
+    assertThat(recorder.getSlowCalls(), empty());
+  }
+
+  @Test
+  public void slowestCallsAreKept() {
+    recorder = new SlowCallRecorder(THRESHOLD, 2, SlowCallRecorder.Mode.SLOWEST);
+    var slowRepository = createProxy(recorder);
+
+    slowRepository.find("slow", 40);
+    slowRepository.find("slower", 80);
+    slowRepository.find("fast", 0);
+    slowRepository.find("slowest", 120);
+
+    assertThat(getKeys(recorder.getSlowCalls("SlowRepository", "find")),
+        contains("slowest", "slower"));
+  }
+
+  @Test
+  public void latestCallsAreKept() {
+    recorder = new SlowCallRecorder(THRESHOLD, 2, SlowCallRecorder.Mode.LATEST);
+    var slowRepository = createProxy(recorder);
+
+    slowRepository.find("slowest", 120);
+    slowRepository.find("slow", 40);
+    slowRepository.find("slower", 80);
+
+    assertThat(getKeys(recorder.getSlowCalls("SlowRepository", "find")),
+        contains("slower", "slow"));
+  }
+
+  @Test
+  public void slowCallsContainTheArgumentsOutcomeAndCql() {
+    recorder = new SlowCallRecorder(THRESHOLD, 4, SlowCallRecorder.Mode.SLOWEST);
+    var slowRepository = createProxy(recorder);
+
+    slowRepository.find("slow", 40);
+
+    var slowCalls = recorder.getSlowCalls();
+    assertThat(slowCalls, hasSize(1));
+    var slowCall = slowCalls.get(0);
+    assertThat(slowCall.getClassName(), equalTo("SlowRepository"));
+    assertThat(slowCall.getMethodName(), equalTo("find"));
+    assertThat(slowCall.getArguments(), contains("slow", "40"));
+    assertThat(slowCall.getOutcome(), equalTo(Outcome.SUCCESSFUL));
+    assertThat(slowCall.getCql(), equalTo("SELECT * FROM config WHERE key=?"));
+  }
+
+  @Test
+  public void statementsExecutedBeforeTheCallAreNotReported() {
+    recorder = new SlowCallRecorder(THRESHOLD, 4, SlowCallRecorder.Mode.SLOWEST);
+    var target = new SlowRepository();
+    var slowRepository = createProxy(target, recorder);
+
+    target.session.execute(new SimpleStatement("SELECT * FROM config"));
+    slowRepository.sleep(40);
+
+    var slowCalls = recorder.getSlowCalls();
+    assertThat(slowCalls, hasSize(1));
+    assertThat(slowCalls.get(0).getCql(), nullValue());
+  }
+
+  @Test
+  public void statementsAreNotRememberedOnceTheRecorderIsShutDown() {
+    new SlowCallRecorder(THRESHOLD, 4, SlowCallRecorder.Mode.SLOWEST).shutdown();
+
+    new SlowRepository().session.execute(new SimpleStatement("SELECT * FROM config"));
+
+    assertThat(StatementCapture.take(), nullValue());
+  }
+
+  @Test
+  public void argumentsAreSummarized() {
+    var arguments = SlowCallBuffer.summarize(new Object[]{
+        "x".repeat(100), new ArrayList<>(List.of(1, 2, 3)), new byte[16], null});
+
+    assertThat(arguments,
+        contains("x".repeat(64) + "...", "ArrayList[size=3]", "byte[16]", "null"));
+  }
+
+  private static SlowRepository createProxy(SlowCallRecorder recorder) {
+    return createProxy(new SlowRepository(), recorder);
+  }
+
+  private static SlowRepository createProxy(SlowRepository target, SlowCallRecorder recorder) {
+    var proxyFactory = new AspectJProxyFactory(target);
+    proxyFactory.addAspect(new RepositoryTimerAspect(new SimpleMeterRegistry(),
+        TimingSampling.none(), TimerDistributions.defaults(),
+        RepositoryTimerFeatures.builder().slowCallRecorder(recorder).build()));
+    return proxyFactory.getProxy();
+  }
+
+  private static List<String> getKeys(List<SlowCall> slowCalls) {
+    return slowCalls.stream()
+        .map(slowCall -> slowCall.getArguments().get(0))
+        .collect(Collectors.toList());
+  }
+
+  @Repository
+  public static class SlowRepository {
+
+    private final Session session = StatementCapture.capturing(
+        (Session) Proxy.newProxyInstance(Session.class.getClassLoader(),
+            new Class<?>[]{Session.class}, (proxy, method, args) -> null));
+
+    public String find(String key, long delayMillis) {
+      session.execute(new SimpleStatement("SELECT * FROM config WHERE key=?", key));
+      try {
+        Thread.sleep(delayMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return key;
+    }
+
+    public void sleep(long delayMillis) {
+      try {
+        Thread.sleep(delayMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
@@ -0,0 +1,126 @@
+package com.findinpath.aop;
+
+import static com.findinpath.Utils.getExactlyOneTimer;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Verifies the resolution of the distribution statistics published by the repository timers.
+ */
+public class TimerDistributionsTest {
+
+  private static final DistributionStatisticConfig CRITICAL = DistributionStatisticConfig
+      .builder()
+      .percentiles(0.99)
+      .build();
+
+  @Test
+  public void defaultsApplyToTheMethodsWithoutOverride() {
+    var distribution = TimerDistributions.defaults()
+        .resolve("PlainRepository", method(PlainRepository.class, "find"));
+
+    assertThat(distribution.getPercentiles(),
+        equalTo(RepositoryTimerAspect.EXPORTED_PERCENTILES));
+  }
+
+  @Test
+  public void methodAnnotationTakesPrecedenceOverClassAnnotation() {
+    var distributions = TimerDistributions.defaults();
+
+    var annotatedMethod = distributions
+        .resolve("AnnotatedRepository", method(AnnotatedRepository.class, "findCritical"));
+    assertThat(annotatedMethod.getPercentiles(), equalTo(new double[]{0.99}));
+    assertThat(annotatedMethod.isPercentileHistogram(), equalTo(false));
+
+    var classAnnotated = distributions
+        .resolve("AnnotatedRepository", method(AnnotatedRepository.class, "find"));
+    assertThat(classAnnotated.getPercentiles(), equalTo(new double[0]));
+    assertThat(classAnnotated.isPercentileHistogram(), equalTo(true));
+    assertThat(classAnnotated.getSlaBoundaries(),
+        equalTo(new long[]{Duration.ofMillis(10).toNanos(), Duration.ofMillis(100).toNanos()}));
+    assertThat(classAnnotated.getExpiry(), equalTo(Duration.ofMinutes(1)));
+  }
+
+  @Test
+  public void overridesTakePrecedenceOverAnnotationsOfTheSameLevel() {
+    var classOverride = DistributionStatisticConfig.builder().percentiles(0.5).build();
+    var distributions = new TimerDistributions(TimerDistributions.DEFAULT_DISTRIBUTION, Map.of(
+        "AnnotatedRepository", classOverride,
+        "AnnotatedRepository.findCritical", CRITICAL));
+
+    assertThat(distributions
+            .resolve("AnnotatedRepository", method(AnnotatedRepository.class, "findCritical"))
+            .getPercentiles(),
+        equalTo(new double[]{0.99}));
+    assertThat(distributions
+            .resolve("AnnotatedRepository", method(AnnotatedRepository.class, "find"))
+            .getPercentiles(),
+        equalTo(new double[]{0.5}));
+  }
+
+  @Test
+  public void timersPublishTheResolvedDistribution() {
+    var meterRegistry = new SimpleMeterRegistry();
+    var proxyFactory = new AspectJProxyFactory(new AnnotatedRepository());
+    proxyFactory.addAspect(new RepositoryTimerAspect(meterRegistry));
+    AnnotatedRepository annotatedRepository = proxyFactory.getProxy();
+
+    annotatedRepository.find();
+    annotatedRepository.findCritical();
+
+    var snapshot = getExactlyOneTimer(meterRegistry.getMeters(),
+        RepositoryTimerAspect.REPOSITORY_METRIC_NAME,
+        Tag.of("class", "AnnotatedRepository"),
+        Tag.of("method", "find")).takeSnapshot();
+    assertThat(snapshot.percentileValues().length, equalTo(0));
+    // the simple registry publishes only the SLA buckets out of the percentiles histogram
+    assertThat(snapshot.histogramCounts().length, equalTo(2));
+
+    var criticalSnapshot = getExactlyOneTimer(meterRegistry.getMeters(),
+        RepositoryTimerAspect.REPOSITORY_METRIC_NAME,
+        Tag.of("class", "AnnotatedRepository"),
+        Tag.of("method", "findCritical")).takeSnapshot();
+    assertThat(criticalSnapshot.percentileValues().length, equalTo(1));
+    assertThat(criticalSnapshot.histogramCounts().length, equalTo(0));
+  }
+
+  private static Method method(Class<?> repositoryClass, String methodName) {
+    try {
+      return repositoryClass.getMethod(methodName);
+    } catch (NoSuchMethodException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Repository
+  public static class PlainRepository {
+
+    public String find() {
+      return "found";
+    }
+  }
+
+  @Repository
+  @TimerDistribution(percentilesHistogram = true, sla = {"10ms", "100ms"}, expiry = "1m")
+  public static class AnnotatedRepository {
+
+    public String find() {
+      return "found";
+    }
+
+    @TimerDistribution(percentiles = 0.99)
+    public String findCritical() {
+      return "found";
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package com.findinpath.benchmark;
+
+import com.findinpath.model.Config;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.concurrent.ListenableFuture;
+
+/**
+ * Measures the per call overhead of timing the methods of no-op repositories for the synchronous
+ * and {@link ListenableFuture} methods of both a class annotated with
+ * {@link org.springframework.stereotype.Repository} and a spring data
+ * {@link org.springframework.data.repository.CrudRepository}.
+ *
+ * The repositories are shared among the benchmark threads, so that the concrete subclasses
+ * can measure both the single threaded and the contended overhead.
+ *
+ * @see RepositoryTimingSetup
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public abstract class AbstractRepositoryTimingBenchmark {
+
+  private static final String KEY = "website";
+
+  @Param({"unadvised", "aspect", "sampledAspect", "interceptor"})
+  private String advice;
+
+  @Param({"simple", "prometheus"})
+  private String registry;
+
+  private NoOpUserBookmarkRepository userBookmarkRepository;
+
+  private NoOpConfigRepository configRepository;
+
+  @Setup
+  public void setUp() {
+    var meterRegistry = RepositoryTimingSetup.createMeterRegistry(registry);
+    userBookmarkRepository = RepositoryTimingSetup.createRepository(advice, meterRegistry,
+        new NoOpUserBookmarkRepository(), null);
+    configRepository = RepositoryTimingSetup.createRepository(advice, meterRegistry,
+        new NoOpConfigRepositoryImpl(), NoOpConfigRepository.class);
+  }
+
+  @Benchmark
+  public String repositorySync() {
+    return userBookmarkRepository.findLatestBookmark(KEY);
+  }
+
+  @Benchmark
+  public ListenableFuture<String> repositoryAsync() {
+    return userBookmarkRepository.findLatestBookmarkAsync(KEY);
+  }
+
+  @Benchmark
+  public Optional<Config> crudRepositorySync() {
+    return configRepository.findById(KEY);
+  }
+
+  @Benchmark
+  public ListenableFuture<Config> crudRepositoryAsync() {
+    return configRepository.findByKeyAsync(KEY);
+  }
+}
@@ -0,0 +1,112 @@
+package com.findinpath.benchmark;
+
+import com.datastax.driver.core.utils.UUIDs;
+import com.findinpath.aop.RepositoryTimerAspect;
+import com.findinpath.model.UserBookmark;
+import com.findinpath.model.UserBookmarkKey;
+import com.findinpath.repository.UserBookmarkBatchRepository;
+import com.findinpath.repository.UserBookmarkPageRepository;
+import com.findinpath.repository.UserBookmarkRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.util.concurrent.ListenableFuture;
+
+/**
+ * Compares the throughput (in rows per second) of saving bursts of bookmarks through the
+ * partition grouped batches of {@link UserBookmarkRepository#saveAllAsync(java.util.Collection)}
+ * against saving them one by one through {@link UserBookmarkRepository#saveAsync(UserBookmark)}
+ * on an embedded Cassandra database.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookmarkBatchWriteBenchmark {
+
+  private static final int USERS = 20;
+  private static final int BOOKMARKS_PER_USER = 50;
+  private static final int ROWS = USERS * BOOKMARKS_PER_USER;
+
+  private EmbeddedCassandra embeddedCassandra;
+  private UserBookmarkRepository userBookmarkRepository;
+  private List<UserBookmark> userBookmarks;
+
+  @Setup(Level.Trial)
+  public void startCassandra() throws Exception {
+    embeddedCassandra = EmbeddedCassandra.start();
+    var aspect = new RepositoryTimerAspect(new SimpleMeterRegistry());
+    var userBookmarkBatchRepository = createProxy(
+        new UserBookmarkBatchRepository(embeddedCassandra.getCassandraTemplate(),
+            embeddedCassandra.getAsyncCassandraTemplate()), aspect);
+    var userBookmarkPageRepository = createProxy(
+        new UserBookmarkPageRepository(embeddedCassandra.getCassandraTemplate()), aspect);
+    userBookmarkRepository = createProxy(
+        new UserBookmarkRepository(embeddedCassandra.getCassandraTemplate(),
+            embeddedCassandra.getAsyncCassandraTemplate(), userBookmarkBatchRepository,
+            userBookmarkPageRepository, 20, 8),
+        aspect);
+  }
+
+  @Setup(Level.Invocation)
+  public void createBookmarks() {
+    userBookmarks = new ArrayList<>(ROWS);
+    for (int user = 0; user < USERS; user++) {
+      var userId = UUID.randomUUID();
+      for (int i = 0; i < BOOKMARKS_PER_USER; i++) {
+        var userBookmark = new UserBookmark();
+        userBookmark.setPrimaryKey(new UserBookmarkKey(userId, UUIDs.timeBased()));
+        userBookmark.setUrl("https://www.findinpath.com/" + i);
+        userBookmarks.add(userBookmark);
+      }
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void stopCassandra() {
+    embeddedCassandra.stop();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public void saveAllAsync() throws Exception {
+    userBookmarkRepository.saveAllAsync(userBookmarks).get();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public void perRowSaveAsync() throws Exception {
+    var futures = new ArrayList<ListenableFuture<UserBookmark>>(ROWS);
+    for (var userBookmark : userBookmarks) {
+      futures.add(userBookmarkRepository.saveAsync(userBookmark));
+    }
+    for (var future : futures) {
+      future.get();
+    }
+  }
+
+  private static <T> T createProxy(T target, RepositoryTimerAspect aspect) {
+    var proxyFactory = new AspectJProxyFactory(target);
+    proxyFactory.setProxyTargetClass(true);
+    proxyFactory.addAspect(aspect);
+    return proxyFactory.getProxy();
+  }
+}
@@ -0,0 +1,110 @@
+package com.findinpath.benchmark;
+
+import com.datastax.driver.core.utils.UUIDs;
+import com.findinpath.model.UserBookmark;
+import com.findinpath.model.UserBookmarkKey;
+import com.findinpath.repository.UserBookmarkBatchRepository;
+import com.findinpath.repository.UserBookmarkPageRepository;
+import com.findinpath.repository.UserBookmarkRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the latency of retrieving the bookmarks of a user within a time range through the
+ * <code>minTimeuuid</code> / <code>maxTimeuuid</code> predicates evaluated by Cassandra
+ * ({@link UserBookmarkRepository#findBookmarksBetween(UUID, Instant, Instant, int)}) against the
+ * one of retrieving the whole partition and filtering the bookmarks on the client side.
+ *
+ * The user has one bookmark per hour, and the time range covers the most recent
+ * <code>rangeHours</code> hours, out of an older part of the partition which doesn't need to be
+ * read at all.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookmarksTimeRangeQueryBenchmark {
+
+  private static final int BOOKMARKS = 2000;
+
+  @Param({"24", "168"})
+  private int rangeHours;
+
+  private EmbeddedCassandra embeddedCassandra;
+  private UserBookmarkRepository userBookmarkRepository;
+  private UUID userId;
+  private Instant from;
+  private Instant to;
+
+  @Setup(Level.Trial)
+  public void startCassandra() throws Exception {
+    embeddedCassandra = EmbeddedCassandra.start();
+    var cassandraTemplate = embeddedCassandra.getCassandraTemplate();
+    var asyncCassandraTemplate = embeddedCassandra.getAsyncCassandraTemplate();
+    userBookmarkRepository = new UserBookmarkRepository(cassandraTemplate, asyncCassandraTemplate,
+        new UserBookmarkBatchRepository(cassandraTemplate, asyncCassandraTemplate),
+        new UserBookmarkPageRepository(cassandraTemplate), 20, 8);
+
+    userId = UUID.randomUUID();
+    var now = Instant.now();
+    var userBookmarks = new ArrayList<UserBookmark>(BOOKMARKS);
+    for (int i = 0; i < BOOKMARKS; i++) {
+      var userBookmark = new UserBookmark();
+      userBookmark.setPrimaryKey(new UserBookmarkKey(userId,
+          UUIDs.startOf(now.minus(Duration.ofHours(i)).toEpochMilli())));
+      userBookmark.setUrl("https://www.findinpath.com/" + i);
+      userBookmarks.add(userBookmark);
+    }
+    userBookmarkRepository.saveAll(userBookmarks);
+
+    to = now;
+    from = now.minus(Duration.ofHours(rangeHours)).plusMillis(1);
+  }
+
+  @TearDown(Level.Trial)
+  public void stopCassandra() {
+    embeddedCassandra.stop();
+  }
+
+  @Benchmark
+  public List<UserBookmark> rangeQuery() {
+    return userBookmarkRepository.findBookmarksBetween(userId, from, to, BOOKMARKS);
+  }
+
+  @Benchmark
+  public List<UserBookmark> rangeQueryAsync() throws Exception {
+    return userBookmarkRepository.findBookmarksBetweenAsync(userId, from, to, BOOKMARKS).get();
+  }
+
+  @Benchmark
+  public List<UserBookmark> clientSideFiltering() {
+    var fromMillis = from.toEpochMilli();
+    var toMillis = to.toEpochMilli();
+    return userBookmarkRepository.findLatestBookmarks(userId, BOOKMARKS).stream()
+        .filter(userBookmark -> {
+          var millis = UUIDs.unixTimestamp(userBookmark.getPrimaryKey().getTimestamp());
+          return millis >= fromMillis && millis <= toMillis;
+        })
+        .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,12 @@
+package com.findinpath.benchmark;
+
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Contended variant of the {@link AbstractRepositoryTimingBenchmark} where the benchmark threads
+ * record concurrently on the same repository timers.
+ */
+@Threads(8)
+public class ContendedRepositoryTimingBenchmark extends AbstractRepositoryTimingBenchmark {
+
+}
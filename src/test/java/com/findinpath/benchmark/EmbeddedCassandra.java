@@ -0,0 +1,64 @@
+package com.findinpath.benchmark;
+
+import com.datastax.driver.core.Session;
+import org.cassandraunit.CQLDataLoader;
+import org.cassandraunit.dataset.cql.ClassPathCQLDataSet;
+import org.cassandraunit.utils.EmbeddedCassandraServerHelper;
+import org.springframework.data.cassandra.core.AsyncCassandraTemplate;
+import org.springframework.data.cassandra.core.CassandraTemplate;
+import org.springframework.data.cassandra.core.convert.MappingCassandraConverter;
+import org.springframework.data.cassandra.core.mapping.CassandraMappingContext;
+
+/**
+ * Embedded Cassandra database (through cassandra-unit) having the <code>demo</code> keyspace
+ * set up, for the benchmarks which need to measure the interaction with the database.
+ *
+ * The embedded Cassandra database runs within the benchmark JVM, reason why the benchmarks
+ * making use of it should be compared only relative to each other.
+ */
+final class EmbeddedCassandra {
+
+  private static final String KEYSPACE = "demo";
+  private static final String CASSANDRA_INIT_SCRIPT = "demo.cql";
+  private static final long STARTUP_TIMEOUT_MILLIS = 60_000L;
+
+  private final Session session;
+  private final CassandraTemplate cassandraTemplate;
+  private final AsyncCassandraTemplate asyncCassandraTemplate;
+
+  private EmbeddedCassandra(Session session) {
+    this.session = session;
+    var converter = new MappingCassandraConverter(new CassandraMappingContext());
+    converter.afterPropertiesSet();
+    this.cassandraTemplate = new CassandraTemplate(session, converter);
+    this.asyncCassandraTemplate = new AsyncCassandraTemplate(session, converter);
+  }
+
+  static EmbeddedCassandra start() throws Exception {
+    EmbeddedCassandraServerHelper.startEmbeddedCassandra(STARTUP_TIMEOUT_MILLIS);
+    var cluster = EmbeddedCassandraServerHelper.getCluster();
+
+    var setupSession = cluster.connect();
+    new CQLDataLoader(setupSession).load(new ClassPathCQLDataSet(CASSANDRA_INIT_SCRIPT, KEYSPACE));
+    setupSession.close();
+
+    return new EmbeddedCassandra(cluster.connect(KEYSPACE));
+  }
+
+  Session getSession() {
+    return session;
+  }
+
+  CassandraTemplate getCassandraTemplate() {
+    return cassandraTemplate;
+  }
+
+  AsyncCassandraTemplate getAsyncCassandraTemplate() {
+    return asyncCassandraTemplate;
+  }
+
+  void stop() {
+    session.close();
+    EmbeddedCassandraServerHelper.cleanEmbeddedCassandra();
+  }
+}
@@ -0,0 +1,106 @@
+package com.findinpath.benchmark;
+
+import static com.datastax.driver.core.querybuilder.QueryBuilder.eq;
+
+import com.datastax.driver.core.querybuilder.QueryBuilder;
+import com.datastax.driver.core.utils.UUIDs;
+import com.findinpath.model.UserBookmark;
+import com.findinpath.model.UserBookmarkKey;
+import com.findinpath.repository.UserBookmarkBatchRepository;
+import com.findinpath.repository.UserBookmarkPageRepository;
+import com.findinpath.repository.UserBookmarkRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the latency of retrieving the latest bookmarks of a user through the statement
+ * prepared once by {@link UserBookmarkRepository} against the one of building and sending a
+ * simple statement on each call (which needs to be parsed by Cassandra each time).
+ *
+ * As the embedded Cassandra database runs within the benchmark JVM, the CPU difference shows up
+ * in the measured latencies as well. It can be broken down further with a CPU profiler (e.g. :
+ * <code>-Djmh.args="-prof stack"</code> or <code>-prof perfnorm</code> on Linux).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LatestBookmarksQueryBenchmark {
+
+  private static final int BOOKMARKS = 100;
+
+  @Param({"10", "100"})
+  private int limit;
+
+  private EmbeddedCassandra embeddedCassandra;
+  private UserBookmarkRepository userBookmarkRepository;
+  private String tableName;
+  private UUID userId;
+
+  @Setup(Level.Trial)
+  public void startCassandra() throws Exception {
+    embeddedCassandra = EmbeddedCassandra.start();
+    var cassandraTemplate = embeddedCassandra.getCassandraTemplate();
+    var asyncCassandraTemplate = embeddedCassandra.getAsyncCassandraTemplate();
+    userBookmarkRepository = new UserBookmarkRepository(cassandraTemplate, asyncCassandraTemplate,
+        new UserBookmarkBatchRepository(cassandraTemplate, asyncCassandraTemplate),
+        new UserBookmarkPageRepository(cassandraTemplate), 20, 8);
+    tableName = cassandraTemplate.getTableName(UserBookmark.class).toCql();
+
+    userId = UUID.randomUUID();
+    var userBookmarks = new ArrayList<UserBookmark>(BOOKMARKS);
+    for (int i = 0; i < BOOKMARKS; i++) {
+      var userBookmark = new UserBookmark();
+      userBookmark.setPrimaryKey(new UserBookmarkKey(userId, UUIDs.timeBased()));
+      userBookmark.setUrl("https://www.findinpath.com/" + i);
+      userBookmarks.add(userBookmark);
+    }
+    userBookmarkRepository.saveAll(userBookmarks);
+  }
+
+  @TearDown(Level.Trial)
+  public void stopCassandra() {
+    embeddedCassandra.stop();
+  }
+
+  @Benchmark
+  public List<UserBookmark> simpleStatement() {
+    var select = QueryBuilder.select().from(tableName);
+    select.where(eq(UserBookmarkKey.USER_ID_FIELD_NAME, userId)).limit(limit);
+    return embeddedCassandra.getCassandraTemplate().select(select, UserBookmark.class);
+  }
+
+  @Benchmark
+  public List<UserBookmark> simpleStatementAsync() throws Exception {
+    var select = QueryBuilder.select().from(tableName);
+    select.where(eq(UserBookmarkKey.USER_ID_FIELD_NAME, userId)).limit(limit);
+    return embeddedCassandra.getAsyncCassandraTemplate().select(select, UserBookmark.class).get();
+  }
+
+  @Benchmark
+  public List<UserBookmark> preparedStatement() {
+    return userBookmarkRepository.findLatestBookmarks(userId, limit);
+  }
+
+  @Benchmark
+  public List<UserBookmark> preparedStatementAsync() throws Exception {
+    return userBookmarkRepository.findLatestBookmarksAsync(userId, limit).get();
+  }
+}
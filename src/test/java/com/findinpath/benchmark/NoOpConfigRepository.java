@@ -0,0 +1,14 @@
+package com.findinpath.benchmark;
+
+import com.findinpath.model.Config;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.util.concurrent.ListenableFuture;
+
+/**
+ * Spring data repository interface implemented by the no-op {@link NoOpConfigRepositoryImpl}
+ * stub.
+ */
+public interface NoOpConfigRepository extends CrudRepository<Config, String> {
+
+  ListenableFuture<Config> findByKeyAsync(String key);
+}
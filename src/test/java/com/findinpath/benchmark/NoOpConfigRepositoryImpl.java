@@ -0,0 +1,81 @@
+package com.findinpath.benchmark;
+
+import com.findinpath.model.Config;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.scheduling.annotation.AsyncResult;
+import org.springframework.util.concurrent.ListenableFuture;
+
+/**
+ * No-op stub of a spring data {@link org.springframework.data.repository.CrudRepository}, used
+ * for measuring exclusively the overhead of timing the repository methods.
+ */
+public class NoOpConfigRepositoryImpl implements NoOpConfigRepository {
+
+  private static final Config CONFIG = new Config();
+
+  private static final Optional<Config> OPTIONAL_CONFIG = Optional.of(CONFIG);
+
+  private static final ListenableFuture<Config> COMPLETED_CONFIG = new AsyncResult<>(CONFIG);
+
+  static {
+    CONFIG.setKey("website");
+    CONFIG.setValue("https://www.findinpath.com");
+  }
+
+  @Override
+  public ListenableFuture<Config> findByKeyAsync(String key) {
+    return COMPLETED_CONFIG;
+  }
+
+  @Override
+  public <S extends Config> S save(S entity) {
+    return entity;
+  }
+
+  @Override
+  public <S extends Config> Iterable<S> saveAll(Iterable<S> entities) {
+    return entities;
+  }
+
+  @Override
+  public Optional<Config> findById(String key) {
+    return OPTIONAL_CONFIG;
+  }
+
+  @Override
+  public boolean existsById(String key) {
+    return true;
+  }
+
+  @Override
+  public Iterable<Config> findAll() {
+    return List.of(CONFIG);
+  }
+
+  @Override
+  public Iterable<Config> findAllById(Iterable<String> keys) {
+    return List.of(CONFIG);
+  }
+
+  @Override
+  public long count() {
+    return 1;
+  }
+
+  @Override
+  public void deleteById(String key) {
+  }
+
+  @Override
+  public void delete(Config entity) {
+  }
+
+  @Override
+  public void deleteAll(Iterable<? extends Config> entities) {
+  }
+
+  @Override
+  public void deleteAll() {
+  }
+}
@@ -0,0 +1,25 @@
+package com.findinpath.benchmark;
+
+import org.springframework.scheduling.annotation.AsyncResult;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.concurrent.ListenableFuture;
+
+/**
+ * No-op stub of a class annotated with the {@link Repository} annotation, used for measuring
+ * exclusively the overhead of timing the repository methods.
+ */
+@Repository
+public class NoOpUserBookmarkRepository {
+
+  private static final String BOOKMARK = "https://www.findinpath.com";
+
+  private static final ListenableFuture<String> COMPLETED_BOOKMARK = new AsyncResult<>(BOOKMARK);
+
+  public String findLatestBookmark(String userId) {
+    return BOOKMARK;
+  }
+
+  public ListenableFuture<String> findLatestBookmarkAsync(String userId) {
+    return COMPLETED_BOOKMARK;
+  }
+}
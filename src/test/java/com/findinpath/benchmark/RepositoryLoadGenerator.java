@@ -0,0 +1,441 @@
+package com.findinpath.benchmark;
+
+import com.datastax.driver.core.utils.UUIDs;
+import com.findinpath.aop.RepositoryTimerAspect;
+import com.findinpath.aop.RepositoryTimerFeatures;
+import com.findinpath.aop.TimerDistributions;
+import com.findinpath.aop.TimingSampling;
+import com.findinpath.model.UserBookmark;
+import com.findinpath.model.UserBookmarkKey;
+import com.findinpath.repository.UserBookmarkBatchRepository;
+import com.findinpath.repository.UserBookmarkPageRepository;
+import com.findinpath.repository.UserBookmarkRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.util.concurrent.ListenableFuture;
+
+/**
+ * Sustained-load generator running a mix of the {@link UserBookmarkRepository} methods against
+ * an embedded Cassandra database, at a target request rate.
+ *
+ * The requests are issued by the worker threads on a fixed schedule (open model), so that their
+ * latency is measured from the moment when they should have been sent and not only from the
+ * moment when they were actually sent. A worker blocked by a slow synchronous call delays the
+ * sending of its next requests, and the delay gets accounted to their latency, which corrects
+ * the measurements for the coordinated omission. Both the corrected and the uncorrected
+ * latencies are recorded in HdrHistograms and reported next to the percentiles of the
+ * <code>repository</code> timers of the {@link RepositoryTimerAspect}, which measure, like the
+ * production dashboards, only from the moment when the repository method gets called. The
+ * latencies of the failed requests are recorded in histograms of their own, reported next to the
+ * timers of the non-successful outcomes, so that the slow failures (e.g. : timeouts) don't go
+ * unnoticed.
+ *
+ * The settings are specified as <code>key=value</code> arguments (see {@link Settings}), e.g. :
+ *
+ * <pre>
+ *   mvn -Pload-test verify -Dload.args="rate=2000 concurrency=16 async-ratio=0.5 read-ratio=0.8"
+ * </pre>
+ */
+public final class RepositoryLoadGenerator {
+
+  private static final long HIGHEST_TRACKABLE_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(10);
+  private static final int SIGNIFICANT_DIGITS = 3;
+  private static final double[] REPORTED_PERCENTILES = {0.5, 0.9, 0.99, 0.999};
+  private static final int BOOKMARKS_PER_USER = 10;
+
+  private final Settings settings;
+  private final EmbeddedCassandra embeddedCassandra;
+  private final List<UUID> userIds = new ArrayList<>();
+
+  private RepositoryLoadGenerator(Settings settings, EmbeddedCassandra embeddedCassandra) {
+    this.settings = settings;
+    this.embeddedCassandra = embeddedCassandra;
+  }
+
+  public static void main(String[] args) throws Exception {
+    var settings = Settings.parse(args);
+    var embeddedCassandra = EmbeddedCassandra.start();
+    try {
+      new RepositoryLoadGenerator(settings, embeddedCassandra).run();
+    } finally {
+      embeddedCassandra.stop();
+    }
+    // the embedded Cassandra database leaves non-daemon threads behind
+    System.exit(0);
+  }
+
+  private void run() throws InterruptedException {
+    System.out.println("Load settings: " + settings);
+    populate();
+
+    // the warmup runs against its own registry, so that the reported timers cover exactly the
+    // measured phase
+    System.out.println("Warming up for " + settings.warmup);
+    new LoadPhase(createRepository(new SimpleMeterRegistry())).run(settings.warmup);
+
+    System.out.println("Measuring for " + settings.duration);
+    var meterRegistry = new SimpleMeterRegistry();
+    var phase = new LoadPhase(createRepository(meterRegistry));
+    phase.run(settings.duration);
+
+    report(phase, meterRegistry);
+  }
+
+  private void populate() {
+    var repository = createRepository(new SimpleMeterRegistry());
+    for (int i = 0; i < settings.users; i++) {
+      var userId = UUID.randomUUID();
+      userIds.add(userId);
+      var userBookmarks = new ArrayList<UserBookmark>(BOOKMARKS_PER_USER);
+      for (int j = 0; j < BOOKMARKS_PER_USER; j++) {
+        userBookmarks.add(createUserBookmark(userId));
+      }
+      repository.saveAll(userBookmarks);
+    }
+  }
+
+  private UserBookmarkRepository createRepository(MeterRegistry meterRegistry) {
+    var cassandraTemplate = embeddedCassandra.getCassandraTemplate();
+    var asyncCassandraTemplate = embeddedCassandra.getAsyncCassandraTemplate();
+    var target = new UserBookmarkRepository(cassandraTemplate, asyncCassandraTemplate,
+        new UserBookmarkBatchRepository(cassandraTemplate, asyncCassandraTemplate),
+        new UserBookmarkPageRepository(cassandraTemplate), 20, 8);
+    // the client side percentiles of the timers are kept for the whole measured phase
+    var distribution = DistributionStatisticConfig.builder()
+        .percentiles(REPORTED_PERCENTILES)
+        .expiry(settings.duration.multipliedBy(2))
+        .bufferLength(1)
+        .build();
+    var proxyFactory = new AspectJProxyFactory(target);
+    proxyFactory.setProxyTargetClass(true);
+    proxyFactory.addAspect(new RepositoryTimerAspect(meterRegistry, TimingSampling.none(),
+        new TimerDistributions(distribution, Map.of()), RepositoryTimerFeatures.none()));
+    return proxyFactory.getProxy();
+  }
+
+  private static UserBookmark createUserBookmark(UUID userId) {
+    var userBookmark = new UserBookmark();
+    userBookmark.setPrimaryKey(new UserBookmarkKey(userId, UUIDs.timeBased()));
+    userBookmark.setUrl("https://www.findinpath.com/" + UUID.randomUUID());
+    return userBookmark;
+  }
+
+  private void report(LoadPhase phase, MeterRegistry meterRegistry) {
+    var seconds = settings.duration.toNanos() / (double) TimeUnit.SECONDS.toNanos(1);
+    System.out.printf("%nAchieved %.1f requests/s (target %d requests/s), %d failed requests%n",
+        phase.completed.sum() / seconds, settings.rate, phase.failed.sum());
+    System.out.printf("%-10s %-26s %10s %10s %10s %10s %10s %10s%n", "operation", "latency (ms)",
+        "count", "p50", "p90", "p99", "p99.9", "max");
+    for (var operation : Operation.values()) {
+      printHistogram(operation, "corrected", phase.correctedLatencies.get(operation));
+      printHistogram(operation, "uncorrected", phase.uncorrectedLatencies.get(operation));
+      // the striped timers, which would not be found as timers, are not enabled here
+      var timer = meterRegistry.find(RepositoryTimerAspect.REPOSITORY_METRIC_NAME)
+          .tag("method", operation.methodName)
+          .tag("successful", "true")
+          .timer();
+      if (timer != null) {
+        printTimer(operation, "repository timer", timer);
+      }
+      if (phase.failedCorrectedLatencies.get(operation).getTotalCount() > 0) {
+        printHistogram(operation, "failed corrected",
+            phase.failedCorrectedLatencies.get(operation));
+        printHistogram(operation, "failed uncorrected",
+            phase.failedUncorrectedLatencies.get(operation));
+      }
+      for (var failedTimer : meterRegistry.find(RepositoryTimerAspect.REPOSITORY_METRIC_NAME)
+          .tag("method", operation.methodName)
+          .tag("successful", "false")
+          .timers()) {
+        printTimer(operation, "repository timer " + failedTimer.getId().getTag("outcome"),
+            failedTimer);
+      }
+    }
+  }
+
+  private static void printHistogram(Operation operation, String kind, Histogram histogram) {
+    System.out.printf("%-10s %-26s %10d", operation.label, kind, histogram.getTotalCount());
+    for (var percentile : REPORTED_PERCENTILES) {
+      System.out.printf(" %10.3f", toMillis(histogram.getValueAtPercentile(percentile * 100)));
+    }
+    System.out.printf(" %10.3f%n", toMillis(histogram.getMaxValue()));
+  }
+
+  private static void printTimer(Operation operation, String kind, Timer timer) {
+    var snapshot = timer.takeSnapshot();
+    System.out.printf("%-10s %-26s %10d", operation.label, kind, snapshot.count());
+    for (ValueAtPercentile valueAtPercentile : snapshot.percentileValues()) {
+      System.out.printf(" %10.3f", valueAtPercentile.value(TimeUnit.MILLISECONDS));
+    }
+    System.out.printf(" %10.3f%n", snapshot.max(TimeUnit.MILLISECONDS));
+  }
+
+  private static double toMillis(long nanos) {
+    return nanos / 1_000_000.0;
+  }
+
+  private enum Operation {
+    READ_SYNC("read", "findLatestBookmarks"),
+    READ_ASYNC("read-async", "findLatestBookmarksAsync"),
+    WRITE_SYNC("write", "save"),
+    WRITE_ASYNC("write-async", "saveAsync");
+
+    private final String label;
+    private final String methodName;
+
+    Operation(String label, String methodName) {
+      this.label = label;
+      this.methodName = methodName;
+    }
+  }
+
+  /**
+   * Runs the configured load for a given duration and records the latencies of the requests.
+   */
+  private final class LoadPhase {
+
+    private final UserBookmarkRepository repository;
+    private final Map<Operation, Histogram> correctedLatencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, Histogram> uncorrectedLatencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, Histogram> failedCorrectedLatencies =
+        new EnumMap<>(Operation.class);
+    private final Map<Operation, Histogram> failedUncorrectedLatencies =
+        new EnumMap<>(Operation.class);
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder pending = new LongAdder();
+
+    private LoadPhase(UserBookmarkRepository repository) {
+      this.repository = repository;
+      for (var operation : Operation.values()) {
+        correctedLatencies.put(operation,
+            new ConcurrentHistogram(HIGHEST_TRACKABLE_LATENCY_NANOS, SIGNIFICANT_DIGITS));
+        uncorrectedLatencies.put(operation,
+            new ConcurrentHistogram(HIGHEST_TRACKABLE_LATENCY_NANOS, SIGNIFICANT_DIGITS));
+        failedCorrectedLatencies.put(operation,
+            new ConcurrentHistogram(HIGHEST_TRACKABLE_LATENCY_NANOS, SIGNIFICANT_DIGITS));
+        failedUncorrectedLatencies.put(operation,
+            new ConcurrentHistogram(HIGHEST_TRACKABLE_LATENCY_NANOS, SIGNIFICANT_DIGITS));
+      }
+    }
+
+    void run(Duration duration) throws InterruptedException {
+      // each of the workers sends its share of the target rate, at a fixed interval
+      var intervalNanos = TimeUnit.SECONDS.toNanos(1) * settings.concurrency / settings.rate;
+      var startNanos = System.nanoTime();
+      var endNanos = startNanos + duration.toNanos();
+      ExecutorService workers = Executors.newFixedThreadPool(settings.concurrency);
+      for (int worker = 0; worker < settings.concurrency; worker++) {
+        // the workers are staggered, so that the requests are evenly spread over time
+        var firstIntendedNanos = startNanos + intervalNanos * worker / settings.concurrency;
+        workers.execute(() -> runWorker(firstIntendedNanos, intervalNanos, endNanos));
+      }
+      workers.shutdown();
+      workers.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS);
+      awaitPendingRequests();
+    }
+
+    private void runWorker(long firstIntendedNanos, long intervalNanos, long endNanos) {
+      for (var intendedNanos = firstIntendedNanos; intendedNanos < endNanos;
+          intendedNanos += intervalNanos) {
+        var delayNanos = intendedNanos - System.nanoTime();
+        if (delayNanos > 0) {
+          LockSupport.parkNanos(delayNanos);
+        }
+        send(nextOperation(), intendedNanos);
+      }
+    }
+
+    private Operation nextOperation() {
+      var random = ThreadLocalRandom.current();
+      var read = random.nextDouble() < settings.readRatio;
+      var async = random.nextDouble() < settings.asyncRatio;
+      if (read) {
+        return async ? Operation.READ_ASYNC : Operation.READ_SYNC;
+      }
+      return async ? Operation.WRITE_ASYNC : Operation.WRITE_SYNC;
+    }
+
+    private void send(Operation operation, long intendedNanos) {
+      var userId = userIds.get(ThreadLocalRandom.current().nextInt(userIds.size()));
+      var sentNanos = System.nanoTime();
+      try {
+        switch (operation) {
+          case READ_SYNC:
+            repository.findLatestBookmarks(userId, settings.limit);
+            record(operation, intendedNanos, sentNanos, true);
+            break;
+          case READ_ASYNC:
+            recordOnCompletion(repository.findLatestBookmarksAsync(userId, settings.limit),
+                operation, intendedNanos, sentNanos);
+            break;
+          case WRITE_SYNC:
+            repository.save(createUserBookmark(userId));
+            record(operation, intendedNanos, sentNanos, true);
+            break;
+          default:
+            recordOnCompletion(repository.saveAsync(createUserBookmark(userId)), operation,
+                intendedNanos, sentNanos);
+        }
+      } catch (RuntimeException e) {
+        record(operation, intendedNanos, sentNanos, false);
+      }
+    }
+
+    private void recordOnCompletion(ListenableFuture<?> result, Operation operation,
+        long intendedNanos, long sentNanos) {
+      pending.increment();
+      result.addCallback(
+          value -> {
+            record(operation, intendedNanos, sentNanos, true);
+            pending.decrement();
+          },
+          ex -> {
+            record(operation, intendedNanos, sentNanos, false);
+            pending.decrement();
+          });
+    }
+
+    private void record(Operation operation, long intendedNanos, long sentNanos,
+        boolean successful) {
+      var completedNanos = System.nanoTime();
+      if (successful) {
+        completed.increment();
+      } else {
+        failed.increment();
+      }
+      (successful ? correctedLatencies : failedCorrectedLatencies).get(operation).recordValue(
+          Math.min(completedNanos - intendedNanos, HIGHEST_TRACKABLE_LATENCY_NANOS));
+      (successful ? uncorrectedLatencies : failedUncorrectedLatencies).get(operation).recordValue(
+          Math.min(completedNanos - sentNanos, HIGHEST_TRACKABLE_LATENCY_NANOS));
+    }
+
+    private void awaitPendingRequests() {
+      var deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+      while (pending.sum() > 0 && System.nanoTime() < deadlineNanos) {
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+      }
+    }
+  }
+
+  /**
+   * Settings of the load, specified as <code>key=value</code> arguments.
+   */
+  static final class Settings {
+
+    /**
+     * <code>concurrency</code>: the number of worker threads sending the requests.
+     */
+    private int concurrency = 16;
+
+    /**
+     * <code>rate</code>: the target number of requests per second, over all the workers.
+     */
+    private int rate = 1000;
+
+    /**
+     * <code>duration</code>: the duration of the measured phase, in seconds.
+     */
+    private Duration duration = Duration.ofSeconds(60);
+
+    /**
+     * <code>warmup</code>: the duration of the warmup phase, in seconds.
+     */
+    private Duration warmup = Duration.ofSeconds(15);
+
+    /**
+     * <code>async-ratio</code>: the ratio of the requests sent through the asynchronous methods.
+     */
+    private double asyncRatio = 0.5;
+
+    /**
+     * <code>read-ratio</code>: the ratio of the read requests (the others being writes).
+     */
+    private double readRatio = 0.8;
+
+    /**
+     * <code>users</code>: the number of users (partitions) among which the requests are spread.
+     */
+    private int users = 1000;
+
+    /**
+     * <code>limit</code>: the number of the latest bookmarks retrieved by the reads.
+     */
+    private int limit = 10;
+
+    static Settings parse(String[] args) {
+      var values = new HashMap<String, String>();
+      for (var arg : args) {
+        var separator = arg.indexOf('=');
+        if (separator < 0) {
+          throw new IllegalArgumentException("Expected a key=value argument instead of " + arg);
+        }
+        values.put(arg.substring(0, separator), arg.substring(separator + 1));
+      }
+      var settings = new Settings();
+      for (var entry : values.entrySet()) {
+        var value = entry.getValue();
+        switch (entry.getKey()) {
+          case "concurrency":
+            settings.concurrency = Integer.parseInt(value);
+            break;
+          case "rate":
+            settings.rate = Integer.parseInt(value);
+            break;
+          case "duration":
+            settings.duration = Duration.ofSeconds(Long.parseLong(value));
+            break;
+          case "warmup":
+            settings.warmup = Duration.ofSeconds(Long.parseLong(value));
+            break;
+          case "async-ratio":
+            settings.asyncRatio = Double.parseDouble(value);
+            break;
+          case "read-ratio":
+            settings.readRatio = Double.parseDouble(value);
+            break;
+          case "users":
+            settings.users = Integer.parseInt(value);
+            break;
+          case "limit":
+            settings.limit = Integer.parseInt(value);
+            break;
+          default:
+            throw new IllegalArgumentException("Unknown setting " + entry.getKey());
+        }
+      }
+      return settings;
+    }
+
+    @Override
+    public String toString() {
+      return "concurrency=" + concurrency
+          + ", rate=" + rate
+          + ", duration=" + duration.toSeconds() + "s"
+          + ", warmup=" + warmup.toSeconds() + "s"
+          + ", async-ratio=" + asyncRatio
+          + ", read-ratio=" + readRatio
+          + ", users=" + users
+          + ", limit=" + limit;
+    }
+  }
+}
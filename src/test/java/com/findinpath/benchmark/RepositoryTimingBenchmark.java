@@ -0,0 +1,11 @@
+package com.findinpath.benchmark;
+
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Single threaded variant of the {@link AbstractRepositoryTimingBenchmark}.
+ */
+@Threads(1)
+public class RepositoryTimingBenchmark extends AbstractRepositoryTimingBenchmark {
+
+}
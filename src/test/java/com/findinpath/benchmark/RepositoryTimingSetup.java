@@ -0,0 +1,109 @@
+package com.findinpath.benchmark;
+
+import com.findinpath.aop.RepositoryTimerAspect;
+import com.findinpath.aop.TimingSampling;
+import com.findinpath.aop.WovenRepository;
+import com.findinpath.aop.WovenRepositoryTimerAspect;
+import com.findinpath.config.RepositoryTimerConfiguration;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.aop.framework.AdvisedSupport;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.data.repository.Repository;
+
+/**
+ * Creates the repository beans to be benchmarked, in the same way in which the spring
+ * application context would create them, for each of the supported timing setups.
+ */
+final class RepositoryTimingSetup {
+
+  /**
+   * Same pointcut as the one used by the {@link RepositoryTimerAspect} and in the
+   * <code>repository-timer-aop-config.xml</code> file.
+   */
+  static final String REPOSITORY_POINTCUT_EXPRESSION =
+      "(execution(public * org.springframework.data.repository.Repository+.*(..)) "
+          + "||  within(@org.springframework.stereotype.Repository *)) "
+          + "&& !within(@com.findinpath.aop.NotTimed *) "
+          + "&& !within(com.findinpath.aop.WovenRepository+)";
+
+  static final int SAMPLING_RATE = 100;
+
+  private RepositoryTimingSetup() {
+  }
+
+  static MeterRegistry createMeterRegistry(String registry) {
+    switch (registry) {
+      case "simple":
+        return new SimpleMeterRegistry();
+      case "prometheus":
+        return new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+      default:
+        throw new IllegalArgumentException("Unknown meter registry " + registry);
+    }
+  }
+
+  /**
+   * Creates a proxy for the specified repository.
+   *
+   * @param advice one of <code>unadvised</code>, <code>aspect</code>, <code>sampledAspect</code>
+   * (timing one out of {@link #SAMPLING_RATE} calls), <code>interceptor</code> or
+   * <code>woven</code> (only with the classes woven through the <code>aspectj-weaving</code>
+   * Maven profile)
+   * @param meterRegistry the registry where the repository timers are published
+   * @param target the repository to be proxied
+   * @param repositoryInterface the spring data repository interface or <code>null</code> for the
+   * classes annotated with {@link org.springframework.stereotype.Repository}
+   * @return the repository bean
+   */
+  static <T> T createRepository(String advice, MeterRegistry meterRegistry, T target,
+      Class<?> repositoryInterface) {
+    switch (advice) {
+      case "unadvised":
+        return target;
+      case "aspect":
+        var aspectJProxyFactory = new AspectJProxyFactory(target);
+        setProxiedType(aspectJProxyFactory, repositoryInterface);
+        aspectJProxyFactory.addAspect(new RepositoryTimerAspect(meterRegistry));
+        return aspectJProxyFactory.getProxy();
+      case "sampledAspect":
+        var sampledProxyFactory = new AspectJProxyFactory(target);
+        setProxiedType(sampledProxyFactory, repositoryInterface);
+        sampledProxyFactory.addAspect(new RepositoryTimerAspect(meterRegistry,
+            TimingSampling.fixed(SAMPLING_RATE)));
+        return sampledProxyFactory.getProxy();
+      case "interceptor":
+        var proxyFactory = new ProxyFactory(target);
+        setProxiedType(proxyFactory, repositoryInterface);
+        var pointcut = new AspectJExpressionPointcut();
+        pointcut.setExpression(REPOSITORY_POINTCUT_EXPRESSION);
+        proxyFactory.addAdvisor(new DefaultPointcutAdvisor(pointcut,
+            new RepositoryTimerConfiguration().repositoryTimerMethodInterceptor(meterRegistry)));
+        //noinspection unchecked
+        return (T) proxyFactory.getProxy();
+      case "woven":
+        if (!(target instanceof WovenRepository)) {
+          throw new IllegalStateException(target.getClass().getSimpleName()
+              + " has not been woven, build with the aspectj-weaving Maven profile");
+        }
+        WovenRepositoryTimerAspect.bind(new RepositoryTimerAspect(meterRegistry));
+        return target;
+      default:
+        throw new IllegalArgumentException("Unknown advice " + advice);
+    }
+  }
+
+  private static void setProxiedType(AdvisedSupport proxyConfig, Class<?> repositoryInterface) {
+    if (repositoryInterface == null) {
+      proxyConfig.setProxyTargetClass(true);
+    } else {
+      // spring data proxies both the repository interface and the Repository marker interface
+      proxyConfig.setInterfaces(repositoryInterface, Repository.class);
+    }
+  }
+}
@@ -0,0 +1,143 @@
+package com.findinpath.benchmark;
+
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.querybuilder.QueryBuilder;
+import com.datastax.driver.core.utils.UUIDs;
+import com.findinpath.mapping.RowMappingCassandraConverter;
+import com.findinpath.model.Config;
+import com.findinpath.model.UserBookmark;
+import com.findinpath.model.UserBookmarkKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.cassandra.core.convert.CassandraConverter;
+
+/**
+ * Compares the per row cost of mapping the rows to {@link UserBookmark} and {@link Config}
+ * entities (and the entities to insert statements) through the reflective
+ * {@link org.springframework.data.cassandra.core.convert.MappingCassandraConverter} against the
+ * one of the pre-built row mappers of the {@link RowMappingCassandraConverter}.
+ *
+ * The rows are read once out of the embedded Cassandra database, so that only the mapping gets
+ * measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RowMappingBenchmark {
+
+  private static final int ROWS = 1000;
+
+  private EmbeddedCassandra embeddedCassandra;
+  private CassandraConverter reflectiveConverter;
+  private CassandraConverter rowMappingConverter;
+  private String userBookmarksTable;
+  private List<Row> userBookmarkRows;
+  private List<Row> configRows;
+  private List<UserBookmark> userBookmarks;
+
+  @Setup(Level.Trial)
+  public void startCassandra() throws Exception {
+    embeddedCassandra = EmbeddedCassandra.start();
+    var cassandraTemplate = embeddedCassandra.getCassandraTemplate();
+    reflectiveConverter = cassandraTemplate.getConverter();
+    var converter = new RowMappingCassandraConverter(reflectiveConverter.getMappingContext());
+    converter.afterPropertiesSet();
+    rowMappingConverter = converter;
+
+    var userId = UUID.randomUUID();
+    userBookmarks = new ArrayList<>(ROWS);
+    for (int i = 0; i < ROWS; i++) {
+      var userBookmark = new UserBookmark();
+      userBookmark.setPrimaryKey(new UserBookmarkKey(userId, UUIDs.timeBased()));
+      userBookmark.setUrl("https://www.findinpath.com/" + i);
+      userBookmarks.add(userBookmark);
+      cassandraTemplate.insert(userBookmark);
+
+      var config = new Config();
+      config.setKey("key" + i);
+      config.setValue("https://www.findinpath.com/" + i);
+      cassandraTemplate.insert(config);
+    }
+
+    var session = embeddedCassandra.getSession();
+    userBookmarksTable = cassandraTemplate.getTableName(UserBookmark.class).toCql();
+    userBookmarkRows = session.execute(QueryBuilder.select().from(userBookmarksTable)).all();
+    configRows = session.execute(QueryBuilder.select()
+        .from(cassandraTemplate.getTableName(Config.class).toCql())).all();
+  }
+
+  @TearDown(Level.Trial)
+  public void stopCassandra() {
+    embeddedCassandra.stop();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public void readUserBookmarksReflective(Blackhole blackhole) {
+    readRows(reflectiveConverter, UserBookmark.class, userBookmarkRows, blackhole);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public void readUserBookmarksRowMapper(Blackhole blackhole) {
+    readRows(rowMappingConverter, UserBookmark.class, userBookmarkRows, blackhole);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public void readConfigsReflective(Blackhole blackhole) {
+    readRows(reflectiveConverter, Config.class, configRows, blackhole);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public void readConfigsRowMapper(Blackhole blackhole) {
+    readRows(rowMappingConverter, Config.class, configRows, blackhole);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public void writeUserBookmarksReflective(Blackhole blackhole) {
+    writeInserts(reflectiveConverter, blackhole);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public void writeUserBookmarksRowMapper(Blackhole blackhole) {
+    writeInserts(rowMappingConverter, blackhole);
+  }
+
+  private static void readRows(CassandraConverter converter, Class<?> type, List<Row> rows,
+      Blackhole blackhole) {
+    for (var row : rows) {
+      blackhole.consume(converter.read(type, row));
+    }
+  }
+
+  private void writeInserts(CassandraConverter converter, Blackhole blackhole) {
+    for (var userBookmark : userBookmarks) {
+      var insert = QueryBuilder.insertInto(userBookmarksTable);
+      converter.write(userBookmark, insert);
+      blackhole.consume(insert);
+    }
+  }
+}
@@ -0,0 +1,114 @@
+package com.findinpath.benchmark;
+
+import com.findinpath.aop.RepositoryTimerAspect;
+import com.findinpath.aop.RepositoryTimerFeatures;
+import com.findinpath.aop.StripedTimers;
+import com.findinpath.aop.TimerDistributions;
+import com.findinpath.aop.TimingSampling;
+import com.findinpath.model.Config;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.data.repository.Repository;
+
+/**
+ * Measures how the throughput of the timed <code>findById</code> calls of a no-op spring data
+ * repository scales with the number of threads calling it concurrently, when the calls are
+ * recorded on the regular Micrometer timers (<code>timer</code>) and on the striped timers
+ * (<code>striped</code>, see {@link StripedTimers}).
+ *
+ * The timers publish the default client side percentiles. The total throughput of all the
+ * threads is reported for each of the thread counts, e.g. :
+ *
+ * <pre>
+ * mvn -Pbenchmark verify -Djmh.benchmarks=StripedTimerScalingBenchmark -Djmh.args="-p registry=prometheus"
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StripedTimerScalingBenchmark {
+
+  private static final String KEY = "website";
+
+  @Param({"timer", "striped"})
+  private String backend;
+
+  @Param({"simple", "prometheus"})
+  private String registry;
+
+  private NoOpConfigRepository configRepository;
+
+  @Setup
+  public void setUp() {
+    var meterRegistry = RepositoryTimingSetup.createMeterRegistry(registry);
+    var stripedTimers = "striped".equals(backend)
+        ? new StripedTimers(Set.of("NoOpConfigRepository.findById"),
+        Runtime.getRuntime().availableProcessors())
+        : null;
+    var proxyFactory = new AspectJProxyFactory(new NoOpConfigRepositoryImpl());
+    proxyFactory.setInterfaces(NoOpConfigRepository.class, Repository.class);
+    proxyFactory.addAspect(new RepositoryTimerAspect(meterRegistry, TimingSampling.none(),
+        TimerDistributions.defaults(),
+        RepositoryTimerFeatures.builder().stripedTimers(stripedTimers).build()));
+    configRepository = proxyFactory.getProxy();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Optional<Config> threads01() {
+    return configRepository.findById(KEY);
+  }
+
+  @Benchmark
+  @Threads(2)
+  public Optional<Config> threads02() {
+    return configRepository.findById(KEY);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public Optional<Config> threads04() {
+    return configRepository.findById(KEY);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public Optional<Config> threads08() {
+    return configRepository.findById(KEY);
+  }
+
+  @Benchmark
+  @Threads(16)
+  public Optional<Config> threads16() {
+    return configRepository.findById(KEY);
+  }
+
+  @Benchmark
+  @Threads(32)
+  public Optional<Config> threads32() {
+    return configRepository.findById(KEY);
+  }
+
+  @Benchmark
+  @Threads(64)
+  public Optional<Config> threads64() {
+    return configRepository.findById(KEY);
+  }
+}
@@ -0,0 +1,85 @@
+package com.findinpath.benchmark;
+
+import com.findinpath.aop.RepositoryTimerAspect;
+import com.findinpath.aop.TimerDistributions;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * Reports the retained heap footprint of a single repository timer for each of the distribution
+ * statistics modes (see {@link TimerDistributions}), with both the simple and the prometheus
+ * meter registries.
+ *
+ * The footprint is computed through JOL as the growth of the object graph of the registry after
+ * registering {@link #TIMERS} timers, divided by the number of timers, so that the objects
+ * shared among the timers (e.g. : the clock) are not accounted for.
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.findinpath.benchmark.TimerFootprint -Djol.magicFieldOffset=true
+ * </pre>
+ *
+ * The <code>jol.magicFieldOffset</code> property is needed on Java 15+ for walking through the
+ * fields of the lambdas held by the registry.
+ */
+public final class TimerFootprint {
+
+  private static final int TIMERS = 100;
+
+  private static final Map<String, DistributionStatisticConfig> MODES = Map.of(
+      "none", DistributionStatisticConfig.NONE,
+      "percentiles", TimerDistributions.DEFAULT_DISTRIBUTION,
+      "histogram", DistributionStatisticConfig.builder()
+          .percentilesHistogram(true)
+          .build(),
+      "sla", DistributionStatisticConfig.builder()
+          .sla(Duration.ofMillis(5).toNanos(), Duration.ofMillis(20).toNanos(),
+              Duration.ofMillis(100).toNanos())
+          .build());
+
+  private TimerFootprint() {
+  }
+
+  public static void main(String[] args) {
+    System.out.printf("%-12s %-12s %12s%n", "registry", "mode", "bytes/timer");
+    for (var registry : new String[]{"simple", "prometheus"}) {
+      for (var mode : new String[]{"none", "sla", "histogram", "percentiles"}) {
+        System.out.printf("%-12s %-12s %12d%n", registry, mode,
+            measureFootprint(registry, MODES.get(mode)));
+      }
+    }
+  }
+
+  private static long measureFootprint(String registry,
+      DistributionStatisticConfig distribution) {
+    var meterRegistry = RepositoryTimingSetup.createMeterRegistry(registry);
+    // registers the meters shared among all the timers (e.g. : the internal registry maps)
+    registerTimer(meterRegistry, distribution, -1);
+    var sizeBefore = GraphLayout.parseInstance(meterRegistry).totalSize();
+
+    for (int i = 0; i < TIMERS; i++) {
+      registerTimer(meterRegistry, distribution, i);
+    }
+
+    var sizeAfter = GraphLayout.parseInstance(meterRegistry).totalSize();
+    return (sizeAfter - sizeBefore) / TIMERS;
+  }
+
+  private static void registerTimer(MeterRegistry meterRegistry,
+      DistributionStatisticConfig distribution, int index) {
+    var builder = Timer.builder(RepositoryTimerAspect.REPOSITORY_METRIC_NAME)
+        .tags("class", "FootprintRepository")
+        .tags("method", "find" + index)
+        .tags("successful", "true")
+        .tags("outcome", "successful")
+        .tags("source", "database");
+    TimerDistributions.apply(builder, distribution)
+        .register(meterRegistry)
+        .record(10, TimeUnit.MILLISECONDS);
+  }
+}
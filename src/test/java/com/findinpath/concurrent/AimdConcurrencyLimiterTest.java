@@ -0,0 +1,115 @@
+package com.findinpath.concurrent;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import io.micrometer.core.instrument.MockClock;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+public class AimdConcurrencyLimiterTest {
+
+  private static final Duration LATENCY_THRESHOLD = Duration.ofMillis(10);
+
+  private final MockClock clock = new MockClock();
+
+  @Test
+  public void operationsOverTheLimitAreRejected() {
+    var limiter = new AimdConcurrencyLimiter(clock, 2, 1, 10, LATENCY_THRESHOLD, 0.5,
+        Duration.ZERO);
+
+    var first = limiter.tryAcquire();
+    var second = limiter.tryAcquire();
+
+    assertThat(first, notNullValue());
+    assertThat(second, notNullValue());
+    assertThat(limiter.tryAcquire(), nullValue());
+    assertThat(limiter.getInFlight(), equalTo(2));
+    assertThat(limiter.getRejections(), equalTo(1L));
+
+    first.release(false);
+
+    assertThat(limiter.tryAcquire(), notNullValue());
+  }
+
+  @Test
+  public void limitGrowsWhileTheOperationsAreFast() {
+    var limiter = new AimdConcurrencyLimiter(clock, 2, 1, 3, LATENCY_THRESHOLD, 0.5,
+        Duration.ZERO);
+
+    for (var i = 0; i < 5; i++) {
+      var first = limiter.tryAcquire();
+      var second = limiter.tryAcquire();
+      clock.add(Duration.ofMillis(1));
+      first.release(false);
+      second.release(false);
+    }
+
+    assertThat(limiter.getLimit(), equalTo(3));
+    assertThat(limiter.getInFlight(), equalTo(0));
+  }
+
+  @Test
+  public void limitShrinksWhenTheOperationsAreSlowOrDropped() {
+    var limiter = new AimdConcurrencyLimiter(clock, 8, 1, 10, LATENCY_THRESHOLD, 0.5,
+        Duration.ZERO);
+
+    var slow = limiter.tryAcquire();
+    clock.add(LATENCY_THRESHOLD.multipliedBy(2));
+    slow.release(false);
+    assertThat(limiter.getLimit(), equalTo(4));
+
+    limiter.tryAcquire().release(true);
+    assertThat(limiter.getLimit(), equalTo(2));
+
+    for (var i = 0; i < 5; i++) {
+      limiter.tryAcquire().release(true);
+    }
+    assertThat(limiter.getLimit(), equalTo(1));
+  }
+
+  @Test
+  public void operationsOverTheLimitWaitForAReleasedPermit() throws Exception {
+    var limiter = new AimdConcurrencyLimiter(clock, 1, 1, 1, LATENCY_THRESHOLD, 0.5,
+        Duration.ofSeconds(10));
+    var permit = limiter.tryAcquire();
+
+    var queued = CompletableFuture.supplyAsync(limiter::tryAcquire);
+    Thread.sleep(50);
+    assertThat(queued.isDone(), equalTo(false));
+
+    permit.release(false);
+
+    assertThat(queued.get(5, TimeUnit.SECONDS), notNullValue());
+    assertThat(limiter.getRejections(), equalTo(0L));
+  }
+
+  @Test
+  public void queuedOperationsAreRejectedAfterTheMaximumQueueTime() {
+    var limiter = new AimdConcurrencyLimiter(clock, 1, 1, 1, LATENCY_THRESHOLD, 0.5,
+        Duration.ofMillis(20));
+    limiter.tryAcquire();
+
+    assertThat(limiter.tryAcquire(), nullValue());
+    assertThat(limiter.getRejections(), equalTo(1L));
+  }
+
+  @Test
+  public void optionalOperationsOverTheLimitAreSkippedWithoutWaiting() {
+    var limiter = new AimdConcurrencyLimiter(clock, 1, 1, 1, LATENCY_THRESHOLD, 0.5,
+        Duration.ofSeconds(10));
+    var permit = limiter.tryAcquireNow();
+
+    assertThat(permit, notNullValue());
+    assertThat(limiter.tryAcquireNow(), nullValue());
+    assertThat(limiter.getRejections(), equalTo(0L));
+
+    permit.release(false);
+
+    assertThat(limiter.tryAcquireNow(), notNullValue());
+  }
+}
@@ -0,0 +1,75 @@
+package com.findinpath.concurrent;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+public class BoundedPipelineTest {
+
+  @Test
+  public void operationsInFlightAreBounded() throws Exception {
+    var inFlight = new AtomicInteger();
+    var maxInFlight = new AtomicInteger();
+    var pending = new ArrayList<SettableListenableFuture<Integer>>();
+    var items = IntStream.range(0, 20).boxed().collect(Collectors.toList());
+
+    var result = BoundedPipeline.map(items, 3, item -> {
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      var future = new SettableListenableFuture<Integer>();
+      pending.add(future);
+      future.addCallback(value -> inFlight.decrementAndGet(), ex -> inFlight.decrementAndGet());
+      return future;
+    });
+
+    // complete the operations in reverse order of their start, one at a time
+    while (!result.isDone()) {
+      var future = pending.remove(pending.size() - 1);
+      future.set(items.get(pending.size()) * 2);
+    }
+
+    assertThat(maxInFlight.get(), lessThanOrEqualTo(3));
+    assertThat(result.get().size(), equalTo(items.size()));
+  }
+
+  @Test
+  public void resultsAreInTheOrderOfTheItems() throws Exception {
+    var items = IntStream.range(0, 10_000).boxed().collect(Collectors.toList());
+
+    // synchronously completed operations must not cause a stack overflow
+    var result = BoundedPipeline.map(items, 4, item -> {
+      var future = new SettableListenableFuture<Integer>();
+      future.set(item * 2);
+      return future;
+    });
+
+    assertThat(result.get(),
+        equalTo(items.stream().map(item -> item * 2).collect(Collectors.toList())));
+  }
+
+  @Test
+  public void failureStopsThePipeline() {
+    var started = new AtomicInteger();
+
+    var result = BoundedPipeline.map(List.of(1, 2, 3, 4), 1, item -> {
+      started.incrementAndGet();
+      var future = new SettableListenableFuture<Integer>();
+      future.setException(new IllegalStateException("failed"));
+      return future;
+    });
+
+    var exception = assertThrows(ExecutionException.class, result::get);
+    assertThat(exception.getCause(), instanceOf(IllegalStateException.class));
+    assertThat(started.get(), equalTo(1));
+  }
+}
@@ -0,0 +1,68 @@
+package com.findinpath.concurrent;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class HashedTimerWheelTest {
+
+  private final HashedTimerWheel timerWheel = new HashedTimerWheel("test-timer",
+      Duration.ofMillis(1), 8);
+
+  @AfterEach
+  public void tearDown() {
+    timerWheel.shutdown();
+  }
+
+  @Test
+  public void timeoutsExpireNotBeforeTheirDelay() throws Exception {
+    var expired = new CountDownLatch(1);
+    var startNanos = System.nanoTime();
+    var expiryNanos = new long[1];
+
+    var timeout = timerWheel.schedule(() -> {
+      expiryNanos[0] = System.nanoTime();
+      expired.countDown();
+    }, 20, TimeUnit.MILLISECONDS);
+
+    assertThat(expired.await(10, TimeUnit.SECONDS), equalTo(true));
+    assertThat(expiryNanos[0] - startNanos,
+        greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(20)));
+    assertThat(timeout.isExpired(), equalTo(true));
+    assertThat(timeout.cancel(), equalTo(false));
+  }
+
+  @Test
+  public void timeoutsSpanningSeveralRoundsOfTheWheelExpire() throws Exception {
+    var expired = new CountDownLatch(3);
+
+    // the wheel of 8 buckets of 1ms needs several rounds for these delays
+    timerWheel.schedule(expired::countDown, 5, TimeUnit.MILLISECONDS);
+    timerWheel.schedule(expired::countDown, 30, TimeUnit.MILLISECONDS);
+    timerWheel.schedule(expired::countDown, 0, TimeUnit.MILLISECONDS);
+
+    assertThat(expired.await(10, TimeUnit.SECONDS), equalTo(true));
+  }
+
+  @Test
+  public void cancelledTimeoutsDoNotExpire() throws Exception {
+    var expirations = new AtomicInteger();
+    var expired = new CountDownLatch(1);
+
+    var timeout = timerWheel.schedule(expirations::incrementAndGet, 10, TimeUnit.MILLISECONDS);
+    timerWheel.schedule(expired::countDown, 30, TimeUnit.MILLISECONDS);
+
+    assertThat(timeout.cancel(), equalTo(true));
+    assertThat(expired.await(10, TimeUnit.SECONDS), equalTo(true));
+    assertThat(expirations.get(), equalTo(0));
+    assertThat(timeout.isCancelled(), equalTo(true));
+    assertThat(timeout.isExpired(), equalTo(false));
+  }
+}
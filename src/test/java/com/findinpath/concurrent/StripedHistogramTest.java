@@ -0,0 +1,76 @@
+package com.findinpath.concurrent;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+public class StripedHistogramTest {
+
+  @Test
+  public void bucketsResolveTheValuesWithinTheirPrecision() {
+    var previousIndex = -1;
+    for (long value = 0; value < (1L << 16); value++) {
+      var index = StripedHistogram.bucketIndex(value);
+      var highestValue = StripedHistogram.highestValue(index);
+
+      assertThat(index, greaterThanOrEqualTo(previousIndex));
+      assertThat(highestValue, greaterThanOrEqualTo(value));
+      assertThat(highestValue - value, lessThanOrEqualTo(value / StripedHistogram.SUB_BUCKETS));
+      previousIndex = index;
+    }
+    assertThat(StripedHistogram.bucketIndex(Long.MAX_VALUE),
+        equalTo(StripedHistogram.BUCKETS - 1));
+  }
+
+  @Test
+  public void concurrentRecordingsAreAllMerged() throws Exception {
+    var histogram = new StripedHistogram(4);
+    var executor = Executors.newFixedThreadPool(8);
+    var recorders = new ArrayList<CompletableFuture<Void>>();
+    for (int thread = 0; thread < 8; thread++) {
+      recorders.add(CompletableFuture.runAsync(() -> {
+        for (int value = 1; value <= 10_000; value++) {
+          histogram.record(value);
+        }
+      }, executor));
+    }
+    for (var recorder : recorders) {
+      recorder.get(10, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+
+    var snapshot = histogram.snapshot();
+    assertThat(snapshot.count(), equalTo(80_000L));
+    assertThat(snapshot.total(), equalTo(8 * 10_000L * 10_001L / 2));
+    assertThat(histogram.max(), equalTo(10_000L));
+    assertThat((double) snapshot.valueAtPercentile(0.5), closeTo(5_000, 5_000 / 8.0));
+    assertThat(histogram.count(), equalTo(snapshot.count()));
+    assertThat(histogram.total(), equalTo(snapshot.total()));
+  }
+
+  @Test
+  public void snapshotsSubtractTheEarlierCounts() {
+    var histogram = new StripedHistogram(2);
+    histogram.record(1_000_000);
+    var earlier = histogram.snapshot();
+    assertThat(histogram.resetMax(), equalTo(1_000_000L));
+
+    histogram.record(10);
+    histogram.record(20);
+
+    var delta = histogram.snapshot().minus(earlier);
+    assertThat(delta.count(), equalTo(2L));
+    assertThat(delta.total(), equalTo(30L));
+    assertThat(delta.valueAtPercentile(1.0), lessThanOrEqualTo(20L + 20L / 8));
+    assertThat(histogram.max(), equalTo(20L));
+    assertThat(StripedHistogram.Snapshot.empty().valueAtPercentile(0.99), equalTo(0L));
+  }
+}
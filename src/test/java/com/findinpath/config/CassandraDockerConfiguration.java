@@ -3,8 +3,12 @@ package com.findinpath.config;
 
 import com.datastax.driver.core.Cluster;
 import com.datastax.driver.core.Session;
+import com.findinpath.aop.StatementCapture;
+import com.findinpath.aop.TimedMappingCassandraConverter;
+import com.findinpath.mapping.RowMappingCassandraConverter;
 import org.cassandraunit.CQLDataLoader;
 import org.cassandraunit.dataset.cql.ClassPathCQLDataSet;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.cassandra.config.CassandraClusterFactoryBean;
@@ -15,7 +19,6 @@ import org.springframework.data.cassandra.core.AsyncCassandraTemplate;
 import org.springframework.data.cassandra.core.CassandraOperations;
 import org.springframework.data.cassandra.core.CassandraTemplate;
 import org.springframework.data.cassandra.core.convert.CassandraConverter;
-import org.springframework.data.cassandra.core.convert.MappingCassandraConverter;
 import org.springframework.data.cassandra.core.mapping.CassandraMappingContext;
 import org.testcontainers.containers.CassandraContainer;
 
@@ -26,6 +29,9 @@ public class CassandraDockerConfiguration {
   private static final String KEYSPACE = "demo";
   private static final String CASSANDRA_INIT_SCRIPT = "demo.cql";
 
+  @Value("${cassandra.row-mappers.enabled:false}")
+  private boolean rowMappersEnabled;
+
   @Bean
   public CassandraContainer cassandraContainer() {
     var cassandraContainer = new CassandraContainer(CassandraContainer.IMAGE
@@ -58,7 +64,8 @@ public class CassandraDockerConfiguration {
 
   @Bean
   public CassandraConverter cassandraConverter() {
-    return new MappingCassandraConverter(mappingContext());
+    return rowMappersEnabled ? new RowMappingCassandraConverter(mappingContext())
+        : new TimedMappingCassandraConverter(mappingContext());
   }
 
   @Bean
@@ -78,13 +85,17 @@ public class CassandraDockerConfiguration {
   @Bean
   public CassandraOperations cassandraTemplate(
       CassandraSessionFactoryBean cassandraSessionFactoryBean) {
-    return new CassandraTemplate(cassandraSessionFactoryBean.getObject());
+    return new CassandraTemplate(
+        StatementCapture.capturing(cassandraSessionFactoryBean.getObject()),
+        cassandraConverter());
   }
 
   @Bean
   public AsyncCassandraOperations asyncCassandraOperations(
       CassandraSessionFactoryBean cassandraSessionFactoryBean) {
-    return new AsyncCassandraTemplate(cassandraSessionFactoryBean.getObject());
+    return new AsyncCassandraTemplate(
+        StatementCapture.capturing(cassandraSessionFactoryBean.getObject()),
+        cassandraConverter());
   }
 
   private void setupSchema(CassandraContainer cassandraContainer) {
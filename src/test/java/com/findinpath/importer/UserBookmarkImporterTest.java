@@ -0,0 +1,194 @@
+package com.findinpath.importer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.datastax.driver.core.utils.UUIDs;
+import com.findinpath.model.UserBookmark;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+public class UserBookmarkImporterTest {
+
+  private SimpleMeterRegistry meterRegistry;
+  private ScheduledExecutorService database;
+  private ConcurrentLinkedQueue<List<UserBookmark>> writtenBatches;
+  private AtomicInteger inFlight;
+  private AtomicInteger maxInFlight;
+
+  @BeforeEach
+  public void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    database = Executors.newScheduledThreadPool(4);
+    writtenBatches = new ConcurrentLinkedQueue<>();
+    inFlight = new AtomicInteger();
+    maxInFlight = new AtomicInteger();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    database.shutdownNow();
+  }
+
+  @Test
+  public void csvBookmarksAreWrittenInPartitionBatches() throws Exception {
+    var users = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+    var csv = new StringBuilder("user_id,timestamp,url\n");
+    for (int i = 0; i < 1000; i++) {
+      csv.append(users.get(i % users.size())).append(',').append(UUIDs.timeBased())
+          .append(",\"https://www.findinpath.com/?a=1,b=").append(i).append("\"\n");
+    }
+    var importer = createImporter(this::writeBatch, 5);
+
+    var result = importer.importBookmarks(new StringReader(csv.toString()), ImportFormat.CSV);
+
+    assertThat(result.getImportedRows(), equalTo(1000L));
+    assertThat(result.getRejectedLines(), equalTo(0L));
+    assertThat(maxInFlight.get(), lessThanOrEqualTo(5));
+    for (var batch : writtenBatches) {
+      assertThat(batch.size(), lessThanOrEqualTo(20));
+      assertThat(batch.stream().map(userBookmark -> userBookmark.getPrimaryKey().getUserId())
+          .distinct().count(), equalTo(1L));
+    }
+    assertThat(writtenBatches.stream().mapToInt(List::size).sum(), equalTo(1000));
+    assertThat(getRows("imported"), equalTo(1000.0));
+    assertThat(meterRegistry.get(UserBookmarkImporter.STAGE_METRIC_NAME).tag("stage", "write")
+        .timer().count(), equalTo(result.getBatches()));
+  }
+
+  @Test
+  public void malformedNdjsonLinesAreRejected() throws Exception {
+    var userId = UUID.randomUUID();
+    var ndjson = "{\"user_id\":\"" + userId + "\",\"timestamp\":\"" + UUIDs.timeBased()
+        + "\",\"url\":\"https://www.findinpath.com\"}\n"
+        + "{\"user_id\":\"" + userId + "\"}\n"
+        + "not json\n"
+        + "\n";
+    var importer = createImporter(this::writeBatch, 5);
+
+    var result = importer.importBookmarks(new StringReader(ndjson), ImportFormat.NDJSON);
+
+    assertThat(result.getImportedRows(), equalTo(1L));
+    assertThat(result.getRejectedLines(), equalTo(2L));
+    assertThat(getRows("rejected"), equalTo(2.0));
+    assertThat(writtenBatches.stream().flatMap(List::stream).map(UserBookmark::getUrl)
+        .collect(Collectors.toList()), containsInAnyOrder("https://www.findinpath.com"));
+  }
+
+  @Test
+  public void transientFailuresAreRetried() throws Exception {
+    var attempts = new AtomicInteger();
+    var importer = createImporter(batch -> attempts.incrementAndGet() <= 2
+        ? failedBatch(new QueryTimeoutException("timed out")) : writeBatch(batch), 5);
+
+    var result = importer.importBookmarks(new StringReader(csvLine()), ImportFormat.CSV);
+
+    assertThat(result.getImportedRows(), equalTo(1L));
+    assertThat(result.getRetries(), equalTo(2L));
+    assertThat(meterRegistry.get(UserBookmarkImporter.RETRIES_METRIC_NAME).counter().count(),
+        equalTo(2.0));
+    assertThat(meterRegistry.get(UserBookmarkImporter.STAGE_METRIC_NAME).tag("stage", "write")
+        .timer().count(), equalTo(3L));
+  }
+
+  @Test
+  public void chunksReadBeforeAReadingFailureAreWritten() {
+    var csv = new StringBuilder();
+    for (int i = 0; i < 64; i++) {
+      csv.append(csvLine());
+    }
+    var lines = new StringReader(csv.toString());
+    var failingReader = new Reader() {
+      @Override
+      public int read(char[] buffer, int offset, int length) throws IOException {
+        var read = lines.read(buffer, offset, length);
+        if (read < 0) {
+          throw new IOException("disconnected");
+        }
+        return read;
+      }
+
+      @Override
+      public void close() {
+      }
+    };
+    var attempts = new AtomicInteger();
+    var importer = createImporter(batch -> attempts.incrementAndGet() == 1
+        ? failedBatch(new QueryTimeoutException("timed out")) : writeBatch(batch), 5);
+
+    assertThrows(IOException.class,
+        () -> importer.importBookmarks(failingReader, ImportFormat.CSV));
+
+    assertThat(getRows("imported"), equalTo(64.0));
+    assertThat(meterRegistry.get(UserBookmarkImporter.RETRIES_METRIC_NAME).counter().count(),
+        equalTo(1.0));
+  }
+
+  @Test
+  public void nonTransientFailuresAreNotRetried() throws Exception {
+    var importer = createImporter(
+        batch -> failedBatch(new InvalidDataAccessApiUsageException("invalid")), 5);
+
+    var result = importer.importBookmarks(new StringReader(csvLine()), ImportFormat.CSV);
+
+    assertThat(result.getImportedRows(), equalTo(0L));
+    assertThat(result.getFailedRows(), equalTo(1L));
+    assertThat(result.getRetries(), equalTo(0L));
+    assertThat(getRows("failed"), equalTo(1.0));
+  }
+
+  private UserBookmarkImporter createImporter(
+      Function<List<UserBookmark>, ListenableFuture<?>> batchWriter, int maxBatchesInFlight) {
+    return new UserBookmarkImporter(batchWriter, meterRegistry, 64, 4, 20, maxBatchesInFlight,
+        3, Duration.ofMillis(1));
+  }
+
+  private ListenableFuture<?> writeBatch(List<UserBookmark> batch) {
+    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+    var result = new SettableListenableFuture<Boolean>();
+    database.schedule(() -> {
+      writtenBatches.add(new ArrayList<>(batch));
+      inFlight.decrementAndGet();
+      result.set(true);
+    }, 1, TimeUnit.MILLISECONDS);
+    return result;
+  }
+
+  private static ListenableFuture<?> failedBatch(Exception exception) {
+    var result = new SettableListenableFuture<Boolean>();
+    result.setException(exception);
+    return result;
+  }
+
+  private static String csvLine() {
+    return UUID.randomUUID() + "," + UUIDs.timeBased() + ",https://www.findinpath.com\n";
+  }
+
+  private double getRows(String outcome) {
+    return meterRegistry.get(UserBookmarkImporter.ROWS_METRIC_NAME).tag("outcome", outcome)
+        .counter().count();
+  }
+}
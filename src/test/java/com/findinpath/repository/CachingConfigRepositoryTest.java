@@ -0,0 +1,198 @@
+package com.findinpath.repository;
+
+import static com.findinpath.Utils.getExactlyOneTimer;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import com.findinpath.aop.RepositoryTimerAspect;
+import com.findinpath.aop.Source;
+import com.findinpath.model.Config;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+/**
+ * Verifies the behaviour of the {@link CachingConfigRepository} in front of an in-memory
+ * {@link ConfigRepository}, timed by the {@link RepositoryTimerAspect} just like the spring data
+ * repository would be.
+ */
+public class CachingConfigRepositoryTest {
+
+  private SimpleMeterRegistry meterRegistry;
+  private InMemoryConfigRepository target;
+  private AtomicLong nanos;
+  private CachingConfigRepository cachingConfigRepository;
+
+  @BeforeEach
+  public void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    target = new InMemoryConfigRepository();
+    nanos = new AtomicLong();
+    var repositoryTimerAspect = new RepositoryTimerAspect(meterRegistry);
+    var proxyFactory = new AspectJProxyFactory(target);
+    proxyFactory.setInterfaces(ConfigRepository.class,
+        org.springframework.data.repository.Repository.class);
+    proxyFactory.addAspect(repositoryTimerAspect);
+    ConfigRepository configRepository = proxyFactory.getProxy();
+
+    cachingConfigRepository = new CachingConfigRepository(configRepository,
+        repositoryTimerAspect, meterRegistry, 100, Duration.ofMinutes(10), Duration.ofMinutes(1),
+        Duration.ofSeconds(10), nanos::get, Runnable::run);
+  }
+
+  @Test
+  public void cacheHitsAreTimedSeparatelyFromDatabaseRoundTrips() {
+    target.save(createConfig("key", "value"));
+
+    for (int i = 0; i < 3; i++) {
+      assertThat(cachingConfigRepository.findById("key").map(Config::getValue),
+          equalTo(Optional.of("value")));
+    }
+
+    assertThat(target.findByIdCalls.get(), equalTo(1));
+    assertThat(getFindByIdTimer(Source.DATABASE).count(), equalTo(1L));
+    assertThat(getFindByIdTimer(Source.CACHE).count(), equalTo(2L));
+    assertThat(meterRegistry.get("cache.gets").tags("cache", CachingConfigRepository.CACHE_NAME,
+        "result", "hit").functionCounter().count(), equalTo(2.0));
+  }
+
+  @Test
+  public void missingEntriesAreCachedForTheNegativeExpiryOnly() {
+    assertThat(cachingConfigRepository.findById("missing"), equalTo(Optional.empty()));
+    assertThat(cachingConfigRepository.findById("missing"), equalTo(Optional.empty()));
+    assertThat(target.findByIdCalls.get(), equalTo(1));
+
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(11));
+    target.save(createConfig("missing", "found"));
+
+    assertThat(cachingConfigRepository.findById("missing").map(Config::getValue),
+        equalTo(Optional.of("found")));
+    assertThat(target.findByIdCalls.get(), equalTo(2));
+  }
+
+  @Test
+  public void savedAndDeletedEntriesAreInvalidated() {
+    cachingConfigRepository.save(createConfig("key", "first"));
+    assertThat(cachingConfigRepository.findById("key").map(Config::getValue),
+        equalTo(Optional.of("first")));
+
+    cachingConfigRepository.save(createConfig("key", "second"));
+    assertThat(cachingConfigRepository.findById("key").map(Config::getValue),
+        equalTo(Optional.of("second")));
+
+    cachingConfigRepository.deleteById("key");
+    assertThat(cachingConfigRepository.findById("key"), equalTo(Optional.empty()));
+    assertThat(target.findByIdCalls.get(), equalTo(3));
+  }
+
+  @Test
+  public void entriesAreRefreshedAheadOfTheirExpiry() {
+    target.save(createConfig("key", "first"));
+    cachingConfigRepository.findById("key");
+
+    // updated behind the back of the cache
+    target.save(createConfig("key", "second"));
+    nanos.addAndGet(TimeUnit.MINUTES.toNanos(2));
+
+    // the stale entry is still served, while being reloaded
+    assertThat(cachingConfigRepository.findById("key").map(Config::getValue),
+        equalTo(Optional.of("first")));
+    assertThat(cachingConfigRepository.findById("key").map(Config::getValue),
+        equalTo(Optional.of("second")));
+    assertThat(target.findByIdCalls.get(), equalTo(2));
+  }
+
+  private Timer getFindByIdTimer(Source source) {
+    return getExactlyOneTimer(meterRegistry.getMeters(),
+        RepositoryTimerAspect.REPOSITORY_METRIC_NAME,
+        Tag.of("class", "ConfigRepository"),
+        Tag.of("method", "findById"),
+        Tag.of("source", source.getTagValue()));
+  }
+
+  private static Config createConfig(String key, String value) {
+    var config = new Config();
+    config.setKey(key);
+    config.setValue(value);
+    return config;
+  }
+
+  public static class InMemoryConfigRepository implements ConfigRepository {
+
+    private final ConcurrentMap<String, Config> configs = new ConcurrentHashMap<>();
+    private final AtomicInteger findByIdCalls = new AtomicInteger();
+
+    @Override
+    public <S extends Config> S save(S entity) {
+      configs.put(entity.getKey(), entity);
+      return entity;
+    }
+
+    @Override
+    public <S extends Config> Iterable<S> saveAll(Iterable<S> entities) {
+      entities.forEach(this::save);
+      return entities;
+    }
+
+    @Override
+    public Optional<Config> findById(String key) {
+      findByIdCalls.incrementAndGet();
+      return Optional.ofNullable(configs.get(key));
+    }
+
+    @Override
+    public boolean existsById(String key) {
+      return configs.containsKey(key);
+    }
+
+    @Override
+    public Iterable<Config> findAll() {
+      return configs.values();
+    }
+
+    @Override
+    public Iterable<Config> findAllById(Iterable<String> keys) {
+      return StreamSupport.stream(keys.spliterator(), false)
+          .map(configs::get)
+          .filter(config -> config != null)
+          .collect(Collectors.toList());
+    }
+
+    @Override
+    public long count() {
+      return configs.size();
+    }
+
+    @Override
+    public void deleteById(String key) {
+      configs.remove(key);
+    }
+
+    @Override
+    public void delete(Config entity) {
+      configs.remove(entity.getKey());
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Config> entities) {
+      entities.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+      configs.clear();
+    }
+  }
+}
@@ -0,0 +1,116 @@
+package com.findinpath.repository;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.datastax.driver.core.utils.UUIDs;
+import com.findinpath.model.UserBookmark;
+import com.findinpath.model.UserBookmarkKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+public class UserBookmarkFanOutRepositoryTest {
+
+  private static final int MAX_QUERIES_IN_FLIGHT = 2;
+
+  private UserBookmarkRepository userBookmarkRepository;
+  private List<SettableListenableFuture<List<UserBookmark>>> queries;
+  private UserBookmarkFanOutRepository fanOutRepository;
+
+  @BeforeEach
+  public void setUp() {
+    userBookmarkRepository = mock(UserBookmarkRepository.class);
+    queries = new ArrayList<>();
+    when(userBookmarkRepository.findLatestBookmarksAsync(any(UUID.class), anyInt()))
+        .thenAnswer(invocation -> {
+          var query = new SettableListenableFuture<List<UserBookmark>>();
+          queries.add(query);
+          return query;
+        });
+    fanOutRepository = new UserBookmarkFanOutRepository(userBookmarkRepository,
+        MAX_QUERIES_IN_FLIGHT);
+  }
+
+  @Test
+  public void partitionQueriesAreBoundedByTheMaximumInFlight() throws Exception {
+    var userIds = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+
+    var result = fanOutRepository.findLatestBookmarksByUserAsync(userIds, 10);
+
+    assertThat(queries.size(), equalTo(MAX_QUERIES_IN_FLIGHT));
+    var bookmarks = new ArrayList<List<UserBookmark>>();
+    for (var i = 0; i < userIds.size(); i++) {
+      var userBookmarks = List.of(bookmark(userIds.get(i), i));
+      bookmarks.add(userBookmarks);
+      queries.get(i).set(userBookmarks);
+    }
+
+    Map<UUID, List<UserBookmark>> bookmarksByUser = result.get();
+    assertThat(new ArrayList<>(bookmarksByUser.keySet()), equalTo(userIds));
+    assertThat(new ArrayList<>(bookmarksByUser.values()), equalTo(bookmarks));
+  }
+
+  @Test
+  public void duplicateUsersAreQueriedOnce() {
+    var userId = UUID.randomUUID();
+
+    fanOutRepository.findLatestBookmarksByUserAsync(List.of(userId, userId), 10);
+
+    verify(userBookmarkRepository, times(1)).findLatestBookmarksAsync(userId, 10);
+  }
+
+  @Test
+  public void mergedBookmarksAreOrderedByTimestampUpToTheLimit() throws Exception {
+    var firstUserId = UUID.randomUUID();
+    var secondUserId = UUID.randomUUID();
+
+    var result = fanOutRepository
+        .findMergedLatestBookmarksAsync(List.of(firstUserId, secondUserId), 3, 4);
+    queries.get(0).set(List.of(bookmark(firstUserId, 50), bookmark(firstUserId, 30),
+        bookmark(firstUserId, 10)));
+    queries.get(1).set(List.of(bookmark(secondUserId, 40), bookmark(secondUserId, 20)));
+
+    assertThat(timestamps(result.get()), contains(50L, 40L, 30L, 20L));
+  }
+
+  @Test
+  public void failingPartitionQueryFailsTheFanOut() {
+    var userIds = List.of(UUID.randomUUID(), UUID.randomUUID());
+
+    var result = fanOutRepository.findLatestBookmarksByUserAsync(userIds, 10);
+    queries.get(0).setException(new QueryTimeoutException("timeout"));
+
+    var exception = assertThrows(ExecutionException.class, result::get);
+    assertThat(exception.getCause(), instanceOf(QueryTimeoutException.class));
+  }
+
+  private static UserBookmark bookmark(UUID userId, long timestampMillis) {
+    var userBookmark = new UserBookmark();
+    userBookmark.setPrimaryKey(new UserBookmarkKey(userId, UUIDs.startOf(timestampMillis)));
+    userBookmark.setUrl("https://findinpath.com/" + timestampMillis);
+    return userBookmark;
+  }
+
+  private static List<Long> timestamps(List<UserBookmark> userBookmarks) {
+    return userBookmarks.stream()
+        .map(userBookmark -> UUIDs.unixTimestamp(userBookmark.getPrimaryKey().getTimestamp()))
+        .collect(Collectors.toList());
+  }
+}